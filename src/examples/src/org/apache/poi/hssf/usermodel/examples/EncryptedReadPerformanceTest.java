@@ -0,0 +1,143 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.usermodel.examples;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.poi.hssf.record.RecordFactoryInputStream;
+import org.apache.poi.hssf.record.crypto.Biff8EncryptionKey;
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+
+/**
+ * Compares the time needed to read an RC4 encrypted workbook with the time needed
+ * to read the same workbook unencrypted.
+ * <p>
+ * A workbook with the given number of rows and columns is written once in plain and once
+ * with a password.  Both versions are then read repeatedly, on the record level and
+ * as {@link HSSFWorkbook}, and the best time of each is reported.
+ */
+public class EncryptedReadPerformanceTest {
+    private static final String PASSWORD = "secret";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) usage("need three command arguments");
+
+        int rows = parseInt(args[0], "Failed to parse rows value as integer");
+        int cols = parseInt(args[1], "Failed to parse cols value as integer");
+        int iterations = parseInt(args[2], "Failed to parse iterations value as integer");
+
+        byte[] plain = createWorkbook(rows, cols, null);
+        byte[] encrypted = createWorkbook(rows, cols, PASSWORD);
+
+        long[] best = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+        for (int i = 0; i < iterations; i++) {
+            best[0] = Math.min(best[0], readRecords(plain, null));
+            best[1] = Math.min(best[1], readRecords(encrypted, PASSWORD));
+            best[2] = Math.min(best[2], readWorkbook(plain, null));
+            best[3] = Math.min(best[3], readWorkbook(encrypted, PASSWORD));
+        }
+
+        System.out.println("Workbook size: " + plain.length + " bytes plain, " + encrypted.length + " bytes encrypted");
+        System.out.println("Records:  plain " + best[0] / 1000000 + " ms, encrypted " + best[1] / 1000000 + " ms");
+        System.out.println("Workbook: plain " + best[2] / 1000000 + " ms, encrypted " + best[3] / 1000000 + " ms");
+    }
+
+    private static byte[] createWorkbook(int rows, int cols, String password) throws IOException {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        try {
+            HSSFSheet sheet = wb.createSheet("Main Sheet");
+            for (int r = 0; r < rows; r++) {
+                HSSFRow row = sheet.createRow(r);
+                for (int c = 0; c < cols; c++) {
+                    if (c % 3 == 0) {
+                        row.createCell(c).setCellValue("Text " + (r % 1000) + "/" + c);
+                    } else {
+                        row.createCell(c).setCellValue(r * cols + c + 0.5);
+                    }
+                }
+            }
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            Biff8EncryptionKey.setCurrentUserPassword(password);
+            try {
+                wb.write(bos);
+            } finally {
+                Biff8EncryptionKey.setCurrentUserPassword(null);
+            }
+            return bos.toByteArray();
+        } finally {
+            wb.close();
+        }
+    }
+
+    /**
+     * @return the time needed to decode all records of the workbook stream
+     */
+    private static long readRecords(byte[] data, String password) throws IOException {
+        NPOIFSFileSystem fs = new NPOIFSFileSystem(new ByteArrayInputStream(data));
+        Biff8EncryptionKey.setCurrentUserPassword(password);
+        try {
+            long start = System.nanoTime();
+            InputStream is = fs.createDocumentInputStream("Workbook");
+            RecordFactoryInputStream rfis = new RecordFactoryInputStream(is, false);
+            while (rfis.nextRecord() != null) {
+                // just decode
+            }
+            return System.nanoTime() - start;
+        } finally {
+            Biff8EncryptionKey.setCurrentUserPassword(null);
+            fs.close();
+        }
+    }
+
+    /**
+     * @return the time needed to open the workbook
+     */
+    private static long readWorkbook(byte[] data, String password) throws IOException {
+        Biff8EncryptionKey.setCurrentUserPassword(password);
+        try {
+            long start = System.nanoTime();
+            HSSFWorkbook wb = new HSSFWorkbook(new ByteArrayInputStream(data));
+            long time = System.nanoTime() - start;
+            wb.close();
+            return time;
+        } finally {
+            Biff8EncryptionKey.setCurrentUserPassword(null);
+        }
+    }
+
+    static void usage(String message) {
+        System.err.println(message);
+        System.err.println("usage: java EncryptedReadPerformanceTest rows cols iterations");
+        System.exit(1);
+    }
+
+    static int parseInt(String value, String msg) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            usage(msg);
+        }
+        return 0;
+    }
+}
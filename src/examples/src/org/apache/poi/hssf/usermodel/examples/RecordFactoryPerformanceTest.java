@@ -0,0 +1,94 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.usermodel.examples;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordFactory;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.util.IOUtils;
+
+/**
+ * Measures the time needed by {@link RecordFactory#createRecords(InputStream)} to decode
+ * the workbook stream of an existing .xls file, e.g. <code>test-data/spreadsheet/44593.xls</code>.
+ * <p>
+ * The stream is read into memory once and then decoded repeatedly, so the file system
+ * isn't measured.  The best time is reported, to compare the runs before and after
+ * a change of the record factory.
+ */
+public class RecordFactoryPerformanceTest {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) usage("need two command arguments");
+
+        File file = new File(args[0]);
+        if (!file.isFile()) usage("File not found: " + file);
+        int iterations = parseInt(args[1], "Failed to parse iterations value as integer");
+
+        byte[] stream = readWorkbookStream(file);
+
+        long best = Long.MAX_VALUE;
+        int records = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            List<Record> list = RecordFactory.createRecords(new ByteArrayInputStream(stream));
+            best = Math.min(best, System.nanoTime() - start);
+            records = list.size();
+        }
+
+        System.out.println("Workbook stream: " + stream.length + " bytes, " + records + " records");
+        System.out.println("createRecords: " + best / 1000 + " us");
+    }
+
+    private static byte[] readWorkbookStream(File file) throws IOException {
+        NPOIFSFileSystem fs = new NPOIFSFileSystem(file, true);
+        try {
+            DirectoryNode root = fs.getRoot();
+            InputStream is = root.createDocumentInputStream(HSSFWorkbook.getWorkbookDirEntryName(root));
+            try {
+                return IOUtils.toByteArray(is);
+            } finally {
+                is.close();
+            }
+        } finally {
+            fs.close();
+        }
+    }
+
+    static void usage(String message) {
+        System.err.println(message);
+        System.err.println("usage: java RecordFactoryPerformanceTest file iterations");
+        System.exit(1);
+    }
+
+    static int parseInt(String value, String msg) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            usage(msg);
+        }
+        return 0;
+    }
+}
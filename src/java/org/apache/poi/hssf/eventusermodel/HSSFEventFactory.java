@@ -63,26 +63,43 @@ public class HSSFEventFactory {
     * @throws IOException if the workbook contained errors 
     */
     public void processWorkbookEvents(HSSFRequest req, DirectoryNode dir) throws IOException {
+        InputStream in = dir.createDocumentInputStream(getWorkbookDirEntryName(dir));
+        try {
+            processEvents(req, in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Processes a file into raw record events, see {@link #processRawEvents(HSSFRequest, InputStream)}.
+     *
+     * @param req an Instance of HSSFRequest which has your registered raw listeners
+     * @param dir  a DirectoryNode containing your workbook
+     *
+     * @throws IOException if the workbook contained errors
+     *
+     * @since 3.17-beta1
+     */
+    public void processWorkbookRawEvents(HSSFRequest req, DirectoryNode dir) throws IOException {
+        InputStream in = dir.createDocumentInputStream(getWorkbookDirEntryName(dir));
+        try {
+            processRawEvents(req, in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static String getWorkbookDirEntryName(DirectoryNode dir) {
         // some old documents have "WORKBOOK" or "BOOK"
-        String name = null;
         Set<String> entryNames = dir.getEntryNames();
         for (String potentialName : WORKBOOK_DIR_ENTRY_NAMES) {
             if (entryNames.contains(potentialName)) {
-                name = potentialName;
-                break;
+                return potentialName;
             }
         }
         // If in doubt, go for the default
-        if (name == null) {
-            name = WORKBOOK_DIR_ENTRY_NAMES[0];
-        }
-
-        InputStream in = dir.createDocumentInputStream(name);
-        try {
-            processEvents(req, in);
-        } finally {
-            in.close();
-        }
+        return WORKBOOK_DIR_ENTRY_NAMES[0];
     }
 
    /**
@@ -155,6 +172,28 @@ public class HSSFEventFactory {
 		return genericProcessEvents(req, in);
 	}
 
+	/**
+	 * Processes a DocumentInputStream into raw record events.
+	 *
+	 * Only the {@link HSSFRawRecordListener}s of the request are called.  The records are
+	 * filtered by their sid before anything else is done with them, records without a
+	 * registered listener are skipped without being decoded or joined with their
+	 * {@link ContinueRecord}s.  Any decoding is left to the listeners, see
+	 * {@link RawRecordInputStream#decode()}.
+	 *
+	 * @see org.apache.poi.poifs.filesystem.POIFSFileSystem#createDocumentInputStream(String)
+	 * @param req an Instance of HSSFRequest which has your registered raw listeners
+	 * @param in  a DocumentInputStream obtained from POIFS's POIFSFileSystem object
+	 *
+	 * @since 3.17-beta1
+	 */
+	public void processRawEvents(HSSFRequest req, InputStream in) {
+		RawRecordInputStream recordStream = new RawRecordInputStream(in);
+		while (recordStream.nextRecord()) {
+			req.processRawRecord(recordStream);
+		}
+	}
+
 	/**
 	 * Processes a DocumentInputStream into essentially Record events.
 	 *
@@ -0,0 +1,45 @@
+
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.eventusermodel;
+
+import org.apache.poi.hssf.record.RawRecordInputStream;
+
+/**
+ * Interface for the raw record mode of the HSSFEventFactory.  Listeners are registered
+ * with the HSSFRequest for the record sids they are interested in and receive these
+ * records undecoded.  Records of other sids are skipped without being read or decoded.
+ *
+ * @see org.apache.poi.hssf.eventusermodel.HSSFEventFactory#processRawEvents(HSSFRequest, java.io.InputStream)
+ * @see org.apache.poi.hssf.eventusermodel.HSSFRequest#addRawListener(HSSFRawRecordListener, short)
+ *
+ * @since 3.17-beta1
+ */
+public interface HSSFRawRecordListener {
+
+    /**
+     * process a raw HSSF record.  The record data can be fetched via
+     * {@link RawRecordInputStream#getData()} and a typed record can be created
+     * via {@link RawRecordInputStream#decode()}.  The stream must not be
+     * advanced by the listener and its data is only valid during this call.
+     *
+     * @param sid the sid of the record
+     * @param record the stream positioned on the record
+     */
+    void processRawRecord(short sid, RawRecordInputStream record);
+}
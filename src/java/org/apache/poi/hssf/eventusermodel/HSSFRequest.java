@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 
+import org.apache.poi.hssf.record.RawRecordInputStream;
 import org.apache.poi.hssf.record.Record;
 import org.apache.poi.hssf.record.RecordFactory;
 
@@ -35,10 +36,12 @@ import org.apache.poi.hssf.record.RecordFactory;
  */
 public class HSSFRequest {
 	private final Map<Short, List<HSSFListener>> _records;
+	private final Map<Short, List<HSSFRawRecordListener>> _rawRecords;
 
 	/** Creates a new instance of HSSFRequest */
 	public HSSFRequest() {
 		_records = new HashMap<Short, List<HSSFListener>>(50); // most folks won't listen for too many of these
+		_rawRecords = new HashMap<Short, List<HSSFRawRecordListener>>();
 	}
 
 	/**
@@ -82,6 +85,49 @@ public class HSSFRequest {
 		}
 	}
 
+	/**
+	 * add a raw record listener for a particular record type.  Raw listeners are only
+	 * called by the raw record mode of the HSSFEventFactory, which doesn't decode the records.
+	 *
+	 * @see HSSFEventFactory#processRawEvents(HSSFRequest, java.io.InputStream)
+	 *
+	 * @param lsnr for the event
+	 * @param sid identifier for the record type, as found in the stream
+	 *
+	 * @since 3.17-beta1
+	 */
+	public void addRawListener(HSSFRawRecordListener lsnr, short sid) {
+		List<HSSFRawRecordListener> list = _rawRecords.get(Short.valueOf(sid));
+
+		if (list == null) {
+			list = new ArrayList<HSSFRawRecordListener>(1);
+			_rawRecords.put(Short.valueOf(sid), list);
+		}
+		list.add(lsnr);
+	}
+
+	/**
+	 * Called by HSSFEventFactory in raw record mode, passes the current record of the stream
+	 * to each raw listener associated with its sid.
+	 *
+	 * @param rs the stream positioned on the record to be processed
+	 *
+	 * @return <code>true</code> if any raw listener was called for the record
+	 *
+	 * @since 3.17-beta1
+	 */
+	protected boolean processRawRecord(RawRecordInputStream rs) {
+		short sid = rs.getSid();
+		List<HSSFRawRecordListener> listeners = _rawRecords.get(Short.valueOf(sid));
+		if (listeners == null) {
+			return false;
+		}
+		for (HSSFRawRecordListener listener : listeners) {
+			listener.processRawRecord(sid, rs);
+		}
+		return true;
+	}
+
 	/**
 	 * Called by HSSFEventFactory, passes the Record to each listener associated with
 	 * a record.sid.
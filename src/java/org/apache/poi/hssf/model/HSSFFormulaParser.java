@@ -108,6 +108,26 @@ public final class HSSFFormulaParser {
         return FormulaParser.parse(formula, createParsingWorkbook(workbook), formulaType, sheetIndex);
     }
 
+    /**
+     * Parses the formula of a cell, see
+     * {@link FormulaParser#parse(String, FormulaParsingWorkbook, FormulaType, int, int, int)}
+     *
+     * @param formula     The formula to parse
+     * @param workbook    The parent workbook
+     * @param formulaType The type of formula
+     * @param sheetIndex  The 0-based index of the sheet this formula belongs to
+     * @param rowIndex    The 0-based row index of the cell
+     * @param columnIndex The 0-based column index of the cell
+     *
+     * @return the parsed formula tokens
+     * @throws FormulaParseException if the formula has incorrect syntax or is otherwise invalid
+     * @since 3.17-beta1
+     */
+    public static Ptg[] parse(String formula, HSSFWorkbook workbook, FormulaType formulaType, int sheetIndex,
+            int rowIndex, int columnIndex) throws FormulaParseException {
+        return FormulaParser.parse(formula, createParsingWorkbook(workbook), formulaType, sheetIndex, rowIndex, columnIndex);
+    }
+
     /**
      * Static method to convert an array of {@link Ptg}s in RPN order
      * to a human readable string format in infix mode.
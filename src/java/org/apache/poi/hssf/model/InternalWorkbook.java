@@ -87,6 +87,7 @@ import org.apache.poi.hssf.record.WindowOneRecord;
 import org.apache.poi.hssf.record.WindowProtectRecord;
 import org.apache.poi.hssf.record.WriteAccessRecord;
 import org.apache.poi.hssf.record.WriteProtectRecord;
+import org.apache.poi.hssf.record.aggregates.RecordAggregate.RecordVisitor;
 import org.apache.poi.hssf.record.common.UnicodeString;
 import org.apache.poi.hssf.record.crypto.Biff8EncryptionKey;
 import org.apache.poi.hssf.util.HSSFColor.HSSFColorPredefined;
@@ -1074,6 +1075,45 @@ public final class InternalWorkbook {
         return pos;
     }
 
+    /**
+     * Passes the records of the workbook to the visitor, in the same order and with
+     * the same content as written by {@link #serialize(int, byte[])}.
+     * This allows to serialize the workbook records one at a time.
+     *
+     * @param rv the visitor
+     * @param offset the offset of the workbook stream, where the workbook records start
+     *
+     * @since 3.17-beta1
+     */
+    public void visitContainedRecords(RecordVisitor rv, int offset) {
+        int pos = 0;
+
+        SSTRecord lSST = null;
+        int sstPos = 0;
+        boolean wroteBoundSheets = false;
+        for ( Record record : records ) {
+            if (record instanceof SSTRecord) {
+                lSST = (SSTRecord)record;
+                sstPos = pos;
+            }
+            if (record.getSid() == ExtSSTRecord.sid && lSST != null) {
+                record = lSST.createExtSSTRecord(sstPos + offset);
+            }
+            if (record instanceof BoundSheetRecord) {
+                 if(!wroteBoundSheets) {
+                    for (BoundSheetRecord bsr : boundsheets) {
+                        rv.visitRecord(bsr);
+                        pos += bsr.getRecordSize();
+                    }
+                    wroteBoundSheets = true;
+                 }
+            } else {
+                rv.visitRecord(record);
+                pos += record.getRecordSize();
+            }
+        }
+    }
+
     /**
      * Perform any work necessary before the workbook is about to be serialized.
      *
@@ -36,6 +36,7 @@ import org.apache.poi.ddf.EscherSerializationListener;
 import org.apache.poi.ddf.EscherSpRecord;
 import org.apache.poi.ddf.EscherSpgrRecord;
 import org.apache.poi.ddf.EscherTextboxRecord;
+import org.apache.poi.util.Internal;
 import org.apache.poi.util.POILogFactory;
 import org.apache.poi.util.POILogger;
 
@@ -301,6 +302,12 @@ public final class EscherAggregate extends AbstractEscherHolderRecord {
      */
     private final Map<Integer, NoteRecord> tailRec = new LinkedHashMap<Integer, NoteRecord>();
 
+    /**
+     * the records of the drawing layer this aggregate was created from, until the escher records
+     * are decoded - <code>null</code> afterwards and for new aggregates
+     */
+    private List<RecordBase> drawingRecords;
+
     /**
      * create new EscherAggregate
      * @param createDefaultTree if true creates base tree of the escher records, see EscherAggregate.buildBaseTree()
@@ -365,14 +372,49 @@ public final class EscherAggregate extends AbstractEscherHolderRecord {
 
     /**
      * Collapses the drawing records into an aggregate.
-     * read Drawing, Obj, TxtObj, Note and Continue records into single byte array,
-     * create Escher tree from byte array, create map &lt;EscherRecord, Record&gt;
+     * The Drawing, Obj, TxtObj, Note and Continue records which belong to the drawing layer
+     * are moved into the aggregate as they are.  The escher tree and the map
+     * &lt;EscherRecord, Record&gt; are only created, when the aggregate is accessed,
+     * until then the aggregate is serialized from the original records.
      *
      * @param records - list of all records inside sheet
      * @param locFirstDrawingRecord - location of the first DrawingRecord inside sheet
      * @return new EscherAggregate create from all aggregated records which belong to drawing layer
      */
     public static EscherAggregate createAggregate(List<RecordBase> records, int locFirstDrawingRecord) {
+        int loc = locFirstDrawingRecord + 1;
+        while (loc < records.size()
+                && (isDrawingLayerRecord(sid(records, loc)))) {
+            loc++;
+        }
+
+        // any NoteRecords that follow the drawing block must be aggregated and and saved in the tailRec collection
+        while (loc < records.size() && sid(records, loc) == NoteRecord.sid) {
+            loc++;
+        }
+
+        int locLastDrawingRecord = loc;
+        // replace drawing block with the created EscherAggregate
+        List<RecordBase> drawingRecords = records.subList(locFirstDrawingRecord, locLastDrawingRecord);
+        EscherAggregate agg = new EscherAggregate(false);
+        agg.drawingRecords = new ArrayList<RecordBase>(drawingRecords);
+        drawingRecords.clear();
+        records.add(locFirstDrawingRecord, agg);
+        return agg;
+    }
+
+    /**
+     * read Drawing and Continue records into single byte array,
+     * create Escher tree from byte array, create map &lt;EscherRecord, Record&gt;
+     * and collect the NoteRecords, if this hasn't been done yet
+     */
+    private void decodeDrawingRecords() {
+        if (drawingRecords == null) {
+            return;
+        }
+        List<RecordBase> records = drawingRecords;
+        drawingRecords = null;
+
         // Keep track of any shape records created so we can match them back to the object id's.
         // Textbox objects are also treated as shape objects.
         final List<EscherRecord> shapeRecords = new ArrayList<EscherRecord>();
@@ -388,18 +430,13 @@ public final class EscherAggregate extends AbstractEscherHolderRecord {
 
         // Create one big buffer
         ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        EscherAggregate agg = new EscherAggregate(false);
-        int loc = locFirstDrawingRecord;
-        while (loc + 1 < records.size()
+        int loc = 0;
+        while (loc < records.size()
                 && (isDrawingLayerRecord(sid(records, loc)))) {
             try {
-                if (!(sid(records, loc) == DrawingRecord.sid || sid(records, loc) == ContinueRecord.sid)) {
-                    loc++;
-                    continue;
-                }
                 if (sid(records, loc) == DrawingRecord.sid) {
                     buffer.write(((DrawingRecord) records.get(loc)).getRecordData());
-                } else {
+                } else if (sid(records, loc) == ContinueRecord.sid) {
                     buffer.write(((ContinueRecord) records.get(loc)).getData());
                 }
             } catch (IOException e) {
@@ -409,45 +446,76 @@ public final class EscherAggregate extends AbstractEscherHolderRecord {
         }
 
         // Decode the shapes
-        // agg.escherRecords = new ArrayList();
+        byte[] data = buffer.toByteArray();
         int pos = 0;
-        while (pos < buffer.size()) {
-            EscherRecord r = recordFactory.createRecord(buffer.toByteArray(), pos);
-            int bytesRead = r.fillFields(buffer.toByteArray(), pos, recordFactory);
-            agg.addEscherRecord(r);
+        while (pos < data.length) {
+            EscherRecord r = recordFactory.createRecord(data, pos);
+            int bytesRead = r.fillFields(data, pos, recordFactory);
+            addEscherRecord(r);
             pos += bytesRead;
         }
 
         // Associate the object records with the shapes
-        loc = locFirstDrawingRecord + 1;
+        loc = 1;
         int shapeIndex = 0;
         while (loc < records.size()
                 && (isDrawingLayerRecord(sid(records, loc)))) {
-            if (!isObjectRecord(records, loc)) {
-                loc++;
-                continue;
+            if (isObjectRecord(records, loc)) {
+                Record objRecord = (Record) records.get(loc);
+                shapeToObj.put(shapeRecords.get(shapeIndex++), objRecord);
             }
-            Record objRecord = (Record) records.get(loc);
-            agg.shapeToObj.put(shapeRecords.get(shapeIndex++), objRecord);
             loc++;
         }
 
-        // any NoteRecords that follow the drawing block must be aggregated and and saved in the tailRec collection
-        while (loc < records.size()) {
-            if (sid(records, loc) == NoteRecord.sid) {
-                NoteRecord r = (NoteRecord) records.get(loc);
-                agg.tailRec.put(r.getShapeId(), r);
-            } else {
-                break;
-            }
-            loc++;
+        for (; loc < records.size(); loc++) {
+            NoteRecord r = (NoteRecord) records.get(loc);
+            tailRec.put(r.getShapeId(), r);
         }
+    }
 
-        int locLastDrawingRecord = loc;
-        // replace drawing block with the created EscherAggregate
-        records.subList(locFirstDrawingRecord, locLastDrawingRecord).clear();
-        records.add(locFirstDrawingRecord, agg);
-        return agg;
+    /**
+     * @return <code>true</code> if the escher records have been decoded, i.e. the aggregate
+     * isn't written from the original records any more
+     */
+    @Internal
+    public boolean isDecoded() {
+        return drawingRecords == null;
+    }
+
+    @Override
+    public List<EscherRecord> getEscherRecords() {
+        decodeDrawingRecords();
+        return super.getEscherRecords();
+    }
+
+    @Override
+    public void addEscherRecord(int index, EscherRecord element) {
+        decodeDrawingRecords();
+        super.addEscherRecord(index, element);
+    }
+
+    @Override
+    public boolean addEscherRecord(EscherRecord element) {
+        decodeDrawingRecords();
+        return super.addEscherRecord(element);
+    }
+
+    @Override
+    public void clearEscherRecords() {
+        decodeDrawingRecords();
+        super.clearEscherRecords();
+    }
+
+    @Override
+    public EscherContainerRecord getEscherContainer() {
+        decodeDrawingRecords();
+        return super.getEscherContainer();
+    }
+
+    @Override
+    public EscherRecord getEscherRecord(int index) {
+        decodeDrawingRecords();
+        return super.getEscherRecord(index);
     }
 
     /**
@@ -459,6 +527,15 @@ public final class EscherAggregate extends AbstractEscherHolderRecord {
      * @return The number of bytes serialized.
      */
     public int serialize(int offset, byte[] data) {
+        if (drawingRecords != null) {
+            // not decoded yet, so the original records are still valid
+            int pos = offset;
+            for (RecordBase rb : drawingRecords) {
+                pos += rb.serialize(pos, data);
+            }
+            return pos - offset;
+        }
+
         // Determine buffer size
         List <EscherRecord>records = getEscherRecords();
         int size = getEscherRecordSize(records);
@@ -586,6 +663,14 @@ public final class EscherAggregate extends AbstractEscherHolderRecord {
      * @return record size, including header size of obj, text, note, drawing, continue records
      */
     public int getRecordSize() {
+        if (drawingRecords != null) {
+            int size = 0;
+            for (RecordBase rb : drawingRecords) {
+                size += rb.getRecordSize();
+            }
+            return size;
+        }
+
         // To determine size of aggregate record we have to know size of each DrawingRecord because if DrawingRecord
         // is split into several continue records we have to add header size to total EscherAggregate size
         int continueRecordsHeadersSize = 0;
@@ -640,6 +725,7 @@ public final class EscherAggregate extends AbstractEscherHolderRecord {
      * @param objRecord - Obj or TextObj record
      */
     public void associateShapeToObjRecord(EscherRecord r, Record objRecord) {
+        decodeDrawingRecords();
         shapeToObj.put(r, objRecord);
     }
 
@@ -648,6 +734,7 @@ public final class EscherAggregate extends AbstractEscherHolderRecord {
      * @param rec - clientData or textbox record to be removed
      */
     public void removeShapeToObjRecord(EscherRecord rec) {
+        decodeDrawingRecords();
         shapeToObj.remove(rec);
     }
 
@@ -775,6 +862,7 @@ public final class EscherAggregate extends AbstractEscherHolderRecord {
      * We need to access it outside of EscherAggregate when building shapes
      */
     public Map<EscherRecord, Record> getShapeToObjMapping() {
+        decodeDrawingRecords();
         return Collections.unmodifiableMap(shapeToObj);
     }
 
@@ -783,6 +871,7 @@ public final class EscherAggregate extends AbstractEscherHolderRecord {
      *         Every HSSFComment shape has a link to a NoteRecord from the tailRec collection.
      */
     public Map<Integer, NoteRecord> getTailRecords() {
+        decodeDrawingRecords();
         return Collections.unmodifiableMap(tailRec);
     }
 
@@ -792,6 +881,7 @@ public final class EscherAggregate extends AbstractEscherHolderRecord {
      */
     public NoteRecord getNoteRecordByObj(ObjRecord obj) {
         CommonObjectDataSubRecord cod = (CommonObjectDataSubRecord) obj.getSubRecords().get(0);
+        decodeDrawingRecords();
         return tailRec.get(cod.getObjectId());
     }
 
@@ -800,6 +890,7 @@ public final class EscherAggregate extends AbstractEscherHolderRecord {
      * @param note to be added
      */
     public void addTailRecord(NoteRecord note) {
+        decodeDrawingRecords();
         tailRec.put(note.getShapeId(), note);
     }
 
@@ -808,6 +899,7 @@ public final class EscherAggregate extends AbstractEscherHolderRecord {
      * @param note to be removed
      */
     public void removeTailRecord(NoteRecord note) {
+        decodeDrawingRecords();
         tailRec.remove(note.getShapeId());
     }
 }
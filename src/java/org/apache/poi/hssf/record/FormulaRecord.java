@@ -165,6 +165,17 @@ public final class FormulaRecord extends CellRecord implements Cloneable {
 			throw new IllegalStateException("Unexpected type id (" + typeCode + ")");
 		}
 
+		public CellType getValueTypeEnum() {
+			int typeCode = getTypeCode();
+			switch (typeCode) {
+				case STRING:	 return CellType.STRING;
+				case BOOLEAN:	return CellType.BOOLEAN;
+				case ERROR_CODE: return CellType.ERROR;
+				case EMPTY:	  return CellType.STRING;
+			}
+			throw new IllegalStateException("Unexpected type id (" + typeCode + ")");
+		}
+
 		public boolean getBooleanValue() {
 			if (getTypeCode() != BOOLEAN) {
 				throw new IllegalStateException("Not a boolean cached value - " + formatValue());
@@ -256,6 +267,17 @@ public final class FormulaRecord extends CellRecord implements Cloneable {
 		return specialCachedValue.getValueType();
 	}
 
+	/**
+	 * @return the type of the cached formula result
+	 * @since POI 3.17 beta 1
+	 */
+	public CellType getCachedResultTypeEnum() {
+		if (specialCachedValue == null) {
+			return CellType.NUMERIC;
+		}
+		return specialCachedValue.getValueTypeEnum();
+	}
+
 	public boolean getCachedBooleanValue() {
 		return specialCachedValue.getBooleanValue();
 	}
@@ -0,0 +1,197 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.record;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRawRecordListener;
+import org.apache.poi.util.LittleEndian;
+
+/**
+ * A stream based way to get at the raw BIFF records of a workbook stream.
+ * <p>
+ * In contrast to {@link RecordFactoryInputStream}, the records aren't turned into
+ * {@link Record} objects - the stream only steps from record header to record header,
+ * so callers can look at the sid and decide if the record is of any interest, before
+ * its data is read or decoded.  Nothing is merged or expanded, i.e. {@link ContinueRecord}s,
+ * {@link DBCellRecord}s, {@link RKRecord}s and {@link MulRKRecord}s are returned as they
+ * appear in the stream.
+ * <p>
+ * Encrypted streams are decrypted in the same way as by {@link RecordFactoryInputStream}.
+ * Most users should use {@link HSSFEventFactory} / {@link HSSFRawRecordListener} and have
+ * the records pushed to them.
+ *
+ * @since 3.17-beta1
+ */
+public final class RawRecordInputStream {
+	private static final int END_OF_STREAM = -1;
+
+	private final RecordInputStream _recStream;
+
+	/**
+	 * The records decoded while checking for encryption.  They are returned first,
+	 * already in their decoded form.
+	 */
+	private final Record[] _initialRecords;
+	private int _initialRecordIndex;
+
+	private int _bofDepth;
+	private boolean _lastRecordWasEOFLevelZero;
+
+	/** the sid of the current record or -1, if not positioned on a record */
+	private int _sid = END_OF_STREAM;
+	/** the current record, if it was decoded already */
+	private Record _record;
+	/** reusable payload buffer */
+	private final byte[] _data = new byte[RecordInputStream.MAX_RECORD_DATA_SIZE];
+	private int _dataSize;
+	private boolean _dataRead;
+
+	/**
+	 * @param in the InputStream to read from
+	 */
+	public RawRecordInputStream(InputStream in) {
+		RecordInputStream rs = new RecordInputStream(in);
+		List<Record> records = new ArrayList<Record>();
+		RecordFactoryInputStream.StreamEncryptionInfo sei =
+			new RecordFactoryInputStream.StreamEncryptionInfo(rs, records);
+		if (sei.hasEncryption()) {
+			rs = sei.createDecryptingStream(in);
+		}
+		_initialRecords = records.toArray(new Record[records.size()]);
+		_recStream = rs;
+		// see RecordFactoryInputStream for the end of stream detection
+		_bofDepth = sei.hasBOFRecord() ? 1 : 0;
+	}
+
+	/**
+	 * Steps to the next record.  Any unread data of the current record is skipped.
+	 *
+	 * @return <code>true</code> if the stream is positioned on a record,
+	 * <code>false</code> if there are no more records
+	 */
+	public boolean nextRecord() {
+		_record = null;
+		_dataRead = false;
+		if (_initialRecordIndex < _initialRecords.length) {
+			_record = _initialRecords[_initialRecordIndex++];
+			_sid = _record.getSid();
+			_dataSize = _record.getRecordSize() - 4;
+			return true;
+		}
+
+		if (_sid != END_OF_STREAM) {
+			_recStream.skipRemainder();
+		}
+		if (!_recStream.hasNextRecord()
+			|| (_lastRecordWasEOFLevelZero && _recStream.getNextSid() != BOFRecord.sid)) {
+			_sid = END_OF_STREAM;
+			return false;
+		}
+		_recStream.nextRecord();
+		_sid = _recStream.getSid();
+		_dataSize = _recStream.remaining();
+
+		_lastRecordWasEOFLevelZero = false;
+		if (_sid == BOFRecord.sid) {
+			_bofDepth++;
+		} else if (_sid == EOFRecord.sid) {
+			_bofDepth--;
+			_lastRecordWasEOFLevelZero = (_bofDepth < 1);
+		}
+		return true;
+	}
+
+	/**
+	 * @return the sid of the current record
+	 */
+	public short getSid() {
+		checkPositioned();
+		return (short)_sid;
+	}
+
+	/**
+	 * @return the size of the current record data, excluding the 4 byte record header
+	 * and any following {@link ContinueRecord}s
+	 */
+	public int getDataSize() {
+		checkPositioned();
+		return _dataSize;
+	}
+
+	/**
+	 * Returns the data of the current record.  If the record was decoded before, its
+	 * data is serialized again.  The returned array is reused
+	 * for the following records, only the first {@link #getDataSize()} bytes
+	 * are valid and only until {@link #nextRecord()} is called.
+	 *
+	 * @return the record data, excluding the record header
+	 */
+	public byte[] getData() {
+		checkPositioned();
+		if (!_dataRead) {
+			if (_record != null) {
+				// the record was read already, serialize it back
+				byte[] rec = _record.serialize();
+				System.arraycopy(rec, 4, _data, 0, Math.min(_dataSize, rec.length - 4));
+			} else {
+				_recStream.readFully(_data, 0, _dataSize);
+			}
+			_dataRead = true;
+		}
+		return _data;
+	}
+
+	/**
+	 * Decodes the current record, like {@link RecordFactory#createSingleRecord(RecordInputStream)}.
+	 * <p>
+	 * If the data hasn't been fetched by {@link #getData()} before, the record is decoded from
+	 * the stream and can read into following {@link ContinueRecord}s, which are then consumed.
+	 * Otherwise only the data of the current record is decoded.
+	 *
+	 * @return the decoded record
+	 */
+	public Record decode() {
+		checkPositioned();
+		if (_record == null) {
+			RecordInputStream rs;
+			if (_dataRead) {
+				byte[] rec = new byte[_dataSize + 4];
+				LittleEndian.putUShort(rec, 0, _sid);
+				LittleEndian.putUShort(rec, 2, _dataSize);
+				System.arraycopy(_data, 0, rec, 4, _dataSize);
+				rs = new RecordInputStream(new ByteArrayInputStream(rec));
+				rs.nextRecord();
+			} else {
+				rs = _recStream;
+			}
+			_record = RecordFactory.createSingleRecord(rs);
+		}
+		return _record;
+	}
+
+	private void checkPositioned() {
+		if (_sid == END_OF_STREAM) {
+			throw new IllegalStateException("The stream is not positioned on a record");
+		}
+	}
+}
@@ -133,6 +133,36 @@ public final class RecordFactory {
         }
     }
 
+    /**
+     * Creates the records by calling the constructor directly instead of via reflection.
+     * This is used for the cell and row records, which make up the bulk of the records
+     * of a workbook.
+     */
+    private static abstract class DirectRecordCreator implements I_RecordCreator {
+        private final Class<? extends Record> _recClass;
+        protected DirectRecordCreator(Class<? extends Record> recClass) {
+            _recClass = recClass;
+        }
+        @Override
+        public final Record create(RecordInputStream in) {
+            try {
+                return createRecord(in);
+            } catch (org.apache.poi.util.RecordFormatException e) {
+                throw e;
+            } catch (EncryptedDocumentException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                // same as for the reflection based creators
+                throw new org.apache.poi.util.RecordFormatException("Unable to construct record instance" , e);
+            }
+        }
+        protected abstract Record createRecord(RecordInputStream in);
+        @Override
+        public Class<? extends Record> getRecordClass() {
+            return _recClass;
+        }
+    }
+
     private static final Class<?>[] CONSTRUCTOR_ARGS = { RecordInputStream.class, };
 
     /**
@@ -286,11 +316,22 @@ public final class RecordFactory {
         ViewSourceRecord.class,
     };
 
+    /**
+     * the creators, which don't use reflection - must be initialized before the creators map
+     */
+    private static final Map<Class<? extends Record>, I_RecordCreator> _directRecordCreators = createDirectRecordCreators();
+
     /**
      * cache of the recordsToMap();
      */
     private static final Map<Integer, I_RecordCreator> _recordCreatorsById  = recordsToMap(recordClasses);
 
+    /**
+     * the creators of {@link #_recordCreatorsById} indexed by sid, to avoid the boxing of the
+     * sid and the map lookup for each record
+     */
+    private static final I_RecordCreator[] _recordCreatorsBySid = recordCreatorsBySid(_recordCreatorsById);
+
     private static short[] _allKnownRecordSIDs;
 
     /**
@@ -336,7 +377,9 @@ public final class RecordFactory {
     }
 
     public static Record createSingleRecord(RecordInputStream in) {
-        I_RecordCreator constructor = _recordCreatorsById.get(Integer.valueOf(in.getSid()));
+        int sid = in.getSid();
+        I_RecordCreator constructor = (sid >= 0 && sid < _recordCreatorsBySid.length)
+            ? _recordCreatorsBySid[sid] : _recordCreatorsById.get(Integer.valueOf(sid));
 
         if (constructor == null) {
             return new UnknownRecord(in);
@@ -460,7 +503,125 @@ public final class RecordFactory {
         return result;
     }
 
+    private static I_RecordCreator[] recordCreatorsBySid(Map<Integer, I_RecordCreator> creators) {
+        int maxSid = 0;
+        for (Integer sid : creators.keySet()) {
+            maxSid = Math.max(maxSid, sid.intValue());
+        }
+        I_RecordCreator[] result = new I_RecordCreator[maxSid + 1];
+        for (Map.Entry<Integer, I_RecordCreator> me : creators.entrySet()) {
+            int sid = me.getKey().intValue();
+            if (sid >= 0) {
+                result[sid] = me.getValue();
+            }
+        }
+        return result;
+    }
+
+    private static Map<Class<? extends Record>, I_RecordCreator> createDirectRecordCreators() {
+        Map<Class<? extends Record>, I_RecordCreator> result = new HashMap<Class<? extends Record>, I_RecordCreator>();
+        addDirectRecordCreator(result, new DirectRecordCreator(ArrayRecord.class) {
+            @Override
+            protected Record createRecord(RecordInputStream in) {
+                return new ArrayRecord(in);
+            }
+        });
+        addDirectRecordCreator(result, new DirectRecordCreator(BlankRecord.class) {
+            @Override
+            protected Record createRecord(RecordInputStream in) {
+                return new BlankRecord(in);
+            }
+        });
+        addDirectRecordCreator(result, new DirectRecordCreator(BoolErrRecord.class) {
+            @Override
+            protected Record createRecord(RecordInputStream in) {
+                return new BoolErrRecord(in);
+            }
+        });
+        addDirectRecordCreator(result, new DirectRecordCreator(ContinueRecord.class) {
+            @Override
+            protected Record createRecord(RecordInputStream in) {
+                return new ContinueRecord(in);
+            }
+        });
+        addDirectRecordCreator(result, new DirectRecordCreator(DBCellRecord.class) {
+            @Override
+            protected Record createRecord(RecordInputStream in) {
+                return new DBCellRecord(in);
+            }
+        });
+        addDirectRecordCreator(result, new DirectRecordCreator(FormulaRecord.class) {
+            @Override
+            protected Record createRecord(RecordInputStream in) {
+                return new FormulaRecord(in);
+            }
+        });
+        addDirectRecordCreator(result, new DirectRecordCreator(LabelRecord.class) {
+            @Override
+            protected Record createRecord(RecordInputStream in) {
+                return new LabelRecord(in);
+            }
+        });
+        addDirectRecordCreator(result, new DirectRecordCreator(LabelSSTRecord.class) {
+            @Override
+            protected Record createRecord(RecordInputStream in) {
+                return new LabelSSTRecord(in);
+            }
+        });
+        addDirectRecordCreator(result, new DirectRecordCreator(MulBlankRecord.class) {
+            @Override
+            protected Record createRecord(RecordInputStream in) {
+                return new MulBlankRecord(in);
+            }
+        });
+        addDirectRecordCreator(result, new DirectRecordCreator(MulRKRecord.class) {
+            @Override
+            protected Record createRecord(RecordInputStream in) {
+                return new MulRKRecord(in);
+            }
+        });
+        addDirectRecordCreator(result, new DirectRecordCreator(NumberRecord.class) {
+            @Override
+            protected Record createRecord(RecordInputStream in) {
+                return new NumberRecord(in);
+            }
+        });
+        addDirectRecordCreator(result, new DirectRecordCreator(RKRecord.class) {
+            @Override
+            protected Record createRecord(RecordInputStream in) {
+                return new RKRecord(in);
+            }
+        });
+        addDirectRecordCreator(result, new DirectRecordCreator(RowRecord.class) {
+            @Override
+            protected Record createRecord(RecordInputStream in) {
+                return new RowRecord(in);
+            }
+        });
+        addDirectRecordCreator(result, new DirectRecordCreator(SharedFormulaRecord.class) {
+            @Override
+            protected Record createRecord(RecordInputStream in) {
+                return new SharedFormulaRecord(in);
+            }
+        });
+        addDirectRecordCreator(result, new DirectRecordCreator(StringRecord.class) {
+            @Override
+            protected Record createRecord(RecordInputStream in) {
+                return new StringRecord(in);
+            }
+        });
+        return result;
+    }
+
+    private static void addDirectRecordCreator(Map<Class<? extends Record>, I_RecordCreator> creators, I_RecordCreator rc) {
+        creators.put(rc.getRecordClass(), rc);
+    }
+
     private static I_RecordCreator getRecordCreator(Class<? extends Record> recClass) {
+        I_RecordCreator rc = _directRecordCreators.get(recClass);
+        if (rc != null) {
+            return rc;
+        }
         try {
             Constructor<? extends Record> constructor;
             constructor = recClass.getConstructor(CONSTRUCTOR_ARGS);
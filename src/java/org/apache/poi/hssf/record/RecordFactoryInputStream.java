@@ -45,7 +45,7 @@ public final class RecordFactoryInputStream {
 	 * Needed for protected files because each byte is encrypted with respect to its absolute
 	 * position from the start of the stream.
 	 */
-	private static final class StreamEncryptionInfo {
+	static final class StreamEncryptionInfo {
 		private final int _initialRecordsSize;
 		private final FilePassRecord _filePassRec;
 		private final Record _lastRecord;
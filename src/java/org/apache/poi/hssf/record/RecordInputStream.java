@@ -94,6 +94,8 @@ public final class RecordInputStream implements LittleEndianInput {
 	 * index within the data section when mark() was called
 	 */
 	private int _markedDataOffset;
+	/** scratch buffer for {@link #skipRemainder()}, allocated on first use */
+	private byte[] _skipBuffer;
 
 	private static final class SimpleHeaderInput implements BiffHeaderInput {
 
@@ -431,6 +433,23 @@ public final class RecordInputStream implements LittleEndianInput {
 		}
 	}
 
+	/**
+	 * Skips the remaining bytes of the current record.  Unlike the read methods,
+	 * this doesn't step into any following {@link ContinueRecord}s.
+	 */
+	public void skipRemainder() {
+		int size = remaining();
+		if (size == 0) {
+			return;
+		}
+		if (_skipBuffer == null) {
+			_skipBuffer = new byte[MAX_RECORD_DATA_SIZE];
+		}
+		// the bytes are read in any case, as the decryption depends on the stream position
+		_dataInput.readFully(_skipBuffer, 0, size);
+		_currentDataOffset += size;
+	}
+
 	/** Returns the remaining bytes for the current record.
 	 *
 	  * @return The remaining bytes of the current record.
@@ -22,7 +22,6 @@ import java.util.Iterator;
 import org.apache.poi.hssf.record.common.UnicodeString;
 import org.apache.poi.hssf.record.cont.ContinuableRecord;
 import org.apache.poi.hssf.record.cont.ContinuableRecordOutput;
-import org.apache.poi.util.IntMapper;
 import org.apache.poi.util.LittleEndianConsts;
 
 /**
@@ -55,7 +54,7 @@ public final class SSTRecord extends ContinuableRecord {
 
     /** according to docs ONLY SST */
     private int field_2_num_unique_strings;
-    private IntMapper<UnicodeString> field_3_strings;
+    private SSTStringTable field_3_strings;
 
     private SSTDeserializer deserializer;
 
@@ -68,7 +67,7 @@ public final class SSTRecord extends ContinuableRecord {
     {
         field_1_num_strings = 0;
         field_2_num_unique_strings = 0;
-        field_3_strings = new IntMapper<UnicodeString>();
+        field_3_strings = new SSTStringTable();
         deserializer = new SSTDeserializer(field_3_strings);
     }
 
@@ -94,7 +93,7 @@ public final class SSTRecord extends ContinuableRecord {
             // strings we've already collected
             rval = field_3_strings.size();
             field_2_num_unique_strings++;
-            SSTDeserializer.addToStringTable( field_3_strings, ucs );
+            field_3_strings.add( ucs );
         }
         return rval;
     }
@@ -240,7 +239,7 @@ public final class SSTRecord extends ContinuableRecord {
         // we initialize our fields
         field_1_num_strings = in.readInt();
         field_2_num_unique_strings = in.readInt();
-        field_3_strings = new IntMapper<UnicodeString>();
+        field_3_strings = new SSTStringTable();
         
         deserializer = new SSTDeserializer(field_3_strings);
         // Bug 57456: some Excel Sheets send 0 as field=1, but have some random number in field_2,
@@ -0,0 +1,299 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.record;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.poi.hssf.record.common.UnicodeString;
+import org.apache.poi.hssf.record.cont.ContinuableRecordOutput;
+
+/**
+ * The strings of a {@link SSTRecord}, indexed by position and by value.
+ * <p>
+ * Most strings are plain, i.e. they have neither formatting runs nor extended (phonetic) data.
+ * The characters of the plain strings are stored one after the other in a single char array,
+ * only the strings with formatting runs or extended data are kept as {@link UnicodeString}s.
+ * The lookup by value uses an open addressing hash table of string indexes, so no
+ * per-string map entries or boxed indexes are needed.
+ * <p>
+ * Plain strings are returned as new {@link UnicodeString} instances, i.e. modifying them
+ * doesn't change the table.
+ *
+ * @since 3.17-beta1
+ */
+final class SSTStringTable {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_CHAR_CAPACITY = 256;
+
+    /** the only option flag bit, which plain strings can have */
+    private static final int HIGH_BYTE_FLAG = 0x01;
+
+    private int _size;
+    /** the start of each string in {@link #_chars}, the following entry marks its end */
+    private int[] _starts = new int[INITIAL_CAPACITY + 1];
+    private char[] _chars = new char[INITIAL_CHAR_CAPACITY];
+    private byte[] _optionFlags = new byte[INITIAL_CAPACITY];
+    private int[] _hashes = new int[INITIAL_CAPACITY];
+    /** the strings with formatting runs or extended data, <code>null</code> until there is one */
+    private UnicodeString[] _richStrings;
+
+    /** open addressing hash table of string index + 1, 0 marks an empty slot */
+    private int[] _index = new int[INITIAL_CAPACITY * 2];
+
+    private final CharSlice _slice = new CharSlice();
+
+    /**
+     * @return the number of strings
+     */
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * Appends a string.  If there is an equal string already, the index lookup
+     * returns the new position from now on.
+     */
+    public void add(UnicodeString string) {
+        ensureCapacity(_size + 1);
+        int index = _size;
+        String text = string.getString();
+        int hash = text.hashCode();
+        if (isPlain(string)) {
+            int length = text.length();
+            int start = _starts[index];
+            if (start + length > _chars.length) {
+                _chars = Arrays.copyOf(_chars, Math.max(_chars.length * 2, start + length));
+            }
+            text.getChars(0, length, _chars, start);
+            _starts[index + 1] = start + length;
+            _optionFlags[index] = string.getOptionFlags();
+        } else {
+            if (_richStrings == null) {
+                _richStrings = new UnicodeString[_hashes.length];
+            }
+            _richStrings[index] = string;
+            _starts[index + 1] = _starts[index];
+        }
+        _hashes[index] = hash;
+        _size++;
+
+        if (_size * 2 > _index.length) {
+            rehash(_index.length * 2);
+        }
+        int slot = findSlot(string, hash);
+        _index[slot] = index + 1;
+    }
+
+    /**
+     * @return the string at the given position
+     */
+    public UnicodeString get(int index) {
+        if (index < 0 || index >= _size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + _size);
+        }
+        if (isRich(index)) {
+            return _richStrings[index];
+        }
+        UnicodeString us = new UnicodeString(new String(_chars, _starts[index], getLength(index)));
+        us.setOptionFlags(_optionFlags[index]);
+        return us;
+    }
+
+    /**
+     * @return the index of the string, which is equal to the given string, or -1 if there is none
+     */
+    public int getIndex(UnicodeString string) {
+        int entry = _index[findSlot(string, string.getString().hashCode())];
+        return entry - 1;
+    }
+
+    /**
+     * Writes the string at the given position, plain strings are written
+     * directly from the character data
+     */
+    public void serialize(int index, ContinuableRecordOutput out) {
+        if (isRich(index)) {
+            _richStrings[index].serialize(out);
+        } else {
+            _slice.set(_starts[index], getLength(index));
+            out.writeString(_slice, 0, 0);
+        }
+    }
+
+    public Iterator<UnicodeString> iterator() {
+        return new Iterator<UnicodeString>() {
+            private int _next;
+
+            @Override
+            public boolean hasNext() {
+                return _next < _size;
+            }
+
+            @Override
+            public UnicodeString next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(_next++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * @return <code>true</code> if the string can be stored as character data only,
+     * without changing its serialized form or equality
+     */
+    private static boolean isPlain(UnicodeString string) {
+        return (string.getOptionFlags() & ~HIGH_BYTE_FLAG) == 0
+            && string.formatIterator() == null
+            && string.getExtendedRst() == null
+            && string.getCharCount() == string.getString().length();
+    }
+
+    private boolean isRich(int index) {
+        return _richStrings != null && _richStrings[index] != null;
+    }
+
+    private int getLength(int index) {
+        return _starts[index + 1] - _starts[index];
+    }
+
+    /**
+     * @return the slot of the entry, which is equal to the string, or the empty slot,
+     * where such an entry would be inserted
+     */
+    private int findSlot(UnicodeString string, int hash) {
+        int mask = _index.length - 1;
+        int slot = mix(hash) & mask;
+        boolean plain = isPlain(string);
+        while (true) {
+            int entry = _index[slot];
+            if (entry == 0) {
+                return slot;
+            }
+            int index = entry - 1;
+            if (_hashes[index] == hash && matches(index, string, plain)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean matches(int index, UnicodeString string, boolean plain) {
+        if (isRich(index)) {
+            return _richStrings[index].equals(string);
+        }
+        if (!plain || _optionFlags[index] != string.getOptionFlags()) {
+            return false;
+        }
+        String text = string.getString();
+        int length = getLength(index);
+        if (text.length() != length) {
+            return false;
+        }
+        int start = _starts[index];
+        for (int i = 0; i < length; i++) {
+            if (_chars[start + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        _index = new int[capacity];
+        int mask = capacity - 1;
+        // the new position of the last equal string has to win, as in add()
+        for (int index = 0; index < _size - 1; index++) {
+            int slot = mix(_hashes[index]) & mask;
+            while (_index[slot] != 0) {
+                int other = _index[slot] - 1;
+                if (_hashes[other] == _hashes[index] && equalEntries(other, index)) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            _index[slot] = index + 1;
+        }
+    }
+
+    private boolean equalEntries(int index1, int index2) {
+        if (isRich(index2)) {
+            return matches(index1, _richStrings[index2], false);
+        }
+        return matches(index1, get(index2), true);
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= _hashes.length) {
+            return;
+        }
+        int capacity = Math.max(_hashes.length * 2, size);
+        _starts = Arrays.copyOf(_starts, capacity + 1);
+        _optionFlags = Arrays.copyOf(_optionFlags, capacity);
+        _hashes = Arrays.copyOf(_hashes, capacity);
+        if (_richStrings != null) {
+            _richStrings = Arrays.copyOf(_richStrings, capacity);
+        }
+    }
+
+    /**
+     * Spreads the string hash codes, which often differ in the low bits only
+     */
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * The characters of a plain string, to write them without creating a String
+     */
+    private final class CharSlice implements CharSequence {
+        private int _start;
+        private int _length;
+
+        void set(int start, int length) {
+            _start = start;
+            _length = length;
+        }
+
+        public int length() {
+            return _length;
+        }
+
+        public char charAt(int index) {
+            return _chars[_start + index];
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            return new String(_chars, _start + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(_chars, _start, _length);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.poi.ss.formula.Formula;
 import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.formula.SharedFormula;
 import org.apache.poi.util.HexDump;
+import org.apache.poi.util.Internal;
 import org.apache.poi.util.LittleEndianOutput;
 
 /**
@@ -41,6 +42,8 @@ public final class SharedFormulaRecord extends SharedValueRecordBase {
 
     private int field_5_reserved;
     private Formula field_7_parsed_expr;
+    /** the decoded tokens, created on first use; volatile, as they may be read by concurrent evaluators */
+    private volatile Ptg[] _sharedTokens;
 
     // for testing only
     public SharedFormulaRecord() {
@@ -113,6 +116,24 @@ public final class SharedFormulaRecord extends SharedValueRecordBase {
         return sf.convertSharedFormulas(field_7_parsed_expr.getTokens(), formulaRow, formulaColumn);
     }
 
+    /**
+     * Returns the tokens of the shared formula itself.  Relative references are encoded as
+     * {@link RefNPtg} / {@link AreaNPtg}, i.e. relative to the cell which contains the formula.
+     * The same array is returned to all callers and must not be modified.
+     *
+     * @return the shared formula tokens
+     * @since 3.17-beta1
+     */
+    @Internal
+    public Ptg[] getSharedFormulaTokens() {
+        Ptg[] tokens = _sharedTokens;
+        if (tokens == null) {
+            tokens = field_7_parsed_expr.getTokens();
+            _sharedTokens = tokens;
+        }
+        return tokens;
+    }
+
     public Object clone() {
         SharedFormulaRecord result = new SharedFormulaRecord(getRange());
         result.field_5_reserved = field_5_reserved;
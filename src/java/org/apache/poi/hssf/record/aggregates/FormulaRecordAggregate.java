@@ -31,6 +31,7 @@ import org.apache.poi.ss.formula.Formula;
 import org.apache.poi.ss.usermodel.FormulaError;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.Internal;
 
 /**
  * The formula record aggregate is used to join together the formula record and it's
@@ -201,6 +202,23 @@ public final class FormulaRecordAggregate extends RecordAggregate implements Cel
 		return _formulaRecord.getParsedExpression();
 	}
 
+	/**
+	 * For cells of a shared formula group, returns the tokens of the shared formula, whose relative
+	 * references ({@link org.apache.poi.ss.formula.ptg.RefNPtg RefNPtg} /
+	 * {@link org.apache.poi.ss.formula.ptg.AreaNPtg AreaNPtg}) have to be resolved against this cell.
+	 * The same array is returned for all cells of the group and must not be modified.
+	 *
+	 * @return the shared formula tokens or <code>null</code>, if this cell isn't part of a shared formula
+	 * @since 3.17-beta1
+	 */
+	@Internal
+	public Ptg[] getSharedFormulaTokens() {
+		if (_sharedFormulaRecord == null) {
+			return null;
+		}
+		return _sharedFormulaRecord.getSharedFormulaTokens();
+	}
+
 	/**
 	 * Also checks for a related shared formula and unlinks it if found
 	 */
@@ -0,0 +1,178 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.record.aggregates;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import org.apache.poi.hssf.record.DBCellRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.aggregates.RecordAggregate.RecordVisitor;
+import org.apache.poi.util.Internal;
+import org.apache.poi.util.RecordFormatException;
+import org.apache.poi.util.TempFile;
+
+/**
+ * Temporary file store for the row blocks, which were flushed out of a
+ * {@link RowRecordsAggregate} by a streaming writer.
+ * <p>
+ * Each block contains the serialized ROW records of up to {@link DBCellRecord#BLOCK_SIZE}
+ * rows, followed by their cell records and the DBCELL record.  As the DBCELL offsets are
+ * relative, the blocks can be copied as they are into the workbook stream.
+ *
+ * @since 3.17-beta1
+ */
+@Internal
+public final class RowBlockStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final File _file;
+    private final RandomAccessFile _raf;
+    private long _size;
+
+    private int _blockCount;
+    private long[] _blockPositions = new long[INITIAL_CAPACITY];
+    private int[] _blockSizes = new int[INITIAL_CAPACITY];
+    private int[] _dbCellOffsets = new int[INITIAL_CAPACITY];
+    private int[] _firstRows = new int[INITIAL_CAPACITY];
+
+    /**
+     * @throws IOException if the temporary file can't be created
+     */
+    public RowBlockStore() throws IOException {
+        _file = TempFile.createTempFile("poi-shssf-sheet", ".bin");
+        _raf = new RandomAccessFile(_file, "rw");
+    }
+
+    /**
+     * Appends a serialized row block
+     *
+     * @param data the serialized records
+     * @param length the size of the block
+     * @param dbCellOffset the offset of the DBCELL record within the block
+     * @param firstRow the row number of the first row of the block
+     */
+    void addBlock(byte[] data, int length, int dbCellOffset, int firstRow) {
+        if (_blockCount == _blockSizes.length) {
+            int capacity = _blockCount * 2;
+            _blockPositions = Arrays.copyOf(_blockPositions, capacity);
+            _blockSizes = Arrays.copyOf(_blockSizes, capacity);
+            _dbCellOffsets = Arrays.copyOf(_dbCellOffsets, capacity);
+            _firstRows = Arrays.copyOf(_firstRows, capacity);
+        }
+        try {
+            _raf.seek(_size);
+            _raf.write(data, 0, length);
+        } catch (IOException e) {
+            throw new RecordFormatException("Can't write row block to " + _file, e);
+        }
+        _blockPositions[_blockCount] = _size;
+        _blockSizes[_blockCount] = length;
+        _dbCellOffsets[_blockCount] = dbCellOffset;
+        _firstRows[_blockCount] = firstRow;
+        _blockCount++;
+        _size += length;
+    }
+
+    /**
+     * @return the number of stored row blocks
+     */
+    public int getBlockCount() {
+        return _blockCount;
+    }
+
+    int getBlockSize(int block) {
+        return _blockSizes[block];
+    }
+
+    int getDbCellOffset(int block) {
+        return _dbCellOffsets[block];
+    }
+
+    /**
+     * @return the row number of the first stored row or -1, if no rows are stored
+     */
+    public int getFirstRowNum() {
+        return _blockCount == 0 ? -1 : _firstRows[0];
+    }
+
+    /**
+     * Passes a record for each stored block to the visitor, which serializes
+     * the block by reading it from the temporary file
+     */
+    void visitBlocks(RecordVisitor rv) {
+        for (int block = 0; block < _blockCount; block++) {
+            rv.visitRecord(new StoredRowBlock(block));
+        }
+    }
+
+    /**
+     * Closes and deletes the temporary file
+     *
+     * @return <code>true</code> if the file could be deleted
+     */
+    public boolean dispose() {
+        try {
+            _raf.close();
+        } catch (IOException e) {
+            // the file is deleted anyway
+        }
+        return _file.delete();
+    }
+
+    /**
+     * Placeholder for a stored row block in the sheet records.  It is only visited for
+     * serializing and sizing, as it stands for a sequence of records.
+     */
+    private final class StoredRowBlock extends Record {
+        /**
+         * Not a BIFF record type, as the block consists of ROW, cell and DBCELL records
+         */
+        static final short sid = -1;
+
+        private final int _block;
+
+        StoredRowBlock(int block) {
+            _block = block;
+        }
+
+        @Override
+        public short getSid() {
+            return sid;
+        }
+
+        @Override
+        public int serialize(int offset, byte[] data) {
+            int size = _blockSizes[_block];
+            try {
+                _raf.seek(_blockPositions[_block]);
+                _raf.readFully(data, offset, size);
+            } catch (IOException e) {
+                throw new RecordFormatException("Can't read row block from " + _file, e);
+            }
+            return size;
+        }
+
+        @Override
+        public int getRecordSize() {
+            return _blockSizes[_block];
+        }
+    }
+}
@@ -18,6 +18,7 @@
 package org.apache.poi.hssf.record.aggregates;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +28,7 @@ import org.apache.poi.hssf.model.RecordStream;
 import org.apache.poi.hssf.record.*;
 import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.formula.FormulaShifter;
+import org.apache.poi.util.Internal;
 
 /**
  *
@@ -45,6 +47,9 @@ public final class RowRecordsAggregate extends RecordAggregate {
     // getStartRowNumberForBlock / getEndRowNumberForBlock, see Bugzilla 47405
     private RowRecord[] _rowRecordValues = null;
 
+    // row blocks flushed by a streaming writer, they precede the rows of this aggregate
+    private RowBlockStore _flushedRowBlocks;
+
     /** Creates a new instance of ValueRecordsAggregate */
     public RowRecordsAggregate() {
         this(SharedValueManager.createEmpty());
@@ -244,39 +249,51 @@ public final class RowRecordsAggregate extends RecordAggregate {
         return result;
     }
 
+    /**
+     * Serializes a block of rows, followed by the cells of those rows and the DBCELL record.
+     *
+     * @return the offset of the DBCELL record from the start of the block
+     */
+    private int visitRowBlock(int blockIndex, RecordVisitor rv) {
+        PositionTrackingVisitor stv = new PositionTrackingVisitor(rv, 0);
+        // Serialize a block of rows.
+        // Hold onto the position of the first row in the block
+        int pos=0;
+        // Hold onto the size of this block that was serialized
+        final int rowBlockSize = visitRowRecordsForBlock(blockIndex, rv);
+        pos += rowBlockSize;
+        // Serialize a block of cells for those rows
+        final int startRowNumber = getStartRowNumberForBlock(blockIndex);
+        final int endRowNumber = getEndRowNumberForBlock(blockIndex);
+        DBCellRecord.Builder dbcrBuilder = new DBCellRecord.Builder();
+        // Note: Cell references start from the second row...
+        int cellRefOffset = (rowBlockSize - RowRecord.ENCODED_SIZE);
+        for (int row = startRowNumber; row <= endRowNumber; row++) {
+            if (_valuesAgg.rowHasCells(row)) {
+                stv.setPosition(0);
+                _valuesAgg.visitCellsForRow(row, stv);
+                int rowCellSize = stv.getPosition();
+                pos += rowCellSize;
+                // Add the offset to the first cell for the row into the
+                // DBCellRecord.
+                dbcrBuilder.addCellOffset(cellRefOffset);
+                cellRefOffset = rowCellSize;
+            }
+        }
+        // Calculate Offset from the start of a DBCellRecord to the first Row
+        rv.visitRecord(dbcrBuilder.build(pos));
+        return pos;
+    }
+
     @Override
     public void visitContainedRecords(RecordVisitor rv) {
-
-        PositionTrackingVisitor stv = new PositionTrackingVisitor(rv, 0);
+        if (_flushedRowBlocks != null) {
+            _flushedRowBlocks.visitBlocks(rv);
+        }
         //DBCells are serialized before row records.
         final int blockCount = getRowBlockCount();
         for (int blockIndex = 0; blockIndex < blockCount; blockIndex++) {
-            // Serialize a block of rows.
-            // Hold onto the position of the first row in the block
-            int pos=0;
-            // Hold onto the size of this block that was serialized
-            final int rowBlockSize = visitRowRecordsForBlock(blockIndex, rv);
-            pos += rowBlockSize;
-            // Serialize a block of cells for those rows
-            final int startRowNumber = getStartRowNumberForBlock(blockIndex);
-            final int endRowNumber = getEndRowNumberForBlock(blockIndex);
-            DBCellRecord.Builder dbcrBuilder = new DBCellRecord.Builder();
-            // Note: Cell references start from the second row...
-            int cellRefOffset = (rowBlockSize - RowRecord.ENCODED_SIZE);
-            for (int row = startRowNumber; row <= endRowNumber; row++) {
-                if (_valuesAgg.rowHasCells(row)) {
-                    stv.setPosition(0);
-                    _valuesAgg.visitCellsForRow(row, stv);
-                    int rowCellSize = stv.getPosition();
-                    pos += rowCellSize;
-                    // Add the offset to the first cell for the row into the
-                    // DBCellRecord.
-                    dbcrBuilder.addCellOffset(cellRefOffset);
-                    cellRefOffset = rowCellSize;
-                }
-            }
-            // Calculate Offset from the start of a DBCellRecord to the first Row
-            rv.visitRecord(dbcrBuilder.build(pos));
+            visitRowBlock(blockIndex, rv);
         }
         for (Record _unknownRecord : _unknownRecords) {
             // Potentially breaking the file here since we don't know exactly where to write these records
@@ -284,6 +301,66 @@ public final class RowRecordsAggregate extends RecordAggregate {
         }
     }
 
+    /**
+     * Serializes the first row block, i.e. the first {@link DBCellRecord#BLOCK_SIZE} rows
+     * together with their cells, into the store and removes these rows from this aggregate.
+     * The stored blocks are written in front of the remaining rows, so rows must not be
+     * added before the flushed rows afterwards.
+     *
+     * @param store the store for the flushed blocks, the same store must be used for all
+     *  blocks of a sheet
+     * @return the row number of the last flushed row
+     *
+     * @since 3.17-beta1
+     */
+    @Internal
+    public int flushRowBlock(RowBlockStore store) {
+        if (_flushedRowBlocks != null && _flushedRowBlocks != store) {
+            throw new IllegalArgumentException("The row blocks of a sheet must be flushed into the same store");
+        }
+        if (_rowRecords.size() < DBCellRecord.BLOCK_SIZE) {
+            throw new IllegalStateException("The first row block isn't complete");
+        }
+
+        final int startRowNumber = getStartRowNumberForBlock(0);
+        final int endRowNumber = getEndRowNumberForBlock(0);
+        BlockSerializer bs = new BlockSerializer();
+        int dbCellOffset = visitRowBlock(0, bs);
+        store.addBlock(bs._data, bs._size, dbCellOffset, startRowNumber);
+        _flushedRowBlocks = store;
+
+        for (int row = startRowNumber; row <= endRowNumber; row++) {
+            _valuesAgg.removeAllCellsValuesForRow(row);
+            _rowRecords.remove(Integer.valueOf(row));
+        }
+        _rowRecordValues = null;
+        return endRowNumber;
+    }
+
+    /**
+     * @return the number of row blocks flushed by a streaming writer
+     */
+    private int getFlushedRowBlockCount() {
+        return _flushedRowBlocks == null ? 0 : _flushedRowBlocks.getBlockCount();
+    }
+
+    /**
+     * Collects the serialized records of a row block
+     */
+    private static final class BlockSerializer implements RecordVisitor {
+        private byte[] _data = new byte[4096];
+        private int _size;
+
+        @Override
+        public void visitRecord(Record r) {
+            int recSize = r.getRecordSize();
+            if (_size + recSize > _data.length) {
+                _data = Arrays.copyOf(_data, Math.max(_data.length * 2, _size + recSize));
+            }
+            _size += r.serialize(_size, _data);
+        }
+    }
+
     public Iterator<RowRecord> getIterator() {
         return _rowRecords.values().iterator();
     }
@@ -442,6 +519,15 @@ public final class RowRecordsAggregate extends RecordAggregate {
         return _valuesAgg.iterator();
     }
 
+    /**
+     * @return the cell values of the rows
+     * @since 3.17-beta1
+     */
+    @Internal
+    public ValueRecordsAggregate getValueRecordsAggregate() {
+        return _valuesAgg;
+    }
+
     public IndexRecord createIndexRecord(int indexRecordOffset, int sizeOfInitialSheetRecords) {
         IndexRecord result = new IndexRecord();
         result.setFirstRow(_firstrow);
@@ -454,11 +540,18 @@ public final class RowRecordsAggregate extends RecordAggregate {
         // 0 for now.....
 
         int blockCount = getRowBlockCount();
+        int flushedBlockCount = getFlushedRowBlockCount();
         // Calculate the size of this IndexRecord
-        int indexRecSize = IndexRecord.getRecordSizeForBlockCount(blockCount);
+        int indexRecSize = IndexRecord.getRecordSizeForBlockCount(flushedBlockCount + blockCount);
 
         int currentOffset = indexRecordOffset + indexRecSize + sizeOfInitialSheetRecords;
 
+        for (int block = 0; block < flushedBlockCount; block++) {
+            // the flushed blocks precede the rows of the aggregate
+            result.addDbcell(currentOffset + _flushedRowBlocks.getDbCellOffset(block));
+            currentOffset += _flushedRowBlocks.getBlockSize(block);
+        }
+
         for (int block = 0; block < blockCount; block++) {
             // each row-block has a DBCELL record.
             // The offset of each DBCELL record needs to be updated in the INDEX record
@@ -17,13 +17,16 @@
 
 package org.apache.poi.hssf.record.aggregates;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
 import org.apache.poi.hssf.model.RecordStream;
 import org.apache.poi.hssf.record.BlankRecord;
 import org.apache.poi.hssf.record.CellValueRecordInterface;
 import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
 import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.NumberRecord;
 import org.apache.poi.hssf.record.Record;
 import org.apache.poi.hssf.record.RecordBase;
 import org.apache.poi.hssf.record.StringRecord;
@@ -34,6 +37,12 @@ import org.apache.poi.ss.formula.ptg.Ptg;
 /**
  *
  * Aggregate value records together.  Things are easier to handle that way.
+ * <p>
+ * The number, string and blank cells read from a file are stored in packed primitive
+ * arrays (type, xf index and value per cell) instead of record objects.  The records
+ * of packed cells are only created when they are accessed via {@link #getCell(int, int)}
+ * or the {@link #iterator()} - from then on the record is stored, as the callers might
+ * modify it.  Serialization creates short-lived records for the packed cells.
  *
  * @author  andy
  * @author  Glen Stampoultzis (glens at apache.org)
@@ -46,6 +55,23 @@ public final class ValueRecordsAggregate implements Iterable<CellValueRecordInte
 	private int lastcell  = INDEX_NOT_SET;
 	private CellValueRecordInterface[][] records;
 
+	// types of the packed cells
+	private static final byte PACKED_NONE = 0;
+	private static final byte PACKED_NUMBER = 1;
+	private static final byte PACKED_LABEL_SST = 2;
+	private static final byte PACKED_BLANK = 3;
+
+	// serialized sizes of the packed cells, including the record header
+	private static final int NUMBER_RECORD_SIZE = 18;
+	private static final int LABEL_SST_RECORD_SIZE = 14;
+	private static final int BLANK_RECORD_SIZE = 10;
+
+	/** the types of the packed cells, <code>null</code> for rows without packed cells */
+	private byte[][] packedTypes;
+	private short[][] packedXFs;
+	/** the double bits of numbers or the SST index of strings */
+	private long[][] packedValues;
+
 	/** Creates a new instance of ValueRecordsAggregate */
 
 	public ValueRecordsAggregate() {
@@ -55,11 +81,12 @@ public final class ValueRecordsAggregate implements Iterable<CellValueRecordInte
 		firstcell = firstCellIx;
 		lastcell = lastCellIx;
 		records = pRecords;
+		packedTypes = new byte[pRecords.length][];
+		packedXFs = new short[pRecords.length][];
+		packedValues = new long[pRecords.length][];
 	}
 
-	public void insertCell(CellValueRecordInterface cell) {
-		short column = cell.getColumn();
-		int row = cell.getRow();
+	private void ensureRowCapacity(int row) {
 		if (row >= records.length) {
 			CellValueRecordInterface[][] oldRecords = records;
 			int newSize = oldRecords.length * 2;
@@ -67,8 +94,188 @@ public final class ValueRecordsAggregate implements Iterable<CellValueRecordInte
 				newSize = row + 1;
 			records = new CellValueRecordInterface[newSize][];
 			System.arraycopy(oldRecords, 0, records, 0, oldRecords.length);
+			packedTypes = Arrays.copyOf(packedTypes, newSize);
+			packedXFs = Arrays.copyOf(packedXFs, newSize);
+			packedValues = Arrays.copyOf(packedValues, newSize);
+		}
+	}
+
+	private void updateCellRange(int column) {
+		if (column < firstcell || firstcell == INDEX_NOT_SET) {
+			firstcell = column;
+		}
+		if (column > lastcell || lastcell == INDEX_NOT_SET) {
+			lastcell = column;
+		}
+	}
+
+	private boolean isPacked(int row, int column) {
+		byte[] types = packedTypes[row];
+		return types != null && column < types.length && types[column] != PACKED_NONE;
+	}
+
+	private void clearPacked(int row, int column) {
+		if (row < packedTypes.length) {
+			byte[] types = packedTypes[row];
+			if (types != null && column < types.length) {
+				types[column] = PACKED_NONE;
+			}
+		}
+	}
+
+	/**
+	 * Stores a cell in the packed arrays, any record for the cell is removed
+	 */
+	private void insertPacked(int row, int column, byte type, short xfIndex, long value) {
+		ensureRowCapacity(row);
+		byte[] types = packedTypes[row];
+		if (types == null || column >= types.length) {
+			int newSize = (types == null) ? 10 : types.length * 2;
+			if (newSize < column + 1)
+				newSize = column + 1;
+			if (types == null) {
+				packedTypes[row] = new byte[newSize];
+				packedXFs[row] = new short[newSize];
+				packedValues[row] = new long[newSize];
+			} else {
+				packedTypes[row] = Arrays.copyOf(types, newSize);
+				packedXFs[row] = Arrays.copyOf(packedXFs[row], newSize);
+				packedValues[row] = Arrays.copyOf(packedValues[row], newSize);
+			}
+		}
+		packedTypes[row][column] = type;
+		packedXFs[row][column] = xfIndex;
+		packedValues[row][column] = value;
+
+		CellValueRecordInterface[] rowCells = records[row];
+		if (rowCells != null && column < rowCells.length) {
+			rowCells[column] = null;
+		}
+		updateCellRange(column);
+	}
+
+	/**
+	 * Creates the record of a packed cell.  The record isn't stored.
+	 */
+	private CellValueRecordInterface createPackedRecord(int row, int column) {
+		short xfIndex = packedXFs[row][column];
+		long value = packedValues[row][column];
+		switch (packedTypes[row][column]) {
+			case PACKED_NUMBER:
+				NumberRecord nr = new NumberRecord();
+				nr.setRow(row);
+				nr.setColumn((short)column);
+				nr.setXFIndex(xfIndex);
+				nr.setValue(Double.longBitsToDouble(value));
+				return nr;
+			case PACKED_LABEL_SST:
+				LabelSSTRecord lr = new LabelSSTRecord();
+				lr.setRow(row);
+				lr.setColumn((short)column);
+				lr.setXFIndex(xfIndex);
+				lr.setSSTIndex((int)value);
+				return lr;
+			case PACKED_BLANK:
+				BlankRecord br = new BlankRecord();
+				br.setRow(row);
+				br.setColumn((short)column);
+				br.setXFIndex(xfIndex);
+				return br;
+			default:
+				throw new IllegalStateException("No packed cell at row " + row + ", column " + column);
+		}
+	}
+
+	private static int getPackedRecordSize(byte type) {
+		switch (type) {
+			case PACKED_NUMBER: return NUMBER_RECORD_SIZE;
+			case PACKED_LABEL_SST: return LABEL_SST_RECORD_SIZE;
+			case PACKED_BLANK: return BLANK_RECORD_SIZE;
+			default: return 0;
+		}
+	}
+
+	/**
+	 * Returns the cell value record of the specified cell.  If the cell is packed,
+	 * its record is created and stored instead of the packed cell.
+	 *
+	 * @return the record or <code>null</code>, if there is no cell
+	 */
+	public CellValueRecordInterface getCell(int row, int column) {
+		if (row < 0 || row >= records.length || column < 0) {
+			return null;
+		}
+		if (isPacked(row, column)) {
+			CellValueRecordInterface cell = createPackedRecord(row, column);
+			insertCell(cell);
+			return cell;
 		}
 		CellValueRecordInterface[] rowCells = records[row];
+		return (rowCells == null || column >= rowCells.length) ? null : rowCells[column];
+	}
+
+	/**
+	 * @return the column index of the first cell in the row or -1, if the row has no cells
+	 */
+	public int getFirstCellInRow(int row) {
+		if (row < 0 || row >= records.length) {
+			return INDEX_NOT_SET;
+		}
+		int length = getRowLength(row);
+		for (int col = 0; col < length; col++) {
+			if (hasCell(row, col)) {
+				return col;
+			}
+		}
+		return INDEX_NOT_SET;
+	}
+
+	/**
+	 * @return the column index of the last cell in the row or -1, if the row has no cells
+	 */
+	public int getLastCellInRow(int row) {
+		if (row < 0 || row >= records.length) {
+			return INDEX_NOT_SET;
+		}
+		for (int col = getRowLength(row) - 1; col >= 0; col--) {
+			if (hasCell(row, col)) {
+				return col;
+			}
+		}
+		return INDEX_NOT_SET;
+	}
+
+	/**
+	 * @return the index of the first row starting from <code>row</code>, which has cells,
+	 * or -1 if there is none
+	 */
+	public int getNextRowWithCells(int row) {
+		for (int r = Math.max(row, 0); r < records.length; r++) {
+			if (rowHasCells(r)) {
+				return r;
+			}
+		}
+		return INDEX_NOT_SET;
+	}
+
+	private int getRowLength(int row) {
+		CellValueRecordInterface[] rowCells = records[row];
+		byte[] types = packedTypes[row];
+		return Math.max(rowCells == null ? 0 : rowCells.length, types == null ? 0 : types.length);
+	}
+
+	private boolean hasCell(int row, int column) {
+		CellValueRecordInterface[] rowCells = records[row];
+		return (rowCells != null && column < rowCells.length && rowCells[column] != null)
+			|| isPacked(row, column);
+	}
+
+	public void insertCell(CellValueRecordInterface cell) {
+		short column = cell.getColumn();
+		int row = cell.getRow();
+		ensureRowCapacity(row);
+		clearPacked(row, column);
+		CellValueRecordInterface[] rowCells = records[row];
 		if (rowCells == null) {
 			int newSize = column + 1;
 			if (newSize < 10)
@@ -88,12 +295,7 @@ public final class ValueRecordsAggregate implements Iterable<CellValueRecordInte
 		}
 		rowCells[column] = cell;
 
-		if (column < firstcell || firstcell == INDEX_NOT_SET) {
-			firstcell = column;
-		}
-		if (column > lastcell || lastcell == INDEX_NOT_SET) {
-			lastcell = column;
-		}
+		updateCellRange(column);
 	}
 
 	public void removeCell(CellValueRecordInterface cell) {
@@ -113,6 +315,7 @@ public final class ValueRecordsAggregate implements Iterable<CellValueRecordInte
 			throw new RuntimeException("cell column is out of range");
 		}
 		rowCells[column] = null;
+		clearPacked(row, column);
 	}
 
 	public void removeAllCellsValuesForRow(int rowIndex) {
@@ -127,18 +330,19 @@ public final class ValueRecordsAggregate implements Iterable<CellValueRecordInte
 		}
 
 		records[rowIndex] = null;
+		packedTypes[rowIndex] = null;
+		packedXFs[rowIndex] = null;
+		packedValues[rowIndex] = null;
 	}
 
 
 	public int getPhysicalNumberOfCells() {
 		int count = 0;
 		for (int r = 0; r < records.length; r++) {
-			CellValueRecordInterface[] rowCells = records[r];
-			if (rowCells != null) {
-				for (int c = 0; c < rowCells.length; c++) {
-					if (rowCells[c] != null)
-						count++;
-				}
+			int length = getRowLength(r);
+			for (int c = 0; c < length; c++) {
+				if (hasCell(r, c))
+					count++;
 			}
 		}
 		return count;
@@ -154,12 +358,7 @@ public final class ValueRecordsAggregate implements Iterable<CellValueRecordInte
 
 	public void addMultipleBlanks(MulBlankRecord mbr) {
 		for (int j = 0; j < mbr.getNumColumns(); j++) {
-			BlankRecord br = new BlankRecord();
-
-			br.setColumn(( short ) (j + mbr.getFirstColumn()));
-			br.setRow(mbr.getRow());
-			br.setXFIndex(mbr.getXFAt(j));
-			insertCell(br);
+			insertPacked(mbr.getRow(), j + mbr.getFirstColumn(), PACKED_BLANK, mbr.getXFAt(j), 0);
 		}
 	}
 
@@ -179,6 +378,14 @@ public final class ValueRecordsAggregate implements Iterable<CellValueRecordInte
 				cachedText = null;
 			}
 			insertCell(new FormulaRecordAggregate(formulaRec, cachedText, sfh));
+		} else if (rec instanceof NumberRecord) {
+			long value = Double.doubleToRawLongBits(((NumberRecord)rec).getValue());
+			insertPacked(rec.getRow(), rec.getColumn(), PACKED_NUMBER, rec.getXFIndex(), value);
+		} else if (rec instanceof LabelSSTRecord) {
+			long value = ((LabelSSTRecord)rec).getSSTIndex();
+			insertPacked(rec.getRow(), rec.getColumn(), PACKED_LABEL_SST, rec.getXFIndex(), value);
+		} else if (rec instanceof BlankRecord) {
+			insertPacked(rec.getRow(), rec.getColumn(), PACKED_BLANK, rec.getXFIndex(), 0);
 		} else {
 			insertCell(rec);
 		}
@@ -190,7 +397,7 @@ public final class ValueRecordsAggregate implements Iterable<CellValueRecordInte
 	public int getRowCellBlockSize(int startRow, int endRow) {
 		int result = 0;
 		for(int rowIx=startRow; rowIx<=endRow && rowIx<records.length; rowIx++) {
-			result += getRowSerializedSize(records[rowIx]);
+			result += getRowSerializedSize(rowIx);
 		}
 		return result;
 	}
@@ -200,30 +407,32 @@ public final class ValueRecordsAggregate implements Iterable<CellValueRecordInte
 		if (row >= records.length) {
 			return false;
 		}
-		CellValueRecordInterface[] rowCells=records[row];
-		if(rowCells==null) return false;
-		for(int col=0;col<rowCells.length;col++) {
-			if(rowCells[col]!=null) return true;
+		int length = getRowLength(row);
+		for(int col=0;col<length;col++) {
+			if(hasCell(row, col)) return true;
 		}
 		return false;
 	}
 
-	private static int getRowSerializedSize(CellValueRecordInterface[] rowCells) {
-		if(rowCells == null) {
-			return 0;
-		}
+	private int getRowSerializedSize(int rowIndex) {
+		CellValueRecordInterface[] rowCells = records[rowIndex];
+		byte[] types = packedTypes[rowIndex];
+		int length = getRowLength(rowIndex);
 		int result = 0;
-		for (int i = 0; i < rowCells.length; i++) {
-			RecordBase cvr = (RecordBase) rowCells[i];
-			if(cvr == null) {
+		for (int i = 0; i < length; i++) {
+			RecordBase cvr = (rowCells == null || i >= rowCells.length) ? null : (RecordBase) rowCells[i];
+			byte type = (types == null || i >= types.length) ? PACKED_NONE : types[i];
+			if(cvr == null && type == PACKED_NONE) {
 				continue;
 			}
-			int nBlank = countBlanks(rowCells, i);
+			int nBlank = countBlanks(rowIndex, i);
 			if (nBlank > 1) {
 				result += (10 + 2*nBlank);
 				i+=nBlank-1;
-			} else {
+			} else if (cvr != null) {
 				result += cvr.getRecordSize();
+			} else {
+				result += getPackedRecordSize(type);
 			}
 		}
 		return result;
@@ -232,19 +441,24 @@ public final class ValueRecordsAggregate implements Iterable<CellValueRecordInte
 	public void visitCellsForRow(int rowIndex, RecordVisitor rv) {
 
 		CellValueRecordInterface[] rowCells = records[rowIndex];
-		if(rowCells == null) {
+		byte[] types = packedTypes[rowIndex];
+		if(rowCells == null && types == null) {
 			throw new IllegalArgumentException("Row [" + rowIndex + "] is empty");
 		}
 
-
-		for (int i = 0; i < rowCells.length; i++) {
-			RecordBase cvr = (RecordBase) rowCells[i];
+		int length = getRowLength(rowIndex);
+		for (int i = 0; i < length; i++) {
+			RecordBase cvr = (rowCells == null || i >= rowCells.length) ? null : (RecordBase) rowCells[i];
 			if(cvr == null) {
-				continue;
+				if (types == null || i >= types.length || types[i] == PACKED_NONE) {
+					continue;
+				}
+				// create a temporary record for the packed cell
+				cvr = (RecordBase) createPackedRecord(rowIndex, i);
 			}
-			int nBlank = countBlanks(rowCells, i);
+			int nBlank = countBlanks(rowIndex, i);
 			if (nBlank > 1) {
-				rv.visitRecord(createMBR(rowCells, i, nBlank));
+				rv.visitRecord(createMBR(rowIndex, i, nBlank));
 				i+=nBlank-1;
 			} else if (cvr instanceof RecordAggregate) {
 				RecordAggregate agg = (RecordAggregate) cvr;
@@ -256,28 +470,40 @@ public final class ValueRecordsAggregate implements Iterable<CellValueRecordInte
 	}
 
 	/**
-	 * @return the number of <em>consecutive</em> {@link BlankRecord}s in the specified row
-	 * starting from startIx.
+	 * @return the number of <em>consecutive</em> {@link BlankRecord}s or packed blank
+	 * cells in the specified row starting from startIx.
 	 */
-	private static int countBlanks(CellValueRecordInterface[] rowCellValues, int startIx) {
+	private int countBlanks(int rowIndex, int startIx) {
 		int i = startIx;
-		while(i < rowCellValues.length) {
-			CellValueRecordInterface cvr = rowCellValues[i];
-			if (!(cvr instanceof BlankRecord)) {
-				break;
-			}
+		int length = getRowLength(rowIndex);
+		while(i < length && getBlankXFIndex(rowIndex, i) != -1) {
 			i++;
 		}
 		return i - startIx;
 	}
 
-	private MulBlankRecord createMBR(CellValueRecordInterface[] cellValues, int startIx, int nBlank) {
+	/**
+	 * @return the xf index of the blank cell or -1, if the cell isn't blank
+	 */
+	private int getBlankXFIndex(int rowIndex, int column) {
+		CellValueRecordInterface[] rowCells = records[rowIndex];
+		if (rowCells != null && column < rowCells.length && rowCells[column] != null) {
+			CellValueRecordInterface cvr = rowCells[column];
+			return (cvr instanceof BlankRecord) ? (cvr.getXFIndex() & 0xFFFF) : -1;
+		}
+		byte[] types = packedTypes[rowIndex];
+		if (types != null && column < types.length && types[column] == PACKED_BLANK) {
+			return packedXFs[rowIndex][column] & 0xFFFF;
+		}
+		return -1;
+	}
+
+	private MulBlankRecord createMBR(int rowIx, int startIx, int nBlank) {
 
 		short[] xfs = new short[nBlank];
 		for (int i = 0; i < xfs.length; i++) {
-			xfs[i] = ((BlankRecord)cellValues[startIx + i]).getXFIndex();
+			xfs[i] = (short)getBlankXFIndex(rowIx, startIx + i);
 		}
-		int rowIx = cellValues[startIx].getRow();
 		return new MulBlankRecord(rowIx, startIx, xfs);
 	}
 
@@ -320,13 +546,13 @@ public final class ValueRecordsAggregate implements Iterable<CellValueRecordInte
 
 			while (nextRowIndex < records.length) {
 				++nextColIndex;
-				if (records[nextRowIndex] == null || nextColIndex >= records[nextRowIndex].length) {
+				if (nextColIndex >= getRowLength(nextRowIndex)) {
 					++nextRowIndex;
 					nextColIndex = -1;
 					continue;
 				}
 
-				if (records[nextRowIndex][nextColIndex] != null)
+				if (hasCell(nextRowIndex, nextColIndex))
 					return; // next cell found
 			}
 			// no next found
@@ -342,13 +568,15 @@ public final class ValueRecordsAggregate implements Iterable<CellValueRecordInte
 
 			curRowIndex = nextRowIndex;
 			curColIndex = nextColIndex;
-			final CellValueRecordInterface ret = records[curRowIndex][curColIndex];
+			// packed cells are turned into records, as the caller might modify them
+			final CellValueRecordInterface ret = getCell(curRowIndex, curColIndex);
 			getNextPos();
 			return ret;
 		}
 
 		public void remove() {
 			records[curRowIndex][curColIndex] = null;
+			clearPacked(curRowIndex, curColIndex);
 		}
 	}
 
@@ -139,7 +139,17 @@ public final class ContinuableRecordOutput implements LittleEndianOutput {
 	 * </ul>
 	 */
 	public void writeString(String text, int numberOfRichTextRuns, int extendedDataSize) {
-		boolean is16bitEncoded = StringUtil.hasMultibyte(text);
+		writeString((CharSequence)text, numberOfRichTextRuns, extendedDataSize);
+	}
+
+	/**
+	 * Writes a unicode string complete with header and character data, like
+	 * {@link #writeString(String, int, int)}, without requiring a String instance.
+	 *
+	 * @since 3.17-beta1
+	 */
+	public void writeString(CharSequence text, int numberOfRichTextRuns, int extendedDataSize) {
+		boolean is16bitEncoded = hasMultibyte(text);
 		// calculate total size of the header and first encoded char
 		int keepTogetherSize = 2 + 1 + 1; // ushort len, byte optionFlags, at least one character byte
 		int optionFlags = 0x00;
@@ -168,7 +178,16 @@ public final class ContinuableRecordOutput implements LittleEndianOutput {
 	}
 
 
-	private void writeCharacterData(String text, boolean is16bitEncoded) {
+	private static boolean hasMultibyte(CharSequence text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) > 0xFF) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void writeCharacterData(CharSequence text, boolean is16bitEncoded) {
 		int nChars = text.length();
 		int i=0;
 		if (is16bitEncoded) {
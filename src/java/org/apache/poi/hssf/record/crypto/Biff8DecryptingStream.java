@@ -25,6 +25,7 @@ import org.apache.poi.hssf.record.BiffHeaderInput;
 import org.apache.poi.hssf.record.FilePassRecord;
 import org.apache.poi.hssf.record.InterfaceHdrRecord;
 import org.apache.poi.hssf.record.RecordFormatException;
+import org.apache.poi.hssf.record.RecordInputStream;
 import org.apache.poi.poifs.crypt.ChunkedCipherInputStream;
 import org.apache.poi.poifs.crypt.Decryptor;
 import org.apache.poi.poifs.crypt.EncryptionInfo;
@@ -32,6 +33,15 @@ import org.apache.poi.util.LittleEndian;
 import org.apache.poi.util.LittleEndianConsts;
 import org.apache.poi.util.LittleEndianInput;
 
+/**
+ * Decrypts the records of an encrypted workbook stream.
+ * <p>
+ * The record headers are read unencrypted.  When the size of a record is read, the whole
+ * record data is decrypted in one go, so the cipher steps over the record in bulk and the
+ * record fields are then read from the buffered data.  The plain bytes are kept alongside,
+ * as some records and fields are never encrypted.  Reads beyond the buffered record data
+ * are decrypted directly from the stream.
+ */
 public final class Biff8DecryptingStream implements BiffHeaderInput, LittleEndianInput {
 
     public static final int RC4_REKEYING_INTERVAL = 1024;
@@ -41,6 +51,13 @@ public final class Biff8DecryptingStream implements BiffHeaderInput, LittleEndia
     private final byte buffer[] = new byte[LittleEndianConsts.LONG_SIZE];
     private boolean shouldSkipEncryptionOnCurrentRecord = false;
 
+    /** the decrypted data of the current record */
+    private final byte recordData[] = new byte[RecordInputStream.MAX_RECORD_DATA_SIZE];
+    /** the unencrypted data of the current record */
+    private final byte recordPlain[] = new byte[RecordInputStream.MAX_RECORD_DATA_SIZE];
+    private int recordSize;
+    private int recordOffset;
+
 	public Biff8DecryptingStream(InputStream in, int initialOffset, EncryptionInfo info) throws RecordFormatException {
         try {
     	    byte initialBuf[] = new byte[initialOffset];
@@ -67,7 +84,7 @@ public final class Biff8DecryptingStream implements BiffHeaderInput, LittleEndia
 
 	@Override
     public int available() {
-		return ccis.available();
+		return ccis.available() + (recordSize - recordOffset);
 	}
 
 	/**
@@ -75,20 +92,28 @@ public final class Biff8DecryptingStream implements BiffHeaderInput, LittleEndia
 	 */
 	@Override
     public int readRecordSID() {
-	    readPlain(buffer, 0, LittleEndianConsts.SHORT_SIZE);
+	    ccis.readPlain(buffer, 0, LittleEndianConsts.SHORT_SIZE);
 		int sid = LittleEndian.getUShort(buffer, 0);
 		shouldSkipEncryptionOnCurrentRecord = isNeverEncryptedRecord(sid);
 		return sid;
 	}
 
 	/**
-	 * Reads an unsigned short value without decrypting
+	 * Reads an unsigned short value without decrypting and decrypts the data of the record
 	 */
 	@Override
     public int readDataSize() {
-        readPlain(buffer, 0, LittleEndianConsts.SHORT_SIZE);
+        ccis.readPlain(buffer, 0, LittleEndianConsts.SHORT_SIZE);
         int dataSize = LittleEndian.getUShort(buffer, 0);
         ccis.setNextRecordSize(dataSize);
+        recordOffset = 0;
+        if (dataSize <= recordData.length) {
+            ccis.readFully(recordData, recordPlain, 0, dataSize);
+            recordSize = dataSize;
+        } else {
+            // invalid record, which is reported by the caller - leave the data in the stream
+            recordSize = 0;
+        }
 		return dataSize;
 	}
 
@@ -110,11 +135,7 @@ public final class Biff8DecryptingStream implements BiffHeaderInput, LittleEndia
 
 	@Override
     public void readFully(byte[] buf, int off, int len) {
-        if (shouldSkipEncryptionOnCurrentRecord) {
-            readPlain(buf, off, buf.length);
-        } else {
-            ccis.readFully(buf, off, len);
-        }
+        readData(buf, off, len, shouldSkipEncryptionOnCurrentRecord);
 	}
 
 	@Override
@@ -124,12 +145,11 @@ public final class Biff8DecryptingStream implements BiffHeaderInput, LittleEndia
 	
 	@Override
     public byte readByte() {
-        if (shouldSkipEncryptionOnCurrentRecord) {
-            readPlain(buffer, 0, LittleEndianConsts.BYTE_SIZE);
-            return buffer[0];
-        } else {
-            return ccis.readByte();
+        if (recordOffset < recordSize) {
+            return currentData()[recordOffset++];
         }
+        readData(buffer, 0, LittleEndianConsts.BYTE_SIZE, shouldSkipEncryptionOnCurrentRecord);
+        return buffer[0];
 	}
 
 	@Override
@@ -139,39 +159,65 @@ public final class Biff8DecryptingStream implements BiffHeaderInput, LittleEndia
 	
 	@Override
     public short readShort() {
-        if (shouldSkipEncryptionOnCurrentRecord) {
-            readPlain(buffer, 0, LittleEndianConsts.SHORT_SIZE);
-            return LittleEndian.getShort(buffer);
-        } else {
-            return ccis.readShort();
+        if (LittleEndianConsts.SHORT_SIZE <= recordSize - recordOffset) {
+            short value = LittleEndian.getShort(currentData(), recordOffset);
+            recordOffset += LittleEndianConsts.SHORT_SIZE;
+            return value;
         }
+        readData(buffer, 0, LittleEndianConsts.SHORT_SIZE, shouldSkipEncryptionOnCurrentRecord);
+        return LittleEndian.getShort(buffer, 0);
 	}
 
 	@Override
     public int readInt() {
-        if (shouldSkipEncryptionOnCurrentRecord) {
-            readPlain(buffer, 0, LittleEndianConsts.INT_SIZE);
-            return LittleEndian.getInt(buffer);
-        } else {
-            return ccis.readInt();
+        if (LittleEndianConsts.INT_SIZE <= recordSize - recordOffset) {
+            int value = LittleEndian.getInt(currentData(), recordOffset);
+            recordOffset += LittleEndianConsts.INT_SIZE;
+            return value;
         }
+        readData(buffer, 0, LittleEndianConsts.INT_SIZE, shouldSkipEncryptionOnCurrentRecord);
+        return LittleEndian.getInt(buffer, 0);
 	}
 
 	@Override
     public long readLong() {
-        if (shouldSkipEncryptionOnCurrentRecord) {
-            readPlain(buffer, 0, LittleEndianConsts.LONG_SIZE);
-            return LittleEndian.getLong(buffer);
-        } else {
-            return ccis.readLong();
+        if (LittleEndianConsts.LONG_SIZE <= recordSize - recordOffset) {
+            long value = LittleEndian.getLong(currentData(), recordOffset);
+            recordOffset += LittleEndianConsts.LONG_SIZE;
+            return value;
         }
+        readData(buffer, 0, LittleEndianConsts.LONG_SIZE, shouldSkipEncryptionOnCurrentRecord);
+        return LittleEndian.getLong(buffer, 0);
 	}
 
 	/**
 	 * @return the absolute position in the stream
 	 */
 	public long getPosition() {
-	    return ccis.getPos();
+	    return ccis.getPos() - (recordSize - recordOffset);
+	}
+
+	private byte[] currentData() {
+	    return shouldSkipEncryptionOnCurrentRecord ? recordPlain : recordData;
+	}
+
+	/**
+	 * Copies the bytes from the buffered record data and reads
+	 * any further bytes from the decrypting stream
+	 */
+	private void readData(byte[] buf, int off, int len, boolean plain) {
+	    int buffered = Math.min(len, recordSize - recordOffset);
+	    if (buffered > 0) {
+	        System.arraycopy(plain ? recordPlain : recordData, recordOffset, buf, off, buffered);
+	        recordOffset += buffered;
+	    }
+	    if (buffered < len) {
+	        if (plain) {
+	            ccis.readPlain(buf, off + buffered, len - buffered);
+	        } else {
+	            ccis.readFully(buf, off + buffered, len - buffered);
+	        }
+	    }
 	}
 	
     /**
@@ -205,7 +251,7 @@ public final class Biff8DecryptingStream implements BiffHeaderInput, LittleEndia
 
     @Override
     public void readPlain(byte b[], int off, int len) {
-        ccis.readPlain(b, off, len);
+        readData(b, off, len, true);
     }
 
 }
@@ -0,0 +1,781 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.streaming;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.hssf.record.DBCellRecord;
+import org.apache.poi.hssf.record.aggregates.RowBlockStore;
+import org.apache.poi.hssf.usermodel.HSSFCell;
+import org.apache.poi.hssf.usermodel.HSSFComment;
+import org.apache.poi.hssf.usermodel.HSSFDataValidation;
+import org.apache.poi.hssf.usermodel.HSSFFooter;
+import org.apache.poi.hssf.usermodel.HSSFHeader;
+import org.apache.poi.hssf.usermodel.HSSFHyperlink;
+import org.apache.poi.hssf.usermodel.HSSFPatriarch;
+import org.apache.poi.hssf.usermodel.HSSFPrintSetup;
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFSheetConditionalFormatting;
+import org.apache.poi.ss.usermodel.AutoFilter;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellRange;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataValidation;
+import org.apache.poi.ss.usermodel.DataValidationHelper;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellAddress;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.PaneInformation;
+
+/**
+ * Streaming version of a {@link HSSFSheet}, see {@link SHSSFWorkbook}.
+ * <p>
+ * Rows are created as plain {@link HSSFRow}s of the underlying sheet.  Once the
+ * number of rows in memory exceeds the row access window size, the oldest rows
+ * are flushed in row blocks of {@link DBCellRecord#BLOCK_SIZE} rows.  Flushed
+ * rows can't be accessed anymore and rows can only be added after them.
+ *
+ * @since 3.17-beta1
+ */
+public class SHSSFSheet implements Sheet {
+    private final SHSSFWorkbook _workbook;
+    private final HSSFSheet _sh;
+    private RowBlockStore _store;
+    private int _lastFlushedRowNum = -1;
+
+    SHSSFSheet(SHSSFWorkbook workbook, HSSFSheet sheet) {
+        _workbook = workbook;
+        _sh = sheet;
+    }
+
+    /**
+     * @return the underlying sheet, which holds the rows in memory
+     */
+    public HSSFSheet getHSSFSheet() {
+        return _sh;
+    }
+
+    /**
+     * Create a new row within the sheet and return the high level representation.
+     * Once the number of rows in memory exceeds the row access window size by a row block,
+     * the first row block is flushed to the temporary file.
+     *
+     * @param rownum row number
+     * @return high level HSSFRow object representing a row in the sheet
+     * @throws IllegalArgumentException if the row is in the range of the flushed rows
+     */
+    @Override
+    public HSSFRow createRow(int rownum) {
+        if (rownum <= _lastFlushedRowNum) {
+            throw new IllegalArgumentException(
+                    "Attempting to write a row["+rownum+"] " +
+                    "in the range [0," + _lastFlushedRowNum + "] that is already written to disk.");
+        }
+        HSSFRow row = _sh.createRow(rownum);
+        int windowSize = _workbook.getRandomAccessWindowSize();
+        if (windowSize > 0 && _sh.getPhysicalNumberOfRows() >= windowSize + DBCellRecord.BLOCK_SIZE) {
+            flushRowBlock();
+        }
+        return row;
+    }
+
+    @Override
+    public void removeRow(Row row) {
+        _sh.removeRow(row);
+    }
+
+    @Override
+    public HSSFRow getRow(int rownum) {
+        return _sh.getRow(rownum);
+    }
+
+    @Override
+    public int getPhysicalNumberOfRows() {
+        return _sh.getPhysicalNumberOfRows();
+    }
+
+    @Override
+    public int getFirstRowNum() {
+        return _sh.getFirstRowNum();
+    }
+
+    @Override
+    public int getLastRowNum() {
+        return _sh.getLastRowNum();
+    }
+
+    @Override
+    public void setColumnHidden(int columnIndex, boolean hidden) {
+        _sh.setColumnHidden(columnIndex, hidden);
+    }
+
+    @Override
+    public boolean isColumnHidden(int columnIndex) {
+        return _sh.isColumnHidden(columnIndex);
+    }
+
+    @Override
+    public void setRightToLeft(boolean value) {
+        _sh.setRightToLeft(value);
+    }
+
+    @Override
+    public boolean isRightToLeft() {
+        return _sh.isRightToLeft();
+    }
+
+    @Override
+    public void setColumnWidth(int columnIndex, int width) {
+        _sh.setColumnWidth(columnIndex, width);
+    }
+
+    @Override
+    public int getColumnWidth(int columnIndex) {
+        return _sh.getColumnWidth(columnIndex);
+    }
+
+    @Override
+    public float getColumnWidthInPixels(int columnIndex) {
+        return _sh.getColumnWidthInPixels(columnIndex);
+    }
+
+    @Override
+    public void setDefaultColumnWidth(int width) {
+        _sh.setDefaultColumnWidth(width);
+    }
+
+    @Override
+    public int getDefaultColumnWidth() {
+        return _sh.getDefaultColumnWidth();
+    }
+
+    @Override
+    public short getDefaultRowHeight() {
+        return _sh.getDefaultRowHeight();
+    }
+
+    @Override
+    public float getDefaultRowHeightInPoints() {
+        return _sh.getDefaultRowHeightInPoints();
+    }
+
+    @Override
+    public void setDefaultRowHeight(short height) {
+        _sh.setDefaultRowHeight(height);
+    }
+
+    @Override
+    public void setDefaultRowHeightInPoints(float height) {
+        _sh.setDefaultRowHeightInPoints(height);
+    }
+
+    @Override
+    public CellStyle getColumnStyle(int column) {
+        return _sh.getColumnStyle(column);
+    }
+
+    @Override
+    public int addMergedRegion(CellRangeAddress region) {
+        return _sh.addMergedRegion(region);
+    }
+
+    @Override
+    public int addMergedRegionUnsafe(CellRangeAddress region) {
+        return _sh.addMergedRegionUnsafe(region);
+    }
+
+    @Override
+    public void validateMergedRegions() {
+        _sh.validateMergedRegions();
+    }
+
+    @Override
+    public void setVerticallyCenter(boolean value) {
+        _sh.setVerticallyCenter(value);
+    }
+
+    @Override
+    public void setHorizontallyCenter(boolean value) {
+        _sh.setHorizontallyCenter(value);
+    }
+
+    @Override
+    public boolean getHorizontallyCenter() {
+        return _sh.getHorizontallyCenter();
+    }
+
+    @Override
+    public boolean getVerticallyCenter() {
+        return _sh.getVerticallyCenter();
+    }
+
+    @Override
+    public void removeMergedRegion(int index) {
+        _sh.removeMergedRegion(index);
+    }
+
+    @Override
+    public void removeMergedRegions(Collection<Integer> indices) {
+        _sh.removeMergedRegions(indices);
+    }
+
+    @Override
+    public int getNumMergedRegions() {
+        return _sh.getNumMergedRegions();
+    }
+
+    @Override
+    public CellRangeAddress getMergedRegion(int index) {
+        return _sh.getMergedRegion(index);
+    }
+
+    @Override
+    public List<CellRangeAddress> getMergedRegions() {
+        return _sh.getMergedRegions();
+    }
+
+    /**
+     * @return an iterator of the rows in memory, i.e. the rows which haven't been flushed yet
+     */
+    @Override
+    public Iterator<Row> rowIterator() {
+        return _sh.rowIterator();
+    }
+
+    /**
+     * Alias for {@link #rowIterator()} to allow foreach loops
+     */
+    @Override
+    public Iterator<Row> iterator() {
+        return _sh.iterator();
+    }
+
+    @Override
+    public void setForceFormulaRecalculation(boolean value) {
+        _sh.setForceFormulaRecalculation(value);
+    }
+
+    @Override
+    public boolean getForceFormulaRecalculation() {
+        return _sh.getForceFormulaRecalculation();
+    }
+
+    @Override
+    public void setAutobreaks(boolean value) {
+        _sh.setAutobreaks(value);
+    }
+
+    @Override
+    public void setDisplayGuts(boolean value) {
+        _sh.setDisplayGuts(value);
+    }
+
+    @Override
+    public void setDisplayZeros(boolean value) {
+        _sh.setDisplayZeros(value);
+    }
+
+    @Override
+    public boolean isDisplayZeros() {
+        return _sh.isDisplayZeros();
+    }
+
+    @Override
+    public void setFitToPage(boolean value) {
+        _sh.setFitToPage(value);
+    }
+
+    @Override
+    public void setRowSumsBelow(boolean value) {
+        _sh.setRowSumsBelow(value);
+    }
+
+    @Override
+    public void setRowSumsRight(boolean value) {
+        _sh.setRowSumsRight(value);
+    }
+
+    @Override
+    public boolean getAutobreaks() {
+        return _sh.getAutobreaks();
+    }
+
+    @Override
+    public boolean getDisplayGuts() {
+        return _sh.getDisplayGuts();
+    }
+
+    @Override
+    public boolean getFitToPage() {
+        return _sh.getFitToPage();
+    }
+
+    @Override
+    public boolean getRowSumsBelow() {
+        return _sh.getRowSumsBelow();
+    }
+
+    @Override
+    public boolean getRowSumsRight() {
+        return _sh.getRowSumsRight();
+    }
+
+    @Override
+    public boolean isPrintGridlines() {
+        return _sh.isPrintGridlines();
+    }
+
+    @Override
+    public void setPrintGridlines(boolean show) {
+        _sh.setPrintGridlines(show);
+    }
+
+    @Override
+    public boolean isPrintRowAndColumnHeadings() {
+        return _sh.isPrintRowAndColumnHeadings();
+    }
+
+    @Override
+    public void setPrintRowAndColumnHeadings(boolean show) {
+        _sh.setPrintRowAndColumnHeadings(show);
+    }
+
+    @Override
+    public HSSFPrintSetup getPrintSetup() {
+        return _sh.getPrintSetup();
+    }
+
+    @Override
+    public HSSFHeader getHeader() {
+        return _sh.getHeader();
+    }
+
+    @Override
+    public HSSFFooter getFooter() {
+        return _sh.getFooter();
+    }
+
+    @Override
+    public void setSelected(boolean value) {
+        _sh.setSelected(value);
+    }
+
+    @Override
+    public double getMargin(short margin) {
+        return _sh.getMargin(margin);
+    }
+
+    @Override
+    public void setMargin(short margin, double size) {
+        _sh.setMargin(margin, size);
+    }
+
+    @Override
+    public boolean getProtect() {
+        return _sh.getProtect();
+    }
+
+    @Override
+    public void protectSheet(String password) {
+        _sh.protectSheet(password);
+    }
+
+    @Override
+    public boolean getScenarioProtect() {
+        return _sh.getScenarioProtect();
+    }
+
+    @Override
+    public void setZoom(int numerator, int denominator) {
+        _sh.setZoom(numerator, denominator);
+    }
+
+    @Override
+    public void setZoom(int scale) {
+        _sh.setZoom(scale);
+    }
+
+    @Override
+    public short getTopRow() {
+        return _sh.getTopRow();
+    }
+
+    @Override
+    public short getLeftCol() {
+        return _sh.getLeftCol();
+    }
+
+    @Override
+    public void showInPane(int toprow, int leftcol) {
+        _sh.showInPane(toprow, leftcol);
+    }
+
+    /**
+     * Shifts rows between startRow and endRow n number of rows.
+     * Only supported as long as no rows have been flushed.
+     *
+     * @throws IllegalStateException if rows have been flushed already
+     */
+    @Override
+    public void shiftRows(int startRow, int endRow, int n) {
+        checkNotFlushed("shift rows");
+        _sh.shiftRows(startRow, endRow, n);
+    }
+
+    /**
+     * Shifts rows between startRow and endRow n number of rows.
+     * Only supported as long as no rows have been flushed.
+     *
+     * @throws IllegalStateException if rows have been flushed already
+     */
+    @Override
+    public void shiftRows(int startRow, int endRow, int n, boolean copyRowHeight, boolean resetOriginalRowHeight) {
+        checkNotFlushed("shift rows");
+        _sh.shiftRows(startRow, endRow, n, copyRowHeight, resetOriginalRowHeight);
+    }
+
+    @Override
+    public void createFreezePane(int colSplit, int rowSplit, int leftmostColumn, int topRow) {
+        _sh.createFreezePane(colSplit, rowSplit, leftmostColumn, topRow);
+    }
+
+    @Override
+    public void createFreezePane(int colSplit, int rowSplit) {
+        _sh.createFreezePane(colSplit, rowSplit);
+    }
+
+    @Override
+    public void createSplitPane(int xSplitPos, int ySplitPos, int leftmostColumn, int topRow, int activePane) {
+        _sh.createSplitPane(xSplitPos, ySplitPos, leftmostColumn, topRow, activePane);
+    }
+
+    @Override
+    public PaneInformation getPaneInformation() {
+        return _sh.getPaneInformation();
+    }
+
+    @Override
+    public void setDisplayGridlines(boolean show) {
+        _sh.setDisplayGridlines(show);
+    }
+
+    @Override
+    public boolean isDisplayGridlines() {
+        return _sh.isDisplayGridlines();
+    }
+
+    @Override
+    public void setDisplayFormulas(boolean show) {
+        _sh.setDisplayFormulas(show);
+    }
+
+    @Override
+    public boolean isDisplayFormulas() {
+        return _sh.isDisplayFormulas();
+    }
+
+    @Override
+    public void setDisplayRowColHeadings(boolean show) {
+        _sh.setDisplayRowColHeadings(show);
+    }
+
+    @Override
+    public boolean isDisplayRowColHeadings() {
+        return _sh.isDisplayRowColHeadings();
+    }
+
+    @Override
+    public void setRowBreak(int row) {
+        _sh.setRowBreak(row);
+    }
+
+    @Override
+    public boolean isRowBroken(int row) {
+        return _sh.isRowBroken(row);
+    }
+
+    @Override
+    public void removeRowBreak(int row) {
+        _sh.removeRowBreak(row);
+    }
+
+    @Override
+    public int[] getRowBreaks() {
+        return _sh.getRowBreaks();
+    }
+
+    @Override
+    public int[] getColumnBreaks() {
+        return _sh.getColumnBreaks();
+    }
+
+    @Override
+    public void setColumnBreak(int column) {
+        _sh.setColumnBreak(column);
+    }
+
+    @Override
+    public boolean isColumnBroken(int column) {
+        return _sh.isColumnBroken(column);
+    }
+
+    @Override
+    public void removeColumnBreak(int column) {
+        _sh.removeColumnBreak(column);
+    }
+
+    @Override
+    public void setColumnGroupCollapsed(int columnNumber, boolean collapsed) {
+        _sh.setColumnGroupCollapsed(columnNumber, collapsed);
+    }
+
+    @Override
+    public void groupColumn(int fromColumn, int toColumn) {
+        _sh.groupColumn(fromColumn, toColumn);
+    }
+
+    @Override
+    public void ungroupColumn(int fromColumn, int toColumn) {
+        _sh.ungroupColumn(fromColumn, toColumn);
+    }
+
+    @Override
+    public void groupRow(int fromRow, int toRow) {
+        _sh.groupRow(fromRow, toRow);
+    }
+
+    @Override
+    public void ungroupRow(int fromRow, int toRow) {
+        _sh.ungroupRow(fromRow, toRow);
+    }
+
+    @Override
+    public void setRowGroupCollapsed(int row, boolean collapse) {
+        _sh.setRowGroupCollapsed(row, collapse);
+    }
+
+    @Override
+    public void setDefaultColumnStyle(int column, CellStyle style) {
+        _sh.setDefaultColumnStyle(column, style);
+    }
+
+    @Override
+    public void autoSizeColumn(int column) {
+        _sh.autoSizeColumn(column);
+    }
+
+    @Override
+    public void autoSizeColumn(int column, boolean useMergedCells) {
+        _sh.autoSizeColumn(column, useMergedCells);
+    }
+
+    @Override
+    public HSSFComment getCellComment(int row, int column) {
+        return _sh.getCellComment(row, column);
+    }
+
+    @Override
+    public HSSFComment getCellComment(CellAddress ref) {
+        return _sh.getCellComment(ref);
+    }
+
+    @Override
+    public Map<CellAddress, HSSFComment> getCellComments() {
+        return _sh.getCellComments();
+    }
+
+    @Override
+    public HSSFPatriarch getDrawingPatriarch() {
+        return _sh.getDrawingPatriarch();
+    }
+
+    @Override
+    public HSSFPatriarch createDrawingPatriarch() {
+        return _sh.createDrawingPatriarch();
+    }
+
+    @Override
+    public SHSSFWorkbook getWorkbook() {
+        return _workbook;
+    }
+
+    @Override
+    public String getSheetName() {
+        return _sh.getSheetName();
+    }
+
+    @Override
+    public boolean isSelected() {
+        return _sh.isSelected();
+    }
+
+    @Override
+    public CellRange<HSSFCell> setArrayFormula(String formula, CellRangeAddress range) {
+        return _sh.setArrayFormula(formula, range);
+    }
+
+    @Override
+    public CellRange<HSSFCell> removeArrayFormula(Cell cell) {
+        return _sh.removeArrayFormula(cell);
+    }
+
+    @Override
+    public DataValidationHelper getDataValidationHelper() {
+        return _sh.getDataValidationHelper();
+    }
+
+    @Override
+    public List<HSSFDataValidation> getDataValidations() {
+        return _sh.getDataValidations();
+    }
+
+    @Override
+    public void addValidationData(DataValidation dataValidation) {
+        _sh.addValidationData(dataValidation);
+    }
+
+    @Override
+    public AutoFilter setAutoFilter(CellRangeAddress range) {
+        return _sh.setAutoFilter(range);
+    }
+
+    @Override
+    public HSSFSheetConditionalFormatting getSheetConditionalFormatting() {
+        return _sh.getSheetConditionalFormatting();
+    }
+
+    @Override
+    public CellRangeAddress getRepeatingRows() {
+        return _sh.getRepeatingRows();
+    }
+
+    @Override
+    public CellRangeAddress getRepeatingColumns() {
+        return _sh.getRepeatingColumns();
+    }
+
+    @Override
+    public void setRepeatingRows(CellRangeAddress rowRangeRef) {
+        _sh.setRepeatingRows(rowRangeRef);
+    }
+
+    @Override
+    public void setRepeatingColumns(CellRangeAddress columnRangeRef) {
+        _sh.setRepeatingColumns(columnRangeRef);
+    }
+
+    @Override
+    public int getColumnOutlineLevel(int columnIndex) {
+        return _sh.getColumnOutlineLevel(columnIndex);
+    }
+
+    @Override
+    public HSSFHyperlink getHyperlink(int row, int column) {
+        return _sh.getHyperlink(row, column);
+    }
+
+    @Override
+    public HSSFHyperlink getHyperlink(CellAddress addr) {
+        return _sh.getHyperlink(addr);
+    }
+
+    @Override
+    public List<HSSFHyperlink> getHyperlinkList() {
+        return _sh.getHyperlinkList();
+    }
+
+    @Override
+    public CellAddress getActiveCell() {
+        return _sh.getActiveCell();
+    }
+
+    @Override
+    public void setActiveCell(CellAddress address) {
+        _sh.setActiveCell(address);
+    }
+
+    /**
+     * Flushes the complete row blocks of the rows in memory, until no more than
+     * {@code remaining} rows are kept in memory.  Rows are only flushed in blocks
+     * of {@link DBCellRecord#BLOCK_SIZE} rows, so up to {@code remaining + 31}
+     * rows are left in memory.
+     *
+     * @param remaining the number of rows to keep in memory
+     * @throws IOException if the temporary file can't be created
+     */
+    public void flushRows(int remaining) throws IOException {
+        if (remaining < 0) {
+            throw new IllegalArgumentException("remaining must not be negative");
+        }
+        while (_sh.getPhysicalNumberOfRows() - DBCellRecord.BLOCK_SIZE >= remaining) {
+            flushRowBlockOrFail();
+        }
+    }
+
+    /**
+     * Flushes all complete row blocks of the rows in memory
+     *
+     * @throws IOException if the temporary file can't be created
+     */
+    public void flushRows() throws IOException {
+        flushRows(0);
+    }
+
+    /**
+     * @return the row number of the last flushed row or -1, if no rows have been flushed
+     */
+    public int getLastFlushedRowNum() {
+        return _lastFlushedRowNum;
+    }
+
+    private void flushRowBlockOrFail() throws IOException {
+        if (_store == null) {
+            _store = new RowBlockStore();
+        }
+        _lastFlushedRowNum = _sh.flushRowBlock(_store);
+    }
+
+    private void flushRowBlock() {
+        try {
+            flushRowBlockOrFail();
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't create the temporary file for the flushed rows", e);
+        }
+    }
+
+    private void checkNotFlushed(String action) {
+        if (_lastFlushedRowNum >= 0) {
+            throw new IllegalStateException("Can't " + action + ", because rows have been flushed already");
+        }
+    }
+
+    /**
+     * Deletes the temporary file of the flushed rows
+     *
+     * @return <code>true</code> if the file could be deleted or there wasn't any
+     */
+    boolean dispose() {
+        return _store == null || _store.dispose();
+    }
+}
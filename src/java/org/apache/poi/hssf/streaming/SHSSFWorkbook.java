@@ -0,0 +1,506 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.streaming;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.poi.hssf.usermodel.HSSFCellStyle;
+import org.apache.poi.hssf.usermodel.HSSFCreationHelper;
+import org.apache.poi.hssf.usermodel.HSSFDataFormat;
+import org.apache.poi.hssf.usermodel.HSSFFont;
+import org.apache.poi.hssf.usermodel.HSSFName;
+import org.apache.poi.hssf.usermodel.HSSFPictureData;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.formula.udf.UDFFinder;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Row.MissingCellPolicy;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.SheetVisibility;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * Streaming version of {@link HSSFWorkbook}, which keeps only a window of rows
+ * per sheet in memory, i.e. the equivalent of
+ * {@link org.apache.poi.xssf.streaming.SXSSFWorkbook} for .xls files.
+ * <p>
+ * Rows are kept in memory as usual, until the row access window of a sheet is exceeded
+ * by a whole row block.  Then the oldest {@link org.apache.poi.hssf.record.DBCellRecord#BLOCK_SIZE}
+ * rows are serialized - the ROW records, their cells and the DBCELL record - into a
+ * temporary file and removed from the sheet.  When the workbook is written, the stored
+ * blocks are copied into the workbook stream and the INDEX record is built from their
+ * DBCELL offsets.  The shared string table and the other workbook records stay in memory
+ * and are assembled at write time as usual.
+ * <p>
+ * The limitations are the same as for SXSSF: flushed rows can't be accessed or changed
+ * anymore, rows can only be added after the flushed rows and rows can't be shifted, once
+ * rows have been flushed.  Call {@link #dispose()} to delete the temporary files.
+ *
+ * @since 3.17-beta1
+ */
+public class SHSSFWorkbook implements Workbook {
+    /**
+     * Specifies how many rows are kept in memory at least.  When a new row is created via
+     * {@link SHSSFSheet#createRow} and the number of rows in memory exceeds this value by
+     * a row block, the oldest row block is flushed and its rows can't be accessed anymore.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 100;
+
+    private final HSSFWorkbook _wb;
+    private final Map<HSSFSheet,SHSSFSheet> _sheets = new IdentityHashMap<HSSFSheet,SHSSFSheet>();
+    private final int _randomAccessWindowSize;
+
+    /**
+     * Construct a new workbook with default row window size
+     */
+    public SHSSFWorkbook() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Construct a new workbook with the given row window size
+     *
+     * @param rowAccessWindowSize the number of rows that are kept in memory until flushed out,
+     *  <code>-1</code> keeps all rows, unless they are flushed explicitly
+     */
+    public SHSSFWorkbook(int rowAccessWindowSize) {
+        this(new HSSFWorkbook(), rowAccessWindowSize);
+    }
+
+    /**
+     * Constructs a workbook from an existing workbook.  Rows can be appended to the
+     * existing sheets, but the existing rows are flushed like new rows, once the row
+     * access window is exceeded.
+     *
+     * @param workbook the template workbook
+     * @param rowAccessWindowSize the number of rows that are kept in memory until flushed out,
+     *  <code>-1</code> keeps all rows, unless they are flushed explicitly
+     */
+    public SHSSFWorkbook(HSSFWorkbook workbook, int rowAccessWindowSize) {
+        if (rowAccessWindowSize == 0 || rowAccessWindowSize < -1) {
+            throw new IllegalArgumentException("rowAccessWindowSize must be greater than 0 or -1");
+        }
+        _wb = workbook;
+        _randomAccessWindowSize = rowAccessWindowSize;
+    }
+
+    /**
+     * @return the underlying workbook
+     */
+    public HSSFWorkbook getHSSFWorkbook() {
+        return _wb;
+    }
+
+    /**
+     * @return the number of rows kept in memory per sheet or -1, if rows are only flushed explicitly
+     */
+    public int getRandomAccessWindowSize() {
+        return _randomAccessWindowSize;
+    }
+
+    SHSSFSheet getSHSSFSheet(HSSFSheet sheet) {
+        if (sheet == null) {
+            return null;
+        }
+        SHSSFSheet sh = _sheets.get(sheet);
+        if (sh == null) {
+            sh = new SHSSFSheet(this, sheet);
+            _sheets.put(sheet, sh);
+        }
+        return sh;
+    }
+
+    @Override
+    public int getSheetIndex(Sheet sheet) {
+        return _wb.getSheetIndex(((SHSSFSheet)sheet).getHSSFSheet());
+    }
+
+    @Override
+    public SHSSFSheet createSheet() {
+        return getSHSSFSheet(_wb.createSheet());
+    }
+
+    @Override
+    public SHSSFSheet createSheet(String sheetname) {
+        return getSHSSFSheet(_wb.createSheet(sheetname));
+    }
+
+    /**
+     * Create a sheet from an existing sheet in the workbook.
+     *
+     * @throws IllegalStateException if rows of the sheet have been flushed already
+     */
+    @Override
+    public SHSSFSheet cloneSheet(int sheetNum) {
+        if (getSheetAt(sheetNum).getLastFlushedRowNum() >= 0) {
+            throw new IllegalStateException("Can't clone a sheet, whose rows have been flushed already");
+        }
+        return getSHSSFSheet(_wb.cloneSheet(sheetNum));
+    }
+
+    @Override
+    public Iterator<Sheet> sheetIterator() {
+        final Iterator<Sheet> it = _wb.sheetIterator();
+        return new Iterator<Sheet>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Sheet next() throws NoSuchElementException {
+                return getSHSSFSheet((HSSFSheet)it.next());
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("remove method not supported on SHSSFWorkbook.iterator(). "+
+                        "Use Sheet.removeSheetAt(int) instead.");
+            }
+        };
+    }
+
+    /**
+     * Alias for {@link #sheetIterator()} to allow foreach loops
+     */
+    @Override
+    public Iterator<Sheet> iterator() {
+        return sheetIterator();
+    }
+
+    @Override
+    public SHSSFSheet getSheetAt(int index) {
+        return getSHSSFSheet(_wb.getSheetAt(index));
+    }
+
+    @Override
+    public SHSSFSheet getSheet(String name) {
+        return getSHSSFSheet(_wb.getSheet(name));
+    }
+
+    /**
+     * Removes the sheet at the given index and deletes the temporary file of its flushed rows
+     */
+    @Override
+    public void removeSheetAt(int index) {
+        HSSFSheet sheet = _wb.getSheetAt(index);
+        _wb.removeSheetAt(index);
+        SHSSFSheet sh = _sheets.remove(sheet);
+        if (sh != null) {
+            sh.dispose();
+        }
+    }
+
+    /**
+     * Writes the workbook including the flushed rows.  The temporary files are kept, so the
+     * workbook can be written more than once - call {@link #dispose()} to delete them.
+     */
+    @Override
+    public void write(OutputStream stream) throws IOException {
+        _wb.write(stream);
+    }
+
+    /**
+     * Closes the underlying workbook and deletes the temporary files of the flushed rows
+     */
+    @Override
+    public void close() throws IOException {
+        dispose();
+        _wb.close();
+    }
+
+    /**
+     * Deletes the temporary files of the flushed rows.  The workbook can't be written anymore afterwards.
+     *
+     * @return <code>true</code> if all temporary files could be deleted
+     */
+    public boolean dispose() {
+        boolean success = true;
+        for (SHSSFSheet sheet : _sheets.values()) {
+            success = sheet.dispose() && success;
+        }
+        return success;
+    }
+
+    @Override
+    public int getActiveSheetIndex() {
+        return _wb.getActiveSheetIndex();
+    }
+
+    @Override
+    public void setActiveSheet(int sheetIndex) {
+        _wb.setActiveSheet(sheetIndex);
+    }
+
+    @Override
+    public int getFirstVisibleTab() {
+        return _wb.getFirstVisibleTab();
+    }
+
+    @Override
+    public void setFirstVisibleTab(int sheetIndex) {
+        _wb.setFirstVisibleTab(sheetIndex);
+    }
+
+    @Override
+    public void setSheetOrder(String sheetname, int pos) {
+        _wb.setSheetOrder(sheetname, pos);
+    }
+
+    @Override
+    public void setSelectedTab(int index) {
+        _wb.setSelectedTab(index);
+    }
+
+    @Override
+    public void setSheetName(int sheet, String name) {
+        _wb.setSheetName(sheet, name);
+    }
+
+    @Override
+    public String getSheetName(int sheet) {
+        return _wb.getSheetName(sheet);
+    }
+
+    @Override
+    public int getSheetIndex(String name) {
+        return _wb.getSheetIndex(name);
+    }
+
+    @Override
+    public int getNumberOfSheets() {
+        return _wb.getNumberOfSheets();
+    }
+
+    @Override
+    public HSSFFont createFont() {
+        return _wb.createFont();
+    }
+
+    @Override
+    public HSSFFont findFont(short boldWeight, short color, short fontHeight, String name, boolean italic, boolean strikeout, short typeOffset, byte underline) {
+        return _wb.findFont(boldWeight, color, fontHeight, name, italic, strikeout, typeOffset, underline);
+    }
+
+    @Override
+    public HSSFFont findFont(boolean bold, short color, short fontHeight, String name, boolean italic, boolean strikeout, short typeOffset, byte underline) {
+        return _wb.findFont(bold, color, fontHeight, name, italic, strikeout, typeOffset, underline);
+    }
+
+    @Override
+    public short getNumberOfFonts() {
+        return _wb.getNumberOfFonts();
+    }
+
+    @Override
+    public HSSFFont getFontAt(short idx) {
+        return _wb.getFontAt(idx);
+    }
+
+    @Override
+    public HSSFCellStyle createCellStyle() {
+        return _wb.createCellStyle();
+    }
+
+    @Override
+    public int getNumCellStyles() {
+        return _wb.getNumCellStyles();
+    }
+
+    @Override
+    public HSSFCellStyle getCellStyleAt(int idx) {
+        return _wb.getCellStyleAt(idx);
+    }
+
+    @Override
+    public int getNumberOfNames() {
+        return _wb.getNumberOfNames();
+    }
+
+    @Override
+    public HSSFName getName(String name) {
+        return _wb.getName(name);
+    }
+
+    @Override
+    public List<HSSFName> getNames(String name) {
+        return _wb.getNames(name);
+    }
+
+    @Override
+    public List<HSSFName> getAllNames() {
+        return _wb.getAllNames();
+    }
+
+    @Override
+    public HSSFName getNameAt(int nameIndex) {
+        return _wb.getNameAt(nameIndex);
+    }
+
+    @Override
+    public HSSFName createName() {
+        return _wb.createName();
+    }
+
+    @Override
+    public int getNameIndex(String name) {
+        return _wb.getNameIndex(name);
+    }
+
+    @Override
+    public void removeName(int index) {
+        _wb.removeName(index);
+    }
+
+    @Override
+    public void removeName(String name) {
+        _wb.removeName(name);
+    }
+
+    @Override
+    public void removeName(Name name) {
+        _wb.removeName(name);
+    }
+
+    @Override
+    public int linkExternalWorkbook(String name, Workbook workbook) {
+        return _wb.linkExternalWorkbook(name, workbook);
+    }
+
+    @Override
+    public void setPrintArea(int sheetIndex, String reference) {
+        _wb.setPrintArea(sheetIndex, reference);
+    }
+
+    @Override
+    public void setPrintArea(int sheetIndex, int startColumn, int endColumn, int startRow, int endRow) {
+        _wb.setPrintArea(sheetIndex, startColumn, endColumn, startRow, endRow);
+    }
+
+    @Override
+    public String getPrintArea(int sheetIndex) {
+        return _wb.getPrintArea(sheetIndex);
+    }
+
+    @Override
+    public void removePrintArea(int sheetIndex) {
+        _wb.removePrintArea(sheetIndex);
+    }
+
+    @Override
+    public MissingCellPolicy getMissingCellPolicy() {
+        return _wb.getMissingCellPolicy();
+    }
+
+    @Override
+    public void setMissingCellPolicy(MissingCellPolicy missingCellPolicy) {
+        _wb.setMissingCellPolicy(missingCellPolicy);
+    }
+
+    @Override
+    public HSSFDataFormat createDataFormat() {
+        return _wb.createDataFormat();
+    }
+
+    @Override
+    public int addPicture(byte[] pictureData, int format) {
+        return _wb.addPicture(pictureData, format);
+    }
+
+    @Override
+    public List<HSSFPictureData> getAllPictures() {
+        return _wb.getAllPictures();
+    }
+
+    @Override
+    public HSSFCreationHelper getCreationHelper() {
+        return _wb.getCreationHelper();
+    }
+
+    @Override
+    public boolean isHidden() {
+        return _wb.isHidden();
+    }
+
+    @Override
+    public void setHidden(boolean hiddenFlag) {
+        _wb.setHidden(hiddenFlag);
+    }
+
+    @Override
+    public boolean isSheetHidden(int sheetIx) {
+        return _wb.isSheetHidden(sheetIx);
+    }
+
+    @Override
+    public boolean isSheetVeryHidden(int sheetIx) {
+        return _wb.isSheetVeryHidden(sheetIx);
+    }
+
+    @Override
+    public void setSheetHidden(int sheetIx, boolean hidden) {
+        _wb.setSheetHidden(sheetIx, hidden);
+    }
+
+    @Override
+    public void setSheetHidden(int sheetIx, int hidden) {
+        _wb.setSheetHidden(sheetIx, hidden);
+    }
+
+    @Override
+    public SheetVisibility getSheetVisibility(int sheetIx) {
+        return _wb.getSheetVisibility(sheetIx);
+    }
+
+    @Override
+    public void setSheetVisibility(int sheetIx, SheetVisibility visibility) {
+        _wb.setSheetVisibility(sheetIx, visibility);
+    }
+
+    @Override
+    public void addToolPack(UDFFinder toopack) {
+        _wb.addToolPack(toopack);
+    }
+
+    @Override
+    public void setForceFormulaRecalculation(boolean value) {
+        _wb.setForceFormulaRecalculation(value);
+    }
+
+    @Override
+    public boolean getForceFormulaRecalculation() {
+        return _wb.getForceFormulaRecalculation();
+    }
+
+    @Override
+    public SpreadsheetVersion getSpreadsheetVersion() {
+        return _wb.getSpreadsheetVersion();
+    }
+
+    @Override
+    public int addOlePackage(byte[] oleData, String label, String fileName, String command) throws IOException {
+        return _wb.addOlePackage(oleData, label, fileName, command);
+    }
+}
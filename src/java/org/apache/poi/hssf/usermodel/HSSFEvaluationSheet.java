@@ -49,6 +49,26 @@ final class HSSFEvaluationSheet implements EvaluationSheet {
         return new HSSFEvaluationCell(cell, this);
     }
 
+    /* (non-JavaDoc), inherit JavaDoc from EvaluationSheet
+     * @since POI 3.17 beta 1
+     */
+    @Override
+    public int getLastRowNum() {
+        return _hs.getPhysicalNumberOfRows() == 0 ? -1 : _hs.getLastRowNum();
+    }
+
+    /* (non-JavaDoc), inherit JavaDoc from EvaluationSheet
+     * @since POI 3.17 beta 1
+     */
+    @Override
+    public int getLastCellNum(int rowIndex) {
+        HSSFRow row = _hs.getRow(rowIndex);
+        if (row == null) {
+            return 0;
+        }
+        return Math.max(0, row.getLastCellNum());
+    }
+
     /* (non-JavaDoc), inherit JavaDoc from EvaluationSheet
      * @since POI 3.15 beta 3
      */    
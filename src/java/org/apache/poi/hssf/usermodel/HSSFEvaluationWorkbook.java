@@ -228,7 +228,9 @@ public final class HSSFEvaluationWorkbook implements FormulaRenderingWorkbook, E
         // It is useful within the tests to make sure that all formulas POI can evaluate can also be parsed.
         // see HSSFFileHandler.handleFile instead
         FormulaRecordAggregate fra = (FormulaRecordAggregate) cell.getCellValueRecord();
-        return fra.getFormulaTokens();
+        // all cells of a shared formula group are evaluated from the same tokens
+        Ptg[] sharedTokens = fra.getSharedFormulaTokens();
+        return sharedTokens != null ? sharedTokens : fra.getFormulaTokens();
     }
 
     @Override
@@ -23,6 +23,7 @@ import java.util.NoSuchElementException;
 import org.apache.poi.hssf.record.CellValueRecordInterface;
 import org.apache.poi.hssf.record.ExtendedFormatRecord;
 import org.apache.poi.hssf.record.RowRecord;
+import org.apache.poi.hssf.record.aggregates.ValueRecordsAggregate;
 import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
@@ -43,6 +44,20 @@ public final class HSSFRow implements Row, Comparable<HSSFRow> {
     private int rowNum;
     private HSSFCell[] cells;
 
+    /**
+     * <code>true</code> for rows read from a file, whose cells haven't been created yet
+     */
+    private boolean cellsPending;
+
+    /**
+     * <code>true</code> while the row record keeps the column range read from the file, which
+     * isn't trusted, so the range of the cells is kept separately until a cell is added or removed
+     */
+    private boolean fileColumnRange;
+    /** the column index of the first cell and of the last cell plus one, while the file range is kept */
+    private int cellsFirstCol;
+    private int cellsLastCol;
+
     /**
      * reference to low level representation
      */
@@ -68,6 +83,7 @@ public final class HSSFRow implements Row, Comparable<HSSFRow> {
      */
     HSSFRow(HSSFWorkbook book, HSSFSheet sheet, int rowNum) {
         this(book, sheet, new RowRecord(rowNum));
+        fileColumnRange = false;
     }
 
     /**
@@ -90,10 +106,9 @@ public final class HSSFRow implements Row, Comparable<HSSFRow> {
         //  add a bit without needing a resize
         cells = new HSSFCell[record.getLastCol()+INITIAL_CAPACITY];
         
-        // Don't trust colIx boundaries as read by other apps
-        // set the RowRecord empty for the moment
-        record.setEmpty();
-        // subsequent calls to createCellFromRecord() will update the colIx boundaries properly
+        // Don't trust colIx boundaries as read by other apps, but keep them in the
+        // RowRecord, until a cell is added or removed
+        fileColumnRange = true;
     }
 
     /**
@@ -156,6 +171,7 @@ public final class HSSFRow implements Row, Comparable<HSSFRow> {
             shortCellNum = (short)(0xffff - columnIndex);
         }
 
+        loadCells();
         HSSFCell cell = new HSSFCell(book, sheet, getRowNum(), shortCellNum, type);
         addCell(cell);
         sheet.getSheet().addValueRecord(getRowNum(), cell.getCellValueRecord());
@@ -174,6 +190,8 @@ public final class HSSFRow implements Row, Comparable<HSSFRow> {
         removeCell((HSSFCell)cell, true);
     }
     private void removeCell(HSSFCell cell, boolean alsoRemoveRecords) {
+        loadCells();
+        useCellsColumnRange();
 
         int column=cell.getColumnIndex();
         if(column < 0) {
@@ -205,6 +223,7 @@ public final class HSSFRow implements Row, Comparable<HSSFRow> {
      *  records too.
      */
     protected void removeAllCells() {
+        loadCells();
         for (HSSFCell cell : cells) {
             if (cell != null) {
                 removeCell(cell, true);
@@ -240,6 +259,57 @@ public final class HSSFRow implements Row, Comparable<HSSFRow> {
         return hcell;
     }
 
+    /**
+     * Marks the cells of this row as not created yet.  They are created from the cell
+     * value records of the sheet, when the row is accessed for the first time.
+     * Should only be called by HSSFSheet, when an existing file is read in.
+     *
+     * @param firstCol the column index of the first cell
+     * @param lastCol the column index of the last cell
+     */
+    void setCellsPending(int firstCol, int lastCol) {
+        cells = null;
+        cellsPending = true;
+        cellsFirstCol = firstCol;
+        cellsLastCol = lastCol + 1;
+    }
+
+    /**
+     * Creates the pending cells of this row from their cell value records
+     */
+    private void loadCells() {
+        if (!cellsPending) {
+            return;
+        }
+        cellsPending = false;
+        cells = new HSSFCell[cellsLastCol+INITIAL_CAPACITY];
+        ValueRecordsAggregate values = sheet.getSheet().getRowsAggregate().getValueRecordsAggregate();
+        for (int colIx = cellsFirstCol; colIx < cellsLastCol; colIx++) {
+            CellValueRecordInterface cval = values.getCell(rowNum, colIx);
+            if (cval != null) {
+                // the column range doesn't change
+                cells[colIx] = new HSSFCell(book, sheet, cval);
+            }
+        }
+    }
+
+    /**
+     * Replaces the column range read from the file by the range of the cells,
+     * before a cell is added or removed
+     */
+    private void useCellsColumnRange() {
+        if (!fileColumnRange) {
+            return;
+        }
+        fileColumnRange = false;
+        if (cellsLastCol == 0) {
+            row.setEmpty();
+        } else {
+            row.setFirstCol(cellsFirstCol);
+            row.setLastCol(cellsLastCol);
+        }
+    }
+
     /**
      * set the row number of this row.
      * @param rowIndex  the row number (0-based)
@@ -252,6 +322,10 @@ public final class HSSFRow implements Row, Comparable<HSSFRow> {
           throw new IllegalArgumentException("Invalid row number (" + rowIndex
                   + ") outside allowable range (0.." + maxrow + ")");
         }
+        if (rowIndex != rowNum) {
+            // the cell records still belong to the old row number
+            loadCells();
+        }
         rowNum = rowIndex;
         if (row != null) {
             row.setRowNumber(rowIndex);   // used only for KEY comparison (HSSFRow)
@@ -296,6 +370,7 @@ public final class HSSFRow implements Row, Comparable<HSSFRow> {
      * @param newColumn The new column number (0 based)
      */
     public void moveCell(HSSFCell cell, short newColumn) {
+        loadCells();
         // Ensure the destination is free
         if(cells.length > newColumn && cells[newColumn] != null) {
             throw new IllegalArgumentException("Asked to move cell to column " + newColumn + " but there's already a cell there");
@@ -317,6 +392,8 @@ public final class HSSFRow implements Row, Comparable<HSSFRow> {
      * used internally to add a cell.
      */
     private void addCell(HSSFCell cell) {
+        loadCells();
+        useCellsColumnRange();
 
         int column=cell.getColumnIndex();
         // re-allocate cells array as required.
@@ -352,6 +429,7 @@ public final class HSSFRow implements Row, Comparable<HSSFRow> {
      * @return HSSFCell representing that column or null if undefined.
      */
     private HSSFCell retrieveCell(int cellIndex) {
+        loadCells();
         if(cellIndex<0||cellIndex>=cells.length) {
             return null;
         }
@@ -403,6 +481,9 @@ public final class HSSFRow implements Row, Comparable<HSSFRow> {
      */
     @Override
     public short getFirstCellNum() {
+        if (fileColumnRange) {
+            return (short) (cellsLastCol == 0 ? -1 : cellsFirstCol);
+        }
         if (row.isEmpty()) {
             return -1;
         }
@@ -430,6 +511,9 @@ public final class HSSFRow implements Row, Comparable<HSSFRow> {
      */
     @Override
     public short getLastCellNum() {
+        if (fileColumnRange) {
+            return (short) (cellsLastCol == 0 ? -1 : cellsLastCol);
+        }
         if (row.isEmpty()) {
             return -1;
         }
@@ -446,6 +530,7 @@ public final class HSSFRow implements Row, Comparable<HSSFRow> {
     @Override
     public int getPhysicalNumberOfCells()
     {
+        loadCells();
         int count = 0;
         for (HSSFCell cell : cells) {
             if (cell != null) count++;
@@ -628,6 +713,7 @@ public final class HSSFRow implements Row, Comparable<HSSFRow> {
     @Override
     public Iterator<Cell> cellIterator()
     {
+      loadCells();
       return new CellIterator();
     }
     /**
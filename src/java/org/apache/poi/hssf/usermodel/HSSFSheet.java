@@ -49,6 +49,8 @@ import org.apache.poi.hssf.record.WindowTwoRecord;
 import org.apache.poi.hssf.record.aggregates.DataValidityTable;
 import org.apache.poi.hssf.record.aggregates.FormulaRecordAggregate;
 import org.apache.poi.hssf.record.aggregates.RecordAggregate.RecordVisitor;
+import org.apache.poi.hssf.record.aggregates.RowBlockStore;
+import org.apache.poi.hssf.record.aggregates.ValueRecordsAggregate;
 import org.apache.poi.hssf.record.aggregates.WorksheetProtectionBlock;
 import org.apache.poi.hssf.usermodel.helpers.HSSFRowShifter;
 import org.apache.poi.ss.SpreadsheetVersion;
@@ -74,6 +76,7 @@ import org.apache.poi.ss.util.PaneInformation;
 import org.apache.poi.ss.util.SSCellRange;
 import org.apache.poi.ss.util.SheetUtil;
 import org.apache.poi.util.Configurator;
+import org.apache.poi.util.Internal;
 import org.apache.poi.util.POILogFactory;
 import org.apache.poi.util.POILogger;
 
@@ -114,6 +117,10 @@ public final class HSSFSheet implements org.apache.poi.ss.usermodel.Sheet {
     private HSSFPatriarch _patriarch;
     private int _firstrow;
     private int _lastrow;
+    /**
+     * the row number of the last row flushed by a streaming writer or -1
+     */
+    private int _lastFlushedRow = -1;
 
     /**
      * Creates new HSSFSheet   - called by HSSFWorkbook to create a sheet from
@@ -192,53 +199,36 @@ public final class HSSFSheet implements org.apache.poi.ss.usermodel.Sheet {
             row = sheet.getNextRow();
         }
 
-        Iterator<CellValueRecordInterface> iter = sheet.getCellValueIterator();
+        // The cells of a row are created when the row is accessed for the first time,
+        // until then their values stay in the (packed) ValueRecordsAggregate
+        ValueRecordsAggregate values = sheet.getRowsAggregate().getValueRecordsAggregate();
         long timestart = System.currentTimeMillis();
 
         if (log.check( POILogger.DEBUG )) {
             log.log(DEBUG, "Time at start of cell creating in HSSF sheet = ",
                     Long.valueOf(timestart));
         }
-        HSSFRow lastrow = null;
-
-        // Add every cell to its row
-        while (iter.hasNext()) {
-            CellValueRecordInterface cval = iter.next();
-
-            long cellstart = System.currentTimeMillis();
-            HSSFRow hrow = lastrow;
-
-            if (hrow == null || hrow.getRowNum() != cval.getRow()) {
-                hrow = getRow(cval.getRow());
-                lastrow = hrow;
-                if (hrow == null) {
-                    /* we removed this check, see bug 47245 for the discussion around this
-                    // Some tools (like Perl module Spreadsheet::WriteExcel - bug 41187) skip the RowRecords
-                    // Excel, OpenOffice.org and GoogleDocs are all OK with this, so POI should be too.
-                    if (rowRecordsAlreadyPresent) {
-                        // if at least one row record is present, all should be present.
-                        throw new RuntimeException("Unexpected missing row when some rows already present");
-                    }*/
-
-                    // create the row record on the fly now.
-                    RowRecord rowRec = new RowRecord(cval.getRow());
-                    sheet.addRow(rowRec);
-                    hrow = createRowFromRecord(rowRec);
-                }
-            }
-            if (log.check( POILogger.DEBUG )) {
-                if (cval instanceof Record) {
-                log.log( DEBUG, "record id = " + Integer.toHexString( ( (Record) cval ).getSid() ) );
-                } else {
-                    log.log( DEBUG, "record = " + cval );
-                }
-            }
-            hrow.createCellFromRecord( cval );
-            if (log.check( POILogger.DEBUG )) {
-                log.log( DEBUG, "record took ",
-                    Long.valueOf( System.currentTimeMillis() - cellstart ) );
-            }
 
+        for (int rowIx = values.getNextRowWithCells(0); rowIx >= 0;
+                rowIx = values.getNextRowWithCells(rowIx + 1)) {
+            HSSFRow hrow = getRow(rowIx);
+            if (hrow == null) {
+                /* we removed this check, see bug 47245 for the discussion around this
+                // Some tools (like Perl module Spreadsheet::WriteExcel - bug 41187) skip the RowRecords
+                // Excel, OpenOffice.org and GoogleDocs are all OK with this, so POI should be too.
+                if (rowRecordsAlreadyPresent) {
+                    // if at least one row record is present, all should be present.
+                    throw new RuntimeException("Unexpected missing row when some rows already present");
+                }*/
+
+                // create the row record on the fly now.
+                RowRecord rowRec = new RowRecord(rowIx);
+                rowRec.setFirstCol(values.getFirstCellInRow(rowIx));
+                rowRec.setLastCol(values.getLastCellInRow(rowIx) + 1);
+                sheet.addRow(rowRec);
+                hrow = createRowFromRecord(rowRec);
+            }
+            hrow.setCellsPending(values.getFirstCellInRow(rowIx), values.getLastCellInRow(rowIx));
         }
         if (log.check( POILogger.DEBUG )) {
             log.log(DEBUG, "total sheet cell creation took ",
@@ -364,7 +354,7 @@ public final class HSSFSheet implements org.apache.poi.ss.usermodel.Sheet {
         if (addLow) {
             _sheet.addRow(row.getRowRecord());
         }
-        boolean firstRow = _rows.size() == 1;
+        boolean firstRow = _rows.size() == 1 && _lastFlushedRow < 0;
         if (row.getRowNum() > getLastRowNum() || firstRow) {
             _lastrow = row.getRowNum();
         }
@@ -385,6 +375,28 @@ public final class HSSFSheet implements org.apache.poi.ss.usermodel.Sheet {
         return _rows.get(Integer.valueOf(rowIndex));
     }
 
+    /**
+     * Writes the first {@link org.apache.poi.hssf.record.DBCellRecord#BLOCK_SIZE} rows
+     * of this sheet and their cells into the store and removes them from the sheet.
+     * The flushed rows are still written, when the workbook is written, but can't be
+     * accessed anymore.  The first and last row numbers of the sheet aren't changed.
+     * <p>
+     * This is used by the streaming writer {@link org.apache.poi.hssf.streaming.SHSSFWorkbook}
+     * and shouldn't be called otherwise.
+     *
+     * @param store the store for the flushed rows, the same store must be used for all calls
+     * @return the row number of the last flushed row
+     *
+     * @since 3.17-beta1
+     */
+    @Internal
+    public int flushRowBlock(RowBlockStore store) {
+        int lastRow = _sheet.getRowsAggregate().flushRowBlock(store);
+        _rows.headMap(Integer.valueOf(lastRow), true).clear();
+        _lastFlushedRow = lastRow;
+        return lastRow;
+    }
+
     /**
      * Returns the number of physically defined rows (NOT the number of rows in the sheet)
      */
@@ -41,6 +41,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.regex.Pattern;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -60,9 +64,11 @@ import org.apache.poi.hssf.model.InternalSheet.UnsupportedBOFType;
 import org.apache.poi.hssf.model.InternalWorkbook;
 import org.apache.poi.hssf.model.RecordStream;
 import org.apache.poi.hssf.record.AbstractEscherHolderRecord;
+import org.apache.poi.hssf.record.BOFRecord;
 import org.apache.poi.hssf.record.BackupRecord;
 import org.apache.poi.hssf.record.BoundSheetRecord;
 import org.apache.poi.hssf.record.DrawingGroupRecord;
+import org.apache.poi.hssf.record.EOFRecord;
 import org.apache.poi.hssf.record.ExtendedFormatRecord;
 import org.apache.poi.hssf.record.FilePassRecord;
 import org.apache.poi.hssf.record.FontRecord;
@@ -72,6 +78,7 @@ import org.apache.poi.hssf.record.NameRecord;
 import org.apache.poi.hssf.record.RecalcIdRecord;
 import org.apache.poi.hssf.record.Record;
 import org.apache.poi.hssf.record.RecordFactory;
+import org.apache.poi.hssf.record.RecordInputStream;
 import org.apache.poi.hssf.record.SSTRecord;
 import org.apache.poi.hssf.record.UnknownRecord;
 import org.apache.poi.hssf.record.aggregates.RecordAggregate.RecordVisitor;
@@ -90,6 +97,8 @@ import org.apache.poi.poifs.filesystem.NPOIFSDocument;
 import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
 import org.apache.poi.poifs.filesystem.Ole10Native;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.poifs.filesystem.POIFSWriterEvent;
+import org.apache.poi.poifs.filesystem.POIFSWriterListener;
 import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.formula.FormulaShifter;
 import org.apache.poi.ss.formula.FormulaType;
@@ -104,6 +113,7 @@ import org.apache.poi.ss.usermodel.SheetVisibility;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.util.Configurator;
 import org.apache.poi.util.HexDump;
+import org.apache.poi.util.IOUtils;
 import org.apache.poi.util.Internal;
 import org.apache.poi.util.LittleEndian;
 import org.apache.poi.util.LittleEndianByteArrayInputStream;
@@ -326,6 +336,35 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
      */
     public HSSFWorkbook(DirectoryNode directory, boolean preserveNodes)
             throws IOException
+    {
+        this(directory, preserveNodes, null);
+    }
+
+    /**
+     * given a POI POIFSFileSystem object, and a specific directory
+     *  within it, read in its Workbook and populate the high and
+     *  low level models.
+     * <p>
+     * If an executor is given, the sheet substreams are decoded concurrently on it.
+     *  Each sheet substream starts at the offset stored in its {@link BoundSheetRecord},
+     *  so the substreams are independent of each other.  The sheets are still added in
+     *  stream order.  Encrypted workbooks and workbooks with inconsistent sheet offsets
+     *  are read sequentially.  The executor isn't shut down by the workbook.
+     *
+     * @param directory the POI filesystem directory to process from
+     * @param preserveNodes whether to preserve other nodes, such as
+     *        macros.  This takes more memory, so only say yes if you
+     *        need to. If set, will store all of the POIFSFileSystem
+     *        in memory
+     * @param executor the executor to decode the sheets on, or <code>null</code> to
+     *        decode them on the calling thread
+     * @see org.apache.poi.poifs.filesystem.POIFSFileSystem
+     * @exception IOException if the stream cannot be read
+     *
+     * @since 3.17-beta1
+     */
+    public HSSFWorkbook(DirectoryNode directory, boolean preserveNodes, Executor executor)
+            throws IOException
     {
         super(directory);
         String workbookName = getWorkbookDirEntryName(directory);
@@ -345,6 +384,28 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
         //  it happens to be spelled.
         InputStream stream = directory.createDocumentInputStream(workbookName);
 
+        if (executor != null) {
+            byte[] data;
+            try {
+                data = IOUtils.toByteArray(stream);
+            } finally {
+                stream.close();
+            }
+            int globalsEnd = getGlobalsSubstreamSize(data);
+            if (globalsEnd > 0) {
+                List<Record> records = readRecords(data, 0, globalsEnd);
+                int[] offsets = getSheetSubstreamOffsets(data, records, globalsEnd);
+                if (offsets != null) {
+                    workbook = InternalWorkbook.createWorkbook(records);
+                    setPropertiesFromWorkbook(workbook);
+                    readSheetsConcurrently(data, offsets, executor);
+                    readNames();
+                    return;
+                }
+            }
+            stream = new ByteArrayInputStream(data);
+        }
+
         List<Record> records = RecordFactory.createRecords(stream);
 
         workbook = InternalWorkbook.createWorkbook(records);
@@ -364,6 +425,10 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
             }
         }
 
+        readNames();
+    }
+
+    private void readNames() {
         for (int i = 0 ; i < workbook.getNumNames() ; ++i){
             NameRecord nameRecord = workbook.getNameRecord(i);
             HSSFName name = new HSSFName(this, nameRecord, workbook.getNameCommentRecord(nameRecord));
@@ -371,6 +436,138 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
         }
     }
 
+    /**
+     * @return the size of the workbook globals substream, or -1 if the workbook is encrypted
+     *  or the end of the globals can't be found
+     */
+    private static int getGlobalsSubstreamSize(byte[] data) {
+        int pos = 0;
+        int bofDepth = 0;
+        while (pos + 4 <= data.length) {
+            int sid = LittleEndian.getUShort(data, pos);
+            int size = LittleEndian.getUShort(data, pos + 2);
+            pos += 4 + size;
+            if (sid == FilePassRecord.sid) {
+                return -1;
+            } else if (sid == BOFRecord.sid) {
+                bofDepth++;
+            } else if (sid == EOFRecord.sid && --bofDepth <= 0) {
+                return (pos <= data.length) ? pos : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks, that the sheet offsets of the {@link BoundSheetRecord}s point to BOF records,
+     *  which follow each other directly after the globals
+     *
+     * @return the ascending offsets of the sheet substreams, or <code>null</code> if they
+     *  can't be used to split the workbook stream
+     */
+    private static int[] getSheetSubstreamOffsets(byte[] data, List<Record> globals, int globalsEnd) {
+        List<BoundSheetRecord> boundSheets = new ArrayList<BoundSheetRecord>();
+        for (Record r : globals) {
+            if (r instanceof BoundSheetRecord) {
+                boundSheets.add((BoundSheetRecord)r);
+            }
+        }
+        if (boundSheets.isEmpty()) {
+            return null;
+        }
+        int[] offsets = new int[boundSheets.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            int offset = boundSheets.get(i).getPositionOfBof();
+            if (offset < globalsEnd || offset + 4 > data.length
+                || (i > 0 && offset <= offsets[i - 1])
+                || LittleEndian.getUShort(data, offset) != BOFRecord.sid) {
+                return null;
+            }
+            offsets[i] = offset;
+        }
+        // the substreams must cover the whole stream, as with sequential parsing
+        return (offsets[0] == globalsEnd) ? offsets : null;
+    }
+
+    private static List<Record> readRecords(byte[] data, int offset, int length) {
+        return RecordFactory.createRecords(new ByteArrayInputStream(data, offset, length));
+    }
+
+    private void readSheetsConcurrently(final byte[] data, int[] offsets, Executor executor) throws IOException {
+        List<FutureTask<SheetSubstream>> tasks = new ArrayList<FutureTask<SheetSubstream>>(offsets.length);
+        for (int i = 0; i < offsets.length; i++) {
+            final int start = offsets[i];
+            final int end = (i + 1 < offsets.length) ? offsets[i + 1] : data.length;
+            FutureTask<SheetSubstream> task = new FutureTask<SheetSubstream>(new Callable<SheetSubstream>() {
+                @Override
+                public SheetSubstream call() {
+                    return new SheetSubstream(readRecords(data, start, end - start));
+                }
+            });
+            executor.execute(task);
+            tasks.add(task);
+        }
+        for (FutureTask<SheetSubstream> task : tasks) {
+            SheetSubstream substream = getSheetSubstream(task);
+            if (substream.sheets == null) {
+                // LabelRecords are added to the SST, which needs to happen in stream order
+                convertLabelRecords(substream.records, 0);
+                substream.createSheets();
+            }
+            for (InternalSheet sheet : substream.sheets) {
+                _sheets.add(new HSSFSheet(this, sheet));
+            }
+        }
+    }
+
+    private static SheetSubstream getSheetSubstream(FutureTask<SheetSubstream> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the sheets", e);
+        } catch (ExecutionException e) {
+            Throwable t = e.getCause();
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException)t;
+            } else if (t instanceof Error) {
+                throw (Error)t;
+            }
+            throw new IOException(t);
+        }
+    }
+
+    /**
+     * The records and sheets of a sheet substream, which is decoded on an executor
+     */
+    private static final class SheetSubstream {
+        private final List<Record> records;
+        private List<InternalSheet> sheets;
+
+        SheetSubstream(List<Record> records) {
+            this.records = records;
+            for (Record r : records) {
+                if (r.getSid() == LabelRecord.sid) {
+                    return;
+                }
+            }
+            createSheets();
+        }
+
+        void createSheets() {
+            sheets = new ArrayList<InternalSheet>(1);
+            RecordStream rs = new RecordStream(records, 0);
+            while (rs.hasNext()) {
+                try {
+                    sheets.add(InternalSheet.createSheet(rs));
+                } catch (UnsupportedBOFType eb) {
+                    // Hopefully there's a supported one after this!
+                    log.log(POILogger.WARN, "Unsupported BOF found of type " + eb.getType());
+                }
+            }
+        }
+    }
+
     /**
      * Companion to HSSFWorkbook(POIFSFileSystem), this constructs the
      *  POI filesystem around your {@link InputStream}, including all nodes.
@@ -1449,8 +1646,11 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
         //  going to be preserving nodes
         List<String> excepts = new ArrayList<String>(1);
 
-        // Write out the Workbook stream
-        fs.createDocument(new ByteArrayInputStream(getBytes()), "Workbook");
+        // Write out the Workbook stream, the records are serialized
+        //  straight into the document instead of going through getBytes()
+        WorkbookDocumentWriter writer = new WorkbookDocumentWriter(collectRecords());
+        fs.createDocument("Workbook", writer.getSize(), writer);
+        writer.checkWritten();
 
         // Write out our HPFS properties, if we have them
         writeProperties(fs, excepts);
@@ -1474,7 +1674,7 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
     }
 
     /**
-     * Totals the sizes of all sheet records and eventually serializes them
+     * Totals the sizes of the workbook or sheet records and eventually serializes them
      */
     private static final class SheetRecordCollector implements RecordVisitor {
 
@@ -1503,20 +1703,78 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
         }
     }
 
+    /**
+     * Streams the workbook records into the "Workbook" document, one record at a time,
+     * so the serialized workbook stream doesn't need to be kept in memory as a whole.
+     */
+    private final class WorkbookDocumentWriter implements POIFSWriterListener {
+        private final SheetRecordCollector[] _srCollectors;
+        private final int _size;
+        private byte[] _buf = new byte[RecordInputStream.MAX_RECORD_DATA_SIZE + 4];
+        private IOException _exception;
+
+        WorkbookDocumentWriter(SheetRecordCollector[] srCollectors) {
+            _srCollectors = srCollectors;
+            int size = 0;
+            for (SheetRecordCollector src : srCollectors) {
+                size += src.getTotalSize();
+            }
+            _size = size;
+        }
+
+        public int getSize() {
+            return _size;
+        }
+
+        @Override
+        public void processPOIFSWriterEvent(POIFSWriterEvent event) {
+            try {
+                OutputStream os = event.getStream();
+                ChunkedCipherOutputStream cos = createEncryptingStream(os);
+                byte tmp[] = (cos == null) ? null : new byte[1024];
+                for (int k = 0; k < _srCollectors.length; k++) {
+                    SheetRecordCollector src = _srCollectors[k];
+                    int serializedSize = 0;
+                    for (Record rec : src._list) {
+                        int recSize = rec.getRecordSize();
+                        if (recSize > _buf.length) {
+                            _buf = new byte[recSize];
+                        }
+                        int len = rec.serialize(0, _buf);
+                        if (cos == null) {
+                            os.write(_buf, 0, len);
+                        } else {
+                            encryptRecords(cos, new LittleEndianByteArrayInputStream(_buf, 0, len), len, tmp);
+                        }
+                        serializedSize += len;
+                    }
+                    checkSerializedSize(src, serializedSize, k);
+                }
+                if (cos != null) {
+                    cos.close();
+                }
+            } catch (IOException e) {
+                _exception = e;
+            }
+        }
+
+        /**
+         * @throws IOException if the records couldn't be written to the document
+         */
+        public void checkWritten() throws IOException {
+            if (_exception != null) {
+                throw _exception;
+            }
+        }
+    }
 
     /**
-     * Method getBytes - get the bytes of just the HSSF portions of the XLS file.
-     * Use this to construct a POI POIFSFileSystem yourself.
+     * Tells the workbook and the sheets that serialization is about to occur, pre-calculates
+     * the sheet sizes and sets the BOF indexes, before collecting the records to be serialized.
      *
-     *
-     * @return byte[] array containing the binary representation of this workbook and all contained
-     *         sheets, rows, cells, etc.
+     * @return the record collector of the workbook, followed by the ones of the sheets
      */
-    public byte[] getBytes() {
-        if (log.check( POILogger.DEBUG )) {
-            log.log(DEBUG, "HSSFWorkbook.getBytes()");
-        }
-        
+    private SheetRecordCollector[] collectRecords() {
         HSSFSheet[] sheets = getSheets();
         int nSheets = sheets.length;
 
@@ -1532,30 +1790,61 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
         int totalsize = workbook.getSize();
 
         // pre-calculate all the sheet sizes and set BOF indexes
-        SheetRecordCollector[] srCollectors = new SheetRecordCollector[nSheets];
+        SheetRecordCollector[] srCollectors = new SheetRecordCollector[nSheets + 1];
         for (int k = 0; k < nSheets; k++) {
             workbook.setSheetBof(k, totalsize);
             SheetRecordCollector src = new SheetRecordCollector();
             sheets[k].getSheet().visitContainedRecords(src, totalsize);
             totalsize += src.getTotalSize();
-            srCollectors[k] = src;
+            srCollectors[k + 1] = src;
         }
 
-        byte[] retval = new byte[totalsize];
-        int pos = workbook.serialize(0, retval);
+        SheetRecordCollector wbCollector = new SheetRecordCollector();
+        workbook.visitContainedRecords(wbCollector, 0);
+        srCollectors[0] = wbCollector;
+        return srCollectors;
+    }
 
-        for (int k = 0; k < nSheets; k++) {
+    /**
+     * @param k the index of the collector, 0 for the workbook records and sheet index + 1 otherwise
+     */
+    private static void checkSerializedSize(SheetRecordCollector src, int serializedSize, int k) {
+        if (k > 0 && serializedSize != src.getTotalSize()) {
+            // Wrong offset values have been passed in the call to setSheetBof() above.
+            // For books with more than one sheet, this discrepancy would cause excel
+            // to report errors and loose data while reading the workbook
+            throw new IllegalStateException("Actual serialized sheet size (" + serializedSize
+                    + ") differs from pre-calculated size (" + src.getTotalSize()
+                    + ") for sheet (" + (k - 1) + ")");
+            // TODO - add similar sanity check to ensure that Sheet.serializeIndexRecord() does not write mis-aligned offsets either
+        }
+    }
+
+    /**
+     * Method getBytes - get the bytes of just the HSSF portions of the XLS file.
+     * Use this to construct a POI POIFSFileSystem yourself.
+     *
+     *
+     * @return byte[] array containing the binary representation of this workbook and all contained
+     *         sheets, rows, cells, etc.
+     */
+    public byte[] getBytes() {
+        if (log.check( POILogger.DEBUG )) {
+            log.log(DEBUG, "HSSFWorkbook.getBytes()");
+        }
+
+        SheetRecordCollector[] srCollectors = collectRecords();
+        int totalsize = 0;
+        for (SheetRecordCollector src : srCollectors) {
+            totalsize += src.getTotalSize();
+        }
+
+        byte[] retval = new byte[totalsize];
+        int pos = 0;
+        for (int k = 0; k < srCollectors.length; k++) {
             SheetRecordCollector src = srCollectors[k];
             int serializedSize = src.serialize(pos, retval);
-            if (serializedSize != src.getTotalSize()) {
-                // Wrong offset values have been passed in the call to setSheetBof() above.
-                // For books with more than one sheet, this discrepancy would cause excel
-                // to report errors and loose data while reading the workbook
-                throw new IllegalStateException("Actual serialized sheet size (" + serializedSize
-                        + ") differs from pre-calculated size (" + src.getTotalSize()
-                        + ") for sheet (" + k + ")");
-                // TODO - add similar sanity check to ensure that Sheet.serializeIndexRecord() does not write mis-aligned offsets either
-            }
+            checkSerializedSize(src, serializedSize, k);
             pos += serializedSize;
         }
 
@@ -1566,6 +1855,25 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
 
     @SuppressWarnings("resource")
     protected void encryptBytes(byte buf[]) {
+        LittleEndianByteArrayOutputStream leos = new LittleEndianByteArrayOutputStream(buf, 0); // NOSONAR
+        try {
+            ChunkedCipherOutputStream os = createEncryptingStream(leos);
+            if (os == null) {
+                return;
+            }
+            LittleEndianByteArrayInputStream plain = new LittleEndianByteArrayInputStream(buf, 0); // NOSONAR
+            encryptRecords(os, plain, buf.length, new byte[1024]);
+            os.close();
+        } catch (IOException e) {
+            throw new EncryptedDocumentException(e);
+        }
+    }
+
+    /**
+     * @return a stream encrypting the workbook stream records written to {@code out},
+     *  or {@code null} if the workbook isn't encrypted
+     */
+    private ChunkedCipherOutputStream createEncryptingStream(OutputStream out) {
         int initialOffset = 0;
         FilePassRecord fpr = null;
         for (Record r : workbook.getRecords()) {
@@ -1576,49 +1884,56 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
             }
         }
         if (fpr == null) {
-            return;
+            return null;
         }
-        
-        LittleEndianByteArrayInputStream plain = new LittleEndianByteArrayInputStream(buf, 0); // NOSONAR
-        LittleEndianByteArrayOutputStream leos = new LittleEndianByteArrayOutputStream(buf, 0); // NOSONAR
+
         Encryptor enc = fpr.getEncryptionInfo().getEncryptor();
         enc.setChunkSize(Biff8DecryptingStream.RC4_REKEYING_INTERVAL);
-        byte tmp[] = new byte[1024];
         try {
-            ChunkedCipherOutputStream os = enc.getDataStream(leos, initialOffset);
-            int totalBytes = 0;
-            while (totalBytes < buf.length) {
-                plain.read(tmp, 0, 4);
-                final int sid = LittleEndian.getUShort(tmp, 0);
-                final int len = LittleEndian.getUShort(tmp, 2);
-                boolean isPlain = Biff8DecryptingStream.isNeverEncryptedRecord(sid);
-                os.setNextRecordSize(len, isPlain);
-                os.writePlain(tmp, 0, 4);
-                if (sid == BoundSheetRecord.sid) {
-                    // special case for the field_1_position_of_BOF (=lbPlyPos) field of
-                    // the BoundSheet8 record which must be unencrypted
-                    byte bsrBuf[] = new byte[len];
-                    plain.readFully(bsrBuf);
-                    os.writePlain(bsrBuf, 0, 4);
-                    os.write(bsrBuf, 4, len-4);
-                } else {
-                    int todo = len;
-                    while (todo > 0) {
-                        int nextLen = Math.min(todo, tmp.length);
-                        plain.readFully(tmp, 0, nextLen);
-                        if (isPlain) {
-                            os.writePlain(tmp, 0, nextLen);
-                        } else {
-                            os.write(tmp, 0, nextLen);
-                        }
-                        todo -= nextLen;
+            return enc.getDataStream(out, initialOffset);
+        } catch (Exception e) {
+            throw new EncryptedDocumentException(e);
+        }
+    }
+
+    /**
+     * Encrypts the serialized records read from {@code plain}, leaving the parts
+     * in plain text, which must not be encrypted
+     *
+     * @param length the number of bytes to be read from {@code plain}
+     * @param tmp the buffer for the chunks to be encrypted
+     */
+    private static void encryptRecords(ChunkedCipherOutputStream os, LittleEndianByteArrayInputStream plain,
+            int length, byte tmp[]) throws IOException {
+        int totalBytes = 0;
+        while (totalBytes < length) {
+            plain.read(tmp, 0, 4);
+            final int sid = LittleEndian.getUShort(tmp, 0);
+            final int len = LittleEndian.getUShort(tmp, 2);
+            boolean isPlain = Biff8DecryptingStream.isNeverEncryptedRecord(sid);
+            os.setNextRecordSize(len, isPlain);
+            os.writePlain(tmp, 0, 4);
+            if (sid == BoundSheetRecord.sid) {
+                // special case for the field_1_position_of_BOF (=lbPlyPos) field of
+                // the BoundSheet8 record which must be unencrypted
+                byte bsrBuf[] = new byte[len];
+                plain.readFully(bsrBuf);
+                os.writePlain(bsrBuf, 0, 4);
+                os.write(bsrBuf, 4, len-4);
+            } else {
+                int todo = len;
+                while (todo > 0) {
+                    int nextLen = Math.min(todo, tmp.length);
+                    plain.readFully(tmp, 0, nextLen);
+                    if (isPlain) {
+                        os.writePlain(tmp, 0, nextLen);
+                    } else {
+                        os.write(tmp, 0, nextLen);
                     }
+                    todo -= nextLen;
                 }
-                totalBytes += 4 + len;
             }
-            os.close();
-        } catch (Exception e) {
-            throw new EncryptedDocumentException(e);
+            totalBytes += 4 + len;
         }
     }
     
@@ -1903,8 +2218,9 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
     void initDrawings(){
         DrawingManager2 mgr = workbook.findDrawingGroup();
         if(mgr != null) {
+            // aggregating is enough, the escher records are decoded when the sheet's drawing is used
             for(HSSFSheet sh : _sheets)  {
-                sh.getDrawingPatriarch();
+                sh.getDrawingEscherAggregate();
             }
         } else {
             workbook.createDrawingGroup();
@@ -86,10 +86,46 @@ public abstract class ChunkedCipherInputStream extends LittleEndianInputStream {
 
     @Override
     public int read(byte[] b, int off, int len) throws IOException {
-        return read(b, off, len, false);
+        return read(b, null, off, len);
     }
 
-    private int read(byte[] b, int off, int len, boolean readPlain) throws IOException {
+    /**
+     * Reads the decrypted bytes and the corresponding plain bytes of the stream in one go,
+     * e.g. to decrypt a whole record, which also contains fields that are stored unencrypted.
+     *
+     * @param decrypted the buffer for the decrypted bytes
+     * @param plainBuf the buffer for the plain bytes
+     * @param off the offset into both buffers
+     * @param len the number of bytes to read
+     *
+     * @since 3.17-beta1
+     */
+    public void readFully(byte[] decrypted, byte[] plainBuf, int off, int len) {
+        if (len <= 0) {
+            return;
+        }
+
+        try {
+            int readBytes, total = 0;
+            do {
+                readBytes = read(decrypted, plainBuf, off + total, len - total);
+                total += Math.max(0, readBytes);
+            } while (readBytes > -1 && total < len);
+
+            if (total < len) {
+                throw new EOFException("buffer underrun");
+            }
+        } catch (IOException e) {
+            // need to wrap checked exception, because of LittleEndianInput interface :(
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param decrypted the buffer for the decrypted bytes or {@code null} if they aren't needed
+     * @param plainBuf the buffer for the plain bytes or {@code null} if they aren't needed
+     */
+    private int read(byte[] decrypted, byte[] plainBuf, int off, int len) throws IOException {
         int total = 0;
 
         if (available() <= 0) {
@@ -113,7 +149,12 @@ public abstract class ChunkedCipherInputStream extends LittleEndianInputStream {
             }
             count = Math.min(avail, Math.min(count, len));
 
-            System.arraycopy(readPlain ? plain : chunk, (int)(pos & chunkMask), b, off, count);
+            if (decrypted != null) {
+                System.arraycopy(chunk, (int)(pos & chunkMask), decrypted, off, count);
+            }
+            if (plainBuf != null) {
+                System.arraycopy(plain, (int)(pos & chunkMask), plainBuf, off, count);
+            }
 
             off += count;
             len -= count;
@@ -233,7 +274,7 @@ public abstract class ChunkedCipherInputStream extends LittleEndianInputStream {
         try {
             int readBytes, total = 0;
             do {
-                readBytes = read(b, off, len, true);
+                readBytes = read(null, b, off + total, len - total);
                 total += Math.max(0, readBytes);
             } while (readBytes > -1 && total < len);
     
@@ -17,7 +17,11 @@
 
 package org.apache.poi.ss.formula;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
@@ -195,6 +199,65 @@ public abstract class BaseFormulaEvaluator implements FormulaEvaluator, Workbook
         return cv.getCellTypeEnum();
     }
 
+    /**
+     * Returns the formula cells, which depend directly or indirectly on the given cells,
+     *  e.g. to find the cells to recalculate after a change.  The cells are found in the
+     *  precedents of the formulas, which are collected from the whole workbook on the first call
+     *  and kept up to date by the notify~ methods.  Cells calling functions like
+     *  <code>INDIRECT</code>, <code>OFFSET</code> or <code>NOW</code> are always returned.
+     * <p>
+     * After structural changes, like moving sheets or shifting rows,
+     *  {@link #clearAllCachedResultValues()} has to be called.
+     *
+     * @param cells the changed cells of the evaluated workbook
+     * @return the dependent formula cells, each after the cells it depends on
+     *  (apart from circular references), including the given formula cells
+     * @since 3.17-beta1
+     */
+    public List<Cell> getDependents(Collection<? extends Cell> cells) {
+        if (cells.isEmpty()) {
+            return new ArrayList<Cell>();
+        }
+        Workbook wb = cells.iterator().next().getSheet().getWorkbook();
+        long[] keys = new long[cells.size()];
+        int i = 0;
+        for (Cell cell : cells) {
+            int sheetIndex = wb.getSheetIndex(cell.getSheet());
+            keys[i++] = DependencyGraph.getCellKey(sheetIndex, cell.getRowIndex(), cell.getColumnIndex());
+        }
+        List<DependencyGraph.FormulaNode> nodes = _bookEvaluator.getDependencyGraph(wb).getDependents(keys);
+        List<Cell> dependents = new ArrayList<Cell>(nodes.size());
+        for (DependencyGraph.FormulaNode node : nodes) {
+            Row row = wb.getSheetAt(node.getSheetIndex()).getRow(node.getRowIndex());
+            // the row may be flushed already in streamed sheets
+            Cell cell = (row == null) ? null : row.getCell(node.getColumnIndex());
+            if (cell != null) {
+                dependents.add(cell);
+            }
+        }
+        return dependents;
+    }
+
+    /**
+     * Notifies the evaluator about the changed cells and evaluates only the formula cells,
+     *  which depend on them, in the order of {@link #getDependents(Collection)}.  The results
+     *  are saved in the cells, like with {@link #evaluateFormulaCellEnum(Cell)}.
+     *
+     * @param cells the changed cells of the evaluated workbook
+     * @return the recalculated formula cells
+     * @since 3.17-beta1
+     */
+    public List<Cell> recalculateDependents(Collection<? extends Cell> cells) {
+        for (Cell cell : cells) {
+            notifyUpdateCell(cell);
+        }
+        List<Cell> dependents = getDependents(cells);
+        for (Cell cell : dependents) {
+            evaluateFormulaCellEnum(cell);
+        }
+        return dependents;
+    }
+
     protected static void setCellType(Cell cell, CellValue cv) {
         CellType cellType = cv.getCellTypeEnum();
         switch (cellType) {
@@ -257,6 +320,24 @@ public abstract class BaseFormulaEvaluator implements FormulaEvaluator, Workbook
         FormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
         evaluateAllFormulaCells(wb, evaluator);
     }
+
+    /**
+     * Loops over all cells in all sheets of the supplied workbook and evaluates the formula
+     *  cells concurrently on the given executor, like {@link #evaluateAllFormulaCells(Workbook)}.
+     * <p>
+     * The sheets are split into groups, whose formulas don't refer to each other, and each group
+     *  is evaluated with its own evaluator, so the evaluation caches aren't shared between threads.
+     *  The results are the same as with the serial evaluation.  The workbook must not be
+     *  modified until this method returns, the executor isn't shut down.
+     *
+     * @param wb the workbook
+     * @param executor the executor to evaluate the sheet groups on
+     * @since 3.17-beta1
+     */
+    public static void evaluateAllFormulaCells(Workbook wb, Executor executor) {
+        new FormulaCellGroups(wb).evaluate(executor);
+    }
+
     protected static void evaluateAllFormulaCells(Workbook wb, FormulaEvaluator evaluator) {
         for(int i=0; i<wb.getNumberOfSheets(); i++) {
             Sheet sheet = wb.getSheetAt(i);
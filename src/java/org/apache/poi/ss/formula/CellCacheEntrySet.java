@@ -0,0 +1,104 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+/**
+ * Identity set of the cells used by a single formula.  Like {@link FormulaCellCacheEntrySet}
+ * it is an open addressing hash table, which does not allocate an entry object per element
+ * like {@link java.util.HashSet}.  Most formulas use only a few cells, so it starts small.
+ */
+final class CellCacheEntrySet {
+	private static final int MIN_CAPACITY = 8;
+
+	private CellCacheEntry[] _arr;
+	private int _size;
+
+	public CellCacheEntrySet() {
+		this(0);
+	}
+
+	/**
+	 * @param expectedSize the number of elements, which can be added without re-hashing
+	 */
+	public CellCacheEntrySet(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity * 3 < expectedSize * 4) {
+			capacity *= 2;
+		}
+		_arr = new CellCacheEntry[capacity];
+	}
+
+	/**
+	 * @return <code>false</code> if the entry was already present
+	 */
+	public boolean add(CellCacheEntry cce) {
+		if ((_size + 1) * 4 > _arr.length * 3) {
+			CellCacheEntry[] prevArr = _arr;
+			_arr = new CellCacheEntry[prevArr.length * 2];
+			for (int i = 0; i < prevArr.length; i++) {
+				if (prevArr[i] != null) {
+					_arr[indexOf(_arr, prevArr[i])] = prevArr[i];
+				}
+			}
+		}
+		int i = indexOf(_arr, cce);
+		if (_arr[i] != null) {
+			return false;
+		}
+		_arr[i] = cce;
+		_size++;
+		return true;
+	}
+
+	public boolean contains(CellCacheEntry cce) {
+		return _arr[indexOf(_arr, cce)] != null;
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * @return never <code>null</code>, the elements in no particular order
+	 */
+	public CellCacheEntry[] toArray() {
+		if (_size < 1) {
+			return CellCacheEntry.EMPTY_ARRAY;
+		}
+		CellCacheEntry[] result = new CellCacheEntry[_size];
+		int j = 0;
+		for (int i = 0; i < _arr.length; i++) {
+			if (_arr[i] != null) {
+				result[j++] = _arr[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the slot of the entry, or the empty slot where it would be added
+	 */
+	private static int indexOf(CellCacheEntry[] arr, CellCacheEntry cce) {
+		int mask = arr.length - 1;
+		int i = System.identityHashCode(cce) & mask;
+		while (arr[i] != null && arr[i] != cce) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+}
@@ -17,9 +17,6 @@
 
 package org.apache.poi.ss.formula;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import org.apache.poi.ss.formula.eval.ValueEval;
 
 /**
@@ -28,12 +25,12 @@ import org.apache.poi.ss.formula.eval.ValueEval;
 final class CellEvaluationFrame {
 
 	private final FormulaCellCacheEntry _cce;
-	private final Set<CellCacheEntry> _sensitiveInputCells;
+	private final CellCacheEntrySet _sensitiveInputCells;
 	private FormulaUsedBlankCellSet _usedBlankCellGroup;
 
 	public CellEvaluationFrame(FormulaCellCacheEntry cce) {
 		_cce = cce;
-		_sensitiveInputCells = new HashSet<CellCacheEntry>();
+		_sensitiveInputCells = new CellCacheEntrySet();
 	}
 	public CellCacheEntry getCCE() {
 		return _cce;
@@ -56,13 +53,7 @@ final class CellEvaluationFrame {
 	 * evaluating the formula of this frame.
 	 */
 	private CellCacheEntry[] getSensitiveInputCells() {
-		int nItems = _sensitiveInputCells.size();
-		if (nItems < 1) {
-			return CellCacheEntry.EMPTY_ARRAY;
-		}
-		CellCacheEntry[] result = new CellCacheEntry[nItems];
-		_sensitiveInputCells.toArray(result);
-		return result;
+		return _sensitiveInputCells.toArray();
 	}
 	public void addUsedBlankCell(int bookIndex, int sheetIndex, int rowIndex, int columnIndex) {
 		if (_usedBlankCellGroup == null) {
@@ -70,6 +61,14 @@ final class CellEvaluationFrame {
 		}
 		_usedBlankCellGroup.addCell(bookIndex, sheetIndex, rowIndex, columnIndex);
 	}
+	public void addUsedBlankArea(int bookIndex, int sheetIndex, int firstRowIndex, int firstColumnIndex,
+			int lastRowIndex, int lastColumnIndex) {
+		if (_usedBlankCellGroup == null) {
+			_usedBlankCellGroup = new FormulaUsedBlankCellSet();
+		}
+		_usedBlankCellGroup.addArea(bookIndex, sheetIndex, firstRowIndex, firstColumnIndex,
+				lastRowIndex, lastColumnIndex);
+	}
 
 	public void updateFormulaResult(ValueEval result) {
 		_cce.updateFormulaResult(result, getSensitiveInputCells(), _usedBlankCellGroup);
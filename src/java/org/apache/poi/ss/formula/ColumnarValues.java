@@ -0,0 +1,172 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import org.apache.poi.ss.formula.eval.BlankEval;
+import org.apache.poi.ss.formula.eval.BoolEval;
+import org.apache.poi.ss.formula.eval.ErrorEval;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.StringEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.util.Internal;
+
+/**
+ * Copy of the evaluated values of an area in primitive arrays, so functions like SUMIFS and
+ * COUNTIFS can scan large areas without creating a {@link ValueEval} for every cell.<p/>
+ *
+ * The values are stored row by row, i.e. the value at relative row <tt>r</tt> and column
+ * <tt>c</tt> has the index <tt>r * getWidth() + c</tt>.  Only the values up to the last
+ * populated row of the sheet are stored, all values after them are blank.
+ *
+ * @since 3.17-beta1
+ */
+@Internal
+public final class ColumnarValues {
+	public static final byte TYPE_BLANK = 0;
+	public static final byte TYPE_NUMBER = 1;
+	public static final byte TYPE_STRING = 2;
+	public static final byte TYPE_BOOLEAN = 3;
+	public static final byte TYPE_ERROR = 4;
+
+	private final int _width;
+	private final int _size;
+	private final byte[] _types;
+	/** the numbers, 1 or 0 for booleans and the error codes */
+	private final double[] _numbers;
+	/** <code>null</code> if there are no strings */
+	private final String[] _strings;
+
+	/* package */ ColumnarValues(int width, ValueEval[] values) {
+		this(width, values.length, values);
+	}
+
+	/**
+	 * @param size the number of values of the whole area
+	 * @param values the leading values of the area, the remaining ones are blank
+	 */
+	/* package */ ColumnarValues(int width, int size, ValueEval[] values) {
+		if (values.length > size) {
+			throw new IllegalArgumentException("More values (" + values.length + ") than the size " + size);
+		}
+		_width = width;
+		_size = size;
+		int populatedSize = values.length;
+		_types = new byte[populatedSize];
+		_numbers = new double[populatedSize];
+		String[] strings = null;
+		for (int i = 0; i < populatedSize; i++) {
+			ValueEval value = values[i];
+			if (value instanceof NumberEval) {
+				_types[i] = TYPE_NUMBER;
+				_numbers[i] = ((NumberEval)value).getNumberValue();
+			} else if (value instanceof StringEval) {
+				_types[i] = TYPE_STRING;
+				if (strings == null) {
+					strings = new String[populatedSize];
+				}
+				strings[i] = ((StringEval)value).getStringValue();
+			} else if (value instanceof BoolEval) {
+				_types[i] = TYPE_BOOLEAN;
+				_numbers[i] = ((BoolEval)value).getBooleanValue() ? 1 : 0;
+			} else if (value instanceof ErrorEval) {
+				_types[i] = TYPE_ERROR;
+				_numbers[i] = ((ErrorEval)value).getErrorCode();
+			} else if (value == BlankEval.instance) {
+				_types[i] = TYPE_BLANK;
+			} else {
+				throw new IllegalArgumentException("Unexpected value class (" + value.getClass().getName() + ")");
+			}
+		}
+		_strings = strings;
+	}
+
+	public int getWidth() {
+		return _width;
+	}
+
+	public int getHeight() {
+		return _width == 0 ? 0 : _size / _width;
+	}
+
+	/**
+	 * @return the number of values
+	 */
+	public int getSize() {
+		return _size;
+	}
+
+	/**
+	 * @return the number of leading values, which may be non-blank
+	 */
+	public int getPopulatedSize() {
+		return _types.length;
+	}
+
+	/**
+	 * @return one of the <tt>TYPE_</tt> constants
+	 */
+	public byte getType(int index) {
+		return index < _types.length ? _types[index] : TYPE_BLANK;
+	}
+
+	/**
+	 * @return the number of a {@link #TYPE_NUMBER} value
+	 */
+	public double getNumber(int index) {
+		return index < _numbers.length ? _numbers[index] : 0;
+	}
+
+	/**
+	 * @return the string of a {@link #TYPE_STRING} value
+	 */
+	public String getString(int index) {
+		return _strings == null || index >= _strings.length ? null : _strings[index];
+	}
+
+	/**
+	 * @return the boolean of a {@link #TYPE_BOOLEAN} value
+	 */
+	public boolean getBoolean(int index) {
+		return getNumber(index) != 0;
+	}
+
+	/**
+	 * @return the error code of a {@link #TYPE_ERROR} value
+	 */
+	public int getErrorCode(int index) {
+		return (int)getNumber(index);
+	}
+
+	/**
+	 * @return the value at the index as {@link ValueEval}
+	 */
+	public ValueEval getValue(int index) {
+		switch (getType(index)) {
+			case TYPE_NUMBER:
+				return new NumberEval(getNumber(index));
+			case TYPE_STRING:
+				return new StringEval(getString(index));
+			case TYPE_BOOLEAN:
+				return BoolEval.valueOf(getBoolean(index));
+			case TYPE_ERROR:
+				return ErrorEval.valueOf(getErrorCode(index));
+			default:
+				return BlankEval.instance;
+		}
+	}
+}
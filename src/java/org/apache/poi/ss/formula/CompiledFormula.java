@@ -0,0 +1,484 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import java.util.Stack;
+
+import org.apache.poi.ss.formula.eval.BlankEval;
+import org.apache.poi.ss.formula.eval.BoolEval;
+import org.apache.poi.ss.formula.eval.ErrorEval;
+import org.apache.poi.ss.formula.eval.EvaluationException;
+import org.apache.poi.ss.formula.eval.MissingArgEval;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.StringEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.function.FunctionMetadataRegistry;
+import org.apache.poi.ss.formula.functions.Choose;
+import org.apache.poi.ss.formula.functions.Function;
+import org.apache.poi.ss.formula.functions.IfFunc;
+import org.apache.poi.ss.formula.ptg.AreaPtg;
+import org.apache.poi.ss.formula.ptg.AttrPtg;
+import org.apache.poi.ss.formula.ptg.BoolPtg;
+import org.apache.poi.ss.formula.ptg.ControlPtg;
+import org.apache.poi.ss.formula.ptg.ErrPtg;
+import org.apache.poi.ss.formula.ptg.FuncVarPtg;
+import org.apache.poi.ss.formula.ptg.IntPtg;
+import org.apache.poi.ss.formula.ptg.MemAreaPtg;
+import org.apache.poi.ss.formula.ptg.MemErrPtg;
+import org.apache.poi.ss.formula.ptg.MemFuncPtg;
+import org.apache.poi.ss.formula.ptg.MissingArgPtg;
+import org.apache.poi.ss.formula.ptg.NumberPtg;
+import org.apache.poi.ss.formula.ptg.OperationPtg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.ptg.RefPtg;
+import org.apache.poi.ss.formula.ptg.StringPtg;
+import org.apache.poi.ss.formula.ptg.UnionPtg;
+import org.apache.poi.ss.formula.ptg.ValueOperatorPtg;
+
+/**
+ * The formula of a cell, compiled into a tree of evaluation nodes, so the tokens don't need to be
+ * interpreted on each evaluation.  The functions are looked up once and operators with constant
+ * operands are evaluated when compiling.
+ * <p>
+ * The tree gives the same results as {@link WorkbookEvaluator#evaluateFormula(OperationEvaluationContext, Ptg[])}.
+ * Token sequences, which can't be compiled into a tree with the same behaviour, are kept and
+ * interpreted as before.  The compiled formula is cached in the {@link FormulaCellCacheEntry}
+ * of the cell and dropped, when the cell is updated.
+ *
+ * @since 3.17-beta1
+ */
+final class CompiledFormula {
+    private final WorkbookEvaluator _evaluator;
+    /** the tokens to interpret, if the formula couldn't be compiled */
+    private final Ptg[] _ptgs;
+    private final Node _root;
+
+    private CompiledFormula(WorkbookEvaluator evaluator, Ptg[] ptgs, Node root) {
+        _evaluator = evaluator;
+        _ptgs = ptgs;
+        _root = root;
+    }
+
+    /**
+     * @param ec the context of the first evaluation, for the operators with constant operands
+     */
+    static CompiledFormula compile(WorkbookEvaluator evaluator, Ptg[] ptgs, OperationEvaluationContext ec) {
+        Node root;
+        try {
+            root = new Compiler(evaluator, ptgs, ec).compile();
+        } catch (RuntimeException e) {
+            // invalid token sequences fail in the interpreter as before
+            root = null;
+        }
+        return new CompiledFormula(evaluator, root == null ? ptgs : null, root);
+    }
+
+    boolean isCompiled() {
+        return _root != null;
+    }
+
+    ValueEval evaluate(OperationEvaluationContext ec) {
+        if (_root == null) {
+            return _evaluator.evaluateFormula(ec, _ptgs);
+        }
+        return WorkbookEvaluator.dereferenceResult(_root.evaluate(ec), ec.getRowIndex(), ec.getColumnIndex());
+    }
+
+    /**
+     * Builds the tree by walking the tokens like the interpreter, with the nodes on the stack
+     * instead of the values.  The skipped tokens of the optimized <tt>IF</tt> and <tt>CHOOSE</tt>
+     * become branches of their nodes.
+     */
+    private static final class Compiler {
+        private final WorkbookEvaluator _evaluator;
+        private final Ptg[] _ptgs;
+        private final OperationEvaluationContext _ec;
+        /** the index of the last token of the most recently compiled branch */
+        private int _branchEnd;
+
+        Compiler(WorkbookEvaluator evaluator, Ptg[] ptgs, OperationEvaluationContext ec) {
+            _evaluator = evaluator;
+            _ptgs = ptgs;
+            _ec = ec;
+        }
+
+        /**
+         * @return the root node, or <code>null</code> if the tokens can't be compiled
+         */
+        Node compile() {
+            Stack<Node> stack = new Stack<Node>();
+            if (compileTokens(0, stack) != _ptgs.length || stack.size() != 1) {
+                return null;
+            }
+            return stack.pop();
+        }
+
+        /**
+         * Compiles the tokens from the start index up to the end or a <tt>tAttrSkip</tt>
+         *
+         * @return the index of the <tt>tAttrSkip</tt> token, or the number of tokens
+         */
+        private int compileTokens(int start, Stack<Node> stack) {
+            for (int i = start; i < _ptgs.length; i++) {
+                Ptg ptg = _ptgs[i];
+                if (ptg instanceof AttrPtg) {
+                    AttrPtg attrPtg = (AttrPtg) ptg;
+                    if (attrPtg.isSum()) {
+                        ptg = FuncVarPtg.SUM;
+                    }
+                    if (attrPtg.isOptimizedChoose()) {
+                        i = compileChoose(i, stack);
+                        continue;
+                    }
+                    if (attrPtg.isOptimizedIf()) {
+                        i = compileIf(i, stack);
+                        continue;
+                    }
+                    if (attrPtg.isSkip()) {
+                        return i;
+                    }
+                }
+                if (ptg instanceof ControlPtg || ptg instanceof MemFuncPtg
+                        || ptg instanceof MemAreaPtg || ptg instanceof MemErrPtg || ptg instanceof UnionPtg) {
+                    continue;
+                }
+                if (ptg instanceof OperationPtg) {
+                    OperationPtg optg = (OperationPtg) ptg;
+                    int numops = optg.getNumberOfOperands();
+                    Node[] operands = new Node[numops];
+                    for (int j = numops - 1; j >= 0; j--) {
+                        operands[j] = stack.pop();
+                    }
+                    stack.push(createOperation(optg, operands));
+                } else {
+                    stack.push(createOperand(ptg));
+                }
+            }
+            return _ptgs.length;
+        }
+
+        /**
+         * Compiles a branch of an optimized <tt>IF</tt> or <tt>CHOOSE</tt>, which ends with a <tt>tAttrSkip</tt>.
+         * The index of the last token skipped to is stored in {@link #_branchEnd}.
+         */
+        private Node compileBranch(int start) {
+            Stack<Node> stack = new Stack<Node>();
+            int end = compileTokens(start, stack);
+            if (end == _ptgs.length || stack.size() != 1) {
+                throw new IllegalStateException("Unexpected branch end");
+            }
+            _branchEnd = end + WorkbookEvaluator.countTokensToBeSkipped(_ptgs, end, ((AttrPtg)_ptgs[end]).getData() + 1);
+            return new SkipNode(stack.pop());
+        }
+
+        /**
+         * @return the index of the last token of the <tt>IF</tt> function
+         */
+        private int compileIf(int i, Stack<Node> stack) {
+            Node condition = stack.pop();
+            AttrPtg attrPtg = (AttrPtg) _ptgs[i];
+            int falseStart = i + WorkbookEvaluator.countTokensToBeSkipped(_ptgs, i, attrPtg.getData());
+            // the last token, when the condition evaluates to an error
+            int errorEnd = falseStart + WorkbookEvaluator.countTokensToBeSkipped(
+                    _ptgs, falseStart, ((AttrPtg) _ptgs[falseStart]).getData() + 1);
+
+            Node trueNode = compileBranch(i + 1);
+            int end = _branchEnd;
+            Node falseNode;
+            Ptg nextPtg = _ptgs[falseStart + 1];
+            if (_ptgs[falseStart] instanceof AttrPtg && nextPtg instanceof FuncVarPtg &&
+                    ((FuncVarPtg)nextPtg).getFunctionIndex() == FunctionMetadataRegistry.FUNCTION_INDEX_IF) {
+                // no false param
+                falseNode = new ConstantNode(BoolEval.FALSE);
+                if (end != falseStart + 1) {
+                    throw new IllegalStateException("Unexpected IF end");
+                }
+            } else {
+                falseNode = compileBranch(falseStart + 1);
+                if (end != _branchEnd) {
+                    throw new IllegalStateException("Unexpected IF end");
+                }
+            }
+            if (end != errorEnd) {
+                throw new IllegalStateException("Unexpected IF end");
+            }
+            stack.push(new IfNode(condition, trueNode, falseNode));
+            return end;
+        }
+
+        /**
+         * @return the index of the last token of the <tt>CHOOSE</tt> function
+         */
+        private int compileChoose(int i, Stack<Node> stack) {
+            Node index = stack.pop();
+            AttrPtg attrPtg = (AttrPtg) _ptgs[i];
+            int[] jumpTable = attrPtg.getJumpTable();
+            int nChoices = jumpTable.length;
+            // the encoded distances include the jump table
+            int tableSize = nChoices*2+2;
+            int end = i + WorkbookEvaluator.countTokensToBeSkipped(_ptgs, i, attrPtg.getChooseFuncOffset() + 4 - tableSize);
+            Node[] choices = new Node[nChoices];
+            for (int k = 0; k < nChoices; k++) {
+                int start = i + WorkbookEvaluator.countTokensToBeSkipped(_ptgs, i, jumpTable[k] - tableSize) + 1;
+                choices[k] = compileBranch(start);
+                if (_branchEnd != end) {
+                    throw new IllegalStateException("Unexpected CHOOSE end");
+                }
+            }
+            stack.push(new ChooseNode(index, choices));
+            return end;
+        }
+
+        private Node createOperation(OperationPtg ptg, Node[] operands) {
+            Function function = OperationEvaluatorFactory.getFunction(ptg);
+            if (function != null && ptg instanceof ValueOperatorPtg && isConstant(operands)) {
+                ValueEval[] args = new ValueEval[operands.length];
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = ((ConstantNode)operands[i]).getValue();
+                }
+                ValueEval result = function.evaluate(args, _ec.getRowIndex(), (short) _ec.getColumnIndex());
+                if (result != null) {
+                    return new ConstantNode(result);
+                }
+            }
+            return new OperationNode(ptg, function, operands);
+        }
+
+        private static boolean isConstant(Node[] operands) {
+            for (Node operand : operands) {
+                if (!(operand instanceof ConstantNode) || ((ConstantNode)operand).getValue() == MissingArgEval.instance) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Node createOperand(Ptg ptg) {
+            if (ptg instanceof IntPtg) {
+                return new ConstantNode(new NumberEval(((IntPtg)ptg).getValue()));
+            }
+            if (ptg instanceof NumberPtg) {
+                return new ConstantNode(new NumberEval(((NumberPtg)ptg).getValue()));
+            }
+            if (ptg instanceof StringPtg) {
+                return new ConstantNode(new StringEval(((StringPtg) ptg).getValue()));
+            }
+            if (ptg instanceof BoolPtg) {
+                return new ConstantNode(BoolEval.valueOf(((BoolPtg) ptg).getValue()));
+            }
+            if (ptg instanceof ErrPtg) {
+                return new ConstantNode(ErrorEval.valueOf(((ErrPtg) ptg).getErrorCode()));
+            }
+            if (ptg instanceof MissingArgPtg) {
+                return new ConstantNode(MissingArgEval.instance);
+            }
+            if (ptg instanceof RefPtg) {
+                RefPtg rptg = (RefPtg) ptg;
+                return new RefNode(rptg.getRow(), rptg.getColumn());
+            }
+            if (ptg instanceof AreaPtg) {
+                AreaPtg aptg = (AreaPtg) ptg;
+                return new AreaNode(aptg.getFirstRow(), aptg.getFirstColumn(), aptg.getLastRow(), aptg.getLastColumn());
+            }
+            return new TokenNode(_evaluator, ptg);
+        }
+    }
+
+    /**
+     * A node of the compiled formula
+     */
+    private static abstract class Node {
+        /**
+         * @return never <code>null</code>
+         */
+        abstract ValueEval evaluate(OperationEvaluationContext ec);
+    }
+
+    private static final class ConstantNode extends Node {
+        private final ValueEval _value;
+
+        ConstantNode(ValueEval value) {
+            _value = value;
+        }
+
+        ValueEval getValue() {
+            return _value;
+        }
+
+        @Override
+        ValueEval evaluate(OperationEvaluationContext ec) {
+            return _value;
+        }
+    }
+
+    private static final class RefNode extends Node {
+        private final int _row;
+        private final int _column;
+
+        RefNode(int row, int column) {
+            _row = row;
+            _column = column;
+        }
+
+        @Override
+        ValueEval evaluate(OperationEvaluationContext ec) {
+            return ec.getRefEval(_row, _column);
+        }
+    }
+
+    private static final class AreaNode extends Node {
+        private final int _firstRow;
+        private final int _firstColumn;
+        private final int _lastRow;
+        private final int _lastColumn;
+
+        AreaNode(int firstRow, int firstColumn, int lastRow, int lastColumn) {
+            _firstRow = firstRow;
+            _firstColumn = firstColumn;
+            _lastRow = lastRow;
+            _lastColumn = lastColumn;
+        }
+
+        @Override
+        ValueEval evaluate(OperationEvaluationContext ec) {
+            return ec.getAreaEval(_firstRow, _firstColumn, _lastRow, _lastColumn);
+        }
+    }
+
+    /**
+     * Any other operand, e.g. 3D references and names, evaluated like by the interpreter
+     */
+    private static final class TokenNode extends Node {
+        private final WorkbookEvaluator _evaluator;
+        private final Ptg _ptg;
+
+        TokenNode(WorkbookEvaluator evaluator, Ptg ptg) {
+            _evaluator = evaluator;
+            _ptg = ptg;
+        }
+
+        @Override
+        ValueEval evaluate(OperationEvaluationContext ec) {
+            return checkResult(_evaluator.getEvalForPtg(_ptg, ec));
+        }
+    }
+
+    private static final class OperationNode extends Node {
+        private final OperationPtg _ptg;
+        /** <code>null</code>, if the function is looked up on each evaluation */
+        private final Function _function;
+        private final Node[] _operands;
+
+        OperationNode(OperationPtg ptg, Function function, Node[] operands) {
+            _ptg = ptg;
+            _function = function;
+            _operands = operands;
+        }
+
+        @Override
+        ValueEval evaluate(OperationEvaluationContext ec) {
+            ValueEval[] ops = new ValueEval[_operands.length];
+            for (int i = 0; i < ops.length; i++) {
+                ops[i] = _operands[i].evaluate(ec);
+            }
+            if (_function == null) {
+                return checkResult(OperationEvaluatorFactory.evaluate(_ptg, ops, ec));
+            }
+            return checkResult(_function.evaluate(ops, ec.getRowIndex(), (short) ec.getColumnIndex()));
+        }
+    }
+
+    /**
+     * The end of an <tt>IF</tt> or <tt>CHOOSE</tt> branch
+     */
+    private static final class SkipNode extends Node {
+        private final Node _branch;
+
+        SkipNode(Node branch) {
+            _branch = branch;
+        }
+
+        @Override
+        ValueEval evaluate(OperationEvaluationContext ec) {
+            ValueEval result = _branch.evaluate(ec);
+            return (result == MissingArgEval.instance) ? BlankEval.instance : result;
+        }
+    }
+
+    /**
+     * An optimized <tt>IF</tt>, which only evaluates the chosen branch
+     */
+    private static final class IfNode extends Node {
+        private final Node _condition;
+        private final Node _trueNode;
+        private final Node _falseNode;
+
+        IfNode(Node condition, Node trueNode, Node falseNode) {
+            _condition = condition;
+            _trueNode = trueNode;
+            _falseNode = falseNode;
+        }
+
+        @Override
+        ValueEval evaluate(OperationEvaluationContext ec) {
+            ValueEval arg0 = _condition.evaluate(ec);
+            boolean evaluatedPredicate;
+            try {
+                evaluatedPredicate = IfFunc.evaluateFirstArg(arg0, ec.getRowIndex(), ec.getColumnIndex());
+            } catch (EvaluationException e) {
+                return e.getErrorEval();
+            }
+            return evaluatedPredicate ? _trueNode.evaluate(ec) : _falseNode.evaluate(ec);
+        }
+    }
+
+    /**
+     * An optimized <tt>CHOOSE</tt>, which only evaluates the chosen branch
+     */
+    private static final class ChooseNode extends Node {
+        private final Node _index;
+        private final Node[] _choices;
+
+        ChooseNode(Node index, Node[] choices) {
+            _index = index;
+            _choices = choices;
+        }
+
+        @Override
+        ValueEval evaluate(OperationEvaluationContext ec) {
+            ValueEval arg0 = _index.evaluate(ec);
+            int switchIndex;
+            try {
+                switchIndex = Choose.evaluateFirstArg(arg0, ec.getRowIndex(), ec.getColumnIndex());
+            } catch (EvaluationException e) {
+                return e.getErrorEval();
+            }
+            if (switchIndex < 1 || switchIndex > _choices.length) {
+                return ErrorEval.VALUE_INVALID;
+            }
+            return _choices[switchIndex - 1].evaluate(ec);
+        }
+    }
+
+    private static ValueEval checkResult(ValueEval result) {
+        if (result == null) {
+            throw new RuntimeException("Evaluation result must not be null");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,523 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.poi.ss.formula.EvaluationWorkbook.ExternalSheet;
+import org.apache.poi.ss.formula.EvaluationWorkbook.ExternalSheetRange;
+import org.apache.poi.ss.formula.ptg.AbstractFunctionPtg;
+import org.apache.poi.ss.formula.ptg.Area3DPtg;
+import org.apache.poi.ss.formula.ptg.Area3DPxg;
+import org.apache.poi.ss.formula.ptg.AreaNPtg;
+import org.apache.poi.ss.formula.ptg.AreaPtg;
+import org.apache.poi.ss.formula.ptg.NamePtg;
+import org.apache.poi.ss.formula.ptg.NameXPtg;
+import org.apache.poi.ss.formula.ptg.NameXPxg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.ptg.Pxg3D;
+import org.apache.poi.ss.formula.ptg.Ref3DPtg;
+import org.apache.poi.ss.formula.ptg.Ref3DPxg;
+import org.apache.poi.ss.formula.ptg.RefNPtg;
+import org.apache.poi.ss.formula.ptg.RefPtg;
+import org.apache.poi.ss.formula.ptg.RefPtgBase;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * The precedents and dependents of the formula cells of a workbook, as found in the parsed
+ * formula tokens.  The graph is kept by the {@link WorkbookEvaluator} and updated, when a
+ * cell is changed.
+ * <p>
+ * The references of some functions (e.g. <code>INDIRECT</code> and <code>OFFSET</code>) are only
+ * known at evaluation time.  Cells calling them, or a volatile function like <code>NOW</code>,
+ * are treated as dependents of any cell.
+ *
+ * @since 3.17-beta1
+ */
+final class DependencyGraph {
+    /** functions, whose result may depend on any cell, including the Analysis ToolPak ones */
+    private static final Set<String> DYNAMIC_FUNCTIONS = new HashSet<String>(Arrays.asList(
+            "INDIRECT", "OFFSET", "CELL", "INFO", "NOW", "TODAY", "RAND", "RANDBETWEEN"));
+    /** functions, whose references are only known at evaluation time */
+    private static final Set<String> RUNTIME_REFERENCE_FUNCTIONS = new HashSet<String>(Arrays.asList(
+            "INDIRECT", "OFFSET"));
+    /** the columns of an area bucket, as power of 2 */
+    private static final int BUCKET_COLUMN_BITS = 6;
+
+    private final EvaluationWorkbook _workbook;
+    /** the formula cells by cell key */
+    private final Map<Long, FormulaNode> _nodes = new HashMap<Long, FormulaNode>();
+    /** the formula cells referring to a single cell, by the cell key of the referenced cell */
+    private final Map<Long, List<FormulaNode>> _cellDependents = new HashMap<Long, List<FormulaNode>>();
+    /** the area references by sheet index and column bucket */
+    private final Map<Integer, List<AreaReference>> _areaDependents = new HashMap<Integer, List<AreaReference>>();
+    /** the formula cells, which have to be recalculated after any change */
+    private final Set<FormulaNode> _dynamicNodes = new LinkedHashSet<FormulaNode>();
+
+    /**
+     * Creates the graph for all formula cells of the workbook
+     */
+    DependencyGraph(EvaluationWorkbook workbook, Workbook wb) {
+        _workbook = workbook;
+        for (int sheetIndex = 0; sheetIndex < wb.getNumberOfSheets(); sheetIndex++) {
+            Sheet sheet = wb.getSheetAt(sheetIndex);
+            EvaluationSheet evalSheet = null;
+            for (Row r : sheet) {
+                for (Cell c : r) {
+                    if (c.getCellTypeEnum() == CellType.FORMULA) {
+                        if (evalSheet == null) {
+                            evalSheet = workbook.getSheet(sheetIndex);
+                        }
+                        add(sheetIndex, evalSheet.getCell(c.getRowIndex(), c.getColumnIndex()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the precedents of a changed cell
+     */
+    void notifyUpdateCell(int sheetIndex, EvaluationCell cell) {
+        remove(sheetIndex, cell.getRowIndex(), cell.getColumnIndex());
+        if (cell.getCellTypeEnum() == CellType.FORMULA) {
+            add(sheetIndex, cell);
+        }
+    }
+
+    /**
+     * Removes the precedents of a deleted cell
+     */
+    void notifyDeleteCell(int sheetIndex, EvaluationCell cell) {
+        remove(sheetIndex, cell.getRowIndex(), cell.getColumnIndex());
+    }
+
+    /**
+     * @param changedCells the keys of the changed cells, see {@link #getCellKey(int, int, int)}
+     * @return the formula cells, which depend directly or indirectly on the changed cells,
+     *  each after its precedents, apart from circular references.  Changed formula cells are included.
+     */
+    List<FormulaNode> getDependents(long[] changedCells) {
+        // the dependents and the direct dependents of each of them, in the order found
+        Map<FormulaNode, Set<FormulaNode>> dependents = new LinkedHashMap<FormulaNode, Set<FormulaNode>>();
+        List<FormulaNode> pending = new ArrayList<FormulaNode>();
+        for (long key : changedCells) {
+            FormulaNode node = _nodes.get(Long.valueOf(key));
+            if (node != null) {
+                pending.add(node);
+            }
+            addDirectDependents(key, pending);
+        }
+        if (changedCells.length > 0) {
+            pending.addAll(_dynamicNodes);
+        }
+        while (!pending.isEmpty()) {
+            FormulaNode node = pending.remove(pending.size() - 1);
+            if (dependents.containsKey(node)) {
+                continue;
+            }
+            List<FormulaNode> direct = new ArrayList<FormulaNode>();
+            addDirectDependents(node.getKey(), direct);
+            dependents.put(node, new LinkedHashSet<FormulaNode>(direct));
+            pending.addAll(direct);
+        }
+
+        // topological order of the found cells (Kahn)
+        Map<FormulaNode, int[]> precedentCounts = new HashMap<FormulaNode, int[]>();
+        for (FormulaNode node : dependents.keySet()) {
+            precedentCounts.put(node, new int[1]);
+        }
+        for (Set<FormulaNode> direct : dependents.values()) {
+            for (FormulaNode d : direct) {
+                precedentCounts.get(d)[0]++;
+            }
+        }
+        List<FormulaNode> result = new ArrayList<FormulaNode>(dependents.size());
+        List<FormulaNode> ready = new ArrayList<FormulaNode>();
+        for (FormulaNode node : dependents.keySet()) {
+            if (precedentCounts.get(node)[0] == 0) {
+                ready.add(node);
+            }
+        }
+        Set<FormulaNode> done = new HashSet<FormulaNode>();
+        while (!ready.isEmpty()) {
+            FormulaNode node = ready.remove(ready.size() - 1);
+            result.add(node);
+            done.add(node);
+            for (FormulaNode d : dependents.get(node)) {
+                if (--precedentCounts.get(d)[0] == 0) {
+                    ready.add(d);
+                }
+            }
+        }
+        if (result.size() < dependents.size()) {
+            // circular references, which are evaluated in the order found
+            for (FormulaNode node : dependents.keySet()) {
+                if (!done.contains(node)) {
+                    result.add(node);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the formula cells, which refer directly to the cell, the dynamic cells excluded
+     */
+    private void addDirectDependents(long key, List<FormulaNode> result) {
+        List<FormulaNode> cellDependents = _cellDependents.get(Long.valueOf(key));
+        if (cellDependents != null) {
+            result.addAll(cellDependents);
+        }
+        int sheetIndex = (int)(key >>> 40);
+        int rowIndex = (int)(key >>> 16) & 0xFFFFFF;
+        int columnIndex = (int)key & 0xFFFF;
+        List<AreaReference> areas = _areaDependents.get(getBucketKey(sheetIndex, columnIndex));
+        if (areas != null) {
+            for (AreaReference area : areas) {
+                if (area.contains(rowIndex, columnIndex)) {
+                    result.add(area.getDependent());
+                }
+            }
+        }
+    }
+
+    private void add(int sheetIndex, EvaluationCell cell) {
+        FormulaNode node = new FormulaNode(sheetIndex, cell.getRowIndex(), cell.getColumnIndex());
+        _nodes.put(Long.valueOf(node.getKey()), node);
+        Ptg[] ptgs;
+        try {
+            ptgs = _workbook.getFormulaTokens(cell);
+        } catch (RuntimeException e) {
+            // the formula fails in the evaluation, but may depend on anything until then
+            _dynamicNodes.add(node);
+            return;
+        }
+        addPrecedents(node, ptgs, new HashSet<Integer>());
+    }
+
+    private void addPrecedents(FormulaNode node, Ptg[] ptgs, Set<Integer> visitedNames) {
+        for (Ptg ptg : ptgs) {
+            if (ptg instanceof Ref3DPtg) {
+                Ref3DPtg rptg = (Ref3DPtg)ptg;
+                addReference(node, _workbook.getExternalSheet(rptg.getExternSheetIndex()),
+                        rptg.getRow(), rptg.getColumn(), rptg.getRow(), rptg.getColumn());
+            } else if (ptg instanceof Area3DPtg) {
+                Area3DPtg aptg = (Area3DPtg)ptg;
+                addReference(node, _workbook.getExternalSheet(aptg.getExternSheetIndex()),
+                        aptg.getFirstRow(), aptg.getFirstColumn(), aptg.getLastRow(), aptg.getLastColumn());
+            } else if (ptg instanceof Ref3DPxg) {
+                Ref3DPxg rptg = (Ref3DPxg)ptg;
+                addReference(node, rptg, rptg.getRow(), rptg.getColumn(), rptg.getRow(), rptg.getColumn());
+            } else if (ptg instanceof Area3DPxg) {
+                Area3DPxg aptg = (Area3DPxg)ptg;
+                addReference(node, aptg, aptg.getFirstRow(), aptg.getFirstColumn(), aptg.getLastRow(), aptg.getLastColumn());
+            } else if (ptg instanceof RefPtg) {
+                RefPtg rptg = (RefPtg)ptg;
+                addReference(node, node.getSheetIndex(), node.getSheetIndex(),
+                        rptg.getRow(), rptg.getColumn(), rptg.getRow(), rptg.getColumn());
+            } else if (ptg instanceof AreaPtg) {
+                AreaPtg aptg = (AreaPtg)ptg;
+                addReference(node, node.getSheetIndex(), node.getSheetIndex(),
+                        aptg.getFirstRow(), aptg.getFirstColumn(), aptg.getLastRow(), aptg.getLastColumn());
+            } else if (ptg instanceof RefNPtg) {
+                RefNPtg rptg = (RefNPtg)ptg;
+                int row = resolveSharedRow(node, rptg);
+                int column = resolveSharedColumn(node, rptg);
+                addReference(node, node.getSheetIndex(), node.getSheetIndex(), row, column, row, column);
+            } else if (ptg instanceof AreaNPtg) {
+                AreaNPtg aptg = (AreaNPtg)ptg;
+                addReference(node, node.getSheetIndex(), node.getSheetIndex(),
+                        resolveSharedRow(node, aptg.getFirstRow(), aptg.isFirstRowRelative()),
+                        resolveSharedColumn(node, aptg.getFirstColumn(), aptg.isFirstColRelative()),
+                        resolveSharedRow(node, aptg.getLastRow(), aptg.isLastRowRelative()),
+                        resolveSharedColumn(node, aptg.getLastColumn(), aptg.isLastColRelative()));
+            } else if (ptg instanceof NamePtg) {
+                NamePtg namePtg = (NamePtg)ptg;
+                if (visitedNames.add(Integer.valueOf(namePtg.getIndex()))) {
+                    EvaluationName name = _workbook.getName(namePtg);
+                    if (name != null && !name.isFunctionName() && name.hasFormula()) {
+                        addPrecedents(node, name.getNameDefinition(), visitedNames);
+                    }
+                }
+            } else if (ptg instanceof AbstractFunctionPtg) {
+                if (DYNAMIC_FUNCTIONS.contains(((AbstractFunctionPtg)ptg).getName())) {
+                    _dynamicNodes.add(node);
+                }
+            } else if (ptg instanceof NameXPtg) {
+                // the add-in functions are called through external names in HSSF
+                if (isDynamicName(resolveNameXText((NameXPtg)ptg))) {
+                    _dynamicNodes.add(node);
+                }
+            } else if (ptg instanceof NameXPxg) {
+                if (isDynamicName(((NameXPxg)ptg).getNameName())) {
+                    _dynamicNodes.add(node);
+                }
+            }
+        }
+    }
+
+    private String resolveNameXText(NameXPtg ptg) {
+        try {
+            return _workbook.resolveNameXText(ptg);
+        } catch (RuntimeException e) {
+            // the name fails in the evaluation
+            return null;
+        }
+    }
+
+    /**
+     * @return <code>true</code> for the functions, whose references are only known at evaluation time,
+     *  so they may refer to any cell of any sheet
+     */
+    static boolean hasRuntimeReferences(String functionName) {
+        return RUNTIME_REFERENCE_FUNCTIONS.contains(functionName);
+    }
+
+    private static boolean isDynamicName(String name) {
+        return name != null && DYNAMIC_FUNCTIONS.contains(name.toUpperCase(Locale.ROOT));
+    }
+
+    private void addReference(FormulaNode node, ExternalSheet externalSheet,
+            int firstRow, int firstColumn, int lastRow, int lastColumn) {
+        if (externalSheet == null || externalSheet.getWorkbookName() != null) {
+            // other workbooks can't change through this evaluator
+            return;
+        }
+        String lastSheetName = externalSheet instanceof ExternalSheetRange
+                ? ((ExternalSheetRange)externalSheet).getLastSheetName() : externalSheet.getSheetName();
+        addReference(node, _workbook.getSheetIndex(externalSheet.getSheetName()), _workbook.getSheetIndex(lastSheetName),
+                firstRow, firstColumn, lastRow, lastColumn);
+    }
+
+    private void addReference(FormulaNode node, Pxg3D pxg,
+            int firstRow, int firstColumn, int lastRow, int lastColumn) {
+        if (pxg.getExternalWorkbookNumber() > 0) {
+            return;
+        }
+        String lastSheetName = pxg.getLastSheetName() != null ? pxg.getLastSheetName() : pxg.getSheetName();
+        addReference(node, _workbook.getSheetIndex(pxg.getSheetName()), _workbook.getSheetIndex(lastSheetName),
+                firstRow, firstColumn, lastRow, lastColumn);
+    }
+
+    private void addReference(FormulaNode node, int firstSheet, int lastSheet,
+            int firstRow, int firstColumn, int lastRow, int lastColumn) {
+        if (firstSheet < 0 || lastSheet < firstSheet) {
+            return;
+        }
+        if (lastRow < firstRow) {
+            int row = firstRow;
+            firstRow = lastRow;
+            lastRow = row;
+        }
+        if (lastColumn < firstColumn) {
+            int column = firstColumn;
+            firstColumn = lastColumn;
+            lastColumn = column;
+        }
+        for (int sheetIndex = firstSheet; sheetIndex <= lastSheet; sheetIndex++) {
+            if (firstRow == lastRow && firstColumn == lastColumn) {
+                Long key = Long.valueOf(getCellKey(sheetIndex, firstRow, firstColumn));
+                List<FormulaNode> dependents = _cellDependents.get(key);
+                if (dependents == null) {
+                    dependents = new ArrayList<FormulaNode>(2);
+                    _cellDependents.put(key, dependents);
+                }
+                dependents.add(node);
+                node.addCellPrecedent(key);
+            } else {
+                AreaReference area = new AreaReference(node, firstRow, firstColumn, lastRow, lastColumn);
+                for (int bucket = firstColumn >> BUCKET_COLUMN_BITS; bucket <= lastColumn >> BUCKET_COLUMN_BITS; bucket++) {
+                    Integer key = Integer.valueOf((sheetIndex << 16) | bucket);
+                    List<AreaReference> areas = _areaDependents.get(key);
+                    if (areas == null) {
+                        areas = new ArrayList<AreaReference>();
+                        _areaDependents.put(key, areas);
+                    }
+                    areas.add(area);
+                    node.addAreaPrecedent(key);
+                }
+            }
+        }
+    }
+
+    private void remove(int sheetIndex, int rowIndex, int columnIndex) {
+        FormulaNode node = _nodes.remove(Long.valueOf(getCellKey(sheetIndex, rowIndex, columnIndex)));
+        if (node == null) {
+            return;
+        }
+        _dynamicNodes.remove(node);
+        for (Long key : node.getCellPrecedents()) {
+            List<FormulaNode> dependents = _cellDependents.get(key);
+            if (dependents != null) {
+                removeDependent(dependents, node);
+                if (dependents.isEmpty()) {
+                    _cellDependents.remove(key);
+                }
+            }
+        }
+        for (Integer key : node.getAreaPrecedents()) {
+            List<AreaReference> areas = _areaDependents.get(key);
+            if (areas != null) {
+                for (int i = areas.size() - 1; i >= 0; i--) {
+                    if (areas.get(i).getDependent() == node) {
+                        areas.remove(i);
+                    }
+                }
+                if (areas.isEmpty()) {
+                    _areaDependents.remove(key);
+                }
+            }
+        }
+    }
+
+    private static void removeDependent(List<FormulaNode> dependents, FormulaNode node) {
+        for (int i = dependents.size() - 1; i >= 0; i--) {
+            if (dependents.get(i) == node) {
+                dependents.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Resolves a row of a shared formula reference, like {@link WorkbookEvaluator}
+     */
+    private int resolveSharedRow(FormulaNode node, int row, boolean relative) {
+        if (!relative) {
+            return row;
+        }
+        return (row + node.getRowIndex()) & _workbook.getSpreadsheetVersion().getLastRowIndex();
+    }
+
+    private int resolveSharedColumn(FormulaNode node, int column, boolean relative) {
+        if (!relative) {
+            return column;
+        }
+        return (column + node.getColumnIndex()) & _workbook.getSpreadsheetVersion().getLastColumnIndex();
+    }
+
+    private int resolveSharedRow(FormulaNode node, RefPtgBase ptg) {
+        return resolveSharedRow(node, ptg.getRow(), ptg.isRowRelative());
+    }
+
+    private int resolveSharedColumn(FormulaNode node, RefPtgBase ptg) {
+        return resolveSharedColumn(node, ptg.getColumn(), ptg.isColRelative());
+    }
+
+    private static Integer getBucketKey(int sheetIndex, int columnIndex) {
+        return Integer.valueOf((sheetIndex << 16) | (columnIndex >> BUCKET_COLUMN_BITS));
+    }
+
+    /**
+     * @return the key of a cell in the graph
+     */
+    static long getCellKey(int sheetIndex, int rowIndex, int columnIndex) {
+        return ((long)sheetIndex << 40) | ((long)rowIndex << 16) | columnIndex;
+    }
+
+    /**
+     * A formula cell in the graph
+     */
+    static final class FormulaNode {
+        private final int _sheetIndex;
+        private final int _rowIndex;
+        private final int _columnIndex;
+        /** the keys of the referenced cells and area buckets, to remove the node again */
+        private final List<Long> _cellPrecedents = new ArrayList<Long>(2);
+        private final List<Integer> _areaPrecedents = new ArrayList<Integer>(1);
+
+        FormulaNode(int sheetIndex, int rowIndex, int columnIndex) {
+            _sheetIndex = sheetIndex;
+            _rowIndex = rowIndex;
+            _columnIndex = columnIndex;
+        }
+
+        int getSheetIndex() {
+            return _sheetIndex;
+        }
+
+        int getRowIndex() {
+            return _rowIndex;
+        }
+
+        int getColumnIndex() {
+            return _columnIndex;
+        }
+
+        long getKey() {
+            return getCellKey(_sheetIndex, _rowIndex, _columnIndex);
+        }
+
+        void addCellPrecedent(Long key) {
+            _cellPrecedents.add(key);
+        }
+
+        void addAreaPrecedent(Integer key) {
+            _areaPrecedents.add(key);
+        }
+
+        List<Long> getCellPrecedents() {
+            return _cellPrecedents;
+        }
+
+        List<Integer> getAreaPrecedents() {
+            return _areaPrecedents;
+        }
+    }
+
+    /**
+     * An area referenced by a formula cell
+     */
+    private static final class AreaReference {
+        private final FormulaNode _dependent;
+        private final int _firstRow;
+        private final int _firstColumn;
+        private final int _lastRow;
+        private final int _lastColumn;
+
+        AreaReference(FormulaNode dependent, int firstRow, int firstColumn, int lastRow, int lastColumn) {
+            _dependent = dependent;
+            _firstRow = firstRow;
+            _firstColumn = firstColumn;
+            _lastRow = lastRow;
+            _lastColumn = lastColumn;
+        }
+
+        FormulaNode getDependent() {
+            return _dependent;
+        }
+
+        boolean contains(int rowIndex, int columnIndex) {
+            return _firstRow <= rowIndex && rowIndex <= _lastRow
+                    && _firstColumn <= columnIndex && columnIndex <= _lastColumn;
+        }
+    }
+}
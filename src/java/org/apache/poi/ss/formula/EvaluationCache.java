@@ -17,6 +17,9 @@
 
 package org.apache.poi.ss.formula;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.poi.ss.formula.FormulaCellCache.IEntryOperation;
 import org.apache.poi.ss.formula.FormulaUsedBlankCellSet.BookSheetKey;
 import org.apache.poi.ss.formula.PlainCellCache.Loc;
@@ -39,6 +42,7 @@ final class EvaluationCache {
 
 	private final PlainCellCache _plainCellCache;
 	private final FormulaCellCache _formulaCellCache;
+	private final Map<AreaKey, AreaValuesEntry> _areaValues;
 	/** only used for testing. <code>null</code> otherwise */
 	final IEvaluationListener _evaluationListener;
 
@@ -46,6 +50,7 @@ final class EvaluationCache {
 		_evaluationListener = evaluationListener;
 		_plainCellCache = new PlainCellCache();
 		_formulaCellCache = new FormulaCellCache();
+		_areaValues = new HashMap<AreaKey, AreaValuesEntry>();
 	}
 
 	public void notifyUpdateCell(int bookIndex, int sheetIndex, EvaluationCell cell) {
@@ -53,7 +58,7 @@ final class EvaluationCache {
 
 		int rowIndex = cell.getRowIndex();
 		int columnIndex = cell.getColumnIndex();
-		Loc loc = new Loc(bookIndex, sheetIndex, rowIndex, columnIndex);
+		long loc = Loc.toKey(bookIndex, sheetIndex, rowIndex, columnIndex);
 		PlainValueCellCacheEntry pcce = _plainCellCache.get(loc);
 
 		if (cell.getCellTypeEnum() == CellType.FORMULA) {
@@ -71,6 +76,8 @@ final class EvaluationCache {
 			} else {
 				fcce.recurseClearCachedFormulaResults(_evaluationListener);
 				fcce.clearFormulaEntry();
+				// the formula may have changed
+				fcce.setCompiledFormula(null);
 			}
 			if (pcce == null) {
 				// was formula cell before - no change of type
@@ -124,12 +131,15 @@ final class EvaluationCache {
 				entry.notifyUpdatedBlankCell(bsk, rowIndex, columnIndex, _evaluationListener);
 			}
 		});
+		for (AreaValuesEntry entry : _areaValues.values()) {
+			entry.getCacheEntry().notifyUpdatedBlankCell(bsk, rowIndex, columnIndex, _evaluationListener);
+		}
 	}
 
 	public PlainValueCellCacheEntry getPlainValueEntry(int bookIndex, int sheetIndex,
 			int rowIndex, int columnIndex, ValueEval value) {
 
-		Loc loc = new Loc(bookIndex, sheetIndex, rowIndex, columnIndex);
+		long loc = Loc.toKey(bookIndex, sheetIndex, rowIndex, columnIndex);
 		PlainValueCellCacheEntry result = _plainCellCache.get(loc);
 		if (result == null) {
 			result = new PlainValueCellCacheEntry(value);
@@ -185,6 +195,22 @@ final class EvaluationCache {
 		return result;
 	}
 
+	/**
+	 * @return the cached values of the specified area. Its cache entry has no value if the values
+	 * have to be (re-)read.
+	 */
+	public AreaValuesEntry getOrCreateAreaValuesEntry(int bookIndex, int sheetIndex,
+			int firstRowIndex, int firstColumnIndex, int lastRowIndex, int lastColumnIndex) {
+		AreaKey key = new AreaKey(bookIndex, sheetIndex, firstRowIndex, firstColumnIndex,
+				lastRowIndex, lastColumnIndex);
+		AreaValuesEntry result = _areaValues.get(key);
+		if (result == null) {
+			result = new AreaValuesEntry();
+			_areaValues.put(key, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Should be called whenever there are changes to input cells in the evaluated workbook.
 	 */
@@ -194,6 +220,7 @@ final class EvaluationCache {
 		}
 		_plainCellCache.clear();
 		_formulaCellCache.clear();
+		_areaValues.clear();
 	}
 	public void notifyDeleteCell(int bookIndex, int sheetIndex, EvaluationCell cell) {
 
@@ -206,7 +233,7 @@ final class EvaluationCache {
 				fcce.recurseClearCachedFormulaResults(_evaluationListener);
 			}
 		} else {
-			Loc loc = new Loc(bookIndex, sheetIndex, cell.getRowIndex(), cell.getColumnIndex());
+			long loc = Loc.toKey(bookIndex, sheetIndex, cell.getRowIndex(), cell.getColumnIndex());
 			PlainValueCellCacheEntry pcce = _plainCellCache.get(loc);
 
 			if (pcce == null) {
@@ -216,4 +243,69 @@ final class EvaluationCache {
 			}
 		}
 	}
+
+	private static final class AreaKey {
+		private final long _firstCell;
+		private final int _lastRowIndex;
+		private final int _lastColumnIndex;
+
+		public AreaKey(int bookIndex, int sheetIndex, int firstRowIndex, int firstColumnIndex,
+				int lastRowIndex, int lastColumnIndex) {
+			_firstCell = Loc.toKey(bookIndex, sheetIndex, firstRowIndex, firstColumnIndex);
+			_lastRowIndex = lastRowIndex;
+			_lastColumnIndex = lastColumnIndex;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int)(_firstCell ^ (_firstCell >>> 32)) * 31 + _lastRowIndex * 17 + _lastColumnIndex;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof AreaKey)) {
+				return false;
+			}
+			AreaKey other = (AreaKey) obj;
+			return _firstCell == other._firstCell && _lastRowIndex == other._lastRowIndex
+					&& _lastColumnIndex == other._lastColumnIndex;
+		}
+	}
+
+	/**
+	 * The values of an area, which are used for exact lookups and criteria functions.  Its cache
+	 * entry consumes the cells of the area like a formula cell, so the values are cleared together
+	 * with the formulas that used them, whenever one of the cells changes.
+	 */
+	static final class AreaValuesEntry {
+		private final FormulaCellCacheEntry _cce;
+		private ColumnarValues _values;
+		private ExactLookupIndex _lookupIndex;
+
+		public AreaValuesEntry() {
+			_cce = new FormulaCellCacheEntry();
+		}
+		public FormulaCellCacheEntry getCacheEntry() {
+			return _cce;
+		}
+		/**
+		 * @return <code>null</code> if the values could not be read
+		 */
+		public ColumnarValues getValues() {
+			return _values;
+		}
+		public void setValues(ColumnarValues values) {
+			_values = values;
+			_lookupIndex = null;
+		}
+		/**
+		 * @return the index of the values, which is created on the first call
+		 */
+		public ExactLookupIndex getLookupIndex() {
+			if (_lookupIndex == null && _values != null) {
+				_lookupIndex = new ExactLookupIndex(_values);
+			}
+			return _lookupIndex;
+		}
+	}
 }
@@ -33,6 +33,25 @@ public interface EvaluationSheet {
      * @return <code>null</code> if there is no cell at the specified coordinates
      */
     EvaluationCell getCell(int rowIndex, int columnIndex);
+
+    /**
+     * Areas are only read up to the last row, the cells below are known to be blank.
+     *
+     * @return the index of the last row, which may contain cells,
+     * or -1 if the sheet is known to have no rows
+     * @since POI 3.17 beta 1
+     */
+    int getLastRowNum();
+
+    /**
+     * Areas are only read up to the last cell of each row, the cells to the right are known
+     * to be blank.
+     *
+     * @return the index of the last cell, which may exist in the row, plus one,
+     * or 0 if the row is known to have no cells
+     * @since POI 3.17 beta 1
+     */
+    int getLastCellNum(int rowIndex);
     
     /**
      * Propagated from {@link EvaluationWorkbook#clearAllCachedResultValues()} to clear locally cached data.
@@ -148,4 +148,19 @@ final class EvaluationTracker {
 			}
 		}
 	}
+
+	/**
+	 * Records a whole area of blank cells, which was skipped instead of being read cell by cell.
+	 */
+	public void acceptBlankAreaDependency(int bookIndex, int sheetIndex, int firstRowIndex,
+			int firstColumnIndex, int lastRowIndex, int lastColumnIndex) {
+		int prevFrameIndex = _evaluationFrames.size() - 1;
+		if (prevFrameIndex < 0) {
+			// Top level frame, there is no 'cell' above this frame that is using the current cell
+		} else {
+			CellEvaluationFrame consumingFrame = _evaluationFrames.get(prevFrameIndex);
+			consumingFrame.addUsedBlankArea(bookIndex, sheetIndex, firstRowIndex, firstColumnIndex,
+					lastRowIndex, lastColumnIndex);
+		}
+	}
 }
@@ -74,6 +74,12 @@ public interface EvaluationWorkbook {
     EvaluationName getName(NamePtg namePtg);
     EvaluationName getName(String name, int sheetIndex);
     String resolveNameXText(NameXPtg ptg);
+    /**
+     * Returns the tokens of the formula in the cell.  The tokens may contain
+     * {@link org.apache.poi.ss.formula.ptg.RefNPtg} / {@link org.apache.poi.ss.formula.ptg.AreaNPtg}
+     * references, which are relative to the cell, e.g. when the tokens of a shared formula
+     * are used for all cells of the shared range.  The returned tokens must not be modified.
+     */
     Ptg[] getFormulaTokens(EvaluationCell cell);
     UDFFinder getUDFFinder();
     SpreadsheetVersion getSpreadsheetVersion();
@@ -0,0 +1,112 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.poi.ss.formula.eval.BlankEval;
+import org.apache.poi.ss.formula.eval.BoolEval;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.StringEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.util.Internal;
+
+/**
+ * Hash index of the values of a single row or column, used for the exact match lookups
+ * of VLOOKUP, HLOOKUP and MATCH.<p/>
+ *
+ * Values only match values of the same type.  Strings are compared case-insensitively like
+ * {@link String#compareToIgnoreCase(String)}, wildcards are not supported.  Blank lookup values
+ * are looked up as zero, but blank cells never match anything.
+ *
+ * @since 3.17-beta1
+ */
+@Internal
+public final class ExactLookupIndex {
+
+	private final Map<Object, Integer> _firstIndexes;
+
+	/* package */ ExactLookupIndex(ColumnarValues values) {
+		// the values after the populated ones are blank
+		int size = values.getPopulatedSize();
+		_firstIndexes = new HashMap<Object, Integer>(size * 4 / 3 + 1);
+		// backwards, so the first occurrence of each value is kept
+		for (int i = size - 1; i >= 0; i--) {
+			Object key;
+			switch (values.getType(i)) {
+				case ColumnarValues.TYPE_NUMBER:
+					key = Double.valueOf(values.getNumber(i));
+					break;
+				case ColumnarValues.TYPE_STRING:
+					key = toCaseInsensitiveKey(values.getString(i));
+					break;
+				case ColumnarValues.TYPE_BOOLEAN:
+					key = Boolean.valueOf(values.getBoolean(i));
+					break;
+				default:
+					// blanks and errors are never matched
+					continue;
+			}
+			_firstIndexes.put(key, Integer.valueOf(i));
+		}
+	}
+
+	/**
+	 * @param lookupValue the number, string, boolean or blank value to look up
+	 * @return zero based index of the first equal value, -1 if the value cannot be found
+	 */
+	public int indexOf(ValueEval lookupValue) {
+		if (lookupValue == BlankEval.instance) {
+			lookupValue = NumberEval.ZERO;
+		}
+		Object key = getKey(lookupValue);
+		Integer result = key == null ? null : _firstIndexes.get(key);
+		return result == null ? -1 : result.intValue();
+	}
+
+	private static Object getKey(ValueEval value) {
+		Class<? extends ValueEval> cls = value.getClass();
+		if (cls == NumberEval.class) {
+			// Double.equals() agrees with Double.compare() used by the lookup functions
+			return Double.valueOf(((NumberEval)value).getNumberValue());
+		}
+		if (cls == StringEval.class) {
+			return toCaseInsensitiveKey(((StringEval)value).getStringValue());
+		}
+		if (cls == BoolEval.class) {
+			return Boolean.valueOf(((BoolEval)value).getBooleanValue());
+		}
+		// blanks and errors are never matched
+		return null;
+	}
+
+	/**
+	 * Maps the characters the same way as {@link String#compareToIgnoreCase(String)}, so that
+	 * two strings have equal keys if they are equal ignoring case.
+	 */
+	private static String toCaseInsensitiveKey(String value) {
+		StringBuilder sb = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); ) {
+			int cp = value.codePointAt(i);
+			sb.appendCodePoint(Character.toLowerCase(Character.toUpperCase(cp)));
+			i += Character.charCount(cp);
+		}
+		return sb.toString();
+	}
+}
@@ -17,7 +17,7 @@
 
 package org.apache.poi.ss.formula;
 
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -34,8 +34,9 @@ final class FormulaCellCache {
 	private final Map<Object, FormulaCellCacheEntry> _formulaEntriesByCell;
 
 	public FormulaCellCache() {
-		// assumes the object returned by EvaluationCell.getIdentityKey() has a well behaved hashCode+equals
-		_formulaEntriesByCell = new HashMap<Object, FormulaCellCacheEntry>();
+		// the objects returned by EvaluationCell.getIdentityKey() are the cells themselves, which are
+		// only equal to themselves. The identity map uses open addressing without entry objects.
+		_formulaEntriesByCell = new IdentityHashMap<Object, FormulaCellCacheEntry>();
 	}
 
 	public CellCacheEntry[] getCacheEntries() {
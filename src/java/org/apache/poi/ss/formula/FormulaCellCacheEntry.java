@@ -17,10 +17,6 @@
 
 package org.apache.poi.ss.formula;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
-
 import org.apache.poi.ss.formula.eval.ValueEval;
 import org.apache.poi.ss.formula.FormulaUsedBlankCellSet.BookSheetKey;
 
@@ -39,6 +35,11 @@ final class FormulaCellCacheEntry extends CellCacheEntry {
 
 	private FormulaUsedBlankCellSet _usedBlankCellGroup;
 
+	/**
+	 * The compiled formula of the cell, kept until the cell is updated
+	 */
+	private CompiledFormula _compiledFormula;
+
 	public FormulaCellCacheEntry() {
 		// leave fields un-set
 	}
@@ -55,13 +56,17 @@ final class FormulaCellCacheEntry extends CellCacheEntry {
 	public void setSensitiveInputCells(CellCacheEntry[] sensitiveInputCells) {
 		// need to tell all cells that were previously used, but no longer are, 
 		// that they are not consumed by this cell any more
-	    if (sensitiveInputCells == null) {
-            _sensitiveInputCells = null;
-	        changeConsumingCells(CellCacheEntry.EMPTY_ARRAY);
-	    } else {
-	        _sensitiveInputCells = sensitiveInputCells.clone();
-	        changeConsumingCells(_sensitiveInputCells);
-	    }
+		// (the evaluation frames pass a new array, which is not copied again)
+		changeConsumingCells(sensitiveInputCells == null ? CellCacheEntry.EMPTY_ARRAY : sensitiveInputCells);
+		_sensitiveInputCells = sensitiveInputCells;
+	}
+
+	public CompiledFormula getCompiledFormula() {
+		return _compiledFormula;
+	}
+
+	public void setCompiledFormula(CompiledFormula compiledFormula) {
+		_compiledFormula = compiledFormula;
 	}
 
 	public void clearFormulaEntry() {
@@ -89,14 +94,9 @@ final class FormulaCellCacheEntry extends CellCacheEntry {
 		if (nPrevUsed < 1) {
 			return;
 		}
-		Set<CellCacheEntry> usedSet;
-		if (nUsed < 1) {
-			usedSet = Collections.emptySet();
-		} else {
-			usedSet = new HashSet<CellCacheEntry>(nUsed * 3 / 2);
-			for (int i = 0; i < nUsed; i++) {
-				usedSet.add(usedCells[i]);
-			}
+		CellCacheEntrySet usedSet = new CellCacheEntrySet(nUsed);
+		for (int i = 0; i < nUsed; i++) {
+			usedSet.add(usedCells[i]);
 		}
 		for (int i = 0; i < nPrevUsed; i++) {
 			CellCacheEntry prevUsed = prevUsedCells[i];
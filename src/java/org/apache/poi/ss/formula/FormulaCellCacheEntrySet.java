@@ -58,38 +58,32 @@ final class FormulaCellCacheEntrySet {
 
 	public void add(CellCacheEntry cce) {
 		if (_size * 3 >= _arr.length * 2) {
-			// re-hash
-			FormulaCellCacheEntry[] prevArr = _arr;
-			FormulaCellCacheEntry[] newArr = new FormulaCellCacheEntry[4 + _arr.length * 3 / 2]; // grow 50%
-			for(int i=0; i<prevArr.length; i++) {
-				FormulaCellCacheEntry prevCce = _arr[i];
-				if (prevCce != null) {
-					addInternal(newArr, prevCce);
-				}
-			}
-			_arr = newArr;
+			// re-hash, the capacity is always a power of two
+			_arr = rehash(_arr, Math.max(4, _arr.length * 2)); // grow 100%
 		}
 		if (addInternal(_arr, cce)) {
 			_size++;
 		}
 	}
 
-
-	private static boolean addInternal(CellCacheEntry[] arr, CellCacheEntry cce) {
-		int startIx = Math.abs(cce.hashCode() % arr.length);
-
-		for(int i=startIx; i<arr.length; i++) {
-			CellCacheEntry item = arr[i];
-			if (item == cce) {
-				// already present
-				return false;
-			}
-			if (item == null) {
-				arr[i] = cce;
-				return true;
+	private static FormulaCellCacheEntry[] rehash(FormulaCellCacheEntry[] prevArr, int capacity) {
+		FormulaCellCacheEntry[] newArr = new FormulaCellCacheEntry[capacity];
+		for(int i=0; i<prevArr.length; i++) {
+			FormulaCellCacheEntry prevCce = prevArr[i];
+			if (prevCce != null) {
+				addInternal(newArr, prevCce);
 			}
 		}
-		for(int i=0; i<startIx; i++) {
+		return newArr;
+	}
+
+	private static int startIndex(CellCacheEntry[] arr, CellCacheEntry cce) {
+		return System.identityHashCode(cce) & (arr.length - 1);
+	}
+
+	private static boolean addInternal(CellCacheEntry[] arr, CellCacheEntry cce) {
+		int mask = arr.length - 1;
+		for (int i = startIndex(arr, cce); ; i = (i + 1) & mask) {
 			CellCacheEntry item = arr[i];
 			if (item == cce) {
 				// already present
@@ -100,7 +94,6 @@ final class FormulaCellCacheEntrySet {
 				return true;
 			}
 		}
-		throw new IllegalStateException("No empty space found");
 	}
 
 	public boolean remove(CellCacheEntry cce) {
@@ -128,28 +121,31 @@ final class FormulaCellCacheEntrySet {
 		}
 		// else - usual case
 		// delete single element (without re-hashing)
+		if (arr.length == 0) {
+			return false;
+		}
 
-		int startIx = Math.abs(cce.hashCode() % arr.length);
-
-		// note - can't exit loops upon finding null because of potential previous deletes
-		for(int i=startIx; i<arr.length; i++) {
-			FormulaCellCacheEntry item = arr[i];
-			if (item == cce) {
-				// found it
-				arr[i] = null;
-				_size--;
-				return true;
+		int mask = arr.length - 1;
+		int i = startIndex(arr, cce);
+		while (arr[i] != cce) {
+			if (arr[i] == null) {
+				return false;
 			}
+			i = (i + 1) & mask;
 		}
-		for(int i=0; i<startIx; i++) {
-			FormulaCellCacheEntry item = arr[i];
-			if (item == cce) {
-				// found it
-				arr[i] = null;
-				_size--;
-				return true;
+		arr[i] = null;
+		_size--;
+		// move the following elements of the probe sequence into the gap, so that
+		// searches can stop at the first empty slot
+		for (int j = (i + 1) & mask; arr[j] != null; j = (j + 1) & mask) {
+			int home = startIndex(arr, arr[j]);
+			boolean inGap = (i <= j) ? (home <= i || home > j) : (home <= i && home > j);
+			if (inGap) {
+				arr[i] = arr[j];
+				arr[j] = null;
+				i = j;
 			}
 		}
-		return false;
+		return true;
 	}
 }
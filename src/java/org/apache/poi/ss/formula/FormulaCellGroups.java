@@ -0,0 +1,280 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.apache.poi.ss.formula.EvaluationWorkbook.ExternalSheet;
+import org.apache.poi.ss.formula.EvaluationWorkbook.ExternalSheetRange;
+import org.apache.poi.ss.formula.ptg.AbstractFunctionPtg;
+import org.apache.poi.ss.formula.ptg.NamePtg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.ptg.Pxg;
+import org.apache.poi.ss.formula.ptg.Pxg3D;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.TaskUtil;
+
+/**
+ * Splits the formula cells of a workbook into groups of sheets, which don't refer to each other,
+ * and evaluates the groups concurrently, each with its own evaluator and thus its own
+ * {@link EvaluationCache}.
+ * <p>
+ * Two sheets are in the same group, if a formula on one of them refers to the other one,
+ * directly or through a defined name.  The evaluators write the results into the cells, so
+ * the groups must not share any cell.  A formula, whose references are only known at evaluation
+ * time (e.g. <code>INDIRECT</code>), may refer to any sheet, so its sheet is grouped with all
+ * other sheets, i.e. the workbook is evaluated serially.
+ *
+ * @since 3.17-beta1
+ */
+final class FormulaCellGroups {
+    private final Workbook _workbook;
+    /** the formula cells by sheet index */
+    private final List<List<Cell>> _formulaCells;
+    /** union-find parents of the sheet indexes */
+    private final int[] _parents;
+
+    FormulaCellGroups(Workbook workbook) {
+        _workbook = workbook;
+        int sheetCount = workbook.getNumberOfSheets();
+        // the cells are collected on the calling thread, as some sheets create them on first access
+        _formulaCells = new ArrayList<List<Cell>>(sheetCount);
+        for (int i = 0; i < sheetCount; i++) {
+            List<Cell> cells = new ArrayList<Cell>();
+            for (Row r : workbook.getSheetAt(i)) {
+                for (Cell c : r) {
+                    if (c.getCellTypeEnum() == CellType.FORMULA) {
+                        cells.add(c);
+                    }
+                }
+            }
+            _formulaCells.add(cells);
+        }
+        _parents = new int[sheetCount];
+        for (int i = 0; i < sheetCount; i++) {
+            _parents[i] = i;
+        }
+    }
+
+    /**
+     * Finds the sheet groups and evaluates them, both on the executor
+     */
+    void evaluate(Executor executor) {
+        findGroups(executor);
+        evaluateGroups(executor);
+    }
+
+    /**
+     * Scans the formulas of each sheet on the executor for references to other sheets
+     */
+    void findGroups(Executor executor) {
+        List<FutureTask<BitSet>> scans = new ArrayList<FutureTask<BitSet>>();
+        for (int i = 0; i < _formulaCells.size(); i++) {
+            final int sheetIndex = i;
+            if (_formulaCells.get(i).isEmpty()) {
+                scans.add(null);
+                continue;
+            }
+            // the evaluators are created on the calling thread, as creating them isn't thread-safe
+            final ReferenceScanner scanner = new ReferenceScanner(createEvaluator(), _formulaCells.size());
+            FutureTask<BitSet> scan = new FutureTask<BitSet>(new Callable<BitSet>() {
+                @Override
+                public BitSet call() {
+                    return scanner.getReferencedSheets(sheetIndex, _formulaCells.get(sheetIndex));
+                }
+            });
+            scans.add(scan);
+            executor.execute(scan);
+        }
+        List<BitSet> references = TaskUtil.awaitAll(scans);
+        for (int i = 0; i < references.size(); i++) {
+            BitSet referenced = references.get(i);
+            if (referenced != null) {
+                for (int j = referenced.nextSetBit(0); j >= 0; j = referenced.nextSetBit(j + 1)) {
+                    union(i, j);
+                }
+            }
+        }
+    }
+
+    private void evaluateGroups(Executor executor) {
+        List<FutureTask<Void>> evaluations = new ArrayList<FutureTask<Void>>();
+        for (final List<Cell> group : getGroups()) {
+            final FormulaEvaluator evaluator = createEvaluator();
+            FutureTask<Void> evaluation = new FutureTask<Void>(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (Cell c : group) {
+                        evaluator.evaluateFormulaCellEnum(c);
+                    }
+                    return null;
+                }
+            });
+            evaluations.add(evaluation);
+            executor.execute(evaluation);
+        }
+        TaskUtil.awaitAll(evaluations);
+    }
+
+    /**
+     * @return the formula cells of each sheet group, the largest group first
+     */
+    List<List<Cell>> getGroups() {
+        Map<Integer, List<Cell>> groupsByRoot = new HashMap<Integer, List<Cell>>();
+        List<List<Cell>> groups = new ArrayList<List<Cell>>();
+        for (int i = 0; i < _formulaCells.size(); i++) {
+            List<Cell> cells = _formulaCells.get(i);
+            if (cells.isEmpty()) {
+                continue;
+            }
+            Integer root = Integer.valueOf(find(i));
+            List<Cell> group = groupsByRoot.get(root);
+            if (group == null) {
+                group = new ArrayList<Cell>();
+                groupsByRoot.put(root, group);
+                groups.add(group);
+            }
+            group.addAll(cells);
+        }
+        // the large groups are started first, so they don't finish last
+        Collections.sort(groups, new Comparator<List<Cell>>() {
+            @Override
+            public int compare(List<Cell> o1, List<Cell> o2) {
+                return o2.size() - o1.size();
+            }
+        });
+        return groups;
+    }
+
+    private FormulaEvaluator createEvaluator() {
+        return _workbook.getCreationHelper().createFormulaEvaluator();
+    }
+
+    private int find(int sheetIndex) {
+        int root = sheetIndex;
+        while (_parents[root] != root) {
+            root = _parents[root];
+        }
+        // path compression
+        while (_parents[sheetIndex] != root) {
+            int next = _parents[sheetIndex];
+            _parents[sheetIndex] = root;
+            sheetIndex = next;
+        }
+        return root;
+    }
+
+    private void union(int sheetIndex1, int sheetIndex2) {
+        int root1 = find(sheetIndex1);
+        int root2 = find(sheetIndex2);
+        if (root1 != root2) {
+            _parents[root2] = root1;
+        }
+    }
+
+    /**
+     * Finds the sheets, which the formulas of a sheet refer to
+     */
+    private static final class ReferenceScanner {
+        private final EvaluationWorkbook _evalWorkbook;
+        private final int _sheetCount;
+        /** the sheets referenced by the defined names, by name index */
+        private final Map<Integer, BitSet> _nameReferences = new HashMap<Integer, BitSet>();
+
+        ReferenceScanner(FormulaEvaluator evaluator, int sheetCount) {
+            _evalWorkbook = ((BaseFormulaEvaluator)evaluator)._bookEvaluator.getWorkbook();
+            _sheetCount = sheetCount;
+        }
+
+        BitSet getReferencedSheets(int sheetIndex, List<Cell> formulaCells) {
+            BitSet referenced = new BitSet();
+            EvaluationSheet sheet = _evalWorkbook.getSheet(sheetIndex);
+            for (Cell c : formulaCells) {
+                EvaluationCell cell = sheet.getCell(c.getRowIndex(), c.getColumnIndex());
+                try {
+                    addReferencedSheets(_evalWorkbook.getFormulaTokens(cell), referenced);
+                } catch (RuntimeException e) {
+                    // unparsable formulas fail in the evaluation, as usual
+                }
+            }
+            return referenced;
+        }
+
+        private void addReferencedSheets(Ptg[] ptgs, BitSet referenced) {
+            for (Ptg ptg : ptgs) {
+                if (ptg instanceof ExternSheetReferenceToken) {
+                    ExternalSheet es = _evalWorkbook.getExternalSheet(((ExternSheetReferenceToken)ptg).getExternSheetIndex());
+                    if (es != null && es.getWorkbookName() == null) {
+                        String lastSheetName = (es instanceof ExternalSheetRange)
+                                ? ((ExternalSheetRange)es).getLastSheetName() : es.getSheetName();
+                        addSheets(es.getSheetName(), lastSheetName, referenced);
+                    }
+                } else if (ptg instanceof Pxg) {
+                    Pxg pxg = (Pxg)ptg;
+                    if (pxg.getExternalWorkbookNumber() < 1 && pxg.getSheetName() != null) {
+                        String lastSheetName = (pxg instanceof Pxg3D && ((Pxg3D)pxg).getLastSheetName() != null)
+                                ? ((Pxg3D)pxg).getLastSheetName() : pxg.getSheetName();
+                        addSheets(pxg.getSheetName(), lastSheetName, referenced);
+                    }
+                } else if (ptg instanceof NamePtg) {
+                    referenced.or(getNameReferences((NamePtg)ptg));
+                } else if (ptg instanceof AbstractFunctionPtg) {
+                    if (DependencyGraph.hasRuntimeReferences(((AbstractFunctionPtg)ptg).getName())) {
+                        referenced.set(0, _sheetCount);
+                    }
+                }
+            }
+        }
+
+        private BitSet getNameReferences(NamePtg namePtg) {
+            Integer key = Integer.valueOf(namePtg.getIndex());
+            BitSet referenced = _nameReferences.get(key);
+            if (referenced == null) {
+                referenced = new BitSet();
+                // registered first, for names referring to themselves
+                _nameReferences.put(key, referenced);
+                EvaluationName name = _evalWorkbook.getName(namePtg);
+                if (name != null && !name.isFunctionName()) {
+                    addReferencedSheets(name.getNameDefinition(), referenced);
+                }
+            }
+            return referenced;
+        }
+
+        private void addSheets(String firstSheetName, String lastSheetName, BitSet referenced) {
+            int first = _evalWorkbook.getSheetIndex(firstSheetName);
+            int last = _evalWorkbook.getSheetIndex(lastSheetName);
+            if (first >= 0 && last >= first) {
+                referenced.set(first, last + 1);
+            }
+        }
+    }
+}
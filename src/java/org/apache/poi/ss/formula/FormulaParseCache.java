@@ -0,0 +1,398 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.formula.ptg.AreaPtg;
+import org.apache.poi.ss.formula.ptg.OperandPtg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.ptg.RefPtg;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.util.CellReference;
+
+/**
+ * Caches the tokens of cell formulas relative to their cells, so that copies of a formula in
+ * other cells, like <code>B2*C2</code> and <code>B3*C3</code>, are only parsed once.<p/>
+ *
+ * The cache key is the formula text with the cell references in R1C1 notation relative to the
+ * cell.  Only formulas, whose operands are plain cell and area references of their own sheet,
+ * constants and built-in functions, are cached, because their tokens don't depend on the sheets
+ * and names of the workbook.  The cached tokens are shared by all workbooks and never modified.
+ * Each caller gets new reference tokens, which are moved to the cell.<p/>
+ *
+ * The least recently used formulas are dropped, when the cache is full.
+ *
+ * @since 3.17-beta1
+ */
+final class FormulaParseCache {
+
+    /** the maximum number of cached formulas */
+    private static final int MAX_SIZE = 2000;
+
+    private static final Map<String, CachedFormula> CACHE = new LinkedHashMap<String, CachedFormula>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedFormula> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    private FormulaParseCache() {
+        // no instances of this class
+    }
+
+    /**
+     * Parses the formula of a cell or gets its tokens from the cache
+     *
+     * @see FormulaParser#parse(String, FormulaParsingWorkbook, FormulaType, int, int, int)
+     */
+    static Ptg[] parse(String formula, FormulaParsingWorkbook workbook, FormulaType formulaType,
+            int sheetIndex, int rowIndex, int columnIndex) {
+        SpreadsheetVersion version = workbook == null ? SpreadsheetVersion.EXCEL97 : workbook.getSpreadsheetVersion();
+        KeyBuilder kb = new KeyBuilder(formula, version, rowIndex, columnIndex);
+        String key = kb.build(formulaType);
+        if (key == null) {
+            return FormulaParser.parse(formula, workbook, formulaType, sheetIndex, rowIndex);
+        }
+        CachedFormula cached;
+        synchronized (CACHE) {
+            cached = CACHE.get(key);
+        }
+        if (cached == null) {
+            Ptg[] ptgs = FormulaParser.parse(formula, workbook, formulaType, sheetIndex, rowIndex);
+            if (!isCacheable(ptgs, kb.getReferenceCount())) {
+                return ptgs;
+            }
+            cached = new CachedFormula(ptgs, rowIndex, columnIndex);
+            synchronized (CACHE) {
+                CACHE.put(key, cached);
+            }
+        }
+        return cached.moveTo(rowIndex, columnIndex);
+    }
+
+    /**
+     * Drops all cached formulas
+     */
+    static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    /**
+     * @return the number of cached formulas
+     */
+    static int size() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+    /**
+     * @param referenceCount the number of cell references in the formula text
+     * @return <code>true</code> if the only operands are the cell and area references of the formula
+     *  text on the same sheet, so that the tokens don't depend on the sheets and names of the workbook
+     */
+    private static boolean isCacheable(Ptg[] ptgs, int referenceCount) {
+        int count = 0;
+        for (Ptg ptg : ptgs) {
+            Class<? extends Ptg> cls = ptg.getClass();
+            if (cls == RefPtg.class) {
+                count++;
+            } else if (cls == AreaPtg.class) {
+                count += 2;
+            } else if (ptg instanceof OperandPtg) {
+                return false;
+            }
+        }
+        return count == referenceCount;
+    }
+
+    /**
+     * The tokens of a formula parsed for a cell
+     */
+    private static final class CachedFormula {
+        private final Ptg[] _ptgs;
+        private final int _rowIndex;
+        private final int _columnIndex;
+
+        CachedFormula(Ptg[] ptgs, int rowIndex, int columnIndex) {
+            // the returned tokens are copies, so the cached ones are never modified
+            _ptgs = ptgs.clone();
+            _rowIndex = rowIndex;
+            _columnIndex = columnIndex;
+        }
+
+        /**
+         * @return the tokens with new reference tokens, whose relative rows and columns are
+         *  moved from the parsed cell to the given cell
+         */
+        Ptg[] moveTo(int rowIndex, int columnIndex) {
+            int rowOffset = rowIndex - _rowIndex;
+            int columnOffset = columnIndex - _columnIndex;
+            Ptg[] result = new Ptg[_ptgs.length];
+            for (int i = 0; i < _ptgs.length; i++) {
+                Ptg ptg = _ptgs[i];
+                if (ptg instanceof RefPtg) {
+                    RefPtg ref = (RefPtg)ptg;
+                    RefPtg moved = new RefPtg(
+                            ref.getRow() + (ref.isRowRelative() ? rowOffset : 0),
+                            ref.getColumn() + (ref.isColRelative() ? columnOffset : 0),
+                            ref.isRowRelative(), ref.isColRelative());
+                    moved.setClass(ref.getPtgClass());
+                    result[i] = moved;
+                } else if (ptg instanceof AreaPtg) {
+                    AreaPtg area = (AreaPtg)ptg;
+                    AreaPtg moved = new AreaPtg(
+                            area.getFirstRow() + (area.isFirstRowRelative() ? rowOffset : 0),
+                            area.getLastRow() + (area.isLastRowRelative() ? rowOffset : 0),
+                            area.getFirstColumn() + (area.isFirstColRelative() ? columnOffset : 0),
+                            area.getLastColumn() + (area.isLastColRelative() ? columnOffset : 0),
+                            area.isFirstRowRelative(), area.isLastRowRelative(),
+                            area.isFirstColRelative(), area.isLastColRelative());
+                    moved.setClass(area.getPtgClass());
+                    result[i] = moved;
+                } else {
+                    // operators, constants and functions are not modified after parsing
+                    result[i] = ptg;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Builds the cache key of a formula, by replacing its cell references with their R1C1 form
+     * relative to the cell.  Formulas with sheet references, structured references, row or column
+     * ranges are not cached, and references, which might be names or functions, are kept as they are.
+     */
+    private static final class KeyBuilder {
+        private final String _formula;
+        private final SpreadsheetVersion _version;
+        private final int _rowIndex;
+        private final int _columnIndex;
+        private final StringBuilder _key;
+        private int _referenceCount;
+
+        KeyBuilder(String formula, SpreadsheetVersion version, int rowIndex, int columnIndex) {
+            _formula = formula;
+            _version = version;
+            _rowIndex = rowIndex;
+            _columnIndex = columnIndex;
+            _key = new StringBuilder(formula.length() + 16);
+        }
+
+        int getReferenceCount() {
+            return _referenceCount;
+        }
+
+        /**
+         * @return the key, or <code>null</code> if the formula isn't cached
+         */
+        String build(FormulaType formulaType) {
+            _key.append(formulaType.name()).append(' ').append(_version.name()).append(' ');
+            String formula = _formula;
+            int length = formula.length();
+            // whether the last token was a cell reference, and whether the next one must be one
+            boolean lastWasReference = false;
+            boolean nextIsReference = false;
+            int i = 0;
+            while (i < length) {
+                char ch = formula.charAt(i);
+                if (ch == ' ' || ch == '\t' || ch == '\r' || ch == '\n') {
+                    _key.append(ch);
+                    i++;
+                    continue;
+                }
+                boolean isReference = false;
+                if (ch == '"') {
+                    int end = i + 1;
+                    while (true) {
+                        end = formula.indexOf('"', end);
+                        if (end < 0) {
+                            return null;
+                        }
+                        if (end + 1 < length && formula.charAt(end + 1) == '"') {
+                            end += 2;
+                        } else {
+                            break;
+                        }
+                    }
+                    _key.append(formula, i, end + 1);
+                    i = end + 1;
+                } else if (ch == '#') {
+                    int end = skipErrorLiteral(i);
+                    if (end < 0) {
+                        return null;
+                    }
+                    _key.append(formula, i, end);
+                    i = end;
+                } else if (ch == '\'' || ch == '!' || ch == '[' || ch == ']') {
+                    // sheet, external and structured references
+                    return null;
+                } else if (ch == ':') {
+                    if (!lastWasReference || nextIsReference) {
+                        // row and column ranges, 3D references
+                        return null;
+                    }
+                    nextIsReference = true;
+                    _key.append(ch);
+                    i++;
+                    continue;
+                } else if (Character.isLetter(ch) || ch == '$' || ch == '_' || ch == '\\') {
+                    int end = i + 1;
+                    while (end < length && isNameChar(formula.charAt(end))) {
+                        end++;
+                    }
+                    isReference = appendReference(i, end);
+                    if (!isReference) {
+                        _key.append(formula, i, end);
+                    }
+                    i = end;
+                } else if (Character.isDigit(ch) || ch == '.') {
+                    int end = skipNumber(i);
+                    if (end < length && formula.charAt(end) == ':') {
+                        return null;
+                    }
+                    _key.append(formula, i, end);
+                    i = end;
+                } else {
+                    _key.append(ch);
+                    i++;
+                }
+                if (nextIsReference && !isReference) {
+                    return null;
+                }
+                nextIsReference = false;
+                lastWasReference = isReference;
+            }
+            if (nextIsReference) {
+                return null;
+            }
+            return _key.toString();
+        }
+
+        private static boolean isNameChar(char ch) {
+            return Character.isLetterOrDigit(ch) || ch == '$' || ch == '_' || ch == '.' || ch == '\\' || ch == '?';
+        }
+
+        /**
+         * @return the end of the error literal, or -1 if there isn't one
+         */
+        private int skipErrorLiteral(int start) {
+            for (FormulaError error : FormulaError.values()) {
+                String text = error.getString();
+                if (_formula.regionMatches(true, start, text, 0, text.length())) {
+                    return start + text.length();
+                }
+            }
+            return -1;
+        }
+
+        private int skipNumber(int start) {
+            String formula = _formula;
+            int length = formula.length();
+            int end = start;
+            while (end < length && (Character.isDigit(formula.charAt(end)) || formula.charAt(end) == '.')) {
+                end++;
+            }
+            if (end < length && (formula.charAt(end) == 'E' || formula.charAt(end) == 'e')) {
+                int exponent = end + 1;
+                if (exponent < length && (formula.charAt(exponent) == '+' || formula.charAt(exponent) == '-')) {
+                    exponent++;
+                }
+                if (exponent < length && Character.isDigit(formula.charAt(exponent))) {
+                    end = exponent;
+                    while (end < length && Character.isDigit(formula.charAt(end))) {
+                        end++;
+                    }
+                }
+            }
+            return end;
+        }
+
+        /**
+         * Appends the R1C1 form of a cell reference
+         *
+         * @return <code>false</code> if the text isn't a cell reference within the bounds of the
+         *  spreadsheet version or is followed by a parenthesis, like a function name
+         */
+        private boolean appendReference(int start, int end) {
+            String formula = _formula;
+            int i = start;
+            boolean isColumnAbsolute = formula.charAt(i) == '$';
+            if (isColumnAbsolute) {
+                i++;
+            }
+            int lettersStart = i;
+            while (i < end && i - lettersStart <= 3 && isAsciiLetter(formula.charAt(i))) {
+                i++;
+            }
+            int lettersEnd = i;
+            if (lettersEnd == lettersStart || lettersEnd - lettersStart > 3) {
+                return false;
+            }
+            boolean isRowAbsolute = i < end && formula.charAt(i) == '$';
+            if (isRowAbsolute) {
+                i++;
+            }
+            int digitsStart = i;
+            while (i < end && formula.charAt(i) >= '0' && formula.charAt(i) <= '9') {
+                i++;
+            }
+            if (i != end || i == digitsStart || i - digitsStart > 7) {
+                return false;
+            }
+            int next = end;
+            while (next < formula.length() && formula.charAt(next) == ' ') {
+                next++;
+            }
+            if (next < formula.length() && (formula.charAt(next) == '(' || formula.charAt(next) == '!')) {
+                return false;
+            }
+            int column = CellReference.convertColStringToIndex(formula.substring(lettersStart, lettersEnd));
+            int row = Integer.parseInt(formula.substring(digitsStart, end)) - 1;
+            if (column > _version.getLastColumnIndex() || row < 0 || row > _version.getLastRowIndex()) {
+                return false;
+            }
+            // the brackets can't be part of the other tokens of a cached formula
+            _key.append("[R");
+            if (isRowAbsolute) {
+                _key.append(row);
+            } else {
+                _key.append('[').append(row - _rowIndex).append(']');
+            }
+            _key.append('C');
+            if (isColumnAbsolute) {
+                _key.append(column);
+            } else {
+                _key.append('[').append(column - _columnIndex).append(']');
+            }
+            _key.append(']');
+            _referenceCount++;
+            return true;
+        }
+
+        private static boolean isAsciiLetter(char ch) {
+            return (ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z');
+        }
+    }
+}
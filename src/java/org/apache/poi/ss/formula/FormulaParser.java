@@ -171,6 +171,30 @@ public final class FormulaParser {
         return fp.getRPNPtg(formulaType);
     }
 
+    /**
+     * Parse the formula of a cell into an array of tokens, like
+     *  {@link #parse(String, FormulaParsingWorkbook, FormulaType, int, int)}.
+     * The tokens of formulas, which only refer to cells of their own sheet, are cached relative to
+     *  the cell, so that the copies of a formula in other cells are not parsed again.
+     *
+     * @param formula     the formula to parse
+     * @param workbook    the parent workbook
+     * @param formulaType the type of the formula
+     * @param sheetIndex  the 0-based index of the sheet this formula belongs to
+     * @param rowIndex    the 0-based row index of the cell, -1 if the formula is not cell related
+     * @param columnIndex the 0-based column index of the cell, -1 if the formula is not cell related
+     *
+     * @return array of parsed tokens, which may be modified by the caller
+     * @throws FormulaParseException if the formula has incorrect syntax or is otherwise invalid
+     * @since 3.17-beta1
+     */
+    public static Ptg[] parse(String formula, FormulaParsingWorkbook workbook, FormulaType formulaType, int sheetIndex, int rowIndex, int columnIndex) {
+        if (rowIndex < 0 || columnIndex < 0) {
+            return parse(formula, workbook, formulaType, sheetIndex, rowIndex);
+        }
+        return FormulaParseCache.parse(formula, workbook, formulaType, sheetIndex, rowIndex, columnIndex);
+    }
+
     /**
      * Parse a formula into an array of tokens
      * Side effect: creates name ({@link org.apache.poi.ss.usermodel.Workbook#createName})
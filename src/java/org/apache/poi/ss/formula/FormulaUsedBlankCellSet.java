@@ -88,6 +88,21 @@ final class FormulaUsedBlankCellSet {
 			}
 		}
 
+		public void addArea(int firstRowIndex, int firstColumnIndex, int lastRowIndex, int lastColumnIndex) {
+			int nGroups = _rectangleGroups.size();
+			if (nGroups > 0) {
+				// the blank parts of adjacent rows usually have the same columns
+				BlankCellRectangleGroup lastGroup = _rectangleGroups.get(nGroups - 1);
+				if (firstRowIndex == lastRowIndex
+						&& lastGroup.acceptRow(firstRowIndex, firstColumnIndex, lastColumnIndex)) {
+					return;
+				}
+			}
+			BlankCellRectangleGroup area = new BlankCellRectangleGroup(firstRowIndex, firstColumnIndex, lastColumnIndex);
+			area._lastRowIndex = lastRowIndex;
+			_rectangleGroups.add(area);
+		}
+
 		public boolean containsCell(int rowIndex, int columnIndex) {
 			for (int i=_rectangleGroups.size()-1; i>=0; i--) {
 				BlankCellRectangleGroup bcrg = _rectangleGroups.get(i);
@@ -172,6 +187,12 @@ final class FormulaUsedBlankCellSet {
 		sbcg.addCell(rowIndex, columnIndex);
 	}
 
+	public void addArea(int bookIndex, int sheetIndex, int firstRowIndex, int firstColumnIndex,
+			int lastRowIndex, int lastColumnIndex) {
+		BlankCellSheetGroup sbcg = getSheetGroup(bookIndex, sheetIndex);
+		sbcg.addArea(firstRowIndex, firstColumnIndex, lastRowIndex, lastColumnIndex);
+	}
+
 	private BlankCellSheetGroup getSheetGroup(int bookIndex, int sheetIndex) {
 		BookSheetKey key = new BookSheetKey(bookIndex, sheetIndex);
 
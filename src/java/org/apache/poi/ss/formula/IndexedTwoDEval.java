@@ -0,0 +1,49 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import org.apache.poi.util.Internal;
+
+/**
+ * A {@link TwoDEval}, which provides cached copies of its values: hash indexes of its rows and
+ * columns for exact match lookups and the {@link ColumnarValues} of the whole area for the
+ * criteria functions.  They are kept by the evaluator until one of the cells changes.
+ *
+ * @since 3.17-beta1
+ */
+@Internal
+public interface IndexedTwoDEval extends TwoDEval {
+
+	/**
+	 * @param rowIndex relative row index (zero based)
+	 * @return the index of the values of the row, or <code>null</code> if it is not available
+	 */
+	ExactLookupIndex getRowLookupIndex(int rowIndex);
+
+	/**
+	 * @param columnIndex relative column index (zero based)
+	 * @return the index of the values of the column, or <code>null</code> if it is not available
+	 */
+	ExactLookupIndex getColumnLookupIndex(int columnIndex);
+
+	/**
+	 * @return the values of the area (of the first sheet of a 3D area), or <code>null</code> if
+	 * they are not available
+	 */
+	ColumnarValues getColumnarValues();
+}
@@ -27,7 +27,7 @@ import org.apache.poi.ss.util.CellReference;
 /**
  * Provides Lazy Evaluation to 3D Ranges
  */
-final class LazyAreaEval extends AreaEvalBase {
+final class LazyAreaEval extends AreaEvalBase implements IndexedTwoDEval, SparseAreaEval {
 	private final SheetRangeEvaluator _evaluator;
 
 	LazyAreaEval(AreaI ptg, SheetRangeEvaluator evaluator) {
@@ -74,6 +74,33 @@ final class LazyAreaEval extends AreaEvalBase {
 		return new LazyAreaEval(getFirstRow(), absColIx, getLastRow(), absColIx, _evaluator);
 	}
 
+	public int getPopulatedHeight(int sheetIndex) {
+		SheetRefEvaluator sre = _evaluator.getSheetEvaluator(sheetIndex);
+		int lastRowIx = sre.getLastPopulatedRowIndex(getFirstRow(), getFirstColumn(), getLastRow(), getLastColumn());
+		return Math.max(0, lastRowIx - getFirstRow() + 1);
+	}
+
+	public int getPopulatedWidth(int sheetIndex, int rowIndex) {
+		SheetRefEvaluator sre = _evaluator.getSheetEvaluator(sheetIndex);
+		int lastColIx = sre.getLastPopulatedColumnIndex(getFirstRow() + rowIndex, getFirstColumn(), getLastColumn());
+		return Math.max(0, lastColIx - getFirstColumn() + 1);
+	}
+
+	public ExactLookupIndex getRowLookupIndex(int rowIndex) {
+		int absRowIx = getFirstRow() + rowIndex;
+		SheetRefEvaluator sre = _evaluator.getSheetEvaluator(getFirstSheetIndex());
+		return sre.getLookupIndex(absRowIx, getFirstColumn(), absRowIx, getLastColumn());
+	}
+	public ExactLookupIndex getColumnLookupIndex(int columnIndex) {
+		int absColIx = getFirstColumn() + columnIndex;
+		SheetRefEvaluator sre = _evaluator.getSheetEvaluator(getFirstSheetIndex());
+		return sre.getLookupIndex(getFirstRow(), absColIx, getLastRow(), absColIx);
+	}
+	public ColumnarValues getColumnarValues() {
+		SheetRefEvaluator sre = _evaluator.getSheetEvaluator(getFirstSheetIndex());
+		return sre.getColumnarValues(getFirstRow(), getFirstColumn(), getLastRow(), getLastColumn());
+	}
+
 	public String toString() {
 		CellReference crA = new CellReference(getFirstRow(), getFirstColumn());
 		CellReference crB = new CellReference(getLastRow(), getLastColumn());
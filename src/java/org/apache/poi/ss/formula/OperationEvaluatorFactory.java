@@ -44,6 +44,7 @@ import org.apache.poi.ss.formula.ptg.UnaryPlusPtg;
 import org.apache.poi.ss.formula.eval.ConcatEval;
 import org.apache.poi.ss.formula.eval.FunctionEval;
 import org.apache.poi.ss.formula.eval.IntersectionEval;
+import org.apache.poi.ss.formula.eval.NotImplementedException;
 import org.apache.poi.ss.formula.eval.PercentEval;
 import org.apache.poi.ss.formula.eval.RangeEval;
 import org.apache.poi.ss.formula.eval.RelationalOperationEval;
@@ -54,6 +55,7 @@ import org.apache.poi.ss.formula.eval.ValueEval;
 import org.apache.poi.ss.formula.function.FunctionMetadataRegistry;
 import org.apache.poi.ss.formula.functions.Function;
 import org.apache.poi.ss.formula.functions.Indirect;
+import org.apache.poi.ss.formula.functions.NotImplementedFunction;
 
 /**
  * This class creates <tt>OperationEval</tt> instances to help evaluate <tt>OperationPtg</tt>
@@ -104,6 +106,35 @@ final class OperationEvaluatorFactory {
 		m.put(ptgKey, instance);
 	}
 
+	/**
+	 * Looks up the function of an operation once, e.g. for a compiled formula.
+	 *
+	 * @return the function for the operation, or <code>null</code> for the functions, which are
+	 *  looked up on each evaluation by {@link #evaluate(OperationPtg, ValueEval[], OperationEvaluationContext)}:
+	 *  <tt>INDIRECT</tt>, add-in functions and functions, which are not implemented (yet)
+	 */
+	static Function getFunction(OperationPtg ptg) {
+		Function result = _instancesByPtgClass.get(ptg);
+		if (result != null) {
+			return result;
+		}
+		if (ptg instanceof AbstractFunctionPtg) {
+			int functionIndex = ((AbstractFunctionPtg)ptg).getFunctionIndex();
+			if (functionIndex == FunctionMetadataRegistry.FUNCTION_INDEX_INDIRECT
+					|| functionIndex == FunctionMetadataRegistry.FUNCTION_INDEX_EXTERNAL) {
+				return null;
+			}
+			try {
+				result = FunctionEval.getBasicFunction(functionIndex);
+			} catch (NotImplementedException e) {
+				return null;
+			}
+			// may still be registered at runtime
+			return (result instanceof NotImplementedFunction) ? null : result;
+		}
+		return null;
+	}
+
 	/**
 	 * returns the OperationEval concrete impl instance corresponding
 	 * to the supplied operationPtg
@@ -17,36 +17,57 @@
 
 package org.apache.poi.ss.formula;
 
-import java.util.HashMap;
-import java.util.Map;
-
+import java.util.Arrays;
+
+/**
+ * Cache entries of the plain value cells, keyed by their location packed into a <tt>long</tt>.<p/>
+ *
+ * Lookups are done very often during evaluation, so this is an open addressing hash table
+ * with linear probing, which neither allocates key objects nor map entries.
+ */
 final class PlainCellCache {
 
 	public static final class Loc {
 
-		private final long _bookSheetColumn;
+		private static final int BOOK_BITS = 12;
+		private static final int SHEET_BITS = 16;
+		private static final int ROW_BITS = 20;
+		private static final int COLUMN_BITS = 16;
 
-		private final int _rowIndex;
+		private final long _key;
 
 		public Loc(int bookIndex, int sheetIndex, int rowIndex, int columnIndex) {
-			_bookSheetColumn = toBookSheetColumn(bookIndex, sheetIndex, columnIndex);
-			_rowIndex = rowIndex;
+			_key = toKey(bookIndex, sheetIndex, rowIndex, columnIndex);
+		}
+
+		public Loc(long key) {
+			_key = key;
 		}
 
-		public static long toBookSheetColumn(int bookIndex, int sheetIndex, int columnIndex) {
-			return ((bookIndex   & 0xFFFFl) << 48)  +
-                   ((sheetIndex  & 0xFFFFl) << 32) +
-                   ((columnIndex & 0xFFFFl) << 0);
+		/**
+		 * Packs the location into a single number, the book index into the highest
+		 * 12 bits, then the sheet index (16 bits), the row index (20 bits) and the column
+		 * index (16 bits).
+		 */
+		public static long toKey(int bookIndex, int sheetIndex, int rowIndex, int columnIndex) {
+			if ((bookIndex >>> BOOK_BITS) != 0 || (sheetIndex >>> SHEET_BITS) != 0
+					|| (rowIndex >>> ROW_BITS) != 0 || (columnIndex >>> COLUMN_BITS) != 0) {
+				throw new IllegalArgumentException("Cell location out of range (book " + bookIndex
+						+ ", sheet " + sheetIndex + ", row " + rowIndex + ", column " + columnIndex + ")");
+			}
+			return ((long)bookIndex << (SHEET_BITS + ROW_BITS + COLUMN_BITS))
+					| ((long)sheetIndex << (ROW_BITS + COLUMN_BITS))
+					| ((long)rowIndex << COLUMN_BITS)
+					| columnIndex;
 		}
 
-		public Loc(long bookSheetColumn, int rowIndex) {
-			_bookSheetColumn = bookSheetColumn;
-			_rowIndex = rowIndex;
+		public long getKey() {
+			return _key;
 		}
 
 		@Override
         public int hashCode() {
-			return (int)(_bookSheetColumn ^ (_bookSheetColumn >>> 32)) + 17 * _rowIndex;
+			return (int)(_key ^ (_key >>> 32));
 		}
 
 		@Override
@@ -55,41 +76,119 @@ final class PlainCellCache {
 		        return false;
 		    }
 			Loc other = (Loc) obj;
-			return _bookSheetColumn == other._bookSheetColumn && _rowIndex == other._rowIndex;
+			return _key == other._key;
 		}
 
 		public int getRowIndex() {
-			return _rowIndex;
+			return (int)((_key >>> COLUMN_BITS) & ((1 << ROW_BITS) - 1));
 		}
 
 		public int getColumnIndex() {
-            return (int)(_bookSheetColumn & 0x000FFFF);
+			return (int)(_key & ((1 << COLUMN_BITS) - 1));
 		}
 
         public int getSheetIndex() {
-            return (int)((_bookSheetColumn >> 32) & 0xFFFF);
+            return (int)((_key >>> (ROW_BITS + COLUMN_BITS)) & ((1 << SHEET_BITS) - 1));
         }
 
         public int getBookIndex() {
-            return (int)((_bookSheetColumn >> 48) & 0xFFFF);
+            return (int)(_key >>> (SHEET_BITS + ROW_BITS + COLUMN_BITS));
         }
 	}
 
-	private Map<Loc, PlainValueCellCacheEntry> _plainValueEntriesByLoc;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private long[] _keys;
+	/** <code>null</code> marks the free slots */
+	private PlainValueCellCacheEntry[] _entries;
+	private int _size;
 
 	public PlainCellCache() {
-		_plainValueEntriesByLoc = new HashMap<Loc, PlainValueCellCacheEntry>();
+		_keys = new long[INITIAL_CAPACITY];
+		_entries = new PlainValueCellCacheEntry[INITIAL_CAPACITY];
 	}
 	public void put(Loc key, PlainValueCellCacheEntry cce) {
-		_plainValueEntriesByLoc.put(key, cce);
+		put(key.getKey(), cce);
+	}
+	public void put(long key, PlainValueCellCacheEntry cce) {
+		if (cce == null) {
+			throw new IllegalArgumentException("cce must not be null");
+		}
+		if ((_size + 1) * 4 > _entries.length * 3) {
+			resize(_entries.length * 2);
+		}
+		int i = indexOf(key);
+		if (_entries[i] == null) {
+			_keys[i] = key;
+			_size++;
+		}
+		_entries[i] = cce;
 	}
 	public void clear() {
-		_plainValueEntriesByLoc.clear();
+		// the tables are kept for the next evaluation
+		Arrays.fill(_entries, null);
+		_size = 0;
 	}
 	public PlainValueCellCacheEntry get(Loc key) {
-		return _plainValueEntriesByLoc.get(key);
+		return get(key.getKey());
+	}
+	public PlainValueCellCacheEntry get(long key) {
+		return _entries[indexOf(key)];
 	}
 	public void remove(Loc key) {
-		_plainValueEntriesByLoc.remove(key);
+		remove(key.getKey());
+	}
+	public void remove(long key) {
+		int i = indexOf(key);
+		if (_entries[i] == null) {
+			return;
+		}
+		_entries[i] = null;
+		_size--;
+		// move the following entries of the probe sequence into the gap,
+		// so that lookups can stop at the first free slot
+		int mask = _entries.length - 1;
+		for (int j = (i + 1) & mask; _entries[j] != null; j = (j + 1) & mask) {
+			int home = hash(_keys[j]) & mask;
+			boolean inGap = (i <= j) ? (home <= i || home > j) : (home <= i && home > j);
+			if (inGap) {
+				_keys[i] = _keys[j];
+				_entries[i] = _entries[j];
+				_entries[j] = null;
+				i = j;
+			}
+		}
+	}
+
+	/**
+	 * @return the slot of the key, or the free slot where it would be inserted
+	 */
+	private int indexOf(long key) {
+		int mask = _entries.length - 1;
+		int i = hash(key) & mask;
+		while (_entries[i] != null && _keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = _keys;
+		PlainValueCellCacheEntry[] oldEntries = _entries;
+		_keys = new long[capacity];
+		_entries = new PlainValueCellCacheEntry[capacity];
+		for (int i = 0; i < oldEntries.length; i++) {
+			if (oldEntries[i] != null) {
+				int j = indexOf(oldKeys[i]);
+				_keys[j] = oldKeys[i];
+				_entries[j] = oldEntries[i];
+			}
+		}
+	}
+
+	private static int hash(long key) {
+		// spreads the row and column bits over the whole table
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32));
 	}
 }
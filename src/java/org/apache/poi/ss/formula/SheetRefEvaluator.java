@@ -48,6 +48,44 @@ final class SheetRefEvaluator {
 		return _bookEvaluator.evaluateReference(getSheet(), _sheetIndex, rowIndex, columnIndex, _tracker);
 	}
 
+	/**
+	 * Skips the rows of the area below the last row of the sheet, which are recorded as used
+	 * blank cells.
+	 *
+	 * @return the index of the last row of the area, which may contain cells
+	 */
+	public int getLastPopulatedRowIndex(int firstRowIndex, int firstColumnIndex, int lastRowIndex, int lastColumnIndex) {
+		return _bookEvaluator.getLastPopulatedRowIndex(getSheet(), _sheetIndex, firstRowIndex, firstColumnIndex,
+				lastRowIndex, lastColumnIndex, _tracker);
+	}
+
+	/**
+	 * Skips the cells of the row right of its last cell, which are recorded as used blank cells.
+	 *
+	 * @return the index of the last column of the row, which may contain a cell
+	 */
+	public int getLastPopulatedColumnIndex(int rowIndex, int firstColumnIndex, int lastColumnIndex) {
+		return _bookEvaluator.getLastPopulatedColumnIndex(getSheet(), _sheetIndex, rowIndex, firstColumnIndex,
+				lastColumnIndex, _tracker);
+	}
+
+	/**
+	 * @return the index of the values of a single row or column, or <code>null</code> if it is
+	 * not available
+	 */
+	public ExactLookupIndex getLookupIndex(int firstRowIndex, int firstColumnIndex, int lastRowIndex, int lastColumnIndex) {
+		return _bookEvaluator.getLookupIndex(getSheet(), _sheetIndex, firstRowIndex, firstColumnIndex,
+				lastRowIndex, lastColumnIndex, _tracker);
+	}
+
+	/**
+	 * @return the values of the area, or <code>null</code> if they are not available
+	 */
+	public ColumnarValues getColumnarValues(int firstRowIndex, int firstColumnIndex, int lastRowIndex, int lastColumnIndex) {
+		return _bookEvaluator.getColumnarValues(getSheet(), _sheetIndex, firstRowIndex, firstColumnIndex,
+				lastRowIndex, lastColumnIndex, _tracker);
+	}
+
 	private EvaluationSheet getSheet() {
 		if (_sheet == null) {
 			_sheet = _bookEvaluator.getSheet(_sheetIndex);
@@ -0,0 +1,46 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import org.apache.poi.ss.formula.eval.AreaEval;
+import org.apache.poi.util.Internal;
+
+/**
+ * An {@link AreaEval}, which knows the part of a sheet, which may contain cells.  Aggregate
+ * functions only visit that part of large areas like <tt>A:A</tt> or <tt>1:1</tt>, all other
+ * values are blank.  The skipped cells are still recorded as used by the formula being evaluated,
+ * so it is updated when one of them gets a value.
+ *
+ * @since 3.17-beta1
+ */
+@Internal
+public interface SparseAreaEval extends AreaEval {
+
+	/**
+	 * @param sheetIndex the sheet index, between {@link #getFirstSheetIndex()} and {@link #getLastSheetIndex()}
+	 * @return the number of rows from the top of the area, which may contain cells in the sheet
+	 */
+	int getPopulatedHeight(int sheetIndex);
+
+	/**
+	 * @param sheetIndex the sheet index, between {@link #getFirstSheetIndex()} and {@link #getLastSheetIndex()}
+	 * @param rowIndex relative row index (zero based)
+	 * @return the number of columns from the left of the area, which may contain cells in the row
+	 */
+	int getPopulatedWidth(int sheetIndex, int rowIndex);
+}
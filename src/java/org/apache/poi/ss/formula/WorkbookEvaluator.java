@@ -17,16 +17,19 @@
 
 package org.apache.poi.ss.formula;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 import java.util.TreeSet;
 
 import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.formula.CollaboratingWorkbooksEnvironment.WorkbookNotFoundException;
+import org.apache.poi.ss.formula.EvaluationCache.AreaValuesEntry;
 import org.apache.poi.ss.formula.atp.AnalysisToolPak;
 import org.apache.poi.ss.formula.eval.BlankEval;
 import org.apache.poi.ss.formula.eval.BoolEval;
@@ -50,6 +53,7 @@ import org.apache.poi.ss.formula.ptg.*;
 import org.apache.poi.ss.formula.udf.AggregatingUDFFinder;
 import org.apache.poi.ss.formula.udf.UDFFinder;
 import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddressBase;
 import org.apache.poi.ss.util.CellReference;
 import org.apache.poi.util.Internal;
@@ -72,8 +76,15 @@ public final class WorkbookEvaluator {
     
     private static final POILogger LOG = POILogFactory.getLogger(WorkbookEvaluator.class);
 
+    /**
+     * The values of smaller areas are not cached for lookups and criteria functions
+     */
+    private static final int MIN_CACHED_AREA_SIZE = 16;
+
     private final EvaluationWorkbook _workbook;
     private EvaluationCache _cache;
+    /** created on first use, see {@link #getDependencyGraph(Workbook)} */
+    private DependencyGraph _dependencyGraph;
     /** part of cache entry key (useful when evaluating multiple workbooks) */
     private int _workbookIx;
 
@@ -194,6 +205,7 @@ public final class WorkbookEvaluator {
     public void clearAllCachedResultValues() {
         _cache.clear();
         _sheetIndexesBySheet.clear();
+        _dependencyGraph = null;
         _workbook.clearAllCachedResultValues();
     }
 
@@ -204,6 +216,9 @@ public final class WorkbookEvaluator {
     public void notifyUpdateCell(EvaluationCell cell) {
         int sheetIndex = getSheetIndex(cell.getSheet());
         _cache.notifyUpdateCell(_workbookIx, sheetIndex, cell);
+        if (_dependencyGraph != null) {
+            _dependencyGraph.notifyUpdateCell(sheetIndex, cell);
+        }
     }
     /**
      * Should be called to tell the cell value cache that the specified cell has just been
@@ -212,6 +227,50 @@ public final class WorkbookEvaluator {
     public void notifyDeleteCell(EvaluationCell cell) {
         int sheetIndex = getSheetIndex(cell.getSheet());
         _cache.notifyDeleteCell(_workbookIx, sheetIndex, cell);
+        if (_dependencyGraph != null) {
+            _dependencyGraph.notifyDeleteCell(sheetIndex, cell);
+        }
+    }
+
+    /**
+     * @param wb the evaluated workbook, to find the formula cells, when the graph is created
+     * @return the dependency graph of the formula cells, which is kept up to date by
+     *  the notify~ methods until the cache is cleared
+     */
+    /* package */ DependencyGraph getDependencyGraph(Workbook wb) {
+        if (_dependencyGraph == null) {
+            _dependencyGraph = new DependencyGraph(_workbook, wb);
+        }
+        return _dependencyGraph;
+    }
+
+    /**
+     * Finds the formula cells, which depend directly or indirectly on the given cells, like
+     *  {@link BaseFormulaEvaluator#getDependents(Collection)}, but without requiring the cells to exist.
+     *
+     * @param wb the evaluated workbook
+     * @param cells the changed cells, with the names of their sheets
+     * @return the dependent formula cells with the names of their sheets, each after the cells
+     *  it depends on (apart from circular references)
+     * @since 3.17-beta1
+     */
+    public List<CellReference> getDependents(Workbook wb, Collection<CellReference> cells) {
+        long[] keys = new long[cells.size()];
+        int i = 0;
+        for (CellReference cr : cells) {
+            int sheetIndex = getSheetIndex(cr.getSheetName());
+            if (sheetIndex < 0) {
+                throw new IllegalArgumentException("Sheet '" + cr.getSheetName() + "' does not exist");
+            }
+            keys[i++] = DependencyGraph.getCellKey(sheetIndex, cr.getRow(), cr.getCol());
+        }
+        List<DependencyGraph.FormulaNode> nodes = getDependencyGraph(wb).getDependents(keys);
+        List<CellReference> dependents = new ArrayList<CellReference>(nodes.size());
+        for (DependencyGraph.FormulaNode node : nodes) {
+            dependents.add(new CellReference(getSheetName(node.getSheetIndex()),
+                    node.getRowIndex(), node.getColumnIndex(), false, false));
+        }
+        return dependents;
     }
     
     private int getSheetIndex(EvaluationSheet sheet) {
@@ -285,12 +344,11 @@ public final class WorkbookEvaluator {
 
             try {
 
-                Ptg[] ptgs = _workbook.getFormulaTokens(srcCell);
                 if (evalListener == null) {
-                    result = evaluateFormula(ec, ptgs);
+                    result = evaluateFormulaCell(srcCell, cce, ec);
                 } else {
                     evalListener.onStartEvaluate(srcCell, cce);
-                    result = evaluateFormula(ec, ptgs);
+                    result = evaluateFormulaCell(srcCell, cce, ec);
                     evalListener.onEndEvaluate(cce, result);
                 }
 
@@ -345,6 +403,26 @@ public final class WorkbookEvaluator {
         return result;
     }
 
+    /**
+     * Evaluates the formula of a cell with its compiled formula, which is compiled on the first
+     * evaluation and kept until the cell is updated.  The tokens are interpreted while the debug
+     * output is enabled.
+     */
+    private ValueEval evaluateFormulaCell(EvaluationCell srcCell, FormulaCellCacheEntry cce, OperationEvaluationContext ec) {
+        if (dbgEvaluationOutputForNextEval || dbgEvaluationOutputIndent > 0) {
+            return evaluateFormula(ec, _workbook.getFormulaTokens(srcCell));
+        }
+        CompiledFormula formula = cce.getCompiledFormula();
+        if (formula != null) {
+            return formula.evaluate(ec);
+        }
+        formula = CompiledFormula.compile(this, _workbook.getFormulaTokens(srcCell), ec);
+        ValueEval result = formula.evaluate(ec);
+        // only kept after a successful evaluation, like the result
+        cce.setCompiledFormula(formula);
+        return result;
+    }
+
     /**
      * Adds the current cell reference to the exception for easier debugging.
      * Would be nice to get the formula text as well, but that seems to require
@@ -559,7 +637,7 @@ public final class WorkbookEvaluator {
      * @return the number of tokens (starting from <tt>startIndex+1</tt>) that need to be skipped
      * to achieve the specified <tt>distInBytes</tt> skip distance.
      */
-    private static int countTokensToBeSkipped(Ptg[] ptgs, int startIndex, int distInBytes) {
+    /* package */ static int countTokensToBeSkipped(Ptg[] ptgs, int startIndex, int distInBytes) {
         int remBytes = distInBytes;
         int index = startIndex;
         while (remBytes != 0) {
@@ -607,7 +685,7 @@ public final class WorkbookEvaluator {
      * StringPtg, BoolPtg <br/>special Note: OperationPtg subtypes cannot be
      * passed here!
      */
-    private ValueEval getEvalForPtg(Ptg ptg, OperationEvaluationContext ec) {
+    /* package */ ValueEval getEvalForPtg(Ptg ptg, OperationEvaluationContext ec) {
         //  consider converting all these (ptg instanceof XxxPtg) expressions to (ptg.getClass() == XxxPtg.class)
 
         if (ptg instanceof NamePtg) {
@@ -667,6 +745,21 @@ public final class WorkbookEvaluator {
            AreaPtg aptg = (AreaPtg) ptg;
            return ec.getAreaEval(aptg.getFirstRow(), aptg.getFirstColumn(), aptg.getLastRow(), aptg.getLastColumn());
         }
+        // references of shared formulas, relative to the evaluated cell
+        if (ptg instanceof RefNPtg) {
+           RefNPtg rptg = (RefNPtg) ptg;
+           return ec.getRefEval(
+                   resolveSharedRow(ec, rptg.getRow(), rptg.isRowRelative()),
+                   resolveSharedColumn(ec, rptg.getColumn(), rptg.isColRelative()));
+        }
+        if (ptg instanceof AreaNPtg) {
+           AreaNPtg aptg = (AreaNPtg) ptg;
+           return ec.getAreaEval(
+                   resolveSharedRow(ec, aptg.getFirstRow(), aptg.isFirstRowRelative()),
+                   resolveSharedColumn(ec, aptg.getFirstColumn(), aptg.isFirstColRelative()),
+                   resolveSharedRow(ec, aptg.getLastRow(), aptg.isLastRowRelative()),
+                   resolveSharedColumn(ec, aptg.getLastColumn(), aptg.isLastColRelative()));
+        }
 
         if (ptg instanceof UnknownPtg) {
             // POI uses UnknownPtg when the encoded Ptg array seems to be corrupted.
@@ -683,6 +776,26 @@ public final class WorkbookEvaluator {
         throw new RuntimeException("Unexpected ptg class (" + ptg.getClass().getName() + ")");
     }
    
+    /**
+     * Resolves a row of a shared formula reference, like {@link SharedFormula}
+     */
+    private int resolveSharedRow(OperationEvaluationContext ec, int row, boolean relative) {
+        if (!relative) {
+            return row;
+        }
+        return (row + ec.getRowIndex()) & _workbook.getSpreadsheetVersion().getLastRowIndex();
+    }
+
+    /**
+     * Resolves a column of a shared formula reference, like {@link SharedFormula}
+     */
+    private int resolveSharedColumn(OperationEvaluationContext ec, int column, boolean relative) {
+        if (!relative) {
+            return column;
+        }
+        return (column + ec.getColumnIndex()) & _workbook.getSpreadsheetVersion().getLastColumnIndex();
+    }
+
     private ValueEval processNameEval(ValueEval eval, OperationEvaluationContext ec) {
         if (eval instanceof ExternalNameEval) {
             EvaluationName name = ((ExternalNameEval)eval).getName();
@@ -722,6 +835,123 @@ public final class WorkbookEvaluator {
         EvaluationCell cell = sheet.getCell(rowIndex, columnIndex);
         return evaluateAny(cell, sheetIndex, rowIndex, columnIndex, tracker);
     }
+
+    /**
+     * Used by the lazy area evals to skip the rows of an area below the last row of the sheet.
+     * The formula being evaluated depends on the skipped cells like on blank cells read one by one.
+     *
+     * @return the index of the last row of the area, which may contain cells
+     */
+    /* package */ int getLastPopulatedRowIndex(
+            EvaluationSheet sheet, int sheetIndex, int firstRowIndex, int firstColumnIndex,
+            int lastRowIndex, int lastColumnIndex, EvaluationTracker tracker) {
+
+        int result = Math.min(lastRowIndex, sheet.getLastRowNum());
+        if (result < lastRowIndex) {
+            tracker.acceptBlankAreaDependency(_workbookIx, sheetIndex, Math.max(firstRowIndex, result + 1),
+                    firstColumnIndex, lastRowIndex, lastColumnIndex);
+        }
+        return result;
+    }
+
+    /**
+     * Used by the lazy area evals to skip the cells of a row right of its last cell.
+     *
+     * @return the index of the last column of the row, which may contain a cell
+     * @see #getLastPopulatedRowIndex(EvaluationSheet, int, int, int, int, int, EvaluationTracker)
+     */
+    /* package */ int getLastPopulatedColumnIndex(
+            EvaluationSheet sheet, int sheetIndex, int rowIndex, int firstColumnIndex,
+            int lastColumnIndex, EvaluationTracker tracker) {
+
+        int result = Math.min(lastColumnIndex, sheet.getLastCellNum(rowIndex) - 1);
+        if (result < lastColumnIndex) {
+            tracker.acceptBlankAreaDependency(_workbookIx, sheetIndex, rowIndex,
+                    Math.max(firstColumnIndex, result + 1), rowIndex, lastColumnIndex);
+        }
+        return result;
+    }
+
+    /**
+     * Used by the lazy area evals for exact lookups in one of their rows or columns.
+     *
+     * @return <code>null</code> if the values are not available
+     * @see #getColumnarValues(EvaluationSheet, int, int, int, int, int, EvaluationTracker)
+     */
+    /* package */ ExactLookupIndex getLookupIndex(
+            EvaluationSheet sheet, int sheetIndex, int firstRowIndex, int firstColumnIndex,
+            int lastRowIndex, int lastColumnIndex, EvaluationTracker tracker) {
+
+        AreaValuesEntry entry = getAreaValuesEntry(sheet, sheetIndex, firstRowIndex, firstColumnIndex,
+                lastRowIndex, lastColumnIndex, tracker);
+        return entry == null ? null : entry.getLookupIndex();
+    }
+
+    /**
+     * Used by the lazy area evals to copy their values for the criteria functions.  The values
+     * of an area are read on the first use and kept in the cache until one of the cells changes.
+     * The formula being evaluated depends on all cells of the area.
+     *
+     * @return <code>null</code> if the area is small, or if the values are not available, e.g.
+     * because the area contains a circular reference or a cell, which cannot be evaluated
+     */
+    /* package */ ColumnarValues getColumnarValues(
+            EvaluationSheet sheet, int sheetIndex, int firstRowIndex, int firstColumnIndex,
+            int lastRowIndex, int lastColumnIndex, EvaluationTracker tracker) {
+
+        AreaValuesEntry entry = getAreaValuesEntry(sheet, sheetIndex, firstRowIndex, firstColumnIndex,
+                lastRowIndex, lastColumnIndex, tracker);
+        return entry == null ? null : entry.getValues();
+    }
+
+    private AreaValuesEntry getAreaValuesEntry(
+            EvaluationSheet sheet, int sheetIndex, int firstRowIndex, int firstColumnIndex,
+            int lastRowIndex, int lastColumnIndex, EvaluationTracker tracker) {
+
+        int width = lastColumnIndex - firstColumnIndex + 1;
+        int size = width * (lastRowIndex - firstRowIndex + 1);
+        if (size < MIN_CACHED_AREA_SIZE) {
+            // comparing the values is cheaper
+            return null;
+        }
+        AreaValuesEntry entry = _cache.getOrCreateAreaValuesEntry(_workbookIx, sheetIndex,
+                firstRowIndex, firstColumnIndex, lastRowIndex, lastColumnIndex);
+        FormulaCellCacheEntry cce = entry.getCacheEntry();
+        if (cce.getValue() == null) {
+            if (!tracker.startEvaluate(cce)) {
+                return null;
+            }
+            try {
+                // the rows below the last one of the sheet are left blank
+                int lastPopulatedRowIndex = getLastPopulatedRowIndex(sheet, sheetIndex, firstRowIndex,
+                        firstColumnIndex, lastRowIndex, lastColumnIndex, tracker);
+                int populatedSize = width * Math.max(0, lastPopulatedRowIndex - firstRowIndex + 1);
+                ValueEval[] values = new ValueEval[populatedSize];
+                try {
+                    for (int i = 0; i < populatedSize; i++) {
+                        values[i] = evaluateReference(sheet, sheetIndex, firstRowIndex + i / width,
+                                firstColumnIndex + i % width, tracker);
+                        if (values[i] == ErrorEval.CIRCULAR_REF_ERROR) {
+                            // not cached, a later use may see the final values
+                            return null;
+                        }
+                    }
+                    entry.setValues(new ColumnarValues(width, size, values));
+                } catch (RuntimeException e) {
+                    // the functions read the cells one by one instead,
+                    // which might not reach the failing cell
+                    entry.setValues(null);
+                }
+                // the value only marks the entry as up to date
+                tracker.updateCacheResult(BoolEval.TRUE);
+            } finally {
+                tracker.endEvaluate(cce);
+            }
+        }
+        tracker.acceptFormulaDependency(cce);
+        return entry;
+    }
+
     public FreeRefFunction findUserDefinedFunction(String functionName) {
         return _udfFinder.findFunction(functionName);
     }
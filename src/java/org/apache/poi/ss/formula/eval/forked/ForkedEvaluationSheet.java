@@ -63,6 +63,24 @@ final class ForkedEvaluationSheet implements EvaluationSheet {
         return result;
     }
 
+    /* (non-Javadoc)
+     * the updatable cells replace existing cells of the master sheet
+     * @since POI 3.17 beta 1
+     */
+    @Override
+    public int getLastRowNum() {
+        return _masterSheet.getLastRowNum();
+    }
+
+    /* (non-Javadoc)
+     * the updatable cells replace existing cells of the master sheet
+     * @since POI 3.17 beta 1
+     */
+    @Override
+    public int getLastCellNum(int rowIndex) {
+        return _masterSheet.getLastCellNum(rowIndex);
+    }
+
     public ForkedEvaluationCell getOrCreateUpdatableCell(int rowIndex, int columnIndex) {
         RowColKey key = new RowColKey(rowIndex, columnIndex);
 
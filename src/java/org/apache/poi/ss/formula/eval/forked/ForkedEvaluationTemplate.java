@@ -0,0 +1,71 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula.eval.forked;
+
+import java.util.Collection;
+
+import org.apache.poi.ss.formula.udf.UDFFinder;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+
+/**
+ * An immutable, evaluated copy of a workbook, which is shared by many {@link ForkedEvaluator}s
+ * evaluating the workbook concurrently with different values of a known set of input cells.<p/>
+ *
+ * When the template is created, the cells of the workbook are copied and all formula cells, which
+ * don't depend on the input cells, are evaluated once.  The evaluators created by
+ * {@link #createEvaluator()} only evaluate the formulas depending on the inputs, with the values
+ * set by {@link ForkedEvaluator#updateCell(String, int, int, org.apache.poi.ss.formula.eval.ValueEval)}.
+ * Cells, which are not input cells, must not be updated.<p/>
+ *
+ * The template can be used from many threads, each evaluator by one thread at a time.  The
+ * workbook must not be modified as long as the template is used, because names and external
+ * references are still resolved by the workbook.
+ *
+ * @since POI 3.17 beta 1
+ */
+public final class ForkedEvaluationTemplate {
+
+    private final TemplateEvaluationWorkbook _templateBook;
+    private final UDFFinder _udfFinder;
+
+    private ForkedEvaluationTemplate(TemplateEvaluationWorkbook templateBook, UDFFinder udfFinder) {
+        _templateBook = templateBook;
+        _udfFinder = udfFinder;
+    }
+
+    /**
+     * Copies and evaluates the workbook.  Missing input cells are created blank in the copy.
+     *
+     * @param wb the workbook to evaluate
+     * @param inputCells the cells, which are set by the evaluators, with the names of their sheets
+     * @param udfFinder pass <code>null</code> for default (AnalysisToolPak only)
+     */
+    public static ForkedEvaluationTemplate create(Workbook wb, Collection<CellReference> inputCells, UDFFinder udfFinder) {
+        TemplateEvaluationWorkbook templateBook = new TemplateEvaluationWorkbook(
+                wb, ForkedEvaluator.createEvaluationWorkbook(wb), inputCells, udfFinder);
+        return new ForkedEvaluationTemplate(templateBook, udfFinder);
+    }
+
+    /**
+     * @return a new evaluator with the values of the template, for the exclusive use by one thread at a time
+     */
+    public ForkedEvaluator createEvaluator() {
+        return new ForkedEvaluator(_templateBook, _templateBook, _udfFinder);
+    }
+}
@@ -42,17 +42,19 @@ import org.apache.poi.ss.usermodel.Workbook;
  * This class enables a 'master workbook' to be loaded just once and shared between many evaluation
  * clients.  Each evaluation client creates its own {@link ForkedEvaluator} and can set cell values
  * that will be used for local evaluations (and don't disturb evaluations on other evaluators).
+ * If the input cells are known in advance, a {@link ForkedEvaluationTemplate} evaluates the
+ * formulas, which don't depend on them, just once for all clients.
  */
 public final class ForkedEvaluator {
 
 	private WorkbookEvaluator _evaluator;
 	private ForkedEvaluationWorkbook _sewb;
 
-	private ForkedEvaluator(EvaluationWorkbook masterWorkbook, IStabilityClassifier stabilityClassifier, UDFFinder udfFinder) {
+	/* package */ ForkedEvaluator(EvaluationWorkbook masterWorkbook, IStabilityClassifier stabilityClassifier, UDFFinder udfFinder) {
 		_sewb = new ForkedEvaluationWorkbook(masterWorkbook);
 		_evaluator = new WorkbookEvaluator(_sewb, stabilityClassifier, udfFinder);
 	}
-	private static EvaluationWorkbook createEvaluationWorkbook(Workbook wb) {
+	/* package */ static EvaluationWorkbook createEvaluationWorkbook(Workbook wb) {
 		if (wb instanceof HSSFWorkbook) {
 			return HSSFEvaluationWorkbook.create((HSSFWorkbook) wb);
 		} else {
@@ -111,6 +113,9 @@ public final class ForkedEvaluator {
 	 */
 	public ValueEval evaluate(String sheetName, int rowIndex, int columnIndex) {
 		EvaluationCell cell = _sewb.getEvaluationCell(sheetName, rowIndex, columnIndex);
+		if (cell == null) {
+			return null;
+		}
 
 		switch (cell.getCellTypeEnum()) {
 			case BOOLEAN:
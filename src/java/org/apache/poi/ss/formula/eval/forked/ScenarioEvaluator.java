@@ -0,0 +1,181 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula.eval.forked;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.apache.poi.ss.formula.eval.BoolEval;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.udf.UDFFinder;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.TaskUtil;
+
+/**
+ * Evaluates a workbook for many scenarios, like the iterations of a Monte Carlo simulation or
+ * of a sensitivity analysis.  Each scenario is a row of numeric values of the input cells, and
+ * the result of a scenario is a row of the numeric values of the output cells.<p/>
+ *
+ * The formulas, which don't depend on the input cells, are evaluated only once, when the
+ * evaluator is created (see {@link ForkedEvaluationTemplate}).  For each scenario only the
+ * formulas depending on the changed inputs are evaluated, as far as the output cells need them.
+ * The scenarios can be split between several threads.
+ *
+ * @since POI 3.17 beta 1
+ */
+public final class ScenarioEvaluator {
+
+    /** the number of scenarios, which are at least evaluated by the same task */
+    private static final int MIN_SCENARIOS_PER_TASK = 16;
+
+    private final ForkedEvaluationTemplate _template;
+    private final CellReference[] _inputCells;
+    private final CellReference[] _outputCells;
+
+    private ScenarioEvaluator(ForkedEvaluationTemplate template, CellReference[] inputCells, CellReference[] outputCells) {
+        _template = template;
+        _inputCells = inputCells;
+        _outputCells = outputCells;
+    }
+
+    /**
+     * Evaluates the formulas of the workbook, which don't depend on the input cells.  The workbook
+     * must not be modified as long as the evaluator is used.
+     *
+     * @param wb the workbook to evaluate
+     * @param inputCells the cells set by the scenarios, with the names of their sheets
+     * @param outputCells the cells returned for each scenario, with the names of their sheets
+     * @param udfFinder pass <code>null</code> for default (AnalysisToolPak only)
+     */
+    public static ScenarioEvaluator create(Workbook wb, List<CellReference> inputCells,
+            List<CellReference> outputCells, UDFFinder udfFinder) {
+        for (CellReference cr : outputCells) {
+            if (cr.getSheetName() == null) {
+                throw new IllegalArgumentException("The sheet of output cell '" + cr.formatAsString() + "' is missing");
+            }
+        }
+        ForkedEvaluationTemplate template = ForkedEvaluationTemplate.create(wb, inputCells, udfFinder);
+        return new ScenarioEvaluator(template, inputCells.toArray(new CellReference[inputCells.size()]),
+                outputCells.toArray(new CellReference[outputCells.size()]));
+    }
+
+    /**
+     * Evaluates the scenarios one after the other in the current thread
+     *
+     * @param scenarios the values of the input cells by scenario, in the order of the input cells
+     * @return the values of the output cells by scenario, see {@link #evaluate(double[][], Executor, int)}
+     */
+    public double[][] evaluate(double[][] scenarios) {
+        checkScenarios(scenarios);
+        double[][] results = new double[scenarios.length][];
+        evaluate(scenarios, 0, scenarios.length, results);
+        return results;
+    }
+
+    /**
+     * Evaluates the scenarios concurrently on the given executor.  The scenarios are split into
+     * consecutive ranges, which are evaluated by separate tasks.  The results are the same as with
+     * {@link #evaluate(double[][])}, the executor isn't shut down.
+     *
+     * @param scenarios the values of the input cells by scenario, in the order of the input cells
+     * @param executor the executor to evaluate the tasks on
+     * @param parallelism the maximum number of tasks, usually the number of threads of the executor
+     * @return the values of the output cells by scenario, in the order of the output cells.  Numbers
+     *  are returned as they are, booleans as 1 or 0, blank cells as 0, errors and strings as
+     *  {@link Double#NaN}.
+     */
+    public double[][] evaluate(final double[][] scenarios, Executor executor, int parallelism) {
+        checkScenarios(scenarios);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be positive");
+        }
+        final double[][] results = new double[scenarios.length][];
+        int nTasks = Math.max(1, Math.min(parallelism, scenarios.length / MIN_SCENARIOS_PER_TASK));
+        List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(nTasks);
+        for (int i = 0; i < nTasks; i++) {
+            final int from = (int)((long)scenarios.length * i / nTasks);
+            final int to = (int)((long)scenarios.length * (i + 1) / nTasks);
+            FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    evaluate(scenarios, from, to, results);
+                    return null;
+                }
+            });
+            tasks.add(task);
+            executor.execute(task);
+        }
+        TaskUtil.awaitAll(tasks);
+        return results;
+    }
+
+    private void checkScenarios(double[][] scenarios) {
+        for (int s = 0; s < scenarios.length; s++) {
+            if (scenarios[s].length != _inputCells.length) {
+                throw new IllegalArgumentException("Scenario " + s + " has " + scenarios[s].length
+                        + " values instead of " + _inputCells.length);
+            }
+        }
+    }
+
+    /**
+     * Evaluates a range of scenarios with one evaluator, which keeps the values not changed by
+     * the inputs between the scenarios
+     */
+    private void evaluate(double[][] scenarios, int from, int to, double[][] results) {
+        ForkedEvaluator evaluator = _template.createEvaluator();
+        double[] previousInputs = null;
+        for (int s = from; s < to; s++) {
+            double[] inputs = scenarios[s];
+            for (int i = 0; i < _inputCells.length; i++) {
+                if (previousInputs != null
+                        && Double.doubleToLongBits(previousInputs[i]) == Double.doubleToLongBits(inputs[i])) {
+                    // only the formulas depending on the changed inputs are evaluated again
+                    continue;
+                }
+                CellReference cr = _inputCells[i];
+                evaluator.updateCell(cr.getSheetName(), cr.getRow(), cr.getCol(), new NumberEval(inputs[i]));
+            }
+            double[] outputs = new double[_outputCells.length];
+            for (int o = 0; o < _outputCells.length; o++) {
+                CellReference cr = _outputCells[o];
+                outputs[o] = toDouble(evaluator.evaluate(cr.getSheetName(), cr.getRow(), cr.getCol()));
+            }
+            results[s] = outputs;
+            previousInputs = inputs;
+        }
+    }
+
+    private static double toDouble(ValueEval value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof NumberEval) {
+            return ((NumberEval)value).getNumberValue();
+        }
+        if (value instanceof BoolEval) {
+            return ((BoolEval)value).getBooleanValue() ? 1 : 0;
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,210 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula.eval.forked;
+
+import org.apache.poi.ss.formula.EvaluationCell;
+import org.apache.poi.ss.formula.EvaluationSheet;
+import org.apache.poi.ss.formula.eval.BlankEval;
+import org.apache.poi.ss.formula.eval.BoolEval;
+import org.apache.poi.ss.formula.eval.ErrorEval;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.StringEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.util.Internal;
+
+/**
+ * An immutable copy of a cell of the master workbook in a {@link TemplateEvaluationWorkbook}.
+ * Formula cells, which don't depend on the input cells, are copied with their evaluated value
+ * instead of the formula.<br/>
+ *
+ * For POI internal use only
+ *
+ * @since POI 3.17 beta 1
+ */
+@Internal
+final class TemplateEvaluationCell implements EvaluationCell {
+
+    private final TemplateEvaluationSheet _sheet;
+    private final int _rowIndex;
+    private final int _columnIndex;
+    private final CellType _cellType;
+    /** the cell type, or the cached result type of a formula cell */
+    private final CellType _valueType;
+    private final double _numberValue;
+    private final String _stringValue;
+    private final boolean _booleanValue;
+    private final int _errorValue;
+    /** the tokens of a formula cell, otherwise <code>null</code> */
+    private final Ptg[] _formulaTokens;
+    /** whether the value can't be changed by the inputs of the template */
+    private final boolean _final;
+
+    private TemplateEvaluationCell(TemplateEvaluationSheet sheet, int rowIndex, int columnIndex,
+            CellType cellType, CellType valueType, double numberValue, String stringValue,
+            boolean booleanValue, int errorValue, Ptg[] formulaTokens, boolean isFinal) {
+        _sheet = sheet;
+        _rowIndex = rowIndex;
+        _columnIndex = columnIndex;
+        _cellType = cellType;
+        _valueType = valueType;
+        _numberValue = numberValue;
+        _stringValue = stringValue;
+        _booleanValue = booleanValue;
+        _errorValue = errorValue;
+        _formulaTokens = formulaTokens;
+        _final = isFinal;
+    }
+
+    /**
+     * Copies a cell of the master workbook
+     *
+     * @param formulaTokens the tokens of a formula cell, <code>null</code> for other cells
+     */
+    public static TemplateEvaluationCell copyOf(TemplateEvaluationSheet sheet, EvaluationCell cell,
+            Ptg[] formulaTokens, boolean isFinal) {
+        CellType cellType = cell.getCellTypeEnum();
+        CellType valueType = cellType == CellType.FORMULA ? cell.getCachedFormulaResultTypeEnum() : cellType;
+        double numberValue = 0;
+        String stringValue = null;
+        boolean booleanValue = false;
+        int errorValue = 0;
+        switch (valueType) {
+            case NUMERIC: numberValue = cell.getNumericCellValue(); break;
+            case STRING:  stringValue = cell.getStringCellValue();  break;
+            case BOOLEAN: booleanValue = cell.getBooleanCellValue(); break;
+            case ERROR:   errorValue = cell.getErrorCellValue();    break;
+            default: break;
+        }
+        return new TemplateEvaluationCell(sheet, cell.getRowIndex(), cell.getColumnIndex(), cellType, valueType,
+                numberValue, stringValue, booleanValue, errorValue, formulaTokens, isFinal);
+    }
+
+    /**
+     * Creates a plain value cell, for the evaluated value of a formula cell or for a missing input cell
+     *
+     * @param value a number, string, boolean, error or blank value
+     */
+    public static TemplateEvaluationCell valueOf(TemplateEvaluationSheet sheet, int rowIndex, int columnIndex,
+            ValueEval value, boolean isFinal) {
+        Class<? extends ValueEval> cls = value.getClass();
+        if (cls == NumberEval.class) {
+            return new TemplateEvaluationCell(sheet, rowIndex, columnIndex, CellType.NUMERIC, CellType.NUMERIC,
+                    ((NumberEval)value).getNumberValue(), null, false, 0, null, isFinal);
+        }
+        if (cls == StringEval.class) {
+            return new TemplateEvaluationCell(sheet, rowIndex, columnIndex, CellType.STRING, CellType.STRING,
+                    0, ((StringEval)value).getStringValue(), false, 0, null, isFinal);
+        }
+        if (cls == BoolEval.class) {
+            return new TemplateEvaluationCell(sheet, rowIndex, columnIndex, CellType.BOOLEAN, CellType.BOOLEAN,
+                    0, null, ((BoolEval)value).getBooleanValue(), 0, null, isFinal);
+        }
+        if (cls == ErrorEval.class) {
+            return new TemplateEvaluationCell(sheet, rowIndex, columnIndex, CellType.ERROR, CellType.ERROR,
+                    0, null, false, ((ErrorEval)value).getErrorCode(), null, isFinal);
+        }
+        if (cls == BlankEval.class) {
+            return new TemplateEvaluationCell(sheet, rowIndex, columnIndex, CellType.BLANK, CellType.BLANK,
+                    0, null, false, 0, null, isFinal);
+        }
+        throw new IllegalArgumentException("Unexpected value class (" + cls.getName() + ")");
+    }
+
+    public Ptg[] getFormulaTokens() {
+        return _formulaTokens;
+    }
+
+    public boolean isFinal() {
+        return _final;
+    }
+
+    private void checkValueType(CellType expectedType) {
+        if (_valueType != expectedType) {
+            throw new RuntimeException("Wrong data type (" + _valueType + ")");
+        }
+    }
+
+    @Override
+    public Object getIdentityKey() {
+        return this;
+    }
+    @Override
+    public EvaluationSheet getSheet() {
+        return _sheet;
+    }
+    @Override
+    public int getRowIndex() {
+        return _rowIndex;
+    }
+    @Override
+    public int getColumnIndex() {
+        return _columnIndex;
+    }
+    /**
+     * @deprecated 3.15. Will return a {@link CellType} enum in the future.
+     */
+    @Override
+    public int getCellType() {
+        return _cellType.getCode();
+    }
+    /**
+     * @deprecated POI 3.15 beta 3.
+     * Will be deleted when we make the CellType enum transition. See bug 59791.
+     */
+    @Override
+    public CellType getCellTypeEnum() {
+        return _cellType;
+    }
+    @Override
+    public double getNumericCellValue() {
+        checkValueType(CellType.NUMERIC);
+        return _numberValue;
+    }
+    @Override
+    public String getStringCellValue() {
+        checkValueType(CellType.STRING);
+        return _stringValue;
+    }
+    @Override
+    public boolean getBooleanCellValue() {
+        checkValueType(CellType.BOOLEAN);
+        return _booleanValue;
+    }
+    @Override
+    public int getErrorCellValue() {
+        checkValueType(CellType.ERROR);
+        return _errorValue;
+    }
+    /**
+     * @deprecated 3.15. Will return a {@link CellType} enum in the future.
+     */
+    @Override
+    public int getCachedFormulaResultType() {
+        return _valueType.getCode();
+    }
+    /**
+     * @deprecated POI 3.15 beta 3.
+     * Will be deleted when we make the CellType enum transition. See bug 59791.
+     */
+    @Override
+    public CellType getCachedFormulaResultTypeEnum() {
+        return _valueType;
+    }
+}
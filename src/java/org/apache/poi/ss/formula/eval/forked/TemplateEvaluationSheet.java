@@ -0,0 +1,125 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula.eval.forked;
+
+import org.apache.poi.ss.formula.EvaluationSheet;
+import org.apache.poi.util.Internal;
+
+/**
+ * An immutable copy of a sheet of the master workbook in a {@link TemplateEvaluationWorkbook}.
+ * The cells are kept in an array per row, like the cell records of a HSSF sheet.  They are
+ * only set while the template is created.<br/>
+ *
+ * For POI internal use only
+ *
+ * @since POI 3.17 beta 1
+ */
+@Internal
+final class TemplateEvaluationSheet implements EvaluationSheet {
+
+    private static final TemplateEvaluationCell[] EMPTY_ROW = { };
+
+    private final int _sheetIndex;
+    private TemplateEvaluationCell[][] _rows;
+
+    /**
+     * @param lastRowNum the last row index of the master sheet, -1 if it has no rows
+     */
+    public TemplateEvaluationSheet(int sheetIndex, int lastRowNum) {
+        _sheetIndex = sheetIndex;
+        _rows = new TemplateEvaluationCell[lastRowNum + 1][];
+    }
+
+    public int getSheetIndex() {
+        return _sheetIndex;
+    }
+
+    /**
+     * Only called while the template is created, before the cells of the row are set
+     *
+     * @param lastCellNum the last cell index of the master row plus one
+     */
+    /* package */ void createRow(int rowIndex, int lastCellNum) {
+        _rows[rowIndex] = new TemplateEvaluationCell[lastCellNum];
+    }
+
+    /**
+     * Only called while the template is created.  The arrays grow as needed, but usually the
+     * rows have been created with the right size already.
+     */
+    /* package */ void setCell(TemplateEvaluationCell cell) {
+        int rowIndex = cell.getRowIndex();
+        int columnIndex = cell.getColumnIndex();
+        if (rowIndex >= _rows.length) {
+            TemplateEvaluationCell[][] rows = new TemplateEvaluationCell[rowIndex + 1][];
+            System.arraycopy(_rows, 0, rows, 0, _rows.length);
+            _rows = rows;
+        }
+        TemplateEvaluationCell[] row = _rows[rowIndex];
+        if (row == null) {
+            row = EMPTY_ROW;
+        }
+        if (columnIndex >= row.length) {
+            TemplateEvaluationCell[] newRow = new TemplateEvaluationCell[columnIndex + 1];
+            System.arraycopy(row, 0, newRow, 0, row.length);
+            row = newRow;
+            _rows[rowIndex] = row;
+        }
+        row[columnIndex] = cell;
+    }
+
+    @Override
+    public TemplateEvaluationCell getCell(int rowIndex, int columnIndex) {
+        if (rowIndex < 0 || rowIndex >= _rows.length) {
+            return null;
+        }
+        TemplateEvaluationCell[] row = _rows[rowIndex];
+        if (row == null || columnIndex < 0 || columnIndex >= row.length) {
+            return null;
+        }
+        return row[columnIndex];
+    }
+
+    /* (non-Javadoc)
+     * @since POI 3.17 beta 1
+     */
+    @Override
+    public int getLastRowNum() {
+        return _rows.length - 1;
+    }
+
+    /* (non-Javadoc)
+     * @since POI 3.17 beta 1
+     */
+    @Override
+    public int getLastCellNum(int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= _rows.length || _rows[rowIndex] == null) {
+            return 0;
+        }
+        return _rows[rowIndex].length;
+    }
+
+    /* (non-Javadoc)
+     * the template is immutable, so nothing is cached
+     * @see org.apache.poi.ss.formula.EvaluationSheet#clearAllCachedResultValues()
+     */
+    @Override
+    public void clearAllCachedResultValues() {
+        // nothing to do
+    }
+}
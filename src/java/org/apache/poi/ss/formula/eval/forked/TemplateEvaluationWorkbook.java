@@ -0,0 +1,387 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula.eval.forked;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.formula.EvaluationCell;
+import org.apache.poi.ss.formula.EvaluationName;
+import org.apache.poi.ss.formula.EvaluationSheet;
+import org.apache.poi.ss.formula.EvaluationWorkbook;
+import org.apache.poi.ss.formula.IStabilityClassifier;
+import org.apache.poi.ss.formula.WorkbookEvaluator;
+import org.apache.poi.ss.formula.eval.BlankEval;
+import org.apache.poi.ss.formula.eval.BoolEval;
+import org.apache.poi.ss.formula.eval.ErrorEval;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.StringEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.ptg.FuncVarPtg;
+import org.apache.poi.ss.formula.ptg.NamePtg;
+import org.apache.poi.ss.formula.ptg.NameXPtg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.udf.UDFFinder;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.Internal;
+
+/**
+ * An immutable copy of the master workbook, which is shared by the evaluators of a
+ * {@link ForkedEvaluationTemplate}.  The cells are copied, and the formula cells, which don't
+ * depend on the input cells, are replaced by their values, when the template is created.  The
+ * remaining operations, like resolving names and external references, are delegated to the
+ * master workbook one thread at a time.<br/>
+ *
+ * Apart from the input cells and the formula cells depending on them, all cells are final for
+ * the evaluators.<br/>
+ *
+ * For POI internal use only
+ *
+ * @since POI 3.17 beta 1
+ */
+@Internal
+final class TemplateEvaluationWorkbook implements EvaluationWorkbook, IStabilityClassifier {
+
+    private final EvaluationWorkbook _masterBook;
+    private final TemplateEvaluationSheet[] _sheets;
+    private final String[] _sheetNames;
+    private final SpreadsheetVersion _spreadsheetVersion;
+    /** the resolved names by name index, guarded by the master workbook */
+    private final Map<Integer, EvaluationName> _namesByIndex;
+
+    /**
+     * Copies the master workbook and evaluates the formula cells, which don't depend on the inputs
+     *
+     * @param wb the master workbook
+     * @param masterBook the evaluation workbook of the master workbook
+     * @param inputCells the cells, which are changed by the evaluators, with the names of their sheets
+     * @param udfFinder the user defined functions, <code>null</code> for the default ones
+     */
+    public TemplateEvaluationWorkbook(Workbook wb, EvaluationWorkbook masterBook,
+            Collection<CellReference> inputCells, UDFFinder udfFinder) {
+        _masterBook = masterBook;
+        _spreadsheetVersion = masterBook.getSpreadsheetVersion();
+        _namesByIndex = new HashMap<Integer, EvaluationName>();
+
+        int nSheets = wb.getNumberOfSheets();
+        _sheets = new TemplateEvaluationSheet[nSheets];
+        _sheetNames = new String[nSheets];
+        for (int i = 0; i < nSheets; i++) {
+            _sheetNames[i] = masterBook.getSheetName(i);
+        }
+
+        Set<Long> inputKeys = new HashSet<Long>();
+        for (CellReference cr : inputCells) {
+            inputKeys.add(Long.valueOf(getCellKey(getInputSheetIndex(cr), cr.getRow(), cr.getCol())));
+        }
+        WorkbookEvaluator evaluator = new WorkbookEvaluator(masterBook, null, udfFinder);
+        Set<Long> dependentKeys = new HashSet<Long>();
+        for (CellReference cr : evaluator.getDependents(wb, inputCells)) {
+            dependentKeys.add(Long.valueOf(getCellKey(getSheetIndex(cr.getSheetName()), cr.getRow(), cr.getCol())));
+        }
+
+        for (int sheetIndex = 0; sheetIndex < nSheets; sheetIndex++) {
+            Sheet sheet = wb.getSheetAt(sheetIndex);
+            EvaluationSheet masterSheet = masterBook.getSheet(sheetIndex);
+            TemplateEvaluationSheet templateSheet = new TemplateEvaluationSheet(sheetIndex, masterSheet.getLastRowNum());
+            _sheets[sheetIndex] = templateSheet;
+            for (Row row : sheet) {
+                int rowIndex = row.getRowNum();
+                templateSheet.createRow(rowIndex, masterSheet.getLastCellNum(rowIndex));
+                for (Cell c : row) {
+                    EvaluationCell cell = masterSheet.getCell(rowIndex, c.getColumnIndex());
+                    if (cell == null) {
+                        continue;
+                    }
+                    Long key = Long.valueOf(getCellKey(sheetIndex, rowIndex, cell.getColumnIndex()));
+                    boolean isVariable = inputKeys.contains(key) || dependentKeys.contains(key);
+                    templateSheet.setCell(copyCell(templateSheet, cell, isVariable, evaluator));
+                }
+            }
+        }
+
+        // the missing input cells are created blank, so that the evaluators can update them
+        for (CellReference cr : inputCells) {
+            TemplateEvaluationSheet sheet = _sheets[getInputSheetIndex(cr)];
+            if (sheet.getCell(cr.getRow(), cr.getCol()) == null) {
+                sheet.setCell(TemplateEvaluationCell.valueOf(sheet, cr.getRow(), cr.getCol(), BlankEval.instance, false));
+            }
+        }
+    }
+
+    private int getInputSheetIndex(CellReference cr) {
+        if (cr.getSheetName() == null) {
+            throw new IllegalArgumentException("The sheet of input cell '" + cr.formatAsString() + "' is missing");
+        }
+        int sheetIndex = _masterBook.getSheetIndex(cr.getSheetName());
+        if (sheetIndex < 0) {
+            throw new IllegalArgumentException("Sheet '" + cr.getSheetName() + "' of input cell does not exist");
+        }
+        return sheetIndex;
+    }
+
+    private static long getCellKey(int sheetIndex, int rowIndex, int columnIndex) {
+        return ((long)sheetIndex << 40) | ((long)rowIndex << 16) | columnIndex;
+    }
+
+    /**
+     * Copies a cell of the master workbook.  Formula cells, which don't depend on the inputs,
+     * are copied as their value, apart from SUBTOTAL formulas, which are recognized by the
+     * functions referring to them, and formulas, which can't be evaluated.
+     *
+     * @param isVariable whether the cell is an input cell or depends on one
+     */
+    private TemplateEvaluationCell copyCell(TemplateEvaluationSheet sheet, EvaluationCell cell,
+            boolean isVariable, WorkbookEvaluator evaluator) {
+        if (cell.getCellTypeEnum() != CellType.FORMULA) {
+            return TemplateEvaluationCell.copyOf(sheet, cell, null, !isVariable);
+        }
+        Ptg[] ptgs;
+        try {
+            ptgs = _masterBook.getFormulaTokens(cell);
+        } catch (RuntimeException e) {
+            // left to fail again, when the evaluators get the tokens from the master workbook
+            return TemplateEvaluationCell.copyOf(sheet, cell, null, !isVariable);
+        }
+        if (isVariable || isSubTotal(ptgs)) {
+            return TemplateEvaluationCell.copyOf(sheet, cell, ptgs, !isVariable);
+        }
+        ValueEval value;
+        try {
+            value = evaluator.evaluate(cell);
+        } catch (RuntimeException e) {
+            return TemplateEvaluationCell.copyOf(sheet, cell, ptgs, true);
+        }
+        Class<? extends ValueEval> cls = value.getClass();
+        if (cls == NumberEval.class || cls == StringEval.class || cls == BoolEval.class || cls == ErrorEval.class) {
+            return TemplateEvaluationCell.valueOf(sheet, cell.getRowIndex(), cell.getColumnIndex(), value, true);
+        }
+        return TemplateEvaluationCell.copyOf(sheet, cell, ptgs, true);
+    }
+
+    private static boolean isSubTotal(Ptg[] ptgs) {
+        for (Ptg ptg : ptgs) {
+            if (ptg instanceof FuncVarPtg && "SUBTOTAL".equals(((FuncVarPtg)ptg).getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isCellFinal(int sheetIndex, int rowIndex, int columnIndex) {
+        TemplateEvaluationCell cell = _sheets[sheetIndex].getCell(rowIndex, columnIndex);
+        // missing cells are blank for good, because all input cells exist
+        return cell == null || cell.isFinal();
+    }
+
+    @Override
+    public String getSheetName(int sheetIndex) {
+        return _sheetNames[sheetIndex];
+    }
+
+    @Override
+    public int getSheetIndex(EvaluationSheet sheet) {
+        if (sheet instanceof TemplateEvaluationSheet) {
+            return ((TemplateEvaluationSheet)sheet).getSheetIndex();
+        }
+        return -1;
+    }
+
+    @Override
+    public int getSheetIndex(String sheetName) {
+        synchronized (_masterBook) {
+            return _masterBook.getSheetIndex(sheetName);
+        }
+    }
+
+    @Override
+    public EvaluationSheet getSheet(int sheetIndex) {
+        return _sheets[sheetIndex];
+    }
+
+    @Override
+    public ExternalSheet getExternalSheet(int externSheetIndex) {
+        synchronized (_masterBook) {
+            return _masterBook.getExternalSheet(externSheetIndex);
+        }
+    }
+
+    @Override
+    public ExternalSheet getExternalSheet(String firstSheetName, String lastSheetName, int externalWorkbookNumber) {
+        synchronized (_masterBook) {
+            return _masterBook.getExternalSheet(firstSheetName, lastSheetName, externalWorkbookNumber);
+        }
+    }
+
+    @Override
+    public int convertFromExternSheetIndex(int externSheetIndex) {
+        synchronized (_masterBook) {
+            return _masterBook.convertFromExternSheetIndex(externSheetIndex);
+        }
+    }
+
+    @Override
+    public ExternalName getExternalName(int externSheetIndex, int externNameIndex) {
+        synchronized (_masterBook) {
+            return _masterBook.getExternalName(externSheetIndex, externNameIndex);
+        }
+    }
+
+    @Override
+    public ExternalName getExternalName(String nameName, String sheetName, int externalWorkbookNumber) {
+        synchronized (_masterBook) {
+            return _masterBook.getExternalName(nameName, sheetName, externalWorkbookNumber);
+        }
+    }
+
+    @Override
+    public EvaluationName getName(NamePtg namePtg) {
+        synchronized (_masterBook) {
+            Integer index = Integer.valueOf(namePtg.getIndex());
+            EvaluationName result = _namesByIndex.get(index);
+            if (result == null) {
+                EvaluationName name = _masterBook.getName(namePtg);
+                if (name == null) {
+                    return null;
+                }
+                result = new TemplateEvaluationName(name);
+                _namesByIndex.put(index, result);
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public EvaluationName getName(String name, int sheetIndex) {
+        synchronized (_masterBook) {
+            EvaluationName result = _masterBook.getName(name, sheetIndex);
+            return result == null ? null : new TemplateEvaluationName(result);
+        }
+    }
+
+    @Override
+    public String resolveNameXText(NameXPtg ptg) {
+        synchronized (_masterBook) {
+            return _masterBook.resolveNameXText(ptg);
+        }
+    }
+
+    @Override
+    public Ptg[] getFormulaTokens(EvaluationCell cell) {
+        TemplateEvaluationCell templateCell = (TemplateEvaluationCell)cell;
+        Ptg[] result = templateCell.getFormulaTokens();
+        if (result != null) {
+            return result;
+        }
+        // the tokens couldn't be read, when the template was created
+        synchronized (_masterBook) {
+            EvaluationSheet masterSheet = _masterBook.getSheet(getSheetIndex(cell.getSheet()));
+            return _masterBook.getFormulaTokens(masterSheet.getCell(cell.getRowIndex(), cell.getColumnIndex()));
+        }
+    }
+
+    @Override
+    public UDFFinder getUDFFinder() {
+        return _masterBook.getUDFFinder();
+    }
+
+    @Override
+    public SpreadsheetVersion getSpreadsheetVersion() {
+        return _spreadsheetVersion;
+    }
+
+    /* (non-Javadoc)
+     * the template is immutable, so nothing is cached
+     * @see org.apache.poi.ss.formula.EvaluationWorkbook#clearAllCachedResultValues()
+     */
+    @Override
+    public void clearAllCachedResultValues() {
+        // nothing to do
+    }
+
+    /**
+     * A copy of a name of the master workbook, whose definition is resolved once
+     */
+    private final class TemplateEvaluationName implements EvaluationName {
+        private final EvaluationName _masterName;
+        private final String _nameText;
+        private final boolean _isFunctionName;
+        private final boolean _hasFormula;
+        private final boolean _isRange;
+        private final Ptg[] _nameDefinition;
+
+        /**
+         * Called with the lock of the master workbook
+         */
+        public TemplateEvaluationName(EvaluationName masterName) {
+            _masterName = masterName;
+            _nameText = masterName.getNameText();
+            _isFunctionName = masterName.isFunctionName();
+            _hasFormula = masterName.hasFormula();
+            _isRange = masterName.isRange();
+            _nameDefinition = _hasFormula && !_isFunctionName ? masterName.getNameDefinition() : null;
+        }
+
+        @Override
+        public String getNameText() {
+            return _nameText;
+        }
+
+        @Override
+        public boolean isFunctionName() {
+            return _isFunctionName;
+        }
+
+        @Override
+        public boolean hasFormula() {
+            return _hasFormula;
+        }
+
+        @Override
+        public Ptg[] getNameDefinition() {
+            if (_nameDefinition != null) {
+                return _nameDefinition;
+            }
+            synchronized (_masterBook) {
+                return _masterName.getNameDefinition();
+            }
+        }
+
+        @Override
+        public boolean isRange() {
+            return _isRange;
+        }
+
+        @Override
+        public NamePtg createPtg() {
+            synchronized (_masterBook) {
+                return _masterName.createPtg();
+            }
+        }
+    }
+}
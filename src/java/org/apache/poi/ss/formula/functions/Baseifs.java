@@ -19,13 +19,16 @@
 
 package org.apache.poi.ss.formula.functions;
 
+import org.apache.poi.ss.formula.ColumnarValues;
 import org.apache.poi.ss.formula.OperationEvaluationContext;
 import org.apache.poi.ss.formula.eval.AreaEval;
+import org.apache.poi.ss.formula.eval.BlankEval;
 import org.apache.poi.ss.formula.eval.ErrorEval;
 import org.apache.poi.ss.formula.eval.EvaluationException;
 import org.apache.poi.ss.formula.eval.NumberEval;
 import org.apache.poi.ss.formula.eval.RefEval;
 import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.functions.CountUtils.I_MatchColumnarPredicate;
 import org.apache.poi.ss.formula.functions.CountUtils.I_MatchPredicate;
 import org.apache.poi.ss.formula.functions.Countif.ErrorMatcher;
 
@@ -123,6 +126,18 @@ import org.apache.poi.ss.formula.functions.Countif.ErrorMatcher;
      * @return the computed value
      */
     private static double aggregateMatchingCells(AreaEval sumRange, AreaEval[] ranges, I_MatchPredicate[] predicates) {
+        for (I_MatchPredicate mp : predicates) {
+            // Bugs 60858 and 56420 show predicate can be null
+            if (mp == null) {
+                return 0.0;
+            }
+        }
+        ColumnarValues[] values = getColumnarValues(ranges, predicates);
+        ColumnarValues sumValues = (values == null || sumRange == null) ? null : CountUtils.getColumnarValues(sumRange);
+        if (values != null && (sumRange == null || sumValues != null)) {
+            return aggregateMatchingValues(sumValues, values, predicates);
+        }
+
         int height = ranges[0].getHeight();
         int width = ranges[0].getWidth();
 
@@ -135,8 +150,7 @@ import org.apache.poi.ss.formula.functions.Countif.ErrorMatcher;
                     AreaEval aeRange = ranges[i];
                     I_MatchPredicate mp = predicates[i];
 
-                    // Bugs 60858 and 56420 show predicate can be null
-                    if (mp == null || !mp.matches(aeRange.getRelativeValue(r, c))) {
+                    if (!mp.matches(aeRange.getRelativeValue(r, c))) {
                         matches = false;
                         break;
                     }
@@ -151,6 +165,76 @@ import org.apache.poi.ss.formula.functions.Countif.ErrorMatcher;
         return result;
     }
 
+    /**
+     * @return the values of all criteria ranges, or <code>null</code> if not all predicates or
+     *  ranges support this
+     */
+    private static ColumnarValues[] getColumnarValues(AreaEval[] ranges, I_MatchPredicate[] predicates) {
+        ColumnarValues[] result = new ColumnarValues[ranges.length];
+        for (int i = 0; i < ranges.length; i++) {
+            if (!(predicates[i] instanceof I_MatchColumnarPredicate)) {
+                return null;
+            }
+            result[i] = CountUtils.getColumnarValues(ranges[i]);
+            if (result[i] == null) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Same as the cell by cell aggregation, with the values of all ranges copied to primitive arrays
+     *
+     * @param sumValues  the values to sum, if used (uses 1 for each match if not present)
+     * @param values  the values of the criteria ranges
+     * @param predicates  the predicates of the criteria ranges
+     */
+    private static double aggregateMatchingValues(ColumnarValues sumValues, ColumnarValues[] values, I_MatchPredicate[] predicates) {
+        I_MatchColumnarPredicate[] columnarPredicates = new I_MatchColumnarPredicate[predicates.length];
+        for (int i = 0; i < predicates.length; i++) {
+            columnarPredicates[i] = (I_MatchColumnarPredicate)predicates[i];
+        }
+        int size = values[0].getSize();
+        // after the populated values all values are blank
+        int populatedSize = 0;
+        if (sumValues != null) {
+            populatedSize = sumValues.getPopulatedSize();
+        } else {
+            for (int i = 0; i < values.length; i++) {
+                populatedSize = Math.max(populatedSize, values[i].getPopulatedSize());
+            }
+        }
+
+        double result = 0.0;
+        if (sumValues == null && populatedSize < size) {
+            boolean blankMatches = true;
+            for (int i = 0; i < predicates.length; i++) {
+                blankMatches &= predicates[i].matches(BlankEval.instance);
+            }
+            if (blankMatches) {
+                result += size - populatedSize;
+            }
+        }
+        for (int j = 0; j < populatedSize; j++) {
+            boolean matches = true;
+            for (int i = 0; i < values.length; i++) {
+                if (!columnarPredicates[i].matches(values[i], j)) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) {
+                if (sumValues == null) {
+                    result += 1.0;
+                } else if (sumValues.getType(j) == ColumnarValues.TYPE_NUMBER) {
+                    result += sumValues.getNumber(j);
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * For counts, this would return 1, for sums it returns a cell value or zero.
      * This is only called after all the criteria are confirmed true for the coordinates.
@@ -17,8 +17,12 @@
 
 package org.apache.poi.ss.formula.functions;
 
+import org.apache.poi.ss.formula.ColumnarValues;
+import org.apache.poi.ss.formula.IndexedTwoDEval;
+import org.apache.poi.ss.formula.SparseAreaEval;
 import org.apache.poi.ss.formula.ThreeDEval;
 import org.apache.poi.ss.formula.TwoDEval;
+import org.apache.poi.ss.formula.eval.BlankEval;
 import org.apache.poi.ss.formula.eval.RefEval;
 import org.apache.poi.ss.formula.eval.ValueEval;
 
@@ -42,6 +46,23 @@ final class CountUtils {
     public interface I_MatchAreaPredicate extends I_MatchPredicate {
         boolean matches(TwoDEval x, int rowIndex, int columnIndex);
     }
+    /**
+     * Criteria, which can also match the values of large areas copied to primitive arrays.
+     */
+    public interface I_MatchColumnarPredicate extends I_MatchPredicate {
+        boolean matches(ColumnarValues values, int index);
+    }
+
+    /**
+     * @return the values of the area (of the first sheet of a 3D area),
+     * or <code>null</code> if they are not available
+     */
+    public static ColumnarValues getColumnarValues(TwoDEval areaEval) {
+        if (areaEval instanceof IndexedTwoDEval) {
+            return ((IndexedTwoDEval)areaEval).getColumnarValues();
+        }
+        return null;
+    }
 
     /**
      * @return the number of evaluated cells in the range that match the specified criteria
@@ -49,13 +70,48 @@ final class CountUtils {
     public static int countMatchingCellsInArea(ThreeDEval areaEval, I_MatchPredicate criteriaPredicate) {
         int result = 0;
 
+        if (criteriaPredicate instanceof I_MatchColumnarPredicate
+                && !(criteriaPredicate instanceof I_MatchAreaPredicate)
+                && areaEval.getFirstSheetIndex() == areaEval.getLastSheetIndex()) {
+            ColumnarValues values = getColumnarValues(areaEval);
+            if (values != null) {
+                I_MatchColumnarPredicate columnarPredicate = (I_MatchColumnarPredicate)criteriaPredicate;
+                int populatedSize = values.getPopulatedSize();
+                for (int i = 0; i < populatedSize; i++) {
+                    if (columnarPredicate.matches(values, i)) {
+                        result++;
+                    }
+                }
+                if (criteriaPredicate.matches(BlankEval.instance)) {
+                    result += values.getSize() - populatedSize;
+                }
+                return result;
+            }
+        }
+
+        // the blank cells outside the populated part of the sheet are counted without reading them
+        boolean blankMatches = criteriaPredicate.matches(BlankEval.instance);
+        SparseAreaEval sparseEval = null;
+        if (areaEval instanceof SparseAreaEval
+                && !(blankMatches && criteriaPredicate instanceof I_MatchAreaPredicate)) {
+            sparseEval = (SparseAreaEval)areaEval;
+        }
+
         final int firstSheetIndex = areaEval.getFirstSheetIndex();
         final int lastSheetIndex = areaEval.getLastSheetIndex();
         for (int sIx = firstSheetIndex; sIx <= lastSheetIndex; sIx++) {
             int height = areaEval.getHeight();
             int width = areaEval.getWidth();
-            for (int rrIx=0; rrIx<height; rrIx++) {
-                for (int rcIx=0; rcIx<width; rcIx++) {
+            int populatedHeight = sparseEval == null ? height : sparseEval.getPopulatedHeight(sIx);
+            if (blankMatches) {
+                result += (height - populatedHeight) * width;
+            }
+            for (int rrIx=0; rrIx<populatedHeight; rrIx++) {
+                int populatedWidth = sparseEval == null ? width : sparseEval.getPopulatedWidth(sIx, rrIx);
+                if (blankMatches) {
+                    result += width - populatedWidth;
+                }
+                for (int rcIx=0; rcIx<populatedWidth; rcIx++) {
                     ValueEval ve = areaEval.getValue(sIx, rrIx, rcIx);
     
                     if(criteriaPredicate instanceof I_MatchAreaPredicate){
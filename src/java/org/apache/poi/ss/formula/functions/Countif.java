@@ -17,8 +17,11 @@
 
 package org.apache.poi.ss.formula.functions;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Pattern;
 
+import org.apache.poi.ss.formula.ColumnarValues;
 import org.apache.poi.ss.formula.ThreeDEval;
 import org.apache.poi.ss.formula.eval.BlankEval;
 import org.apache.poi.ss.formula.eval.BoolEval;
@@ -29,6 +32,7 @@ import org.apache.poi.ss.formula.eval.OperandResolver;
 import org.apache.poi.ss.formula.eval.RefEval;
 import org.apache.poi.ss.formula.eval.StringEval;
 import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.functions.CountUtils.I_MatchColumnarPredicate;
 import org.apache.poi.ss.formula.functions.CountUtils.I_MatchPredicate;
 import org.apache.poi.ss.usermodel.FormulaError;
 
@@ -44,6 +48,20 @@ import org.apache.poi.ss.usermodel.FormulaError;
  */
 public final class Countif extends Fixed2ArgFunction {
 
+    private static final int CRITERIA_CACHE_SIZE = 1000;
+
+    /**
+     * The most recently used string criteria and their (immutable) predicates
+     */
+    @SuppressWarnings("serial")
+    private static final Map<String, I_MatchPredicate> _criteriaCache =
+            new LinkedHashMap<String, I_MatchPredicate>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, I_MatchPredicate> eldest) {
+            return size() > CRITERIA_CACHE_SIZE;
+        }
+    };
+
     private static final class CmpOp {
         public static final int NONE = 0;
         public static final int EQ = 1;
@@ -148,12 +166,59 @@ public final class Countif extends Fixed2ArgFunction {
         }
     }
 
-    private static abstract class MatcherBase implements I_MatchPredicate {
+    private static abstract class MatcherBase implements I_MatchColumnarPredicate {
         private final CmpOp _operator;
 
         MatcherBase(CmpOp operator) {
             _operator = operator;
         }
+        public final boolean matches(ValueEval x) {
+            if (x instanceof NumberEval) {
+                return matchesNumber(((NumberEval)x).getNumberValue());
+            }
+            if (x instanceof StringEval) {
+                return matchesString(((StringEval)x).getStringValue());
+            }
+            if (x instanceof BoolEval) {
+                return matchesBoolean(((BoolEval)x).getBooleanValue());
+            }
+            if (x instanceof ErrorEval) {
+                return matchesError(((ErrorEval)x).getErrorCode());
+            }
+            if (x instanceof BlankEval) {
+                return matchesBlank();
+            }
+            return false;
+        }
+        public final boolean matches(ColumnarValues values, int index) {
+            switch (values.getType(index)) {
+                case ColumnarValues.TYPE_NUMBER:
+                    return matchesNumber(values.getNumber(index));
+                case ColumnarValues.TYPE_STRING:
+                    return matchesString(values.getString(index));
+                case ColumnarValues.TYPE_BOOLEAN:
+                    return matchesBoolean(values.getBoolean(index));
+                case ColumnarValues.TYPE_ERROR:
+                    return matchesError(values.getErrorCode(index));
+                default:
+                    return matchesBlank();
+            }
+        }
+        protected boolean matchesNumber(double value) {
+            return false;
+        }
+        protected boolean matchesString(String value) {
+            return false;
+        }
+        protected boolean matchesBoolean(boolean value) {
+            return false;
+        }
+        protected boolean matchesError(int errorCode) {
+            return false;
+        }
+        protected boolean matchesBlank() {
+            return false;
+        }
         protected final int getCode() {
             return _operator.getCode();
         }
@@ -189,46 +254,37 @@ public final class Countif extends Fixed2ArgFunction {
         }
 
         @Override
-        public boolean matches(ValueEval x) {
-            double testValue;
-            if(x instanceof StringEval) {
-                // if the target(x) is a string, but parses as a number
-                // it may still count as a match, only for the equality operator
-                switch (getCode()) {
-                    case CmpOp.EQ:
-                    case CmpOp.NONE:
-                        break;
-                    case CmpOp.NE:
-                        // Always matches (inconsistent with above two cases).
-                        // for example '<>123' matches '123', '4', 'abc', etc
-                        return true;
-                    default:
-                        // never matches (also inconsistent with above three cases).
-                        // for example '>5' does not match '6',
-                        return false;
-                }
-                StringEval se = (StringEval)x;
-                Double val = OperandResolver.parseDouble(se.getStringValue());
-                if(val == null) {
-                    // x is text that is not a number
+        protected boolean matchesString(String value) {
+            // if the target is a string, but parses as a number
+            // it may still count as a match, only for the equality operator
+            switch (getCode()) {
+                case CmpOp.EQ:
+                case CmpOp.NONE:
+                    break;
+                case CmpOp.NE:
+                    // Always matches (inconsistent with above two cases).
+                    // for example '<>123' matches '123', '4', 'abc', etc
+                    return true;
+                default:
+                    // never matches (also inconsistent with above three cases).
+                    // for example '>5' does not match '6',
                     return false;
-                }
-                return _value == val.doubleValue();
-            } else if((x instanceof NumberEval)) {
-                NumberEval ne = (NumberEval) x;
-                testValue = ne.getNumberValue();
-            } else if((x instanceof BlankEval)) {
-                switch (getCode()) {
-                    case CmpOp.NE:
-                        // Excel counts blank values in range as not equal to any value. See Bugzilla 51498
-                        return true;
-                    default:
-                        return false;
-                }
-            } else {
+            }
+            Double val = OperandResolver.parseDouble(value);
+            if(val == null) {
+                // the target is text that is not a number
                 return false;
             }
-            return evaluate(Double.compare(testValue, _value));
+            return _value == val.doubleValue();
+        }
+        @Override
+        protected boolean matchesNumber(double value) {
+            return evaluate(Double.compare(value, _value));
+        }
+        @Override
+        protected boolean matchesBlank() {
+            // Excel counts blank values in range as not equal to any value. See Bugzilla 51498
+            return getCode() == CmpOp.NE;
         }
     }
     private static final class BooleanMatcher extends MatcherBase {
@@ -249,43 +305,31 @@ public final class Countif extends Fixed2ArgFunction {
         }
 
         @Override
-        public boolean matches(ValueEval x) {
-            int testValue;
-            if(x instanceof StringEval) {
-                // Note - Unlike with numbers, it seems that COUNTIF never matches
-                // boolean values when the target(x) is a string
-                return false;
-                // uncomment to observe more intuitive behaviour
-                // StringEval se = (StringEval)x;
-                // Boolean val = parseBoolean(se.getStringValue());
-                // if(val == null) {
-                //     // x is text that is not a boolean
-                //     return false;
-                // }
-                // testValue = boolToInt(val.booleanValue());
-            } else if((x instanceof BoolEval)) {
-                BoolEval be = (BoolEval) x;
-                testValue = boolToInt(be.getBooleanValue());
-            } else if((x instanceof BlankEval)) {
-                switch (getCode()) {
-                    case CmpOp.NE:
-                        // Excel counts blank values in range as not equal to any value. See Bugzilla 51498
-                        return true;
-                    default:
-                        return false;
-                }
-            } else if((x instanceof NumberEval)) {
-                switch (getCode()) {
-                    case CmpOp.NE:
-                        // not-equals comparison of a number to boolean always returnes false
-                        return true;
-                    default:
-                        return false;
-                }
-            } else {
-                return false;
-            }
-            return evaluate(testValue - _value);
+        protected boolean matchesString(String value) {
+            // Note - Unlike with numbers, it seems that COUNTIF never matches
+            // boolean values when the target is a string
+            return false;
+            // uncomment to observe more intuitive behaviour
+            // Boolean val = parseBoolean(value);
+            // if(val == null) {
+            //     // the target is text that is not a boolean
+            //     return false;
+            // }
+            // return evaluate(boolToInt(val.booleanValue()) - _value);
+        }
+        @Override
+        protected boolean matchesBoolean(boolean value) {
+            return evaluate(boolToInt(value) - _value);
+        }
+        @Override
+        protected boolean matchesBlank() {
+            // Excel counts blank values in range as not equal to any value. See Bugzilla 51498
+            return getCode() == CmpOp.NE;
+        }
+        @Override
+        protected boolean matchesNumber(double value) {
+            // not-equals comparison of a number to boolean always returnes false
+            return getCode() == CmpOp.NE;
         }
     }
     public static final class ErrorMatcher extends MatcherBase {
@@ -302,12 +346,8 @@ public final class Countif extends Fixed2ArgFunction {
         }
 
         @Override
-        public boolean matches(ValueEval x) {
-            if(x instanceof ErrorEval) {
-                int testValue = ((ErrorEval)x).getErrorCode();
-                return evaluate(testValue - _value);
-            }
-            return false;
+        protected boolean matchesError(int errorCode) {
+            return evaluate(errorCode - _value);
         }
         
         public int getValue() {
@@ -342,27 +382,23 @@ public final class Countif extends Fixed2ArgFunction {
         }
 
         @Override
-        public boolean matches(ValueEval x) {
-            if (x instanceof BlankEval) {
-                switch(getCode()) {
-                    case CmpOp.NONE:
-                    case CmpOp.EQ:
-                        return _value.length() == 0;
-                    case CmpOp.NE:
-                        // pred '<>' matches empty string but not blank cell
-                        // pred '<>ABC'  matches blank and 'not ABC'
-                        return _value.length() != 0;
-                }
-                // no other criteria matches a blank cell
-                return false;
-            }
-            if(!(x instanceof StringEval)) {
-                // must always be string
-                // even if match str is wild, but contains only digits
-                // e.g. '4*7', NumberEval(4567) does not match
-                return false;
+        protected boolean matchesBlank() {
+            switch(getCode()) {
+                case CmpOp.NONE:
+                case CmpOp.EQ:
+                    return _value.length() == 0;
+                case CmpOp.NE:
+                    // pred '<>' matches empty string but not blank cell
+                    // pred '<>ABC'  matches blank and 'not ABC'
+                    return _value.length() != 0;
             }
-            String testedValue = ((StringEval) x).getStringValue();
+            // no other criteria matches a blank cell
+            return false;
+        }
+        @Override
+        protected boolean matchesString(String testedValue) {
+            // other values never match, even if match str is wild, but contains only digits
+            // e.g. '4*7', NumberEval(4567) does not match
             if (testedValue.length() < 1 && _value.length() < 1) {
                 // odd case: criteria '=' behaves differently to criteria ''
 
@@ -501,10 +537,24 @@ public final class Countif extends Fixed2ArgFunction {
         }
     }
     /**
-     * When the second argument is a string, many things are possible
+     * When the second argument is a string, many things are possible.
+     * The parsed criteria are cached, as the same criteria are often used by many formulas.
      */
     private static I_MatchPredicate createGeneralMatchPredicate(StringEval stringEval) {
         String value = stringEval.getStringValue();
+        I_MatchPredicate result;
+        synchronized (_criteriaCache) {
+            result = _criteriaCache.get(value);
+        }
+        if (result == null) {
+            result = parseGeneralMatchPredicate(value);
+            synchronized (_criteriaCache) {
+                _criteriaCache.put(value, result);
+            }
+        }
+        return result;
+    }
+    private static I_MatchPredicate parseGeneralMatchPredicate(String value) {
         CmpOp operator = CmpOp.getOperator(value);
         value = value.substring(operator.getLength());
 
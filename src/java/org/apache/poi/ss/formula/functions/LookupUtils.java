@@ -20,6 +20,8 @@ package org.apache.poi.ss.formula.functions;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.poi.ss.formula.ExactLookupIndex;
+import org.apache.poi.ss.formula.IndexedTwoDEval;
 import org.apache.poi.ss.formula.TwoDEval;
 import org.apache.poi.ss.formula.eval.BlankEval;
 import org.apache.poi.ss.formula.eval.BoolEval;
@@ -73,6 +75,12 @@ final class LookupUtils {
 		public int getSize() {
 			return _size;
 		}
+		public ExactLookupIndex getLookupIndex() {
+			if (!(_tableArray instanceof IndexedTwoDEval)) {
+				return null;
+			}
+			return ((IndexedTwoDEval)_tableArray).getRowLookupIndex(_rowIndex);
+		}
 	}
 
 	private static final class ColumnVector implements ValueVector {
@@ -102,6 +110,12 @@ final class LookupUtils {
 		public int getSize() {
 			return _size;
 		}
+		public ExactLookupIndex getLookupIndex() {
+			if (!(_tableArray instanceof IndexedTwoDEval)) {
+				return null;
+			}
+			return ((IndexedTwoDEval)_tableArray).getColumnLookupIndex(_columnIndex);
+		}
 	}
 
     private static final class SheetVector implements ValueVector {
@@ -480,7 +494,7 @@ final class LookupUtils {
 		if(isRangeLookup) {
 			result = performBinarySearch(vector, lookupComparer);
 		} else {
-			result = lookupIndexOfExactValue(lookupComparer, vector);
+			result = lookupIndexOfExactValue(lookupValue, lookupComparer, vector);
 		}
 		if(result < 0) {
 			throw new EvaluationException(ErrorEval.NA);
@@ -490,14 +504,23 @@ final class LookupUtils {
 
 
 	/**
-	 * Finds first (lowest index) exact occurrence of specified value.
-	 * @param lookupComparer the value to be found in column or row vector
+	 * Finds first (lowest index) exact occurrence of specified value.<p/>
+	 *
+	 * The rows and columns of larger areas are looked up with a hash index, which is cached by the
+	 * evaluator, unless the lookup value contains wildcards.
+	 *
+	 * @param lookupValue the value to be found, already resolved to a single value
+	 * @param lookupComparer the comparer created for <tt>lookupValue</tt>
 	 * @param vector the values to be searched. For VLOOKUP this is the first column of the
 	 * 	tableArray. For HLOOKUP this is the first row of the tableArray.
 	 * @return zero based index into the vector, -1 if value cannot be found
 	 */
-	private static int lookupIndexOfExactValue(LookupValueComparer lookupComparer, ValueVector vector) {
+	static int lookupIndexOfExactValue(ValueEval lookupValue, LookupValueComparer lookupComparer, ValueVector vector) {
 
+		ExactLookupIndex index = getLookupIndex(lookupValue, vector);
+		if (index != null) {
+			return index.indexOf(lookupValue);
+		}
 		// find first occurrence of lookup value
 		int size = vector.getSize();
 		for (int i = 0; i < size; i++) {
@@ -508,6 +531,20 @@ final class LookupUtils {
 		return -1;
 	}
 
+	private static ExactLookupIndex getLookupIndex(ValueEval lookupValue, ValueVector vector) {
+		if (lookupValue instanceof StringEval
+				&& Countif.StringMatcher.getWildCardPattern(((StringEval)lookupValue).getStringValue()) != null) {
+			return null;
+		}
+		if (vector instanceof ColumnVector) {
+			return ((ColumnVector)vector).getLookupIndex();
+		}
+		if (vector instanceof RowVector) {
+			return ((RowVector)vector).getLookupIndex();
+		}
+		return null;
+	}
+
 
 	/**
 	 * Encapsulates some standard binary search functionality so the unusual Excel behaviour can
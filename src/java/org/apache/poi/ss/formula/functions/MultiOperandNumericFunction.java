@@ -17,6 +17,7 @@
 
 package org.apache.poi.ss.formula.functions;
 
+import org.apache.poi.ss.formula.SparseAreaEval;
 import org.apache.poi.ss.formula.ThreeDEval;
 import org.apache.poi.ss.formula.TwoDEval;
 import org.apache.poi.ss.formula.eval.BlankEval;
@@ -143,11 +144,14 @@ public abstract class MultiOperandNumericFunction implements Function {
 	private void collectValues(ValueEval operand, DoubleList temp) throws EvaluationException {
         if (operand instanceof ThreeDEval) {
             ThreeDEval ae = (ThreeDEval) operand;
+            // blank cells outside the populated part of the sheet are skipped, unless they are counted
+            SparseAreaEval sparseEval = (!_isBlankCounted && ae instanceof SparseAreaEval) ? (SparseAreaEval) ae : null;
             for (int sIx=ae.getFirstSheetIndex(); sIx <= ae.getLastSheetIndex(); sIx++) {
                 int width = ae.getWidth();
-                int height = ae.getHeight();
+                int height = sparseEval == null ? ae.getHeight() : sparseEval.getPopulatedHeight(sIx);
                 for (int rrIx=0; rrIx<height; rrIx++) {
-                    for (int rcIx=0; rcIx<width; rcIx++) {
+                    int rowWidth = sparseEval == null ? width : sparseEval.getPopulatedWidth(sIx, rrIx);
+                    for (int rcIx=0; rcIx<rowWidth; rcIx++) {
                         ValueEval ve = ae.getValue(sIx, rrIx, rcIx);
                         if(!isSubtotalCounted() && ae.isSubTotal(rrIx, rcIx)) continue;
                         collectValue(ve, true, temp);
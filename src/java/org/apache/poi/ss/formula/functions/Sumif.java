@@ -17,12 +17,14 @@
 
 package org.apache.poi.ss.formula.functions;
 
+import org.apache.poi.ss.formula.ColumnarValues;
 import org.apache.poi.ss.formula.eval.AreaEval;
 import org.apache.poi.ss.formula.eval.ErrorEval;
 import org.apache.poi.ss.formula.eval.EvaluationException;
 import org.apache.poi.ss.formula.eval.NumberEval;
 import org.apache.poi.ss.formula.eval.RefEval;
 import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.functions.CountUtils.I_MatchColumnarPredicate;
 import org.apache.poi.ss.formula.functions.CountUtils.I_MatchPredicate;
 
 /**
@@ -80,6 +82,13 @@ public final class Sumif extends Var2or3ArgFunction {
 	}
 
 	private static double sumMatchingCells(AreaEval aeRange, I_MatchPredicate mp, AreaEval aeSum) {
+		if (mp instanceof I_MatchColumnarPredicate) {
+			ColumnarValues rangeValues = CountUtils.getColumnarValues(aeRange);
+			ColumnarValues sumValues = rangeValues == null ? null : CountUtils.getColumnarValues(aeSum);
+			if (sumValues != null) {
+				return sumMatchingValues(rangeValues, (I_MatchColumnarPredicate)mp, sumValues);
+			}
+		}
 		int height=aeRange.getHeight();
 		int width= aeRange.getWidth();
 
@@ -92,6 +101,20 @@ public final class Sumif extends Var2or3ArgFunction {
 		return result;
 	}
 
+	private static double sumMatchingValues(ColumnarValues rangeValues, I_MatchColumnarPredicate mp, ColumnarValues sumValues) {
+		// the blank values after the populated ones are not summed
+		int size = Math.min(rangeValues.getSize(), sumValues.getPopulatedSize());
+
+		double result = 0.0;
+		for (int i = 0; i < size; i++) {
+			// everything else than numbers (including string and boolean values) counts as zero
+			if (mp.matches(rangeValues, i) && sumValues.getType(i) == ColumnarValues.TYPE_NUMBER) {
+				result += sumValues.getNumber(i);
+			}
+		}
+		return result;
+	}
+
 	private static double accumulate(AreaEval aeRange, I_MatchPredicate mp, AreaEval aeSum, int relRowIndex,
 			int relColIndex) {
 
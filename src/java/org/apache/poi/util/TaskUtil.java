@@ -0,0 +1,88 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Helpers for the tasks, which are run on a caller supplied {@link java.util.concurrent.Executor}
+ *
+ * @since 3.17-beta1
+ */
+@Internal
+public final class TaskUtil {
+
+    private TaskUtil() {
+        // no instances of this class
+    }
+
+    /**
+     * Waits for all tasks, also if one of them fails, so none is running anymore, when this returns.
+     * The interrupted status of the current thread is restored after waiting.
+     *
+     * @return the results of the tasks, <code>null</code> for <code>null</code> tasks
+     * @throws RuntimeException the first failure of a task, a checked exception is wrapped
+     *  in an {@link IllegalStateException}
+     */
+    public static <T> List<T> awaitAll(List<FutureTask<T>> tasks) {
+        List<T> results = new ArrayList<T>(tasks.size());
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (FutureTask<T> task : tasks) {
+            if (task == null) {
+                results.add(null);
+                continue;
+            }
+            while (true) {
+                try {
+                    results.add(task.get());
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    results.add(null);
+                    break;
+                } catch (CancellationException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                    results.add(null);
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException)failure;
+        } else if (failure instanceof Error) {
+            throw (Error)failure;
+        } else if (failure != null) {
+            throw new IllegalStateException(failure);
+        }
+        return results;
+    }
+}
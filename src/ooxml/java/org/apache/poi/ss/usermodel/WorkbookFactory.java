@@ -36,11 +36,13 @@ import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
 import org.apache.poi.poifs.filesystem.OfficeXmlFileException;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.util.IOUtils;
+import org.apache.poi.xssf.binary.XSSFBWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 /**
  * Factory for creating the appropriate kind of Workbook
- *  (be it {@link HSSFWorkbook} or {@link XSSFWorkbook}),
+ *  (be it {@link HSSFWorkbook}, {@link XSSFWorkbook} or the
+ *  read-only {@link XSSFBWorkbook} for .xlsb files),
  *  by auto-detecting from the supplied input.
  */
 public class WorkbookFactory {
@@ -103,7 +105,8 @@ public class WorkbookFactory {
     }
 
     /**
-     * Creates a XSSFWorkbook from the given OOXML Package
+     * Creates a XSSFWorkbook from the given OOXML Package, or a
+     *  read-only XSSFBWorkbook if the package holds a binary (.xlsb) workbook
      *
      * <p>Note that in order to properly release resources the
      *  Workbook should be closed after use.</p>
@@ -115,6 +118,9 @@ public class WorkbookFactory {
      *  @throws IOException if an error occurs while reading the data
      */
     public static Workbook create(OPCPackage pkg) throws IOException {
+        if (XSSFBWorkbook.isXLSB(pkg)) {
+            return new XSSFBWorkbook(pkg);
+        }
         return new XSSFWorkbook(pkg);
     }
 
@@ -182,7 +188,7 @@ public class WorkbookFactory {
             return create(fs, password);
         }
         if (DocumentFactoryHelper.hasOOXMLHeader(inp)) {
-            return new XSSFWorkbook(OPCPackage.open(inp));
+            return create(OPCPackage.open(inp));
         }
         throw new InvalidFormatException("Your InputStream was neither an OLE2 stream, nor an OOXML stream");
     }
@@ -263,7 +269,7 @@ public class WorkbookFactory {
             // opening as .xls failed => try opening as .xlsx
             OPCPackage pkg = OPCPackage.open(file, readOnly ? PackageAccess.READ : PackageAccess.READ_WRITE); // NOSONAR
             try {
-                return new XSSFWorkbook(pkg);
+                return create(pkg);
             } catch (Exception ioe) {
                 // ensure that file handles are closed - use revert() to not re-write the file
                 pkg.revert();
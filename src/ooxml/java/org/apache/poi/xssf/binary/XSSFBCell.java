@@ -0,0 +1,334 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+
+import org.apache.poi.ss.formula.eval.ErrorEval;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Comment;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.ss.util.CellAddress;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.util.LocaleUtil;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+
+/**
+ * Read-only cell of a {@link XSSFBWorkbook}.
+ * <p>
+ * Instances are created on demand and only point to the cell data
+ * stored in the {@link XSSFBRow}.  Formula cells are returned with
+ * the type of their cached result, as formulas aren't decoded.
+ *
+ * @since 3.17-beta1
+ */
+public class XSSFBCell implements Cell {
+    private static final String FALSE_AS_STRING = "FALSE";
+    private static final String TRUE_AS_STRING  = "TRUE";
+
+    private final XSSFBRow row;
+    //index into the cell arrays of the row, -1 for a missing cell
+    private final int idx;
+    private final int column;
+
+    XSSFBCell(XSSFBRow row, int idx, int column) {
+        this.row = row;
+        this.idx = idx;
+        this.column = column;
+    }
+
+    @Override
+    public int getColumnIndex() {
+        return column;
+    }
+
+    @Override
+    public int getRowIndex() {
+        return row.getRowNum();
+    }
+
+    @Override
+    public XSSFBSheet getSheet() {
+        return row.getSheet();
+    }
+
+    @Override
+    public XSSFBRow getRow() {
+        return row;
+    }
+
+    @Deprecated
+    @Override
+    public void setCellType(int cellType) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setCellType(CellType cellType) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Deprecated
+    @Override
+    public int getCellType() {
+        return getCellTypeEnum().getCode();
+    }
+
+    @Override
+    public CellType getCellTypeEnum() {
+        return idx < 0 ? CellType.BLANK : row.getCellType(idx);
+    }
+
+    /**
+     * @throws IllegalStateException always, formula cells are returned as their cached results
+     */
+    @Deprecated
+    @Override
+    public int getCachedFormulaResultType() {
+        throw new IllegalStateException("Only formula cells have cached results");
+    }
+
+    /**
+     * @throws IllegalStateException always, formula cells are returned as their cached results
+     */
+    @Override
+    public CellType getCachedFormulaResultTypeEnum() {
+        throw new IllegalStateException("Only formula cells have cached results");
+    }
+
+    @Override
+    public void setCellValue(double value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setCellValue(Date value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setCellValue(Calendar value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setCellValue(RichTextString value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setCellValue(String value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setCellFormula(String formula) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    /**
+     * @throws IllegalStateException always, formula cells are returned as their cached results
+     */
+    @Override
+    public String getCellFormula() {
+        throw typeMismatch(CellType.FORMULA, getCellTypeEnum());
+    }
+
+    @Override
+    public double getNumericCellValue() {
+        CellType cellType = getCellTypeEnum();
+        switch (cellType) {
+            case BLANK:
+                return 0.0;
+            case NUMERIC:
+                return Double.longBitsToDouble(row.getValue(idx));
+            default:
+                throw typeMismatch(CellType.NUMERIC, cellType);
+        }
+    }
+
+    @Override
+    public Date getDateCellValue() {
+        if (getCellTypeEnum() == CellType.BLANK) {
+            return null;
+        }
+        double value = getNumericCellValue();
+        return DateUtil.getJavaDate(value, getSheet().getWorkbook().isDate1904());
+    }
+
+    @Override
+    public RichTextString getRichStringCellValue() {
+        return new XSSFRichTextString(getStringCellValue());
+    }
+
+    @Override
+    public String getStringCellValue() {
+        CellType cellType = getCellTypeEnum();
+        switch (cellType) {
+            case BLANK:
+                return "";
+            case STRING:
+                String s = row.getString(idx);
+                return (s != null) ? s : getSheet().getWorkbook().getSharedString((int)row.getValue(idx));
+            default:
+                throw typeMismatch(CellType.STRING, cellType);
+        }
+    }
+
+    @Override
+    public void setCellValue(boolean value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setCellErrorValue(byte value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean getBooleanCellValue() {
+        CellType cellType = getCellTypeEnum();
+        switch (cellType) {
+            case BLANK:
+                return false;
+            case BOOLEAN:
+                return row.getValue(idx) != 0;
+            default:
+                throw typeMismatch(CellType.BOOLEAN, cellType);
+        }
+    }
+
+    @Override
+    public byte getErrorCellValue() {
+        CellType cellType = getCellTypeEnum();
+        switch (cellType) {
+            case BLANK:
+                return 0;
+            case ERROR:
+                return (byte)row.getValue(idx);
+            default:
+                throw typeMismatch(CellType.ERROR, cellType);
+        }
+    }
+
+    @Override
+    public void setCellStyle(CellStyle style) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public CellStyle getCellStyle() {
+        return getSheet().getWorkbook().getCellStyleAt(idx < 0 ? 0 : row.getStyle(idx));
+    }
+
+    @Override
+    public void setAsActiveCell() {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public CellAddress getAddress() {
+        return new CellAddress(getRowIndex(), column);
+    }
+
+    @Override
+    public void setCellComment(Comment comment) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    /**
+     * @return <code>null</code>, comments aren't read
+     */
+    @Override
+    public Comment getCellComment() {
+        return null;
+    }
+
+    @Override
+    public void removeCellComment() {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    /**
+     * @return <code>null</code>, hyperlinks aren't read
+     */
+    @Override
+    public Hyperlink getHyperlink() {
+        return null;
+    }
+
+    @Override
+    public void setHyperlink(Hyperlink link) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void removeHyperlink() {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public CellRangeAddress getArrayFormulaRange() {
+        throw new IllegalStateException("Cell " + getAddress().formatAsString()
+                + " is not part of an array formula.");
+    }
+
+    @Override
+    public boolean isPartOfArrayFormulaGroup() {
+        return false;
+    }
+
+    /**
+     * Returns a string representation of the cell, in the same way as
+     * {@link org.apache.poi.xssf.usermodel.XSSFCell#toString()}
+     */
+    @Override
+    public String toString() {
+        switch (getCellTypeEnum()) {
+            case NUMERIC:
+                if (DateUtil.isCellDateFormatted(this)) {
+                    DateFormat sdf = new SimpleDateFormat("dd-MMM-yyyy", LocaleUtil.getUserLocale());
+                    sdf.setTimeZone(LocaleUtil.getUserTimeZone());
+                    return sdf.format(getDateCellValue());
+                }
+                return Double.toString(getNumericCellValue());
+            case STRING:
+                return getStringCellValue();
+            case BLANK:
+                return "";
+            case BOOLEAN:
+                return getBooleanCellValue() ? TRUE_AS_STRING : FALSE_AS_STRING;
+            case ERROR:
+                return ErrorEval.getText(getErrorCellValue());
+            default:
+                return "Unknown Cell Type: " + getCellTypeEnum();
+        }
+    }
+
+    private static RuntimeException typeMismatch(CellType expectedType, CellType actualType) {
+        String msg = "Cannot get a " + expectedType + " value from a " + actualType + " cell";
+        return new IllegalStateException(msg);
+    }
+}
@@ -0,0 +1,393 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Color;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+
+/**
+ * Read-only cell style of a {@link XSSFBWorkbook}.
+ * <p>
+ * Only the number format and the font are read from the styles part, all
+ * other properties return the defaults of a new Excel cell style.
+ *
+ * @since 3.17-beta1
+ */
+public class XSSFBCellStyle implements CellStyle {
+
+    private final short index;
+    private final short dataFormat;
+    private final String dataFormatString;
+    private final short fontIndex;
+
+    XSSFBCellStyle(int index, short dataFormat, String dataFormatString, short fontIndex) {
+        this.index = (short)index;
+        this.dataFormat = dataFormat;
+        this.dataFormatString = dataFormatString;
+        this.fontIndex = fontIndex;
+    }
+
+    @Override
+    public short getIndex() {
+        return index;
+    }
+
+    @Override
+    public void setDataFormat(short fmt) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getDataFormat() {
+        return dataFormat;
+    }
+
+    @Override
+    public String getDataFormatString() {
+        return dataFormatString;
+    }
+
+    @Override
+    public void setFont(Font font) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getFontIndex() {
+        return fontIndex;
+    }
+
+    @Override
+    public void setHidden(boolean hidden) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean getHidden() {
+        return false;
+    }
+
+    @Override
+    public void setLocked(boolean locked) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean getLocked() {
+        return true;
+    }
+
+    @Override
+    public void setQuotePrefixed(boolean quotePrefix) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean getQuotePrefixed() {
+        return false;
+    }
+
+    @Deprecated
+    @Override
+    public void setAlignment(short align) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setAlignment(HorizontalAlignment align) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Deprecated
+    @Override
+    public short getAlignment() {
+        return getAlignmentEnum().getCode();
+    }
+
+    @Override
+    public HorizontalAlignment getAlignmentEnum() {
+        return HorizontalAlignment.GENERAL;
+    }
+
+    @Override
+    public void setWrapText(boolean wrapped) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean getWrapText() {
+        return false;
+    }
+
+    @Deprecated
+    @Override
+    public void setVerticalAlignment(short align) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setVerticalAlignment(VerticalAlignment align) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Deprecated
+    @Override
+    public short getVerticalAlignment() {
+        return getVerticalAlignmentEnum().getCode();
+    }
+
+    @Override
+    public VerticalAlignment getVerticalAlignmentEnum() {
+        return VerticalAlignment.BOTTOM;
+    }
+
+    @Override
+    public void setRotation(short rotation) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getRotation() {
+        return 0;
+    }
+
+    @Override
+    public void setIndention(short indent) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getIndention() {
+        return 0;
+    }
+
+    @Deprecated
+    @Override
+    public void setBorderLeft(short border) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setBorderLeft(BorderStyle border) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Deprecated
+    @Override
+    public short getBorderLeft() {
+        return getBorderLeftEnum().getCode();
+    }
+
+    @Override
+    public BorderStyle getBorderLeftEnum() {
+        return BorderStyle.NONE;
+    }
+
+    @Deprecated
+    @Override
+    public void setBorderRight(short border) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setBorderRight(BorderStyle border) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Deprecated
+    @Override
+    public short getBorderRight() {
+        return getBorderRightEnum().getCode();
+    }
+
+    @Override
+    public BorderStyle getBorderRightEnum() {
+        return BorderStyle.NONE;
+    }
+
+    @Deprecated
+    @Override
+    public void setBorderTop(short border) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setBorderTop(BorderStyle border) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Deprecated
+    @Override
+    public short getBorderTop() {
+        return getBorderTopEnum().getCode();
+    }
+
+    @Override
+    public BorderStyle getBorderTopEnum() {
+        return BorderStyle.NONE;
+    }
+
+    @Deprecated
+    @Override
+    public void setBorderBottom(short border) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setBorderBottom(BorderStyle border) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Deprecated
+    @Override
+    public short getBorderBottom() {
+        return getBorderBottomEnum().getCode();
+    }
+
+    @Override
+    public BorderStyle getBorderBottomEnum() {
+        return BorderStyle.NONE;
+    }
+
+    @Override
+    public void setLeftBorderColor(short color) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getLeftBorderColor() {
+        return IndexedColors.BLACK.getIndex();
+    }
+
+    @Override
+    public void setRightBorderColor(short color) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getRightBorderColor() {
+        return IndexedColors.BLACK.getIndex();
+    }
+
+    @Override
+    public void setTopBorderColor(short color) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getTopBorderColor() {
+        return IndexedColors.BLACK.getIndex();
+    }
+
+    @Override
+    public void setBottomBorderColor(short color) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getBottomBorderColor() {
+        return IndexedColors.BLACK.getIndex();
+    }
+
+    @Deprecated
+    @Override
+    public void setFillPattern(short fp) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setFillPattern(FillPatternType fp) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Deprecated
+    @Override
+    public short getFillPattern() {
+        return getFillPatternEnum().getCode();
+    }
+
+    @Override
+    public FillPatternType getFillPatternEnum() {
+        return FillPatternType.NO_FILL;
+    }
+
+    @Override
+    public void setFillBackgroundColor(short bg) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getFillBackgroundColor() {
+        return IndexedColors.AUTOMATIC.getIndex();
+    }
+
+    @Override
+    public Color getFillBackgroundColorColor() {
+        return null;
+    }
+
+    @Override
+    public void setFillForegroundColor(short bg) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getFillForegroundColor() {
+        return IndexedColors.AUTOMATIC.getIndex();
+    }
+
+    @Override
+    public Color getFillForegroundColorColor() {
+        return null;
+    }
+
+    @Override
+    public void cloneStyleFrom(CellStyle source) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setShrinkToFit(boolean shrinkToFit) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean getShrinkToFit() {
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof XSSFBCellStyle)) {
+            return false;
+        }
+        XSSFBCellStyle other = (XSSFBCellStyle)o;
+        return index == other.index && dataFormat == other.dataFormat;
+    }
+}
@@ -0,0 +1,76 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import org.apache.poi.common.usermodel.HyperlinkType;
+import org.apache.poi.ss.usermodel.ClientAnchor;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.ExtendedColor;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.usermodel.RichTextString;
+
+/**
+ * Creation helper of a {@link XSSFBWorkbook}.  Nothing can be added to
+ * the read-only workbook, so all factory methods throw an
+ * {@link UnsupportedOperationException}.
+ *
+ * @since 3.17-beta1
+ */
+class XSSFBCreationHelper implements CreationHelper {
+
+    @Override
+    public RichTextString createRichTextString(String text) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public DataFormat createDataFormat() {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Deprecated
+    @Override
+    public Hyperlink createHyperlink(int type) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public Hyperlink createHyperlink(HyperlinkType type) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    /**
+     * Not supported, the formulas of xlsb files aren't decoded
+     */
+    @Override
+    public FormulaEvaluator createFormulaEvaluator() {
+        throw new UnsupportedOperationException("Formulas of xlsb files can't be evaluated");
+    }
+
+    @Override
+    public ExtendedColor createExtendedColor() {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public ClientAnchor createClientAnchor() {
+        throw XSSFBWorkbook.readOnly();
+    }
+}
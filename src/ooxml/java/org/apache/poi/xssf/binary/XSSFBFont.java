@@ -0,0 +1,211 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.util.LittleEndian;
+
+/**
+ * Read-only font of a {@link XSSFBWorkbook}, as read from a BrtFont record
+ * of the styles part.
+ *
+ * @since 3.17-beta1
+ */
+public class XSSFBFont implements Font {
+
+    //the font of a new Excel workbook, used if the styles part has no fonts
+    private static final String DEFAULT_FONT_NAME = "Calibri";
+    //11 points in twips
+    private static final short DEFAULT_FONT_HEIGHT = 220;
+
+    //xColorType of an indexed color, see 2.5.20 BrtColor
+    private static final int COLOR_INDEXED = 1;
+
+    private final short index;
+    private final short fontHeight;
+    private final boolean italic;
+    private final boolean strikeout;
+    private final boolean bold;
+    private final short typeOffset;
+    private final byte underline;
+    private final int charSet;
+    private final short color;
+    private final String fontName;
+
+    private XSSFBFont(int index, short fontHeight, boolean italic, boolean strikeout, boolean bold,
+                      short typeOffset, byte underline, int charSet, short color, String fontName) {
+        this.index = (short)index;
+        this.fontHeight = fontHeight;
+        this.italic = italic;
+        this.strikeout = strikeout;
+        this.bold = bold;
+        this.typeOffset = typeOffset;
+        this.underline = underline;
+        this.charSet = charSet;
+        this.color = color;
+        this.fontName = fontName;
+    }
+
+    static XSSFBFont createDefault(int index) {
+        return new XSSFBFont(index, DEFAULT_FONT_HEIGHT, false, false, false, SS_NONE, U_NONE,
+                ANSI_CHARSET, IndexedColors.BLACK.getIndex(), DEFAULT_FONT_NAME);
+    }
+
+    //see 2.4.661 BrtFont
+    static XSSFBFont parse(int index, byte[] data) {
+        short fontHeight = LittleEndian.getShort(data, 0);
+        int grbit = LittleEndian.getUShort(data, 2);
+        int bls = LittleEndian.getUShort(data, 4);
+        short typeOffset = LittleEndian.getShort(data, 6);
+        byte underline = data[8];
+        int charSet = data[10] & 0xFF;
+        //BrtColor: fValidRGB and xColorType, then the color index
+        int colorType = (data[12] >> 1) & 0x7F;
+        short color = colorType == COLOR_INDEXED ? (short)(data[13] & 0xFF) : IndexedColors.BLACK.getIndex();
+        StringBuilder sb = new StringBuilder();
+        XSSFBUtils.readXLWideString(data, 21, sb);
+        return new XSSFBFont(index, fontHeight, (grbit & 0x02) != 0, (grbit & 0x08) != 0, bls >= 700,
+                typeOffset, underline, charSet, color, sb.toString());
+    }
+
+    @Override
+    public void setFontName(String name) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public String getFontName() {
+        return fontName;
+    }
+
+    @Override
+    public void setFontHeight(short height) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setFontHeightInPoints(short height) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getFontHeight() {
+        return fontHeight;
+    }
+
+    @Override
+    public short getFontHeightInPoints() {
+        return (short)(fontHeight / 20);
+    }
+
+    @Override
+    public void setItalic(boolean italic) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean getItalic() {
+        return italic;
+    }
+
+    @Override
+    public void setStrikeout(boolean strikeout) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean getStrikeout() {
+        return strikeout;
+    }
+
+    @Override
+    public void setColor(short color) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    /**
+     * @return the indexed color of the font, black for theme and rgb colors
+     */
+    @Override
+    public short getColor() {
+        return color;
+    }
+
+    @Override
+    public void setTypeOffset(short offset) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getTypeOffset() {
+        return typeOffset;
+    }
+
+    @Override
+    public void setUnderline(byte underline) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public byte getUnderline() {
+        return underline;
+    }
+
+    @Override
+    public int getCharSet() {
+        return charSet;
+    }
+
+    @Override
+    public void setCharSet(byte charset) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setCharSet(int charset) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getIndex() {
+        return index;
+    }
+
+    @Deprecated
+    @Override
+    public void setBoldweight(short boldweight) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setBold(boolean bold) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Deprecated
+    @Override
+    public short getBoldweight() {
+        return getBold() ? BOLDWEIGHT_BOLD : BOLDWEIGHT_NORMAL;
+    }
+
+    @Override
+    public boolean getBold() {
+        return bold;
+    }
+}
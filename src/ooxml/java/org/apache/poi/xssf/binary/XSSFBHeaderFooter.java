@@ -17,6 +17,8 @@
 
 package org.apache.poi.xssf.binary;
 
+import org.apache.poi.ss.usermodel.Footer;
+import org.apache.poi.ss.usermodel.Header;
 import org.apache.poi.util.Internal;
 import org.apache.poi.xssf.usermodel.helpers.HeaderFooterHelper;
 
@@ -24,7 +26,7 @@ import org.apache.poi.xssf.usermodel.helpers.HeaderFooterHelper;
  * @since 3.16-beta3
  */
 @Internal
-class XSSFBHeaderFooter {
+class XSSFBHeaderFooter implements Header, Footer {
 
     private static final HeaderFooterHelper HEADER_FOOTER_HELPER = new HeaderFooterHelper();
 
@@ -77,4 +79,34 @@ class XSSFBHeaderFooter {
         return isHeader;
     }
 
+    @Override
+    public String getLeft() {
+        return HEADER_FOOTER_HELPER.getLeftSection(rawString);
+    }
+
+    @Override
+    public void setLeft(String newLeft) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public String getCenter() {
+        return HEADER_FOOTER_HELPER.getCenterSection(rawString);
+    }
+
+    @Override
+    public void setCenter(String newCenter) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public String getRight() {
+        return HEADER_FOOTER_HELPER.getRightSection(rawString);
+    }
+
+    @Override
+    public void setRight(String newRight) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
 }
@@ -0,0 +1,220 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import org.apache.poi.ss.usermodel.PrintSetup;
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * Read-only print setup of a {@link XSSFBSheet}.
+ * <p>
+ * The page setup record isn't read, so apart from the header and footer
+ * margins all properties return the defaults of a new sheet.
+ *
+ * @since 3.17-beta1
+ */
+class XSSFBPrintSetup implements PrintSetup {
+
+    private static final short DEFAULT_RESOLUTION = 600;
+
+    private final XSSFBSheet sheet;
+
+    XSSFBPrintSetup(XSSFBSheet sheet) {
+        this.sheet = sheet;
+    }
+
+    @Override
+    public void setPaperSize(short size) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setScale(short scale) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setPageStart(short start) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setFitWidth(short width) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setFitHeight(short height) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setLeftToRight(boolean ltor) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setLandscape(boolean ls) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setValidSettings(boolean valid) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setNoColor(boolean mono) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setDraft(boolean d) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setNotes(boolean printnotes) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setNoOrientation(boolean orientation) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setUsePage(boolean page) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setHResolution(short resolution) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setVResolution(short resolution) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setHeaderMargin(double headermargin) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setFooterMargin(double footermargin) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setCopies(short copies) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getPaperSize() {
+        return LETTER_PAPERSIZE;
+    }
+
+    @Override
+    public short getScale() {
+        return 100;
+    }
+
+    @Override
+    public short getPageStart() {
+        return 1;
+    }
+
+    @Override
+    public short getFitWidth() {
+        return 1;
+    }
+
+    @Override
+    public short getFitHeight() {
+        return 1;
+    }
+
+    @Override
+    public boolean getLeftToRight() {
+        return false;
+    }
+
+    @Override
+    public boolean getLandscape() {
+        return false;
+    }
+
+    @Override
+    public boolean getValidSettings() {
+        return true;
+    }
+
+    @Override
+    public boolean getNoColor() {
+        return false;
+    }
+
+    @Override
+    public boolean getDraft() {
+        return false;
+    }
+
+    @Override
+    public boolean getNotes() {
+        return false;
+    }
+
+    @Override
+    public boolean getNoOrientation() {
+        return true;
+    }
+
+    @Override
+    public boolean getUsePage() {
+        return false;
+    }
+
+    @Override
+    public short getHResolution() {
+        return DEFAULT_RESOLUTION;
+    }
+
+    @Override
+    public short getVResolution() {
+        return DEFAULT_RESOLUTION;
+    }
+
+    @Override
+    public double getHeaderMargin() {
+        return sheet.getMargin(Sheet.HeaderMargin);
+    }
+
+    @Override
+    public double getFooterMargin() {
+        return sheet.getMargin(Sheet.FooterMargin);
+    }
+
+    @Override
+    public short getCopies() {
+        return 1;
+    }
+}
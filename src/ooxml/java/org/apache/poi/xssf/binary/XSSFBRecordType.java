@@ -17,9 +17,6 @@
 
 package org.apache.poi.xssf.binary;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.apache.poi.util.Internal;
 
 /**
@@ -42,12 +39,24 @@ public enum XSSFBRecordType {
     BrtRowHdr(0),
     BrtCellRString(62),
     BrtBeginSheet(129),
+    BrtEndSheet(130),
     BrtWsProp(147),
     BrtWsDim(148),
+    BrtBeginWsViews(133),
+    BrtEndWsViews(134),
+    BrtBeginWsView(137),
+    BrtEndWsView(138),
+    BrtWsFmtInfo(485),
+    BrtBeginColInfos(390),
+    BrtEndColInfos(391),
     BrtColInfo(60),
     BrtBeginSheetData(145),
     BrtEndSheetData(146),
+    BrtBeginMergeCells(177),
+    BrtEndMergeCells(178),
+    BrtMergeCell(176),
     BrtHLink(494),
+    BrtMargins(476),
     BrtBeginHeaderFooter(479),
 
     //comments
@@ -58,6 +67,24 @@ public enum XSSFBRecordType {
     BrtCommentText(637),
     BrtEndComment(636),
     //styles table
+    BrtBeginStyleSheet(278),
+    BrtEndStyleSheet(279),
+    BrtBeginFonts(611),
+    BrtEndFonts(612),
+    BrtFont(43),
+    BrtBeginFills(603),
+    BrtEndFills(604),
+    BrtFill(45),
+    BrtBeginBorders(613),
+    BrtEndBorders(614),
+    BrtBorder(46),
+    BrtBeginStyles(619),
+    BrtEndStyles(620),
+    BrtStyle(48),
+    BrtBeginDXFs(505),
+    BrtEndDXFs(506),
+    BrtBeginTableStyles(508),
+    BrtEndTableStyles(509),
     BrtXf(47),
     BrtFmt(44),
     BrtBeginFmts(615),
@@ -72,21 +99,36 @@ public enum XSSFBRecordType {
     BrtBeginSst(159), //stored strings begin sst
     BrtEndSst(160),   //stored strings end sst
 
+    //workbook part
+    BrtBeginBook(131),
+    BrtEndBook(132),
+    BrtWbProp(153),
+    BrtBeginBookViews(135),
+    BrtEndBookViews(136),
+    BrtBookView(158),
+    BrtBeginBundleShs(143),
+    BrtEndBundleShs(144),
     BrtBundleSh(156), //defines worksheet in wb part
 
     BrtAbsPath15(2071), //Excel 2013 path where the file was stored in wbpart
 
     //TODO -- implement these as needed
     //BrtFileVersion(128), //file version
-    //BrtWbProp(153), //Workbook prop contains 1904/1900-date based bit
     Unimplemented(-1);
 
-    private static final Map<Integer, XSSFBRecordType> TYPE_MAP =
-            new HashMap<Integer, XSSFBRecordType>();
+    //indexed by record id, so that lookups on the parsing hot path don't box
+    private static final XSSFBRecordType[] TYPE_MAP;
 
     static {
+        int maxId = 0;
+        for (XSSFBRecordType type : XSSFBRecordType.values()) {
+            maxId = Math.max(maxId, type.getId());
+        }
+        TYPE_MAP = new XSSFBRecordType[maxId + 1];
         for (XSSFBRecordType type : XSSFBRecordType.values()) {
-            TYPE_MAP.put(type.getId(), type);
+            if (type.getId() >= 0) {
+                TYPE_MAP[type.getId()] = type;
+            }
         }
     }
 
@@ -101,7 +143,7 @@ public enum XSSFBRecordType {
     }
 
     public static XSSFBRecordType lookup(int id) {
-        XSSFBRecordType type = TYPE_MAP.get(id);
+        XSSFBRecordType type = (id >= 0 && id < TYPE_MAP.length) ? TYPE_MAP[id] : null;
         if (type == null) {
             return Unimplemented;
         }
@@ -0,0 +1,196 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.poi.util.Internal;
+import org.apache.poi.util.LittleEndian;
+
+/**
+ * Writes records in the xlsb record format, i.e. the counterpart of {@link XSSFBParser}.
+ * <p>
+ * A record is started with {@link #startRecord(XSSFBRecordType)}, filled with the
+ * write methods and finished with {@link #endRecord()}, which writes the record header
+ * and payload to the underlying stream.  The payload is collected in a buffer that is
+ * reused for all records.
+ * <p>
+ * Not thread safe.
+ *
+ * @since 3.17-beta1
+ */
+@Internal
+public class XSSFBRecordWriter implements Closeable {
+
+    //record ids are stored in at most two 7-bit groups, lengths in at most four
+    private static final int MAX_RECORD_ID = (1 << 14) - 1;
+    private static final int MAX_RECORD_LENGTH = (1 << 28) - 1;
+
+    private final OutputStream out;
+    private final byte[] header = new byte[6];
+    private byte[] buffer = new byte[256];
+    private int length;
+    private int recordId = -1;
+    private boolean closed;
+
+    public XSSFBRecordWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes a record without payload, e.g. most of the BrtBegin/BrtEnd records
+     *
+     * @param type the record type
+     * @throws IOException if the record can't be written
+     */
+    public void writeRecord(XSSFBRecordType type) throws IOException {
+        startRecord(type);
+        endRecord();
+    }
+
+    /**
+     * Starts a new record, the payload is added by the write methods
+     *
+     * @param type the record type
+     */
+    public void startRecord(XSSFBRecordType type) {
+        if (recordId != -1) {
+            throw new IllegalStateException("Record "+recordId+" wasn't ended");
+        }
+        int id = type.getId();
+        if (id < 0 || id > MAX_RECORD_ID) {
+            throw new IllegalArgumentException("Can't write record of type "+type);
+        }
+        recordId = id;
+        length = 0;
+    }
+
+    /**
+     * Writes the current record to the underlying stream
+     *
+     * @throws IOException if the record can't be written
+     */
+    public void endRecord() throws IOException {
+        if (recordId == -1) {
+            throw new IllegalStateException("No record was started");
+        }
+        int pos = 0;
+        if (recordId < 0x80) {
+            header[pos++] = (byte)recordId;
+        } else {
+            header[pos++] = (byte)(0x80 | (recordId & 0x7F));
+            header[pos++] = (byte)(recordId >> 7);
+        }
+        int len = length;
+        do {
+            int b = len & 0x7F;
+            len >>>= 7;
+            header[pos++] = (byte)(len == 0 ? b : (b | 0x80));
+        } while (len != 0);
+
+        out.write(header, 0, pos);
+        out.write(buffer, 0, length);
+        recordId = -1;
+    }
+
+    public void writeByte(int v) {
+        ensureCapacity(1);
+        buffer[length++] = (byte)v;
+    }
+
+    public void writeShort(int v) {
+        ensureCapacity(LittleEndian.SHORT_SIZE);
+        LittleEndian.putShort(buffer, length, (short)v);
+        length += LittleEndian.SHORT_SIZE;
+    }
+
+    public void writeInt(int v) {
+        ensureCapacity(LittleEndian.INT_SIZE);
+        LittleEndian.putInt(buffer, length, v);
+        length += LittleEndian.INT_SIZE;
+    }
+
+    public void writeDouble(double v) {
+        ensureCapacity(LittleEndian.DOUBLE_SIZE);
+        LittleEndian.putDouble(buffer, length, v);
+        length += LittleEndian.DOUBLE_SIZE;
+    }
+
+    /**
+     * Writes an XLWideString, a <code>null</code> string is written as empty string
+     *
+     * @param s the string to write
+     */
+    public void writeXLWideString(String s) {
+        writeWideString(s == null ? "" : s);
+    }
+
+    /**
+     * Writes an XLNullableWideString
+     *
+     * @param s the string to write, may be <code>null</code>
+     */
+    public void writeXLNullableWideString(String s) {
+        if (s == null) {
+            writeInt(0xFFFFFFFF);
+        } else {
+            writeWideString(s);
+        }
+    }
+
+    private void writeWideString(String s) {
+        int numChars = s.length();
+        ensureCapacity(LittleEndian.INT_SIZE + 2 * numChars);
+        LittleEndian.putInt(buffer, length, numChars);
+        length += LittleEndian.INT_SIZE;
+        for (int i = 0; i < numChars; i++) {
+            char c = s.charAt(i);
+            buffer[length++] = (byte)c;
+            buffer[length++] = (byte)(c >>> 8);
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        int required = length + size;
+        if (required > MAX_RECORD_LENGTH) {
+            throw new IllegalStateException("Record length exceeds "+MAX_RECORD_LENGTH+" bytes");
+        }
+        if (required > buffer.length) {
+            byte[] newBuffer = new byte[Math.max(required, 2 * buffer.length)];
+            System.arraycopy(buffer, 0, newBuffer, 0, length);
+            buffer = newBuffer;
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Closes the underlying stream, can be called more than once
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            out.close();
+        }
+    }
+}
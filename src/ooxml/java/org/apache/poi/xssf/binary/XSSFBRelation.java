@@ -36,7 +36,14 @@ import org.apache.poi.util.POILogger;
 public class XSSFBRelation extends POIXMLRelation {
     private static final POILogger log = POILogFactory.getLogger(XSSFBRelation.class);
 
-    static final XSSFBRelation SHARED_STRINGS_BINARY = new XSSFBRelation(
+    public static final XSSFBRelation WORKSHEET_BINARY = new XSSFBRelation(
+            "application/vnd.ms-excel.worksheet",
+            "http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet",
+            "/xl/worksheets/sheet#.bin",
+            null
+    );
+
+    public static final XSSFBRelation SHARED_STRINGS_BINARY = new XSSFBRelation(
             "application/vnd.ms-excel.sharedStrings",
             "http://schemas.openxmlformats.org/officeDocument/2006/relationships/sharedStrings",
             "/xl/sharedStrings.bin",
@@ -0,0 +1,314 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+
+/**
+ * Read-only row of a {@link XSSFBSheet}.
+ * <p>
+ * The cells are stored column-wise in primitive arrays, which are sorted
+ * by column index.  The {@link XSSFBCell}s returned by the accessors are
+ * lightweight views onto these arrays.
+ *
+ * @since 3.17-beta1
+ */
+public class XSSFBRow implements Row {
+    private static final int INITIAL_CAPACITY = 8;
+
+    //BrtRowHdr flags
+    private static final int OUTLINE_LEVEL_MASK = 0x07;
+    private static final int ZERO_HEIGHT = 0x10;
+    private static final int FORMATTED = 0x40;
+
+    //the cell types are stored as their ordinals
+    private static final CellType[] CELL_TYPES = CellType.values();
+
+    private final XSSFBSheet sheet;
+    private final int rowNum;
+    private final int styleIdx;
+    private final short height;
+    private final int flags;
+
+    private int size;
+    private int[] columns = new int[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int[] styles = new int[INITIAL_CAPACITY];
+    //numbers as raw double bits, shared string indexes, booleans and error codes
+    private long[] values = new long[INITIAL_CAPACITY];
+    //inline strings, only allocated if the row has any
+    private String[] strings;
+
+    XSSFBRow(XSSFBSheet sheet, int rowNum, int styleIdx, short height, int flags) {
+        this.sheet = sheet;
+        this.rowNum = rowNum;
+        this.styleIdx = styleIdx;
+        this.height = height;
+        this.flags = flags;
+    }
+
+    /**
+     * Adds a cell while loading the sheet, a cell with an existing column index replaces the old one
+     */
+    void addCell(int column, CellType type, int style, long value, String string) {
+        int idx;
+        if (size == 0 || column > columns[size - 1]) {
+            idx = size;
+        } else {
+            idx = Arrays.binarySearch(columns, 0, size, column);
+            if (idx >= 0) {
+                set(idx, column, type, style, value, string);
+                return;
+            }
+            idx = -idx - 1;
+        }
+        if (size == columns.length) {
+            int capacity = size * 2;
+            columns = Arrays.copyOf(columns, capacity);
+            types = Arrays.copyOf(types, capacity);
+            styles = Arrays.copyOf(styles, capacity);
+            values = Arrays.copyOf(values, capacity);
+            if (strings != null) {
+                strings = Arrays.copyOf(strings, capacity);
+            }
+        }
+        if (idx < size) {
+            int len = size - idx;
+            System.arraycopy(columns, idx, columns, idx + 1, len);
+            System.arraycopy(types, idx, types, idx + 1, len);
+            System.arraycopy(styles, idx, styles, idx + 1, len);
+            System.arraycopy(values, idx, values, idx + 1, len);
+            if (strings != null) {
+                System.arraycopy(strings, idx, strings, idx + 1, len);
+            }
+        }
+        size++;
+        set(idx, column, type, style, value, string);
+    }
+
+    private void set(int idx, int column, CellType type, int style, long value, String string) {
+        columns[idx] = column;
+        types[idx] = (byte)type.ordinal();
+        styles[idx] = style;
+        values[idx] = value;
+        if (string != null && strings == null) {
+            strings = new String[columns.length];
+        }
+        if (strings != null) {
+            strings[idx] = string;
+        }
+    }
+
+    int getColumn(int idx) {
+        return columns[idx];
+    }
+
+    CellType getCellType(int idx) {
+        return CELL_TYPES[types[idx]];
+    }
+
+    int getStyle(int idx) {
+        return styles[idx];
+    }
+
+    long getValue(int idx) {
+        return values[idx];
+    }
+
+    /**
+     * @return the inline string of the cell or <code>null</code> if the cell refers to the shared strings
+     */
+    String getString(int idx) {
+        return strings == null ? null : strings[idx];
+    }
+
+    private int indexOf(int column) {
+        return Arrays.binarySearch(columns, 0, size, column);
+    }
+
+    @Override
+    public Cell createCell(int column) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Deprecated
+    @Override
+    public Cell createCell(int column, int type) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public Cell createCell(int column, CellType type) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void removeCell(Cell cell) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setRowNum(int rowNum) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    @Override
+    public XSSFBCell getCell(int cellnum) {
+        return getCell(cellnum, sheet.getWorkbook().getMissingCellPolicy());
+    }
+
+    @Override
+    public XSSFBCell getCell(int cellnum, MissingCellPolicy policy) {
+        if (cellnum < 0) {
+            throw new IllegalArgumentException("Cell index must be >= 0");
+        }
+        int idx = indexOf(cellnum);
+        XSSFBCell cell = (idx < 0) ? null : new XSSFBCell(this, idx, cellnum);
+        switch (policy) {
+            case RETURN_NULL_AND_BLANK:
+                return cell;
+            case RETURN_BLANK_AS_NULL:
+                boolean isBlank = (cell != null && cell.getCellTypeEnum() == CellType.BLANK);
+                return isBlank ? null : cell;
+            case CREATE_NULL_AS_BLANK:
+                //the row can't be changed, return a detached blank cell instead
+                return (cell == null) ? new XSSFBCell(this, -1, cellnum) : cell;
+            default:
+                throw new IllegalArgumentException("Illegal policy " + policy);
+        }
+    }
+
+    @Override
+    public short getFirstCellNum() {
+        return (short)(size == 0 ? -1 : columns[0]);
+    }
+
+    @Override
+    public short getLastCellNum() {
+        return (short)(size == 0 ? -1 : columns[size - 1] + 1);
+    }
+
+    @Override
+    public int getPhysicalNumberOfCells() {
+        return size;
+    }
+
+    @Override
+    public void setHeight(short height) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setZeroHeight(boolean zHeight) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean getZeroHeight() {
+        return (flags & ZERO_HEIGHT) != 0;
+    }
+
+    @Override
+    public void setHeightInPoints(float height) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getHeight() {
+        return height;
+    }
+
+    @Override
+    public float getHeightInPoints() {
+        return (float)height / 20;
+    }
+
+    @Override
+    public boolean isFormatted() {
+        return (flags & FORMATTED) != 0;
+    }
+
+    @Override
+    public CellStyle getRowStyle() {
+        return isFormatted() ? sheet.getWorkbook().getCellStyleAt(styleIdx) : null;
+    }
+
+    @Override
+    public void setRowStyle(CellStyle style) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public Iterator<Cell> cellIterator() {
+        return new Iterator<Cell>() {
+            private int idx;
+
+            @Override
+            public boolean hasNext() {
+                return idx < size;
+            }
+
+            @Override
+            public Cell next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                XSSFBCell cell = new XSSFBCell(XSSFBRow.this, idx, columns[idx]);
+                idx++;
+                return cell;
+            }
+
+            @Override
+            public void remove() {
+                throw XSSFBWorkbook.readOnly();
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Cell> iterator() {
+        return cellIterator();
+    }
+
+    @Override
+    public XSSFBSheet getSheet() {
+        return sheet;
+    }
+
+    @Override
+    public int getOutlineLevel() {
+        return flags & OUTLINE_LEVEL_MASK;
+    }
+
+    @Override
+    public String toString() {
+        return "XSSFBRow [rowNum=" + rowNum + ", cells=" + size + "]";
+    }
+}
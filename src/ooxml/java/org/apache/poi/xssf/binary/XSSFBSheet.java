@@ -0,0 +1,854 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.poi.ss.usermodel.AutoFilter;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellRange;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Comment;
+import org.apache.poi.ss.usermodel.DataValidation;
+import org.apache.poi.ss.usermodel.DataValidationHelper;
+import org.apache.poi.ss.usermodel.Drawing;
+import org.apache.poi.ss.usermodel.Footer;
+import org.apache.poi.ss.usermodel.Header;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.usermodel.PrintSetup;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.SheetConditionalFormatting;
+import org.apache.poi.ss.util.CellAddress;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.PaneInformation;
+import org.apache.poi.util.LittleEndian;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * Read-only sheet of a {@link XSSFBWorkbook}.
+ * <p>
+ * The cell table, the column infos, the merged regions, the page margins
+ * and the headers and footers are read, all other sheet settings return
+ * the defaults of a new sheet.
+ *
+ * @since 3.17-beta1
+ */
+public class XSSFBSheet implements Sheet {
+    private static final int DEFAULT_COLUMN_WIDTH = 8;
+    //15 points in twips
+    private static final short DEFAULT_ROW_HEIGHT = 300;
+
+    private final XSSFBWorkbook workbook;
+    private final String name;
+    private final TreeMap<Integer, XSSFBRow> rows = new TreeMap<Integer, XSSFBRow>();
+    private final List<CellRangeAddress> mergedRegions = new ArrayList<CellRangeAddress>();
+    private final List<ColumnInfo> columnInfos = new ArrayList<ColumnInfo>();
+    private int defaultColumnWidth = DEFAULT_COLUMN_WIDTH;
+    private short defaultRowHeight = DEFAULT_ROW_HEIGHT;
+    //left, right, top, bottom, header and footer, as the margin constants of Sheet
+    private double[] margins;
+    private XSSFBHeaderFooters headerFooters;
+
+    XSSFBSheet(XSSFBWorkbook workbook, String name, InputStream is) throws IOException {
+        this.workbook = workbook;
+        this.name = name;
+        new SheetLoader(is).parse();
+    }
+
+    @Override
+    public Row createRow(int rownum) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void removeRow(Row row) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public XSSFBRow getRow(int rownum) {
+        return rows.get(rownum);
+    }
+
+    @Override
+    public int getPhysicalNumberOfRows() {
+        return rows.size();
+    }
+
+    @Override
+    public int getFirstRowNum() {
+        return rows.isEmpty() ? 0 : rows.firstKey();
+    }
+
+    @Override
+    public int getLastRowNum() {
+        return rows.isEmpty() ? 0 : rows.lastKey();
+    }
+
+    @Override
+    public void setColumnHidden(int columnIndex, boolean hidden) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean isColumnHidden(int columnIndex) {
+        ColumnInfo ci = getColumnInfo(columnIndex);
+        return ci != null && ci.hidden;
+    }
+
+    @Override
+    public void setRightToLeft(boolean value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean isRightToLeft() {
+        return false;
+    }
+
+    @Override
+    public void setColumnWidth(int columnIndex, int width) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public int getColumnWidth(int columnIndex) {
+        ColumnInfo ci = getColumnInfo(columnIndex);
+        return ci == null ? defaultColumnWidth * 256 : ci.width;
+    }
+
+    @Override
+    public float getColumnWidthInPixels(int columnIndex) {
+        float widthIn256 = getColumnWidth(columnIndex);
+        return (float)(widthIn256/256.0*XSSFWorkbook.DEFAULT_CHARACTER_WIDTH);
+    }
+
+    @Override
+    public void setDefaultColumnWidth(int width) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public int getDefaultColumnWidth() {
+        return defaultColumnWidth;
+    }
+
+    @Override
+    public short getDefaultRowHeight() {
+        return defaultRowHeight;
+    }
+
+    @Override
+    public float getDefaultRowHeightInPoints() {
+        return (float)defaultRowHeight / 20;
+    }
+
+    @Override
+    public void setDefaultRowHeight(short height) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setDefaultRowHeightInPoints(float height) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public CellStyle getColumnStyle(int column) {
+        ColumnInfo ci = getColumnInfo(column);
+        return ci == null ? null : workbook.getCellStyleAt(ci.styleIdx);
+    }
+
+    private ColumnInfo getColumnInfo(int column) {
+        for (ColumnInfo ci : columnInfos) {
+            if (ci.first <= column && column <= ci.last) {
+                return ci;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int addMergedRegion(CellRangeAddress region) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public int addMergedRegionUnsafe(CellRangeAddress region) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void validateMergedRegions() {
+        // the regions are written by Excel, nothing to validate
+    }
+
+    @Override
+    public void setVerticallyCenter(boolean value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setHorizontallyCenter(boolean value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean getHorizontallyCenter() {
+        return false;
+    }
+
+    @Override
+    public boolean getVerticallyCenter() {
+        return false;
+    }
+
+    @Override
+    public void removeMergedRegion(int index) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void removeMergedRegions(Collection<Integer> indices) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public int getNumMergedRegions() {
+        return mergedRegions.size();
+    }
+
+    @Override
+    public CellRangeAddress getMergedRegion(int index) {
+        return mergedRegions.get(index);
+    }
+
+    @Override
+    public List<CellRangeAddress> getMergedRegions() {
+        return Collections.unmodifiableList(mergedRegions);
+    }
+
+    @Override
+    public Iterator<Row> rowIterator() {
+        return Collections.<Row>unmodifiableCollection(rows.values()).iterator();
+    }
+
+    @Override
+    public Iterator<Row> iterator() {
+        return rowIterator();
+    }
+
+    @Override
+    public void setForceFormulaRecalculation(boolean value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean getForceFormulaRecalculation() {
+        return false;
+    }
+
+    @Override
+    public void setAutobreaks(boolean value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setDisplayGuts(boolean value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setDisplayZeros(boolean value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean isDisplayZeros() {
+        return true;
+    }
+
+    @Override
+    public void setFitToPage(boolean value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setRowSumsBelow(boolean value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setRowSumsRight(boolean value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean getAutobreaks() {
+        return true;
+    }
+
+    @Override
+    public boolean getDisplayGuts() {
+        return false;
+    }
+
+    @Override
+    public boolean getFitToPage() {
+        return false;
+    }
+
+    @Override
+    public boolean getRowSumsBelow() {
+        return true;
+    }
+
+    @Override
+    public boolean getRowSumsRight() {
+        return true;
+    }
+
+    @Override
+    public boolean isPrintGridlines() {
+        return false;
+    }
+
+    @Override
+    public void setPrintGridlines(boolean show) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean isPrintRowAndColumnHeadings() {
+        return false;
+    }
+
+    @Override
+    public void setPrintRowAndColumnHeadings(boolean show) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public PrintSetup getPrintSetup() {
+        return new XSSFBPrintSetup(this);
+    }
+
+    @Override
+    public Header getHeader() {
+        return headerFooters == null ? new XSSFBHeaderFooter("header", true) : headerFooters.getHeader();
+    }
+
+    @Override
+    public Footer getFooter() {
+        return headerFooters == null ? new XSSFBHeaderFooter("footer", false) : headerFooters.getFooter();
+    }
+
+    @Override
+    public void setSelected(boolean value) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public double getMargin(short margin) {
+        if (margin < LeftMargin || margin > FooterMargin) {
+            throw new IllegalArgumentException("Unknown margin constant:  " + margin);
+        }
+        return margins == null ? 0 : margins[margin];
+    }
+
+    @Override
+    public void setMargin(short margin, double size) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean getProtect() {
+        return false;
+    }
+
+    @Override
+    public void protectSheet(String password) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean getScenarioProtect() {
+        return false;
+    }
+
+    @Deprecated
+    @Override
+    public void setZoom(int numerator, int denominator) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setZoom(int scale) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public short getTopRow() {
+        return 0;
+    }
+
+    @Override
+    public short getLeftCol() {
+        return 0;
+    }
+
+    @Override
+    public void showInPane(int toprow, int leftcol) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void shiftRows(int startRow, int endRow, int n) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void shiftRows(int startRow, int endRow, int n, boolean copyRowHeight, boolean resetOriginalRowHeight) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void createFreezePane(int colSplit, int rowSplit, int leftmostColumn, int topRow) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void createFreezePane(int colSplit, int rowSplit) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void createSplitPane(int xSplitPos, int ySplitPos, int leftmostColumn, int topRow, int activePane) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public PaneInformation getPaneInformation() {
+        return null;
+    }
+
+    @Override
+    public void setDisplayGridlines(boolean show) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean isDisplayGridlines() {
+        return true;
+    }
+
+    @Override
+    public void setDisplayFormulas(boolean show) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean isDisplayFormulas() {
+        return false;
+    }
+
+    @Override
+    public void setDisplayRowColHeadings(boolean show) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean isDisplayRowColHeadings() {
+        return true;
+    }
+
+    @Override
+    public void setRowBreak(int row) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean isRowBroken(int row) {
+        return false;
+    }
+
+    @Override
+    public void removeRowBreak(int row) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public int[] getRowBreaks() {
+        return new int[0];
+    }
+
+    @Override
+    public int[] getColumnBreaks() {
+        return new int[0];
+    }
+
+    @Override
+    public void setColumnBreak(int column) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public boolean isColumnBroken(int column) {
+        return false;
+    }
+
+    @Override
+    public void removeColumnBreak(int column) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setColumnGroupCollapsed(int columnNumber, boolean collapsed) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void groupColumn(int fromColumn, int toColumn) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void ungroupColumn(int fromColumn, int toColumn) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void groupRow(int fromRow, int toRow) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void ungroupRow(int fromRow, int toRow) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setRowGroupCollapsed(int row, boolean collapse) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setDefaultColumnStyle(int column, CellStyle style) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void autoSizeColumn(int column) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void autoSizeColumn(int column, boolean useMergedCells) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Deprecated
+    @Override
+    public Comment getCellComment(int row, int column) {
+        return null;
+    }
+
+    @Override
+    public Comment getCellComment(CellAddress ref) {
+        return null;
+    }
+
+    @Override
+    public Map<CellAddress, ? extends Comment> getCellComments() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Drawing<?> getDrawingPatriarch() {
+        return null;
+    }
+
+    @Override
+    public Drawing<?> createDrawingPatriarch() {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public XSSFBWorkbook getWorkbook() {
+        return workbook;
+    }
+
+    @Override
+    public String getSheetName() {
+        return name;
+    }
+
+    @Override
+    public boolean isSelected() {
+        return workbook.getActiveSheetIndex() == workbook.getSheetIndex(this);
+    }
+
+    @Override
+    public CellRange<? extends Cell> setArrayFormula(String formula, CellRangeAddress range) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public CellRange<? extends Cell> removeArrayFormula(Cell cell) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public DataValidationHelper getDataValidationHelper() {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public List<? extends DataValidation> getDataValidations() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void addValidationData(DataValidation dataValidation) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public AutoFilter setAutoFilter(CellRangeAddress range) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public SheetConditionalFormatting getSheetConditionalFormatting() {
+        return new XSSFBSheetConditionalFormatting();
+    }
+
+    @Override
+    public CellRangeAddress getRepeatingRows() {
+        return null;
+    }
+
+    @Override
+    public CellRangeAddress getRepeatingColumns() {
+        return null;
+    }
+
+    @Override
+    public void setRepeatingRows(CellRangeAddress rowRangeRef) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public void setRepeatingColumns(CellRangeAddress columnRangeRef) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public int getColumnOutlineLevel(int columnIndex) {
+        ColumnInfo ci = getColumnInfo(columnIndex);
+        return ci == null ? 0 : ci.outlineLevel;
+    }
+
+    @Override
+    public Hyperlink getHyperlink(int row, int column) {
+        return null;
+    }
+
+    @Override
+    public Hyperlink getHyperlink(CellAddress addr) {
+        return null;
+    }
+
+    @Override
+    public List<? extends Hyperlink> getHyperlinkList() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public CellAddress getActiveCell() {
+        return null;
+    }
+
+    @Override
+    public void setActiveCell(CellAddress address) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    private static final class ColumnInfo {
+        private final int first;
+        private final int last;
+        private final int width;
+        private final int styleIdx;
+        private final boolean hidden;
+        private final int outlineLevel;
+
+        private ColumnInfo(int first, int last, int width, int styleIdx, boolean hidden, int outlineLevel) {
+            this.first = first;
+            this.last = last;
+            this.width = width;
+            this.styleIdx = styleIdx;
+            this.hidden = hidden;
+            this.outlineLevel = outlineLevel;
+        }
+    }
+
+    /**
+     * Reads the cell table into compact rows.  Only the records needed
+     * for the usermodel are read, the others are skipped.
+     */
+    private class SheetLoader extends XSSFBParser {
+        private final XSSFBCellHeader cellHeader = new XSSFBCellHeader();
+        private final StringBuilder sb = new StringBuilder();
+        private XSSFBRow currentRow;
+
+        private SheetLoader(InputStream is) {
+            super(is,
+                    XSSFBRecordType.BrtWsFmtInfo,
+                    XSSFBRecordType.BrtColInfo,
+                    XSSFBRecordType.BrtRowHdr,
+                    XSSFBRecordType.BrtCellBlank,
+                    XSSFBRecordType.BrtCellRk,
+                    XSSFBRecordType.BrtCellError,
+                    XSSFBRecordType.BrtCellBool,
+                    XSSFBRecordType.BrtCellReal,
+                    XSSFBRecordType.BrtCellSt,
+                    XSSFBRecordType.BrtCellIsst,
+                    XSSFBRecordType.BrtCellRString,
+                    XSSFBRecordType.BrtFmlaString,
+                    XSSFBRecordType.BrtFmlaNum,
+                    XSSFBRecordType.BrtFmlaBool,
+                    XSSFBRecordType.BrtFmlaError,
+                    XSSFBRecordType.BrtMergeCell,
+                    XSSFBRecordType.BrtMargins,
+                    XSSFBRecordType.BrtBeginHeaderFooter);
+        }
+
+        @Override
+        public void handleRecord(int recordType, byte[] data) throws XSSFBParseException {
+            handleRecord(recordType, data, data.length);
+        }
+
+        @Override
+        protected void handleRecord(int recordType, byte[] data, int length) throws XSSFBParseException {
+            final int offset = XSSFBCellHeader.length;
+            switch (XSSFBRecordType.lookup(recordType)) {
+                case BrtWsFmtInfo:
+                    defaultColumnWidth = LittleEndian.getUShort(data, 4);
+                    defaultRowHeight = LittleEndian.getShort(data, 6);
+                    break;
+                case BrtColInfo:
+                    handleColInfo(data);
+                    break;
+                case BrtRowHdr:
+                    handleRowHdr(data);
+                    break;
+                case BrtCellBlank:
+                    addCell(data, CellType.BLANK, 0, null);
+                    break;
+                case BrtCellRk:
+                    addCell(data, CellType.NUMERIC,
+                            Double.doubleToRawLongBits(XSSFBSheetHandler.rkNumber(data, offset)), null);
+                    break;
+                case BrtCellReal:
+                case BrtFmlaNum:
+                    addCell(data, CellType.NUMERIC, LittleEndian.getLong(data, offset), null);
+                    break;
+                case BrtCellBool:
+                case BrtFmlaBool:
+                    addCell(data, CellType.BOOLEAN, data[offset] == 0 ? 0 : 1, null);
+                    break;
+                case BrtCellError:
+                case BrtFmlaError:
+                    addCell(data, CellType.ERROR, data[offset], null);
+                    break;
+                case BrtCellIsst:
+                    addCell(data, CellType.STRING, LittleEndian.getUInt(data, offset), null);
+                    break;
+                case BrtCellSt:
+                case BrtFmlaString:
+                    sb.setLength(0);
+                    XSSFBUtils.readXLWideString(data, offset, length, sb);
+                    addCell(data, CellType.STRING, 0, sb.toString());
+                    break;
+                case BrtCellRString:
+                    //skip the RichStr flags, the formatting runs aren't read
+                    sb.setLength(0);
+                    XSSFBUtils.readXLWideString(data, offset + 1, length, sb);
+                    addCell(data, CellType.STRING, 0, sb.toString());
+                    break;
+                case BrtMergeCell:
+                    mergedRegions.add(new CellRangeAddress(
+                            LittleEndian.getInt(data, 0), LittleEndian.getInt(data, 4),
+                            LittleEndian.getInt(data, 8), LittleEndian.getInt(data, 12)));
+                    break;
+                case BrtMargins:
+                    margins = new double[FooterMargin + 1];
+                    for (int i = 0; i < margins.length; i++) {
+                        margins[i] = LittleEndian.getDouble(data, 8 * i);
+                    }
+                    break;
+                case BrtBeginHeaderFooter:
+                    //the header footer strings are read up to the end of the array
+                    headerFooters = XSSFBHeaderFooters.parse(Arrays.copyOf(data, length));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void handleRowHdr(byte[] data) {
+            int rw = XSSFBUtils.castToInt(LittleEndian.getUInt(data, 0));
+            if (rw > 0x00100000) {
+                throw new XSSFBParseException("Row number beyond allowable range: "+rw);
+            }
+            int styleIdx = LittleEndian.getInt(data, 4);
+            short height = LittleEndian.getShort(data, 8);
+            int flags = data[11] & 0xFF;
+            currentRow = new XSSFBRow(XSSFBSheet.this, rw, styleIdx, height, flags);
+            rows.put(rw, currentRow);
+        }
+
+        private void handleColInfo(byte[] data) {
+            int first = LittleEndian.getInt(data, 0);
+            int last = LittleEndian.getInt(data, 4);
+            int width = LittleEndian.getInt(data, 8);
+            int styleIdx = LittleEndian.getInt(data, 12);
+            int flags = LittleEndian.getUShort(data, 16);
+            columnInfos.add(new ColumnInfo(first, last, width, styleIdx, (flags & 0x01) != 0, (flags >> 8) & 0x07));
+        }
+
+        private void addCell(byte[] data, CellType type, long value, String string) {
+            if (currentRow == null) {
+                throw new XSSFBParseException("Cell record without preceding row header");
+            }
+            XSSFBCellHeader.parse(data, 0, currentRow.getRowNum(), cellHeader);
+            currentRow.addCell(cellHeader.getColNum(), type, cellHeader.getStyleIdx(), value, string);
+        }
+    }
+}
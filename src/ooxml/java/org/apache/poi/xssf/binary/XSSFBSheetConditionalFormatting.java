@@ -0,0 +1,102 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import org.apache.poi.ss.usermodel.ConditionalFormatting;
+import org.apache.poi.ss.usermodel.ConditionalFormattingRule;
+import org.apache.poi.ss.usermodel.ExtendedColor;
+import org.apache.poi.ss.usermodel.IconMultiStateFormatting.IconSet;
+import org.apache.poi.ss.usermodel.SheetConditionalFormatting;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * Conditional formatting of a {@link XSSFBSheet}.  The conditional
+ * formats of xlsb files aren't read, so a sheet never has any.
+ *
+ * @since 3.17-beta1
+ */
+class XSSFBSheetConditionalFormatting implements SheetConditionalFormatting {
+
+    @Override
+    public int addConditionalFormatting(CellRangeAddress[] regions, ConditionalFormattingRule rule) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public int addConditionalFormatting(CellRangeAddress[] regions, ConditionalFormattingRule rule1,
+                                        ConditionalFormattingRule rule2) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public int addConditionalFormatting(CellRangeAddress[] regions, ConditionalFormattingRule[] cfRules) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public int addConditionalFormatting(ConditionalFormatting cf) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public ConditionalFormattingRule createConditionalFormattingRule(byte comparisonOperation, String formula1,
+                                                                     String formula2) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public ConditionalFormattingRule createConditionalFormattingRule(byte comparisonOperation, String formula) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public ConditionalFormattingRule createConditionalFormattingRule(String formula) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public ConditionalFormattingRule createConditionalFormattingRule(ExtendedColor color) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public ConditionalFormattingRule createConditionalFormattingRule(IconSet iconSet) {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public ConditionalFormattingRule createConditionalFormattingColorScaleRule() {
+        throw XSSFBWorkbook.readOnly();
+    }
+
+    @Override
+    public ConditionalFormatting getConditionalFormattingAt(int index) {
+        throw new IllegalArgumentException("Specified CF index " + index
+                + " is outside the allowable range, the sheet has no conditional formatting");
+    }
+
+    @Override
+    public int getNumConditionalFormattings() {
+        return 0;
+    }
+
+    @Override
+    public void removeConditionalFormatting(int index) {
+        throw XSSFBWorkbook.readOnly();
+    }
+}
@@ -37,6 +37,23 @@ public class XSSFBSheetHandler extends XSSFBParser {
 
     private static final int CHECK_ALL_ROWS = -1;
 
+    //bodies of all other records are skipped without being read
+    private static final XSSFBRecordType[] HANDLED_RECORDS = {
+            XSSFBRecordType.BrtRowHdr,
+            XSSFBRecordType.BrtCellIsst,
+            XSSFBRecordType.BrtCellSt,
+            XSSFBRecordType.BrtCellRk,
+            XSSFBRecordType.BrtCellReal,
+            XSSFBRecordType.BrtCellBool,
+            XSSFBRecordType.BrtCellError,
+            XSSFBRecordType.BrtCellBlank,
+            XSSFBRecordType.BrtFmlaString,
+            XSSFBRecordType.BrtFmlaNum,
+            XSSFBRecordType.BrtFmlaError,
+            XSSFBRecordType.BrtEndSheetData,
+            XSSFBRecordType.BrtBeginHeaderFooter
+    };
+
     private final XSSFBSharedStringsTable stringsTable;
     private final XSSFSheetXMLHandler.SheetContentsHandler handler;
     private final XSSFBStylesTable styles;
@@ -47,7 +64,7 @@ public class XSSFBSheetHandler extends XSSFBParser {
     private int lastEndedRow = -1;
     private int lastStartedRow = -1;
     private int currentRow = 0;
-    private byte[] rkBuffer = new byte[8];
+    private int recordLength;
     private XSSFBCellRange hyperlinkCellRange = null;
     private StringBuilder xlWideStringBuffer = new StringBuilder();
 
@@ -59,7 +76,7 @@ public class XSSFBSheetHandler extends XSSFBParser {
                              XSSFSheetXMLHandler.SheetContentsHandler sheetContentsHandler,
                              DataFormatter dataFormatter,
                              boolean formulasNotResults) {
-        super(is);
+        super(is, HANDLED_RECORDS);
         this.styles = styles;
         this.comments = comments;
         this.stringsTable = strings;
@@ -70,6 +87,12 @@ public class XSSFBSheetHandler extends XSSFBParser {
 
     @Override
     public void handleRecord(int id, byte[] data) throws XSSFBParseException {
+        handleRecord(id, data, data.length);
+    }
+
+    @Override
+    protected void handleRecord(int id, byte[] data, int length) throws XSSFBParseException {
+        recordLength = length;
         XSSFBRecordType type = XSSFBRecordType.lookup(id);
 
         switch(type) {
@@ -148,14 +171,14 @@ public class XSSFBSheetHandler extends XSSFBParser {
     private void handleCellSt(byte[] data) {
         beforeCellValue(data);
         xlWideStringBuffer.setLength(0);
-        XSSFBUtils.readXLWideString(data, XSSFBCellHeader.length, xlWideStringBuffer);
+        XSSFBUtils.readXLWideString(data, XSSFBCellHeader.length, recordLength, xlWideStringBuffer);
         handleCellValue(xlWideStringBuffer.toString());
     }
 
     private void handleFmlaString(byte[] data) {
         beforeCellValue(data);
         xlWideStringBuffer.setLength(0);
-        XSSFBUtils.readXLWideString(data, XSSFBCellHeader.length, xlWideStringBuffer);
+        XSSFBUtils.readXLWideString(data, XSSFBCellHeader.length, recordLength, xlWideStringBuffer);
         handleCellValue(xlWideStringBuffer.toString());
     }
 
@@ -205,7 +228,9 @@ public class XSSFBSheetHandler extends XSSFBParser {
 
 
     private void handleHeaderFooter(byte[] data) {
-        XSSFBHeaderFooters headerFooter = XSSFBHeaderFooters.parse(data);
+        byte[] copy = new byte[recordLength];
+        System.arraycopy(data, 0, copy, 0, recordLength);
+        XSSFBHeaderFooters headerFooter = XSSFBHeaderFooters.parse(copy);
         outputHeaderFooter(headerFooter.getHeader());
         outputHeaderFooter(headerFooter.getFooter());
         outputHeaderFooter(headerFooter.getHeaderEven());
@@ -291,26 +316,18 @@ public class XSSFBSheetHandler extends XSSFBParser {
         handler.cell(cellAddress.formatAsString(), null, comment);
     }
 
-    private double rkNumber(byte[] data, int offset) {
+    static double rkNumber(byte[] data, int offset) {
         //see 2.5.122 for this abomination
-        byte b0 = data[offset];
-        String s = Integer.toString(b0, 2);
-        boolean numDivBy100 = ((b0 & 1) == 1); // else as is
-        boolean floatingPoint = ((b0 >> 1 & 1) == 0); // else signed integer
-
-        //unset highest 2 bits
-        b0 &= ~1;
-        b0 &= ~(1<<1);
-
-        rkBuffer[4] = b0;
-        for (int i = 1; i < 4; i++) {
-            rkBuffer[i+4] = data[offset+i];
-        }
-        double d = 0.0;
+        int rk = LittleEndian.getInt(data, offset);
+        boolean numDivBy100 = ((rk & 1) == 1); // else as is
+        boolean floatingPoint = ((rk >> 1 & 1) == 0); // else signed integer
+
+        double d;
         if (floatingPoint) {
-            d = LittleEndian.getDouble(rkBuffer);
+            //the 30 high bits are the high bits of a double, the low bits are 0
+            d = Double.longBitsToDouble(((long)(rk & ~3)) << 32);
         } else {
-            d = LittleEndian.getInt(rkBuffer);
+            d = rk >> 2;
         }
         d = (numDivBy100) ? d/100 : d;
         return d;
@@ -27,9 +27,10 @@ import java.util.TreeMap;
 import org.apache.poi.POIXMLException;
 import org.apache.poi.ss.usermodel.BuiltinFormats;
 import org.apache.poi.util.Internal;
+import org.apache.poi.util.LittleEndian;
 
 /**
- * This is a very thin shim to gather number formats from styles.bin
+ * This is a very thin shim to gather number formats and fonts from styles.bin
  * files.
  *
  * @since 3.16-beta3
@@ -39,9 +40,12 @@ public class XSSFBStylesTable extends XSSFBParser {
 
     private final SortedMap<Short, String> numberFormats = new TreeMap<Short,String>();
     private final List<Short> styleIds = new ArrayList<Short>();
+    private final List<Short> styleFontIds = new ArrayList<Short>();
+    private final List<XSSFBFont> fonts = new ArrayList<XSSFBFont>();
 
     private boolean inCellXFS = false;
     private boolean inFmts = false;
+    private boolean inFonts = false;
     public XSSFBStylesTable(InputStream is) throws IOException {
         super(is);
         parse();
@@ -60,6 +64,22 @@ public class XSSFBStylesTable extends XSSFBParser {
         return styleIds.get(idx);
     }
 
+    int getNumCellStyles() {
+        return styleIds.size();
+    }
+
+    short getFontIndex(int idx) {
+        return styleFontIds.get(idx);
+    }
+
+    XSSFBFont getFont(int idx) {
+        return fonts.get(idx);
+    }
+
+    int getNumFonts() {
+        return fonts.size();
+    }
+
     @Override
     public void handleRecord(int recordType, byte[] data) throws XSSFBParseException {
         XSSFBRecordType type = XSSFBRecordType.lookup(recordType);
@@ -86,6 +106,17 @@ public class XSSFBStylesTable extends XSSFBParser {
                     handleFormat(data);
                 }
                 break;
+            case BrtBeginFonts:
+                inFonts = true;
+                break;
+            case BrtEndFonts:
+                inFonts = false;
+                break;
+            case BrtFont:
+                if (inFonts) {
+                    fonts.add(XSSFBFont.parse(fonts.size(), data));
+                }
+                break;
 
         }
     }
@@ -108,5 +139,6 @@ public class XSSFBStylesTable extends XSSFBParser {
         //numFmtId in xml terms
         int ifmt = data[ifmtOffset] & 0xFF;//the second byte is ignored
         styleIds.add((short)ifmt);
+        styleFontIds.add(LittleEndian.getShort(data, 4));
     }
 }
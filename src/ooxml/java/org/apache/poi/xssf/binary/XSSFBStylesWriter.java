@@ -0,0 +1,328 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.FontScheme;
+import org.apache.poi.util.Internal;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+import org.apache.poi.xssf.usermodel.extensions.XSSFCellBorder;
+import org.apache.poi.xssf.usermodel.extensions.XSSFCellFill;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTBorder;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTBorderPr;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCellAlignment;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCellProtection;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTXf;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STPatternType;
+
+/**
+ * Writes the number formats, fonts, fills, borders and cell formats of a
+ * {@link StylesTable} as xlsb styles part.
+ *
+ * @since 3.17-beta1
+ */
+@Internal
+public class XSSFBStylesWriter {
+
+    //xColorType values, see 2.5.20 BrtColor
+    private static final int COLOR_AUTO = 0;
+    private static final int COLOR_INDEXED = 1;
+    private static final int COLOR_RGB = 2;
+    private static final int COLOR_THEME = 3;
+
+    //alcv value of the default vertical alignment "bottom"
+    private static final int ALCV_BOTTOM = 2;
+
+    private final StylesTable styles;
+
+    public XSSFBStylesWriter(StylesTable styles) {
+        this.styles = styles;
+    }
+
+    public void write(XSSFBRecordWriter out) throws IOException {
+        out.writeRecord(XSSFBRecordType.BrtBeginStyleSheet);
+        writeFormats(out);
+        writeFonts(out);
+        writeFills(out);
+        writeBorders(out);
+
+        int numStyleXfs = styles._getStyleXfsSize();
+        out.startRecord(XSSFBRecordType.BrtBeginCellStyleXFS);
+        out.writeInt(numStyleXfs);
+        out.endRecord();
+        for (int i = 0; i < numStyleXfs; i++) {
+            writeXf(out, styles.getCellStyleXfAt(i), true);
+        }
+        out.writeRecord(XSSFBRecordType.BrtEndCellStyleXFS);
+
+        int numXfs = styles.getNumCellStyles();
+        out.startRecord(XSSFBRecordType.BrtBeginCellXFs);
+        out.writeInt(numXfs);
+        out.endRecord();
+        for (int i = 0; i < numXfs; i++) {
+            writeXf(out, styles.getCellXfAt(i), false);
+        }
+        out.writeRecord(XSSFBRecordType.BrtEndCellXFs);
+
+        writeCellStyles(out, numStyleXfs);
+
+        out.startRecord(XSSFBRecordType.BrtBeginDXFs);
+        out.writeInt(0);
+        out.endRecord();
+        out.writeRecord(XSSFBRecordType.BrtEndDXFs);
+
+        out.startRecord(XSSFBRecordType.BrtBeginTableStyles);
+        out.writeInt(0);
+        out.writeXLNullableWideString("TableStyleMedium9");
+        out.writeXLNullableWideString("PivotStyleLight16");
+        out.endRecord();
+        out.writeRecord(XSSFBRecordType.BrtEndTableStyles);
+
+        out.writeRecord(XSSFBRecordType.BrtEndStyleSheet);
+    }
+
+    private void writeFormats(XSSFBRecordWriter out) throws IOException {
+        Map<Short, String> formats = styles.getNumberFormats();
+        out.startRecord(XSSFBRecordType.BrtBeginFmts);
+        out.writeInt(formats.size());
+        out.endRecord();
+        for (Map.Entry<Short, String> format : formats.entrySet()) {
+            out.startRecord(XSSFBRecordType.BrtFmt);
+            out.writeShort(format.getKey());
+            out.writeXLWideString(format.getValue());
+            out.endRecord();
+        }
+        out.writeRecord(XSSFBRecordType.BrtEndFmts);
+    }
+
+    private void writeFonts(XSSFBRecordWriter out) throws IOException {
+        List<XSSFFont> fonts = styles.getFonts();
+        out.startRecord(XSSFBRecordType.BrtBeginFonts);
+        out.writeInt(fonts.size());
+        out.endRecord();
+        for (XSSFFont font : fonts) {
+            int grbit = 0;
+            if (font.getItalic()) {
+                grbit |= 0x02;
+            }
+            if (font.getStrikeout()) {
+                grbit |= 0x08;
+            }
+            FontScheme scheme = font.getScheme();
+
+            out.startRecord(XSSFBRecordType.BrtFont);
+            out.writeShort(font.getFontHeight());
+            out.writeShort(grbit);
+            out.writeShort(font.getBold() ? 700 : 400);
+            out.writeShort(font.getTypeOffset());
+            out.writeByte(font.getUnderline());
+            out.writeByte(font.getFamily());
+            out.writeByte(font.getCharSet());
+            out.writeByte(0);
+            writeColor(out, font.getXSSFColor());
+            out.writeByte(scheme == null ? 0 : scheme.getValue() - 1);
+            out.writeXLWideString(font.getFontName());
+            out.endRecord();
+        }
+        out.writeRecord(XSSFBRecordType.BrtEndFonts);
+    }
+
+    private void writeFills(XSSFBRecordWriter out) throws IOException {
+        List<XSSFCellFill> fills = styles.getFills();
+        out.startRecord(XSSFBRecordType.BrtBeginFills);
+        out.writeInt(fills.size());
+        out.endRecord();
+        for (XSSFCellFill fill : fills) {
+            STPatternType.Enum pattern = fill.getPatternType();
+            out.startRecord(XSSFBRecordType.BrtFill);
+            out.writeInt(pattern == null ? 0 : pattern.intValue() - 1);
+            writeColor(out, fill.getFillForegroundColor());
+            writeColor(out, fill.getFillBackgroundColor());
+            //no gradient: type, degree, left, right, top, bottom and stop count
+            out.writeInt(0);
+            for (int i = 0; i < 5; i++) {
+                out.writeDouble(0);
+            }
+            out.writeInt(0);
+            out.endRecord();
+        }
+        out.writeRecord(XSSFBRecordType.BrtEndFills);
+    }
+
+    private void writeBorders(XSSFBRecordWriter out) throws IOException {
+        List<XSSFCellBorder> borders = styles.getBorders();
+        out.startRecord(XSSFBRecordType.BrtBeginBorders);
+        out.writeInt(borders.size());
+        out.endRecord();
+        for (XSSFCellBorder border : borders) {
+            CTBorder ctBorder = border.getCTBorder();
+            int flags = 0;
+            if (ctBorder.getDiagonalDown()) {
+                flags |= 0x01;
+            }
+            if (ctBorder.getDiagonalUp()) {
+                flags |= 0x02;
+            }
+            out.startRecord(XSSFBRecordType.BrtBorder);
+            out.writeByte(flags);
+            writeBorderSide(out, ctBorder.getTop());
+            writeBorderSide(out, ctBorder.getBottom());
+            writeBorderSide(out, ctBorder.getLeft());
+            writeBorderSide(out, ctBorder.getRight());
+            writeBorderSide(out, ctBorder.getDiagonal());
+            out.endRecord();
+        }
+        out.writeRecord(XSSFBRecordType.BrtEndBorders);
+    }
+
+    private static void writeBorderSide(XSSFBRecordWriter out, CTBorderPr borderPr) {
+        boolean hasStyle = borderPr != null && borderPr.isSetStyle();
+        boolean hasColor = borderPr != null && borderPr.isSetColor();
+        out.writeByte(hasStyle ? borderPr.getStyle().intValue() - 1 : 0);
+        out.writeByte(0);
+        writeColor(out, hasColor ? new XSSFColor(borderPr.getColor()) : null);
+    }
+
+    private void writeXf(XSSFBRecordWriter out, CTXf xf, boolean styleXf) throws IOException {
+        int alc = 0;
+        int alcv = ALCV_BOTTOM;
+        int trot = 0;
+        int indent = 0;
+        int flags = 0;
+        CTCellAlignment align = xf.getAlignment();
+        if (align != null) {
+            if (align.isSetHorizontal()) {
+                alc = align.getHorizontal().intValue() - 1;
+            }
+            if (align.isSetVertical()) {
+                alcv = align.getVertical().intValue() - 1;
+            }
+            if (align.getWrapText()) {
+                flags |= 0x0040;
+            }
+            if (align.getShrinkToFit()) {
+                flags |= 0x0100;
+            }
+            flags |= ((int)align.getReadingOrder() & 0x03) << 10;
+            trot = (int)align.getTextRotation();
+            indent = (int)align.getIndent();
+        }
+        flags |= alc & 0x07;
+        flags |= (alcv & 0x07) << 3;
+
+        CTCellProtection protection = xf.getProtection();
+        if (protection == null || !protection.isSetLocked() || protection.getLocked()) {
+            flags |= 0x1000;
+        }
+        if (protection != null && protection.getHidden()) {
+            flags |= 0x2000;
+        }
+
+        //for cell xfs the bits flag the attributes that differ from the parent style xf
+        int atr = 0;
+        if (xf.getApplyNumberFormat()) {
+            atr |= 0x01;
+        }
+        if (xf.getApplyFont()) {
+            atr |= 0x02;
+        }
+        if (xf.getApplyAlignment()) {
+            atr |= 0x04;
+        }
+        if (xf.getApplyBorder()) {
+            atr |= 0x08;
+        }
+        if (xf.getApplyFill()) {
+            atr |= 0x10;
+        }
+        if (xf.getApplyProtection()) {
+            atr |= 0x20;
+        }
+
+        out.startRecord(XSSFBRecordType.BrtXf);
+        out.writeShort(styleXf ? 0xFFFF : (int)xf.getXfId());
+        out.writeShort((int)xf.getNumFmtId());
+        out.writeShort((int)xf.getFontId());
+        out.writeShort((int)xf.getFillId());
+        out.writeShort((int)xf.getBorderId());
+        out.writeByte(trot);
+        out.writeByte(indent);
+        out.writeShort(flags);
+        out.writeByte(atr);
+        out.writeByte(0);
+        out.endRecord();
+    }
+
+    private void writeCellStyles(XSSFBRecordWriter out, int numStyleXfs) throws IOException {
+        int numStyles = numStyleXfs > 0 ? 1 : 0;
+        out.startRecord(XSSFBRecordType.BrtBeginStyles);
+        out.writeInt(numStyles);
+        out.endRecord();
+        if (numStyles > 0) {
+            //the built-in "Normal" style
+            out.startRecord(XSSFBRecordType.BrtStyle);
+            out.writeInt(0);
+            out.writeShort(0x0001);
+            out.writeByte(0);
+            out.writeByte(0xFF);
+            out.writeXLNullableWideString("Normal");
+            out.endRecord();
+        }
+        out.writeRecord(XSSFBRecordType.BrtEndStyles);
+    }
+
+    private static void writeColor(XSSFBRecordWriter out, XSSFColor color) {
+        int type = COLOR_AUTO;
+        int index = 0;
+        int tint = 0;
+        byte[] argb = null;
+        if (color != null) {
+            if (color.isThemed()) {
+                type = COLOR_THEME;
+                index = color.getTheme();
+            } else if (color.isIndexed()) {
+                type = COLOR_INDEXED;
+                index = color.getIndexed();
+            } else if (color.isRGB()) {
+                type = COLOR_RGB;
+            }
+            if (color.hasTint()) {
+                tint = (int)Math.round(color.getTint() * Short.MAX_VALUE);
+            }
+            argb = color.getARGB();
+        }
+
+        //fValidRGB and xColorType
+        out.writeByte(0x01 | (type << 1));
+        out.writeByte(index);
+        out.writeShort(tint);
+        if (argb != null && argb.length == 4) {
+            out.writeByte(argb[1]);
+            out.writeByte(argb[2]);
+            out.writeByte(argb[3]);
+            out.writeByte(argb[0]);
+        } else {
+            out.writeInt(0xFF000000);
+        }
+    }
+}
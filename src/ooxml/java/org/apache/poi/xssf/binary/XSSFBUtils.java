@@ -18,11 +18,10 @@
 package org.apache.poi.xssf.binary;
 
 
-import java.nio.charset.Charset;
-
 import org.apache.poi.POIXMLException;
 import org.apache.poi.util.Internal;
 import org.apache.poi.util.LittleEndian;
+import org.apache.poi.util.StringUtil;
 
 /**
  * @since 3.16-beta3
@@ -54,7 +53,7 @@ public class XSSFBUtils {
             throw new XSSFBParseException("trying to read beyond data length:" +
              "offset="+offset+", numBytes="+numBytes+", data.length="+data.length);
         }
-        sb.append(new String(data, offset, numBytes, Charset.forName("UTF-16LE")));
+        sb.append(new String(data, offset, numBytes, StringUtil.UTF16LE));
         numBytes+=4;
         return numBytes;
     }
@@ -69,6 +68,20 @@ public class XSSFBUtils {
      * @throws XSSFBParseException if there was an exception while trying to read the string
      */
     public static int readXLWideString(byte[] data, int offset, StringBuilder sb) throws XSSFBParseException {
+        return readXLWideString(data, offset, data.length, sb);
+    }
+
+    /**
+     * Reads an XLWideString from a buffer whose valid data ends before the end of the array,
+     * e.g. the shared record buffer of {@link XSSFBParser}.
+     * @param data data from which to read
+     * @param offset in data from which to start
+     * @param length number of valid bytes in data
+     * @param sb buffer to which to write.  You must setLength(0) before calling!
+     * @return number of bytes read
+     * @throws XSSFBParseException if there was an exception while trying to read the string
+     */
+    static int readXLWideString(byte[] data, int offset, int length, StringBuilder sb) throws XSSFBParseException {
         long numChars = LittleEndian.getUInt(data, offset);
         if (numChars < 0) {
             throw new XSSFBParseException("too few chars to read");
@@ -77,10 +90,10 @@ public class XSSFBUtils {
         }
         int numBytes = 2*(int)numChars;
         offset += 4;
-        if (offset+numBytes > data.length) {
+        if (offset+numBytes > length) {
             throw new XSSFBParseException("trying to read beyond data length");
         }
-        sb.append(new String(data, offset, numBytes, Charset.forName("UTF-16LE")));
+        sb.append(new String(data, offset, numBytes, StringUtil.UTF16LE));
         numBytes+=4;
         return numBytes;
     }
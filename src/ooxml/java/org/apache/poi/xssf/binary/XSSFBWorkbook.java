@@ -0,0 +1,597 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.formula.udf.UDFFinder;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.PictureData;
+import org.apache.poi.ss.usermodel.Row.MissingCellPolicy;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.SheetVisibility;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.util.LittleEndian;
+import org.apache.poi.xssf.eventusermodel.XSSFBReader;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.xml.sax.SAXException;
+
+/**
+ * Read-only usermodel view of a binary workbook (.xlsb).
+ * <p>
+ * All sheets are parsed with {@link XSSFBParser} when the workbook is opened.
+ * The cells of a row are kept in a few primitive arrays, {@link org.apache.poi.ss.usermodel.Cell}
+ * objects are only created when they are requested, so this needs much less memory than
+ * the equivalent {@link org.apache.poi.xssf.usermodel.XSSFWorkbook}.
+ * <p>
+ * Limitations:
+ * <ul>
+ *     <li>All modifying methods throw an {@link UnsupportedOperationException}</li>
+ *     <li>Formulas aren't decoded, formula cells are returned as cells holding their cached result</li>
+ *     <li>Only the number formats and fonts of the cell styles are read, defined names, comments,
+ *     hyperlinks, drawings and the page setup are not available</li>
+ * </ul>
+ *
+ * @since 3.17-beta1
+ */
+public class XSSFBWorkbook implements Workbook {
+
+    private final OPCPackage pkg;
+    private final XSSFBSharedStringsTable sharedStrings;
+    private final XSSFBStylesTable stylesTable;
+    private final List<XSSFBSheet> sheets = new ArrayList<XSSFBSheet>();
+    private final List<SheetVisibility> sheetVisibilities = new ArrayList<SheetVisibility>();
+    private XSSFBCellStyle[] cellStyles;
+    private XSSFBFont defaultFont;
+
+    private boolean date1904;
+    private int activeSheet;
+    private int firstVisibleTab;
+    private MissingCellPolicy missingCellPolicy = MissingCellPolicy.RETURN_NULL_AND_BLANK;
+
+    /**
+     * Reads the workbook from the given package.  The package is reverted
+     * and not saved when the workbook is closed.
+     *
+     * @param pkg the package containing the xlsb workbook
+     * @throws IOException if the package parts can't be read
+     */
+    public XSSFBWorkbook(OPCPackage pkg) throws IOException {
+        this.pkg = pkg;
+        try {
+            XSSFBReader reader = new XSSFBReader(pkg);
+            sharedStrings = new XSSFBSharedStringsTable(pkg);
+            stylesTable = reader.getXSSFBStylesTable();
+
+            InputStream wbData = reader.getWorkbookData();
+            try {
+                new WorkbookPropertiesLoader(wbData).parse();
+            } finally {
+                IOUtils.closeQuietly(wbData);
+            }
+
+            XSSFBReader.SheetIterator it = (XSSFBReader.SheetIterator) reader.getSheetsData();
+            while (it.hasNext()) {
+                InputStream is = it.next();
+                try {
+                    sheets.add(new XSSFBSheet(this, it.getSheetName(), is));
+                } finally {
+                    IOUtils.closeQuietly(is);
+                }
+            }
+        } catch (OpenXML4JException e) {
+            throw new IOException(e);
+        } catch (SAXException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * @param pkg the package to check
+     * @return true if the package contains a binary workbook part
+     */
+    public static boolean isXLSB(OPCPackage pkg) {
+        return !pkg.getPartsByContentType(XSSFRelation.XLSB_BINARY_WORKBOOK.getContentType()).isEmpty();
+    }
+
+    static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("XSSFBWorkbook is read-only");
+    }
+
+    /**
+     * @return true if the workbook uses the 1904 date system
+     */
+    public boolean isDate1904() {
+        return date1904;
+    }
+
+    String getSharedString(int idx) {
+        return sharedStrings.getEntryAt(idx);
+    }
+
+    @Override
+    public int getActiveSheetIndex() {
+        return activeSheet;
+    }
+
+    @Override
+    public void setActiveSheet(int sheetIndex) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getFirstVisibleTab() {
+        return firstVisibleTab;
+    }
+
+    @Override
+    public void setFirstVisibleTab(int sheetIndex) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setSheetOrder(String sheetname, int pos) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setSelectedTab(int index) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setSheetName(int sheet, String name) {
+        throw readOnly();
+    }
+
+    @Override
+    public String getSheetName(int sheet) {
+        return getSheetAt(sheet).getSheetName();
+    }
+
+    @Override
+    public int getSheetIndex(String name) {
+        for (int i = 0; i < sheets.size(); i++) {
+            if (sheets.get(i).getSheetName().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int getSheetIndex(Sheet sheet) {
+        return sheets.indexOf(sheet);
+    }
+
+    @Override
+    public Sheet createSheet() {
+        throw readOnly();
+    }
+
+    @Override
+    public Sheet createSheet(String sheetname) {
+        throw readOnly();
+    }
+
+    @Override
+    public Sheet cloneSheet(int sheetNum) {
+        throw readOnly();
+    }
+
+    @Override
+    public Iterator<Sheet> sheetIterator() {
+        return Collections.<Sheet>unmodifiableList(sheets).iterator();
+    }
+
+    @Override
+    public Iterator<Sheet> iterator() {
+        return sheetIterator();
+    }
+
+    @Override
+    public int getNumberOfSheets() {
+        return sheets.size();
+    }
+
+    @Override
+    public XSSFBSheet getSheetAt(int index) {
+        validateSheetIndex(index);
+        return sheets.get(index);
+    }
+
+    @Override
+    public XSSFBSheet getSheet(String name) {
+        int idx = getSheetIndex(name);
+        return idx == -1 ? null : sheets.get(idx);
+    }
+
+    private void validateSheetIndex(int index) {
+        int lastSheetIx = sheets.size() - 1;
+        if (index < 0 || index > lastSheetIx) {
+            String range = "(0.." + lastSheetIx + ")";
+            if (lastSheetIx == -1) {
+                range = "(no sheets)";
+            }
+            throw new IllegalArgumentException("Sheet index ("
+                    + index +") is out of range " + range);
+        }
+    }
+
+    @Override
+    public void removeSheetAt(int index) {
+        throw readOnly();
+    }
+
+    @Override
+    public Font createFont() {
+        throw readOnly();
+    }
+
+    @Deprecated
+    @Override
+    public XSSFBFont findFont(short boldWeight, short color, short fontHeight, String name, boolean italic, boolean strikeout, short typeOffset, byte underline) {
+        return findFont(boldWeight == Font.BOLDWEIGHT_BOLD, color, fontHeight, name, italic, strikeout, typeOffset, underline);
+    }
+
+    @Override
+    public XSSFBFont findFont(boolean bold, short color, short fontHeight, String name, boolean italic, boolean strikeout, short typeOffset, byte underline) {
+        for (short i = 0; i < getNumberOfFonts(); i++) {
+            XSSFBFont font = getFontAt(i);
+            if (font.getBold() == bold
+                    && font.getColor() == color
+                    && font.getFontHeight() == fontHeight
+                    && font.getFontName().equals(name)
+                    && font.getItalic() == italic
+                    && font.getStrikeout() == strikeout
+                    && font.getTypeOffset() == typeOffset
+                    && font.getUnderline() == underline) {
+                return font;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public short getNumberOfFonts() {
+        //there's always at least the default font
+        return (short)(stylesTable == null ? 1 : Math.max(1, stylesTable.getNumFonts()));
+    }
+
+    @Override
+    public XSSFBFont getFontAt(short idx) {
+        if (stylesTable == null || stylesTable.getNumFonts() == 0) {
+            if (defaultFont == null) {
+                defaultFont = XSSFBFont.createDefault(0);
+            }
+            return defaultFont;
+        }
+        if (idx < 0 || idx >= stylesTable.getNumFonts()) {
+            //an out of range font index falls back to the default font
+            idx = 0;
+        }
+        return stylesTable.getFont(idx);
+    }
+
+    @Override
+    public CellStyle createCellStyle() {
+        throw readOnly();
+    }
+
+    @Override
+    public int getNumCellStyles() {
+        //there's always at least the default style
+        return stylesTable == null ? 1 : Math.max(1, stylesTable.getNumCellStyles());
+    }
+
+    @Override
+    public XSSFBCellStyle getCellStyleAt(int idx) {
+        if (cellStyles == null) {
+            cellStyles = new XSSFBCellStyle[getNumCellStyles()];
+        }
+        if (idx < 0 || idx >= cellStyles.length) {
+            //an out of range style index falls back to the default style
+            idx = 0;
+        }
+        XSSFBCellStyle style = cellStyles[idx];
+        if (style == null) {
+            if (stylesTable == null || idx >= stylesTable.getNumCellStyles()) {
+                style = new XSSFBCellStyle(idx, (short)0, BuiltinFormats.getBuiltinFormat(0), (short)0);
+            } else {
+                style = new XSSFBCellStyle(idx, stylesTable.getNumberFormatIndex(idx), stylesTable.getNumberFormatString(idx),
+                        stylesTable.getFontIndex(idx));
+            }
+            cellStyles[idx] = style;
+        }
+        return style;
+    }
+
+    /**
+     * Not supported, the workbook is read-only
+     */
+    @Override
+    public void write(OutputStream stream) throws IOException {
+        throw readOnly();
+    }
+
+    /**
+     * Closes the underlying package without saving it
+     */
+    @Override
+    public void close() throws IOException {
+        pkg.revert();
+    }
+
+    @Override
+    public int getNumberOfNames() {
+        return 0;
+    }
+
+    @Override
+    public Name getName(String name) {
+        return null;
+    }
+
+    @Override
+    public List<? extends Name> getNames(String name) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<? extends Name> getAllNames() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Name getNameAt(int nameIndex) {
+        throw new IllegalStateException("There are no defined names in this workbook");
+    }
+
+    @Override
+    public Name createName() {
+        throw readOnly();
+    }
+
+    @Override
+    public int getNameIndex(String name) {
+        return -1;
+    }
+
+    @Override
+    public void removeName(int index) {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeName(String name) {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeName(Name name) {
+        throw readOnly();
+    }
+
+    @Override
+    public int linkExternalWorkbook(String name, Workbook workbook) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setPrintArea(int sheetIndex, String reference) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setPrintArea(int sheetIndex, int startColumn, int endColumn, int startRow, int endRow) {
+        throw readOnly();
+    }
+
+    @Override
+    public String getPrintArea(int sheetIndex) {
+        return null;
+    }
+
+    @Override
+    public void removePrintArea(int sheetIndex) {
+        throw readOnly();
+    }
+
+    @Override
+    public MissingCellPolicy getMissingCellPolicy() {
+        return missingCellPolicy;
+    }
+
+    @Override
+    public void setMissingCellPolicy(MissingCellPolicy missingCellPolicy) {
+        this.missingCellPolicy = missingCellPolicy;
+    }
+
+    @Override
+    public DataFormat createDataFormat() {
+        throw readOnly();
+    }
+
+    @Override
+    public int addPicture(byte[] pictureData, int format) {
+        throw readOnly();
+    }
+
+    @Override
+    public List<? extends PictureData> getAllPictures() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public CreationHelper getCreationHelper() {
+        return new XSSFBCreationHelper();
+    }
+
+    @Override
+    public boolean isHidden() {
+        return false;
+    }
+
+    @Override
+    public void setHidden(boolean hiddenFlag) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean isSheetHidden(int sheetIx) {
+        return getSheetVisibility(sheetIx) == SheetVisibility.HIDDEN;
+    }
+
+    @Override
+    public boolean isSheetVeryHidden(int sheetIx) {
+        return getSheetVisibility(sheetIx) == SheetVisibility.VERY_HIDDEN;
+    }
+
+    @Override
+    public void setSheetHidden(int sheetIx, boolean hidden) {
+        throw readOnly();
+    }
+
+    @Deprecated
+    @Override
+    public void setSheetHidden(int sheetIx, int hidden) {
+        throw readOnly();
+    }
+
+    @Override
+    public SheetVisibility getSheetVisibility(int sheetIx) {
+        validateSheetIndex(sheetIx);
+        //the sheet states are only trusted if they match up with the sheets
+        if (sheetVisibilities.size() != sheets.size()) {
+            return SheetVisibility.VISIBLE;
+        }
+        return sheetVisibilities.get(sheetIx);
+    }
+
+    @Override
+    public void setSheetVisibility(int sheetIx, SheetVisibility visibility) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addToolPack(UDFFinder toopack) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setForceFormulaRecalculation(boolean value) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean getForceFormulaRecalculation() {
+        return false;
+    }
+
+    @Override
+    public SpreadsheetVersion getSpreadsheetVersion() {
+        return SpreadsheetVersion.EXCEL2007;
+    }
+
+    @Override
+    public int addOlePackage(byte[] oleData, String label, String fileName, String command) throws IOException {
+        throw readOnly();
+    }
+
+    /**
+     * Reads the workbook properties, the book view and the sheet states
+     * from the workbook part
+     */
+    private class WorkbookPropertiesLoader extends XSSFBParser {
+        private final StringBuilder sb = new StringBuilder();
+        private boolean bookViewRead;
+
+        private WorkbookPropertiesLoader(InputStream is) {
+            super(is, XSSFBRecordType.BrtWbProp, XSSFBRecordType.BrtBookView, XSSFBRecordType.BrtBundleSh);
+        }
+
+        @Override
+        public void handleRecord(int recordType, byte[] data) throws XSSFBParseException {
+            handleRecord(recordType, data, data.length);
+        }
+
+        @Override
+        protected void handleRecord(int recordType, byte[] data, int length) throws XSSFBParseException {
+            switch (XSSFBRecordType.lookup(recordType)) {
+                case BrtWbProp:
+                    date1904 = (data[0] & 0x01) != 0;
+                    break;
+                case BrtBookView:
+                    //only the first book view is used
+                    if (!bookViewRead && length >= 28) {
+                        bookViewRead = true;
+                        firstVisibleTab = LittleEndian.getInt(data, 20);
+                        activeSheet = LittleEndian.getInt(data, 24);
+                    }
+                    break;
+                case BrtBundleSh:
+                    handleBundleSh(data, length);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void handleBundleSh(byte[] data, int length) {
+            if (length < 12) {
+                return;
+            }
+            //sheets without relationship id are skipped by the sheet iterator
+            sb.setLength(0);
+            try {
+                XSSFBUtils.readXLWideString(data, 8, length, sb);
+            } catch (XSSFBParseException e) {
+                return;
+            }
+            if (sb.toString().trim().length() == 0) {
+                return;
+            }
+            switch ((int)LittleEndian.getUInt(data, 0)) {
+                case 1:
+                    sheetVisibilities.add(SheetVisibility.HIDDEN);
+                    break;
+                case 2:
+                    sheetVisibilities.add(SheetVisibility.VERY_HIDDEN);
+                    break;
+                default:
+                    sheetVisibilities.add(SheetVisibility.VISIBLE);
+                    break;
+            }
+        }
+    }
+}
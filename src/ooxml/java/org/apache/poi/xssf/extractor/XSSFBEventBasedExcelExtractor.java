@@ -18,6 +18,9 @@ package org.apache.poi.xssf.extractor;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
 
 import org.apache.poi.POIXMLTextExtractor;
 import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
@@ -33,6 +36,7 @@ import org.apache.poi.xssf.binary.XSSFBStylesTable;
 import org.apache.poi.xssf.eventusermodel.XSSFBReader;
 import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
 import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFShape;
 import org.apache.xmlbeans.XmlException;
 import org.xml.sax.SAXException;
 
@@ -122,6 +126,10 @@ public class XSSFBEventBasedExcelExtractor extends XSSFEventBasedExcelExtractor
             XSSFBStylesTable styles = xssfbReader.getXSSFBStylesTable();
             XSSFBReader.SheetIterator iter = (XSSFBReader.SheetIterator) xssfbReader.getSheetsData();
 
+            if (getExecutor() != null) {
+                return getTextConcurrently(iter, styles, strings);
+            }
+
             StringBuffer text = new StringBuffer();
             SheetTextExtractor sheetExtractor = new SheetTextExtractor();
             XSSFBHyperlinksTable hyperlinksTable = null;
@@ -163,4 +171,32 @@ public class XSSFBEventBasedExcelExtractor extends XSSFEventBasedExcelExtractor
         }
     }
 
+    private String getTextConcurrently(XSSFBReader.SheetIterator iter, final XSSFBStylesTable styles,
+            final XSSFBSharedStringsTable strings) throws IOException, SAXException {
+        List<PendingSheet> sheets = new ArrayList<PendingSheet>();
+        while (iter.hasNext()) {
+            final InputStream stream = iter.next();
+            final XSSFBCommentsTable comments;
+            List<XSSFShape> shapes;
+            try {
+                comments = getIncludeCellComments() ? iter.getXSSFBSheetComments() : null;
+                shapes = getIncludeTextBoxes() ? iter.getShapes() : null;
+            } catch (RuntimeException e) {
+                stream.close();
+                throw e;
+            }
+            Future<SheetTextExtractor> result = submitSheet(new SheetParser() {
+                @Override
+                public void parse(SheetTextExtractor sheetExtractor) throws IOException, SAXException {
+                    try {
+                        processSheet(sheetExtractor, styles, comments, strings, stream);
+                    } finally {
+                        stream.close();
+                    }
+                }
+            });
+            sheets.add(new PendingSheet(iter.getSheetName(), shapes, result));
+        }
+        return joinSheetText(sheets);
+    }
 }
@@ -19,10 +19,16 @@ package org.apache.poi.xssf.extractor;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.poi.POIXMLProperties;
 import org.apache.poi.POIXMLProperties.CoreProperties;
@@ -69,6 +75,7 @@ public class XSSFEventBasedExcelExtractor extends POIXMLTextExtractor
     private boolean includeHeadersFooters = true;
     private boolean formulasNotResults = false;
     private boolean concatenatePhoneticRuns = true;
+    private Executor executor;
 
     public XSSFEventBasedExcelExtractor(String path) throws XmlException, OpenXML4JException, IOException {
         this(OPCPackage.open(path));
@@ -195,6 +202,32 @@ public class XSSFEventBasedExcelExtractor extends POIXMLTextExtractor
     public Locale getLocale() {
         return locale;
     }
+
+    /**
+     * Parse the sheets concurrently on the given executor. The sheets
+     *  share the already loaded strings and styles, the text is still
+     *  joined in sheet order. Default is <code>null</code>, which parses
+     *  the sheets one after another on the calling thread.
+     * <p>
+     * The executor isn't shut down by the extractor.
+     *
+     * @param executor the executor to parse the sheets on, or <code>null</code>
+     *
+     * @since 3.17-beta1
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return the executor the sheets are parsed on, or <code>null</code> if
+     *  they are parsed on the calling thread
+     *
+     * @since 3.17-beta1
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
     /**
      * Returns the opened OPCPackage container.
      */
@@ -266,6 +299,10 @@ public class XSSFEventBasedExcelExtractor extends POIXMLTextExtractor
           XSSFReader xssfReader = new XSSFReader(container);
           StylesTable styles = xssfReader.getStylesTable();
           XSSFReader.SheetIterator iter = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+
+          if (executor != null) {
+              return getTextConcurrently(iter, styles, strings);
+          }
    
           StringBuffer text = new StringBuffer();
           SheetTextExtractor sheetExtractor = new SheetTextExtractor();
@@ -305,6 +342,116 @@ public class XSSFEventBasedExcelExtractor extends POIXMLTextExtractor
        }
    }
    
+    private String getTextConcurrently(XSSFReader.SheetIterator iter, final StylesTable styles,
+            final ReadOnlySharedStringsTable strings) throws IOException, SAXException {
+        List<PendingSheet> sheets = new ArrayList<PendingSheet>();
+        while (iter.hasNext()) {
+            final InputStream stream = iter.next();
+            final CommentsTable comments;
+            List<XSSFShape> shapes;
+            try {
+                comments = includeCellComments ? iter.getSheetComments() : null;
+                shapes = includeTextBoxes ? iter.getShapes() : null;
+            } catch (RuntimeException e) {
+                stream.close();
+                throw e;
+            }
+            Future<SheetTextExtractor> result = submitSheet(new SheetParser() {
+                @Override
+                public void parse(SheetTextExtractor sheetExtractor) throws IOException, SAXException {
+                    try {
+                        processSheet(sheetExtractor, styles, comments, strings, stream);
+                    } finally {
+                        stream.close();
+                    }
+                }
+            });
+            sheets.add(new PendingSheet(iter.getSheetName(), shapes, result));
+        }
+        return joinSheetText(sheets);
+    }
+
+    /**
+     * Parses a single sheet into the given extractor, on one of the executor's threads
+     */
+    interface SheetParser {
+        void parse(SheetTextExtractor sheetExtractor) throws IOException, SAXException;
+    }
+
+    /**
+     * A sheet, which is parsed on the executor
+     */
+    static final class PendingSheet {
+        private final String sheetName;
+        private final List<XSSFShape> shapes;
+        private final Future<SheetTextExtractor> result;
+
+        PendingSheet(String sheetName, List<XSSFShape> shapes, Future<SheetTextExtractor> result) {
+            this.sheetName = sheetName;
+            this.shapes = shapes;
+            this.result = result;
+        }
+    }
+
+    Future<SheetTextExtractor> submitSheet(final SheetParser parser) {
+        FutureTask<SheetTextExtractor> task = new FutureTask<SheetTextExtractor>(new Callable<SheetTextExtractor>() {
+            @Override
+            public SheetTextExtractor call() throws Exception {
+                SheetTextExtractor sheetExtractor = new SheetTextExtractor();
+                parser.parse(sheetExtractor);
+                return sheetExtractor;
+            }
+        });
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Waits for all sheets and joins their text in sheet order
+     */
+    String joinSheetText(List<PendingSheet> sheets) throws IOException, SAXException {
+        StringBuffer text = new StringBuffer();
+        for (PendingSheet sheet : sheets) {
+            SheetTextExtractor sheetExtractor = getResult(sheet.result);
+            if (includeSheetNames) {
+                text.append(sheet.sheetName);
+                text.append('\n');
+            }
+            if (includeHeadersFooters) {
+                sheetExtractor.appendHeaderText(text);
+            }
+            sheetExtractor.appendCellText(text);
+            if (includeTextBoxes) {
+                processShapes(sheet.shapes, text);
+            }
+            if (includeHeadersFooters) {
+                sheetExtractor.appendFooterText(text);
+            }
+        }
+        return text.toString();
+    }
+
+    private static SheetTextExtractor getResult(Future<SheetTextExtractor> result) throws IOException, SAXException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the sheet text", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof SAXException) {
+                throw (SAXException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
     void processShapes(List<XSSFShape> shapes, StringBuffer text) {
         if (shapes == null){
             return;
@@ -0,0 +1,426 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.streaming;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.poi.openxml4j.opc.ContentTypes;
+import org.apache.poi.openxml4j.opc.PackageRelationshipTypes;
+import org.apache.poi.openxml4j.opc.internal.ContentTypeManager;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.util.StringUtil;
+import org.apache.poi.xssf.binary.XSSFBRecordType;
+import org.apache.poi.xssf.binary.XSSFBRecordWriter;
+import org.apache.poi.xssf.binary.XSSFBRelation;
+import org.apache.poi.xssf.binary.XSSFBStylesWriter;
+import org.apache.poi.xssf.model.SharedStringsTable;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCol;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCols;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTRst;
+
+/**
+ * Streaming writer for binary Excel workbooks (.xlsb).
+ * <p>
+ * This works like {@link SXSSFWorkbook}: only a window of rows is kept in memory,
+ * the other rows are flushed as binary cell records to temp files.
+ * When the workbook is written, the sheet records are wrapped into binary
+ * sheet parts and the workbook, styles and shared strings parts are written
+ * in the xlsb record format.
+ * <p>
+ * Binary workbooks are considerably smaller and load faster than their xml
+ * counterparts, but the following is not supported (yet):
+ * <ul>
+ *     <li>formulas - formula cells are written with their cached result</li>
+ *     <li>defined names, hyperlinks, comments, drawings, data validations, ...</li>
+ *     <li>templates - the workbook always starts empty</li>
+ * </ul>
+ * Sheet visibility, the active sheet, column widths and merged regions are written.
+ *
+ * @since 3.17-beta1
+ */
+public class SXSSFBWorkbook extends SXSSFWorkbook {
+
+    private static final String WORKBOOK_PART = XSSFRelation.XLSB_BINARY_WORKBOOK.getDefaultFileName();
+    private static final String STYLES_PART = XSSFBRelation.STYLES_BINARY.getDefaultFileName();
+    private static final String SHARED_STRINGS_PART = XSSFBRelation.SHARED_STRINGS_BINARY.getDefaultFileName();
+
+    //see BrtBeginWsView, grid lines, row/col headings, zeros, outline symbols and default header color
+    private static final int WS_VIEW_DEFAULT_FLAGS = 0x039C;
+
+    /**
+     * Construct a new workbook with default row window size
+     */
+    public SXSSFBWorkbook() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Construct an empty workbook and specify the window for row access.
+     *
+     * @param rowAccessWindowSize the number of rows that are kept in memory until flushed out,
+     *  see {@link SXSSFWorkbook#SXSSFWorkbook(int)}
+     */
+    public SXSSFBWorkbook(int rowAccessWindowSize) {
+        this(rowAccessWindowSize, false, true);
+    }
+
+    /**
+     * Construct an empty workbook with the specified window for row access.
+     * <p>
+     * Unlike SXSSF, a shared strings table is the usual choice for xlsb files, as
+     * each repetition of a string only takes 4 bytes in the sheet records.  Without
+     * it, strings are written inline.
+     *
+     * @param rowAccessWindowSize the number of rows that are kept in memory until flushed out
+     * @param compressTmpFiles whether to use gzip compression for temporary files
+     * @param useSharedStringsTable whether to use a shared strings table
+     */
+    public SXSSFBWorkbook(int rowAccessWindowSize, boolean compressTmpFiles, boolean useSharedStringsTable) {
+        super(new XSSFWorkbook(), rowAccessWindowSize, compressTmpFiles, useSharedStringsTable);
+    }
+
+    @Override
+    protected SheetDataWriter createSheetDataWriter() throws IOException {
+        return new XSSFBSheetDataWriter(getSharedStringSource(), isCompressTempFiles());
+    }
+
+    /**
+     * Write out this workbook as xlsb to an OutputStream.
+     *
+     * @param stream - the java OutputStream you wish to write to
+     * @exception IOException if anything can't be written.
+     */
+    @Override
+    public void write(OutputStream stream) throws IOException {
+        flushSheets();
+
+        ZipOutputStream zos = new ZipOutputStream(stream);
+        try {
+            BufferedOutputStream bos = new BufferedOutputStream(zos);
+            XSSFBRecordWriter out = new XSSFBRecordWriter(bos);
+            int numSheets = getNumberOfSheets();
+            SharedStringsTable sst = getSharedStringSource();
+
+            putNextEntry(zos, ContentTypeManager.CONTENT_TYPES_PART_NAME);
+            writeContentTypes(bos, numSheets, sst != null);
+            bos.flush();
+
+            putNextEntry(zos, "/_rels/.rels");
+            writeRelationships(bos, new String[]{PackageRelationshipTypes.CORE_DOCUMENT},
+                    new String[]{WORKBOOK_PART.substring(1)});
+            bos.flush();
+
+            putNextEntry(zos, "/xl/_rels/workbook.bin.rels");
+            writeWorkbookRelationships(bos, numSheets, sst != null);
+            bos.flush();
+
+            putNextEntry(zos, WORKBOOK_PART);
+            writeWorkbook(out);
+            out.flush();
+
+            putNextEntry(zos, STYLES_PART);
+            new XSSFBStylesWriter(getXSSFWorkbook().getStylesSource()).write(out);
+            out.flush();
+
+            if (sst != null) {
+                putNextEntry(zos, SHARED_STRINGS_PART);
+                writeSharedStrings(out, sst);
+                out.flush();
+            }
+
+            for (int i = 0; i < numSheets; i++) {
+                putNextEntry(zos, XSSFBRelation.WORKSHEET_BINARY.getFileName(i + 1));
+                writeSheet(out, bos, getSheetAt(i), i == getActiveSheetIndex());
+                out.flush();
+            }
+        } finally {
+            zos.close();
+        }
+    }
+
+    private static void putNextEntry(ZipOutputStream zos, String partName) throws IOException {
+        zos.putNextEntry(new ZipEntry(partName.startsWith("/") ? partName.substring(1) : partName));
+    }
+
+    private void writeContentTypes(OutputStream os, int numSheets, boolean hasSharedStrings) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        sb.append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">");
+        sb.append("<Default Extension=\"rels\" ContentType=\"").append(ContentTypes.RELATIONSHIPS_PART).append("\"/>");
+        sb.append("<Default Extension=\"xml\" ContentType=\"").append(ContentTypes.PLAIN_OLD_XML).append("\"/>");
+        appendOverride(sb, WORKBOOK_PART, XSSFRelation.XLSB_BINARY_WORKBOOK.getContentType());
+        appendOverride(sb, STYLES_PART, XSSFBRelation.STYLES_BINARY.getContentType());
+        if (hasSharedStrings) {
+            appendOverride(sb, SHARED_STRINGS_PART, XSSFBRelation.SHARED_STRINGS_BINARY.getContentType());
+        }
+        for (int i = 0; i < numSheets; i++) {
+            appendOverride(sb, XSSFBRelation.WORKSHEET_BINARY.getFileName(i + 1),
+                    XSSFBRelation.WORKSHEET_BINARY.getContentType());
+        }
+        sb.append("</Types>");
+        os.write(sb.toString().getBytes(StringUtil.UTF8));
+    }
+
+    private static void appendOverride(StringBuilder sb, String partName, String contentType) {
+        sb.append("<Override PartName=\"").append(partName)
+          .append("\" ContentType=\"").append(contentType).append("\"/>");
+    }
+
+    private void writeWorkbookRelationships(OutputStream os, int numSheets, boolean hasSharedStrings)
+    throws IOException {
+        int numRels = numSheets + (hasSharedStrings ? 2 : 1);
+        String[] types = new String[numRels];
+        String[] targets = new String[numRels];
+        for (int i = 0; i < numSheets; i++) {
+            types[i] = XSSFBRelation.WORKSHEET_BINARY.getRelation();
+            targets[i] = toWorkbookRelativeTarget(XSSFBRelation.WORKSHEET_BINARY.getFileName(i + 1));
+        }
+        types[numSheets] = XSSFBRelation.STYLES_BINARY.getRelation();
+        targets[numSheets] = toWorkbookRelativeTarget(STYLES_PART);
+        if (hasSharedStrings) {
+            types[numSheets + 1] = XSSFBRelation.SHARED_STRINGS_BINARY.getRelation();
+            targets[numSheets + 1] = toWorkbookRelativeTarget(SHARED_STRINGS_PART);
+        }
+        writeRelationships(os, types, targets);
+    }
+
+    private static String toWorkbookRelativeTarget(String partName) {
+        //all parts are below /xl/, like the workbook part
+        return partName.substring("/xl/".length());
+    }
+
+    /**
+     * Writes a relationships part, the i-th relationship gets the id "rId(i+1)"
+     */
+    private static void writeRelationships(OutputStream os, String[] types, String[] targets) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        sb.append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 0; i < types.length; i++) {
+            sb.append("<Relationship Id=\"rId").append(i + 1)
+              .append("\" Type=\"").append(types[i])
+              .append("\" Target=\"").append(targets[i]).append("\"/>");
+        }
+        sb.append("</Relationships>");
+        os.write(sb.toString().getBytes(StringUtil.UTF8));
+    }
+
+    private void writeWorkbook(XSSFBRecordWriter out) throws IOException {
+        out.writeRecord(XSSFBRecordType.BrtBeginBook);
+
+        out.startRecord(XSSFBRecordType.BrtWbProp);
+        out.writeInt(0x00010020 | (isDate1904() ? 0x01 : 0x00));
+        out.writeInt(0);
+        out.writeXLWideString("");
+        out.endRecord();
+
+        out.writeRecord(XSSFBRecordType.BrtBeginBookViews);
+        out.startRecord(XSSFBRecordType.BrtBookView);
+        //window position and size in twips, as Excel writes it for new workbooks
+        out.writeInt(0x78);
+        out.writeInt(0x1E);
+        out.writeInt(0x5CD0);
+        out.writeInt(0x3930);
+        //tab ratio, first visible and active tab
+        out.writeInt(600);
+        out.writeInt(getFirstVisibleTab());
+        out.writeInt(getActiveSheetIndex());
+        //scroll bars, sheet tabs and autofilter date grouping
+        out.writeByte(0x78);
+        out.endRecord();
+        out.writeRecord(XSSFBRecordType.BrtEndBookViews);
+
+        out.writeRecord(XSSFBRecordType.BrtBeginBundleShs);
+        for (int i = 0; i < getNumberOfSheets(); i++) {
+            out.startRecord(XSSFBRecordType.BrtBundleSh);
+            out.writeInt(getSheetVisibility(i).ordinal());
+            out.writeInt(i + 1);
+            out.writeXLNullableWideString("rId" + (i + 1));
+            out.writeXLWideString(getSheetName(i));
+            out.endRecord();
+        }
+        out.writeRecord(XSSFBRecordType.BrtEndBundleShs);
+
+        out.writeRecord(XSSFBRecordType.BrtEndBook);
+    }
+
+    private void writeSheet(XSSFBRecordWriter out, OutputStream os, SXSSFSheet sheet, boolean selected)
+    throws IOException {
+        XSSFBSheetDataWriter writer = (XSSFBSheetDataWriter)sheet.getSheetDataWriter();
+        XSSFSheet xSheet = getXSSFSheet(sheet);
+
+        out.writeRecord(XSSFBRecordType.BrtBeginSheet);
+
+        out.startRecord(XSSFBRecordType.BrtWsDim);
+        boolean hasRows = writer.getNumberOfFlushedRows() > 0;
+        out.writeInt(hasRows ? writer.getLowestIndexOfFlushedRows() : 0);
+        out.writeInt(hasRows ? writer.getLastFlushedRow() : 0);
+        out.writeInt(Math.max(writer.getFirstColumn(), 0));
+        out.writeInt(Math.max(writer.getLastColumn(), 0));
+        out.endRecord();
+
+        writeSheetView(out, xSheet, selected);
+
+        out.startRecord(XSSFBRecordType.BrtWsFmtInfo);
+        out.writeInt(0xFFFFFFFF);
+        out.writeShort(xSheet.getDefaultColumnWidth());
+        out.writeShort(xSheet.getDefaultRowHeight());
+        out.writeShort(0);
+        out.writeByte(0);
+        out.writeByte(0);
+        out.endRecord();
+
+        writeColumns(out, xSheet);
+
+        out.writeRecord(XSSFBRecordType.BrtBeginSheetData);
+        out.flush();
+        InputStream is = sheet.getWorksheetXMLInputStream();
+        try {
+            IOUtils.copy(is, os);
+        } finally {
+            is.close();
+        }
+        out.writeRecord(XSSFBRecordType.BrtEndSheetData);
+
+        writeMergedRegions(out, xSheet);
+
+        out.writeRecord(XSSFBRecordType.BrtEndSheet);
+    }
+
+    private static void writeSheetView(XSSFBRecordWriter out, XSSFSheet xSheet, boolean selected)
+    throws IOException {
+        int flags = WS_VIEW_DEFAULT_FLAGS;
+        if (xSheet.isDisplayFormulas()) {
+            flags |= 0x02;
+        }
+        if (!xSheet.isDisplayGridlines()) {
+            flags &= ~0x04;
+        }
+        if (!xSheet.isDisplayRowColHeadings()) {
+            flags &= ~0x08;
+        }
+        if (!xSheet.isDisplayZeros()) {
+            flags &= ~0x10;
+        }
+        if (xSheet.isRightToLeft()) {
+            flags |= 0x20;
+        }
+        if (selected) {
+            flags |= 0x40;
+        }
+
+        out.writeRecord(XSSFBRecordType.BrtBeginWsViews);
+        out.startRecord(XSSFBRecordType.BrtBeginWsView);
+        out.writeShort(flags);
+        //normal view, top row and left column
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeInt(0);
+        //default grid line color
+        out.writeByte(0x40);
+        out.writeByte(0);
+        out.writeShort(0);
+        //zoom of 100%, the other zoom values aren't set
+        out.writeShort(100);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.writeInt(0);
+        out.endRecord();
+        out.writeRecord(XSSFBRecordType.BrtEndWsView);
+        out.writeRecord(XSSFBRecordType.BrtEndWsViews);
+    }
+
+    private static void writeColumns(XSSFBRecordWriter out, XSSFSheet xSheet) throws IOException {
+        for (CTCols cols : xSheet.getCTWorksheet().getColsArray()) {
+            if (cols.sizeOfColArray() == 0) {
+                continue;
+            }
+            out.writeRecord(XSSFBRecordType.BrtBeginColInfos);
+            for (CTCol col : cols.getColArray()) {
+                int flags = 0;
+                if (col.getHidden()) {
+                    flags |= 0x01;
+                }
+                if (col.getCustomWidth()) {
+                    flags |= 0x02;
+                }
+                if (col.getBestFit()) {
+                    flags |= 0x04;
+                }
+                flags |= (col.getOutlineLevel() & 0x07) << 8;
+                if (col.getCollapsed()) {
+                    flags |= 0x1000;
+                }
+                out.startRecord(XSSFBRecordType.BrtColInfo);
+                out.writeInt((int)col.getMin() - 1);
+                out.writeInt((int)col.getMax() - 1);
+                out.writeInt((int)Math.round(col.getWidth() * 256));
+                out.writeInt((int)col.getStyle());
+                out.writeShort(flags);
+                out.endRecord();
+            }
+            out.writeRecord(XSSFBRecordType.BrtEndColInfos);
+        }
+    }
+
+    private static void writeMergedRegions(XSSFBRecordWriter out, XSSFSheet xSheet) throws IOException {
+        int numMergedRegions = xSheet.getNumMergedRegions();
+        if (numMergedRegions == 0) {
+            return;
+        }
+        out.startRecord(XSSFBRecordType.BrtBeginMergeCells);
+        out.writeInt(numMergedRegions);
+        out.endRecord();
+        for (int i = 0; i < numMergedRegions; i++) {
+            CellRangeAddress region = xSheet.getMergedRegion(i);
+            out.startRecord(XSSFBRecordType.BrtMergeCell);
+            out.writeInt(region.getFirstRow());
+            out.writeInt(region.getLastRow());
+            out.writeInt(region.getFirstColumn());
+            out.writeInt(region.getLastColumn());
+            out.endRecord();
+        }
+        out.writeRecord(XSSFBRecordType.BrtEndMergeCells);
+    }
+
+    private static void writeSharedStrings(XSSFBRecordWriter out, SharedStringsTable sst) throws IOException {
+        out.startRecord(XSSFBRecordType.BrtBeginSst);
+        out.writeInt(sst.getCount());
+        out.writeInt(sst.getUniqueCount());
+        out.endRecord();
+        for (CTRst item : sst.getItems()) {
+            out.startRecord(XSSFBRecordType.BrtSstItem);
+            //plain string, no formatting or phonetic runs
+            out.writeByte(0);
+            out.writeXLWideString(new XSSFRichTextString(item).getString());
+            out.endRecord();
+        }
+        out.writeRecord(XSSFBRecordType.BrtEndSst);
+    }
+}
@@ -50,6 +50,30 @@ final class SXSSFEvaluationSheet implements EvaluationSheet {
         }
         return new SXSSFEvaluationCell(cell, this);
     }
+
+    /* (non-JavaDoc), inherit JavaDoc from EvaluationSheet
+     * @since POI 3.17 beta 1
+     */
+    @Override
+    public int getLastRowNum() {
+        // the flushed rows are not skipped, reading them fails like for single cells
+        return Math.max(_xs.getLastRowNum(), _xs.getLastFlushedRowNum());
+    }
+
+    /* (non-JavaDoc), inherit JavaDoc from EvaluationSheet
+     * @since POI 3.17 beta 1
+     */
+    @Override
+    public int getLastCellNum(int rowIndex) {
+        SXSSFRow row = _xs.getRow(rowIndex);
+        if (row == null) {
+            if (rowIndex <= _xs.getLastFlushedRowNum()) {
+                throw new SXSSFFormulaEvaluator.RowFlushedException(rowIndex);
+            }
+            return 0;
+        }
+        return Math.max(0, row.getLastCellNum());
+    }
     
     /* (non-JavaDoc), inherit JavaDoc from EvaluationSheet
      * @since POI 3.15 beta 3
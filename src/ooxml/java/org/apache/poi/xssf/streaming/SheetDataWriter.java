@@ -74,6 +74,18 @@ public class SheetDataWriter {
         this();
         this._sharedStringSource = sharedStringsTable;
     }
+
+    /**
+     * For subclasses which write the sheet data in a format other than XML
+     * and open their own stream to the given temp file.
+     * No XML writer is created.
+     *
+     * @param fd the temp file to write sheet data
+     */
+    protected SheetDataWriter(File fd) {
+        _fd = fd;
+        _out = null;
+    }
     /**
      * Create a temp file to write sheet data. 
      * By default, temp files are created in the default temporary-file directory
@@ -123,8 +135,10 @@ public class SheetDataWriter {
      * This method <em>must</em> be invoked before calling {@link #getWorksheetXMLInputStream()}
      */
     public void close() throws IOException{
-        _out.flush();
-        _out.close();
+        if (_out != null) {
+            _out.flush();
+            _out.close();
+        }
     }
 
     protected File getTempFile(){
@@ -428,7 +442,9 @@ public class SheetDataWriter {
     boolean dispose() throws IOException {
         final boolean ret;
         try {
-            _out.close();
+            if (_out != null) {
+                _out.close();
+            }
         } finally {
             ret = _fd.delete();
         }
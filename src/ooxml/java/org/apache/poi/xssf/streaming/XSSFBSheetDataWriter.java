@@ -0,0 +1,249 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.streaming;
+
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.util.TempFile;
+import org.apache.poi.xssf.binary.XSSFBRecordType;
+import org.apache.poi.xssf.binary.XSSFBRecordWriter;
+import org.apache.poi.xssf.model.SharedStringsTable;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+
+/**
+ * Writes the rows of a {@link SXSSFBWorkbook} sheet as xlsb cell table records,
+ * i.e. the records between BrtBeginSheetData and BrtEndSheetData.
+ * <p>
+ * Formulas can't be written in the binary format yet, formula cells are
+ * written with their cached result instead.
+ *
+ * @since 3.17-beta1
+ */
+public class XSSFBSheetDataWriter extends SheetDataWriter {
+    //default row height of 15 points in twips
+    private static final int DEFAULT_ROW_HEIGHT = 0x12C;
+
+    //RkNumber integers are 30 bit signed values
+    private static final int RK_MIN = -(1 << 29);
+    private static final int RK_MAX = (1 << 29) - 1;
+
+    private final boolean _compress;
+    private final XSSFBRecordWriter _out;
+    private final SharedStringsTable _sharedStringSource;
+
+    private int _firstColumn = -1;
+    private int _lastColumn = -1;
+
+    /**
+     * @param sharedStringsTable the shared strings table, or null if strings are written inline
+     * @param compress whether to gzip the temp file
+     */
+    public XSSFBSheetDataWriter(SharedStringsTable sharedStringsTable, boolean compress) throws IOException {
+        super(TempFile.createTempFile("poi-sxssfb-sheet", compress ? ".bin.gz" : ".bin"));
+        _compress = compress;
+        _sharedStringSource = sharedStringsTable;
+        FileOutputStream fos = new FileOutputStream(getTempFile());
+        OutputStream decorated;
+        try {
+            decorated = decorateOutputStream(fos);
+        } catch (final IOException e) {
+            fos.close();
+            throw e;
+        }
+        _out = new XSSFBRecordWriter(new BufferedOutputStream(decorated));
+    }
+
+    @Override
+    protected OutputStream decorateOutputStream(FileOutputStream fos) throws IOException {
+        return _compress ? new GZIPOutputStream(fos) : fos;
+    }
+
+    @Override
+    protected InputStream decorateInputStream(FileInputStream fis) throws IOException {
+        return _compress ? new GZIPInputStream(fis) : fis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        _out.close();
+    }
+
+    /**
+     * @return the lowest column index of all written cells, or -1 if no cell has been written
+     */
+    public int getFirstColumn() {
+        return _firstColumn;
+    }
+
+    /**
+     * @return the highest column index of all written cells, or -1 if no cell has been written
+     */
+    public int getLastColumn() {
+        return _lastColumn;
+    }
+
+    @Override
+    void beginRow(int rownum, SXSSFRow row) throws IOException {
+        int firstCell = row.getFirstCellNum();
+        int lastCell = row.getLastCellNum() - 1;
+
+        int flags = row.getOutlineLevel() & 0x07;
+        if (row.getCollapsed() != null && row.getCollapsed()) {
+            flags |= 0x08;
+        }
+        if (row.getZeroHeight() || (row.getHidden() != null && row.getHidden())) {
+            flags |= 0x10;
+        }
+        if (row.hasCustomHeight()) {
+            flags |= 0x20;
+        }
+        if (row.isFormatted()) {
+            flags |= 0x40;
+        }
+
+        _out.startRecord(XSSFBRecordType.BrtRowHdr);
+        _out.writeInt(rownum);
+        _out.writeInt(row.isFormatted() ? row.getRowStyleIndex() : 0);
+        _out.writeShort(row.hasCustomHeight() ? row.getHeight() : DEFAULT_ROW_HEIGHT);
+        _out.writeByte(0);
+        _out.writeByte(flags);
+        _out.writeByte(0);
+        if (firstCell < 0) {
+            _out.writeInt(0);
+        } else {
+            _out.writeInt(1);
+            _out.writeInt(firstCell);
+            _out.writeInt(lastCell);
+            if (_firstColumn == -1 || firstCell < _firstColumn) {
+                _firstColumn = firstCell;
+            }
+            _lastColumn = Math.max(_lastColumn, lastCell);
+        }
+        _out.endRecord();
+    }
+
+    @Override
+    void endRow() throws IOException {
+        // there's no end of row record
+    }
+
+    @Override
+    public void writeCell(int columnIndex, Cell cell) throws IOException {
+        if (cell == null) {
+            return;
+        }
+        int styleIdx = cell.getCellStyle().getIndex() & 0xffff;
+        CellType cellType = cell.getCellTypeEnum();
+        if (cellType == CellType.FORMULA) {
+            cellType = cell.getCachedFormulaResultTypeEnum();
+        }
+        switch (cellType) {
+            case BLANK:
+                startCell(XSSFBRecordType.BrtCellBlank, columnIndex, styleIdx);
+                break;
+            case NUMERIC: {
+                double value = cell.getNumericCellValue();
+                int rk = toRkNumber(value);
+                if (rk != 0) {
+                    startCell(XSSFBRecordType.BrtCellRk, columnIndex, styleIdx);
+                    _out.writeInt(rk);
+                } else {
+                    startCell(XSSFBRecordType.BrtCellReal, columnIndex, styleIdx);
+                    _out.writeDouble(value);
+                }
+                break;
+            }
+            case STRING: {
+                String value = cell.getStringCellValue();
+                if (_sharedStringSource != null) {
+                    XSSFRichTextString rt = new XSSFRichTextString(value);
+                    int sRef = _sharedStringSource.addEntry(rt.getCTRst());
+                    startCell(XSSFBRecordType.BrtCellIsst, columnIndex, styleIdx);
+                    _out.writeInt(sRef);
+                } else {
+                    startCell(XSSFBRecordType.BrtCellSt, columnIndex, styleIdx);
+                    _out.writeXLWideString(value);
+                }
+                break;
+            }
+            case BOOLEAN:
+                startCell(XSSFBRecordType.BrtCellBool, columnIndex, styleIdx);
+                _out.writeByte(cell.getBooleanCellValue() ? 1 : 0);
+                break;
+            case ERROR:
+                startCell(XSSFBRecordType.BrtCellError, columnIndex, styleIdx);
+                _out.writeByte(cell.getErrorCellValue());
+                break;
+            default:
+                throw new IllegalStateException("Invalid cell type: " + cellType);
+        }
+        _out.endRecord();
+    }
+
+    private void startCell(XSSFBRecordType type, int columnIndex, int styleIdx) {
+        _out.startRecord(type);
+        _out.writeInt(columnIndex);
+        //24 bit style index, phonetic flag unset
+        _out.writeInt(styleIdx & 0xFFFFFF);
+    }
+
+    /**
+     * Encodes a number as RkNumber (2.5.122), if that's possible without loss of precision
+     *
+     * @return the RkNumber or 0 if the value needs to be written as Xnum.
+     *  0 never is a valid result, because 0.0 is encoded as integer
+     */
+    static int toRkNumber(double value) {
+        if (value == Math.rint(value) && value >= RK_MIN && value <= RK_MAX) {
+            return ((int)value << 2) | 0x02;
+        }
+        double x100 = value * 100;
+        if (x100 == Math.rint(x100) && x100 >= RK_MIN && x100 <= RK_MAX && x100 / 100 == value) {
+            return ((int)x100 << 2) | 0x03;
+        }
+        long bits = Double.doubleToLongBits(value);
+        if ((bits & 0x3FFFFFFFFL) == 0) {
+            return (int)(bits >>> 32);
+        }
+        return 0;
+    }
+
+    /**
+     * Deletes the temporary file that backed this sheet on disk.
+     * @return true if the file was deleted, false if it wasn't.
+     */
+    @Override
+    boolean dispose() throws IOException {
+        final boolean ret;
+        try {
+            _out.close();
+        } finally {
+            ret = super.dispose();
+        }
+        return ret;
+    }
+}
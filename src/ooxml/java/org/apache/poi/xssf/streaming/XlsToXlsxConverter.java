@@ -0,0 +1,734 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.streaming;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.model.InternalWorkbook;
+import org.apache.poi.hssf.record.ArrayRecord;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CRNCountRecord;
+import org.apache.poi.hssf.record.CRNRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.ColumnInfoRecord;
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.record.DefaultColWidthRecord;
+import org.apache.poi.hssf.record.DefaultRowHeightRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.ExtendedFormatRecord;
+import org.apache.poi.hssf.record.ExternSheetRecord;
+import org.apache.poi.hssf.record.ExternalNameRecord;
+import org.apache.poi.hssf.record.FontRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MergeCellsRecord;
+import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.NameCommentRecord;
+import org.apache.poi.hssf.record.NameRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.PaletteRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RowRecord;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.SharedFormulaRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.hssf.record.SupBookRecord;
+import org.apache.poi.hssf.record.TableRecord;
+import org.apache.poi.hssf.usermodel.HSSFEvaluationWorkbook;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.formula.FormulaRenderer;
+import org.apache.poi.ss.formula.FormulaRenderingWorkbook;
+import org.apache.poi.ss.formula.ptg.ExpPtg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.FontScheme;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.SheetVisibility;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.util.POILogFactory;
+import org.apache.poi.util.POILogger;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorkbookPr;
+
+/**
+ * Converts .xls workbooks to .xlsx in a single pass over the BIFF records, without
+ * building a {@link HSSFWorkbook}.
+ * <p>
+ * The records are read with the {@link HSSFEventFactory} and the cells are written to
+ * a {@link SXSSFWorkbook}, so only the workbook globals (shared strings, fonts, formats,
+ * cell styles, sheet and name records) and a window of rows are kept in memory, regardless
+ * of the number of cells.  The cells of a sheet have to be stored by ascending rows, as
+ * usual for .xls files.  Cell values, cell, row and column styles, column widths,
+ * row heights, merged regions and defined names are converted.  Formulas are rendered
+ * from their tokens with the {@link FormulaRenderer}, shared formulas included.
+ * <p>
+ * Not converted are comments, pictures, charts, hyperlinks, data validations,
+ * conditional formats and array formulas (their cached results are kept).
+ * As {@link SXSSFWorkbook} only writes numeric formula results, the converted workbook
+ * is flagged for recalculation, if it contains formulas with text, boolean or error results.
+ * <p>
+ * A converter can be used for any number of conversions, also concurrently.
+ *
+ * @since 3.17-beta1
+ */
+public final class XlsToXlsxConverter {
+    private static final POILogger logger = POILogFactory.getLogger(XlsToXlsxConverter.class);
+
+    /** the number of rows, whose ROW records precede their cells in an .xls sheet */
+    private static final int ROW_BLOCK_SIZE = 32;
+
+    /** the font index, which isn't stored in .xls files */
+    private static final int MISSING_FONT_INDEX = 4;
+
+    /** the palette index of the automatic (window text) color */
+    private static final int AUTOMATIC_COLOR_INDEX = 0x7FFF;
+
+    /** the maximum column width of .xlsx sheets, in units of 1/256th of a character width */
+    private static final int MAX_COLUMN_WIDTH = 255 * 256;
+
+    private final int _rowAccessWindowSize;
+
+    /**
+     * Creates a converter, which keeps {@link SXSSFWorkbook#DEFAULT_WINDOW_SIZE} rows per sheet in memory
+     */
+    public XlsToXlsxConverter() {
+        this(SXSSFWorkbook.DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param rowAccessWindowSize the number of rows per sheet, which are kept in memory
+     * before they are flushed to the temporary files of the {@link SXSSFWorkbook}.
+     * As the rows of .xls sheets are stored in blocks of 32, this can't be less than 32.
+     */
+    public XlsToXlsxConverter(int rowAccessWindowSize) {
+        if (rowAccessWindowSize < ROW_BLOCK_SIZE) {
+            throw new IllegalArgumentException("The row access window size must be at least "
+                    + ROW_BLOCK_SIZE + ", but was " + rowAccessWindowSize);
+        }
+        _rowAccessWindowSize = rowAccessWindowSize;
+    }
+
+    /**
+     * Converts a .xls workbook.  Neither stream is closed.
+     *
+     * @param xls the .xls (OLE2) data
+     * @param xlsx the stream to write the .xlsx data to
+     * @throws IOException if reading or writing fails
+     */
+    public void convert(InputStream xls, OutputStream xlsx) throws IOException {
+        NPOIFSFileSystem fs = new NPOIFSFileSystem(xls);
+        try {
+            convert(fs.getRoot(), xlsx);
+        } finally {
+            fs.close();
+        }
+    }
+
+    /**
+     * Converts the .xls workbook in the given directory.  The stream is not closed.
+     *
+     * @param xlsDirectory the directory containing the workbook stream
+     * @param xlsx the stream to write the .xlsx data to
+     * @throws IOException if reading or writing fails
+     */
+    public void convert(DirectoryNode xlsDirectory, OutputStream xlsx) throws IOException {
+        SXSSFWorkbook wb = new SXSSFWorkbook(null, _rowAccessWindowSize, true, false);
+        try {
+            Conversion conversion = new Conversion(wb);
+            HSSFRequest req = new HSSFRequest();
+            req.addListenerForAllRecords(conversion.getFormatListener());
+            new HSSFEventFactory().processWorkbookEvents(req, xlsDirectory);
+            conversion.finish();
+            wb.write(xlsx);
+        } finally {
+            wb.dispose();
+            wb.close();
+        }
+    }
+
+    /**
+     * The state of a single conversion
+     */
+    private static final class Conversion implements HSSFListener {
+        private final SXSSFWorkbook _wb;
+        private final DataFormat _dataFormat;
+        private final FormatTrackingHSSFListener _formatListener;
+
+        // workbook globals
+        private final List<FontRecord> _fontRecords = new ArrayList<FontRecord>();
+        private final List<ExtendedFormatRecord> _xfRecords = new ArrayList<ExtendedFormatRecord>();
+        private final List<BoundSheetRecord> _boundSheetRecords = new ArrayList<BoundSheetRecord>();
+        /** the link table and name records, for the formula rendering stub */
+        private final List<Record> _linkRecords = new ArrayList<Record>();
+        private final List<NameRecord> _nameRecords = new ArrayList<NameRecord>();
+        private PaletteRecord _palette;
+        private SSTRecord _sst;
+
+        // created when the globals are complete
+        private BoundSheetRecord[] _orderedBoundSheets;
+        private FormulaRenderingWorkbook _renderingWorkbook;
+        private XSSFFont[] _fonts;
+        private CellStyle[] _styles;
+
+        private int _bofDepth;
+        private int _sheetCount;
+        /** the current sheet or <code>null</code>, if the current substream isn't converted */
+        private SXSSFSheet _sheet;
+
+        /** the shared formulas of the current sheet, by the position of their first cell */
+        private final Map<Integer, SharedFormulaRecord> _sharedFormulas = new HashMap<Integer, SharedFormulaRecord>();
+        /** the last formula cell, which may be followed by a STRING or SHRFMLA record */
+        private FormulaRecord _lastFormula;
+        private SXSSFCell _lastFormulaCell;
+        private boolean _needsRecalculation;
+
+        /**
+         * The ROW records of the current sheet, whose rows haven't been created yet.  The rows are
+         * created with their first cell, as some writers put all ROW records before the cells.
+         */
+        private final List<RowRecord> _pendingRows = new ArrayList<RowRecord>();
+        private int _nextPendingRow;
+
+        Conversion(SXSSFWorkbook wb) {
+            _wb = wb;
+            _dataFormat = wb.createDataFormat();
+            _formatListener = new FormatTrackingHSSFListener(this);
+        }
+
+        HSSFListener getFormatListener() {
+            return _formatListener;
+        }
+
+        @Override
+        public void processRecord(Record record) {
+            if (record.getSid() == BOFRecord.sid) {
+                _bofDepth++;
+                if (_bofDepth == 1 && ((BOFRecord)record).getType() != BOFRecord.TYPE_WORKBOOK) {
+                    startSheet(((BOFRecord)record).getType());
+                }
+                return;
+            }
+            if (record.getSid() == EOFRecord.sid) {
+                if (--_bofDepth == 0) {
+                    if (_sheet != null) {
+                        createPendingRows(Integer.MAX_VALUE);
+                    }
+                    _sheet = null;
+                    _sharedFormulas.clear();
+                }
+                return;
+            }
+            if (_bofDepth != 1) {
+                // embedded substreams, e.g. charts
+                return;
+            }
+            if (_orderedBoundSheets == null) {
+                processGlobalRecord(record);
+            } else if (_sheet != null) {
+                processSheetRecord(record);
+            }
+        }
+
+        private void processGlobalRecord(Record record) {
+            switch (record.getSid()) {
+                case FontRecord.sid:
+                    _fontRecords.add((FontRecord)record);
+                    break;
+                case ExtendedFormatRecord.sid:
+                    _xfRecords.add((ExtendedFormatRecord)record);
+                    break;
+                case BoundSheetRecord.sid:
+                    _boundSheetRecords.add((BoundSheetRecord)record);
+                    break;
+                case PaletteRecord.sid:
+                    _palette = (PaletteRecord)record;
+                    break;
+                case SSTRecord.sid:
+                    _sst = (SSTRecord)record;
+                    break;
+                case DateWindow1904Record.sid:
+                    if (((DateWindow1904Record)record).getWindowing() == 1) {
+                        XSSFWorkbook xwb = _wb.getXSSFWorkbook();
+                        CTWorkbookPr pr = xwb.getCTWorkbook().isSetWorkbookPr()
+                                ? xwb.getCTWorkbook().getWorkbookPr()
+                                : xwb.getCTWorkbook().addNewWorkbookPr();
+                        pr.setDate1904(true);
+                    }
+                    break;
+                case NameRecord.sid:
+                    _nameRecords.add((NameRecord)record);
+                    _linkRecords.add(record);
+                    break;
+                case SupBookRecord.sid:
+                case ExternalNameRecord.sid:
+                case CRNCountRecord.sid:
+                case CRNRecord.sid:
+                case ExternSheetRecord.sid:
+                case NameCommentRecord.sid:
+                    _linkRecords.add(record);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * Called for the first sheet substream, when all global records have been read
+         */
+        private void finishGlobals() {
+            _orderedBoundSheets = BoundSheetRecord.orderByBofPosition(_boundSheetRecords);
+            _fonts = new XSSFFont[_fontRecords.size() + 1];
+            _styles = new CellStyle[_xfRecords.size()];
+
+            // the default font determines the column widths
+            if (!_fontRecords.isEmpty()) {
+                XSSFFont defaultFont = _wb.getXSSFWorkbook().getFontAt((short)0);
+                initFont(defaultFont, _fontRecords.get(0));
+                _fonts[0] = defaultFont;
+            }
+        }
+
+        private void startSheet(int bofType) {
+            if (_orderedBoundSheets == null) {
+                finishGlobals();
+            }
+            int sheetIndex = _sheetCount++;
+            if (bofType != BOFRecord.TYPE_WORKSHEET || sheetIndex >= _orderedBoundSheets.length) {
+                // chart sheets, macro sheets and modules aren't converted
+                return;
+            }
+            BoundSheetRecord bsr = _orderedBoundSheets[sheetIndex];
+            _sheet = _wb.createSheet(bsr.getSheetname());
+            if (bsr.isVeryHidden()) {
+                _wb.setSheetVisibility(_wb.getSheetIndex(_sheet), SheetVisibility.VERY_HIDDEN);
+            } else if (bsr.isHidden()) {
+                _wb.setSheetVisibility(_wb.getSheetIndex(_sheet), SheetVisibility.HIDDEN);
+            }
+        }
+
+        private void processSheetRecord(Record record) {
+            if (_lastFormula != null) {
+                if (record instanceof StringRecord) {
+                    setText(_lastFormulaCell, ((StringRecord)record).getString());
+                    return;
+                }
+                if (record instanceof SharedFormulaRecord) {
+                    SharedFormulaRecord sfr = (SharedFormulaRecord)record;
+                    _sharedFormulas.put(getKey(sfr.getFirstRow(), sfr.getFirstColumn()), sfr);
+                    setFormula(_lastFormulaCell, _lastFormula);
+                    return;
+                }
+                if (record instanceof ArrayRecord || record instanceof TableRecord) {
+                    // only the cached result is kept
+                    return;
+                }
+                _lastFormula = null;
+                _lastFormulaCell = null;
+            }
+
+            switch (record.getSid()) {
+                case RowRecord.sid:
+                    _pendingRows.add((RowRecord)record);
+                    break;
+                case ColumnInfoRecord.sid:
+                    processColumnInfo((ColumnInfoRecord)record);
+                    break;
+                case DefaultColWidthRecord.sid:
+                    _sheet.setDefaultColumnWidth(((DefaultColWidthRecord)record).getColWidth());
+                    break;
+                case DefaultRowHeightRecord.sid:
+                    _sheet.setDefaultRowHeight(((DefaultRowHeightRecord)record).getRowHeight());
+                    break;
+                case MergeCellsRecord.sid:
+                    MergeCellsRecord mcr = (MergeCellsRecord)record;
+                    for (int i = 0; i < mcr.getNumAreas(); i++) {
+                        _sheet.addMergedRegionUnsafe(mcr.getAreaAt(i));
+                    }
+                    break;
+                case NumberRecord.sid:
+                    createCell((NumberRecord)record).setCellValue(((NumberRecord)record).getValue());
+                    break;
+                case LabelSSTRecord.sid:
+                    LabelSSTRecord lsr = (LabelSSTRecord)record;
+                    setText(createCell(lsr), _sst.getString(lsr.getSSTIndex()).getString());
+                    break;
+                case LabelRecord.sid:
+                    setText(createCell((LabelRecord)record), ((LabelRecord)record).getValue());
+                    break;
+                case BoolErrRecord.sid:
+                    BoolErrRecord ber = (BoolErrRecord)record;
+                    if (ber.isBoolean()) {
+                        createCell(ber).setCellValue(ber.getBooleanValue());
+                    } else {
+                        createCell(ber).setCellErrorValue(ber.getErrorValue());
+                    }
+                    break;
+                case BlankRecord.sid:
+                    createCell((BlankRecord)record);
+                    break;
+                case MulBlankRecord.sid:
+                    MulBlankRecord mbr = (MulBlankRecord)record;
+                    for (int i = 0; i < mbr.getNumColumns(); i++) {
+                        createCell(mbr.getRow(), mbr.getFirstColumn() + i, mbr.getXFAt(i));
+                    }
+                    break;
+                case FormulaRecord.sid:
+                    processFormula((FormulaRecord)record);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * Creates the rows of the pending ROW records up to the given row, the rows before it have no cells
+         */
+        private void createPendingRows(int rowIndex) {
+            while (_nextPendingRow < _pendingRows.size()) {
+                RowRecord rr = _pendingRows.get(_nextPendingRow);
+                if (rr.getRowNumber() > rowIndex) {
+                    return;
+                }
+                _pendingRows.set(_nextPendingRow++, null);
+                SXSSFRow row = _sheet.getRow(rr.getRowNumber());
+                if (row == null) {
+                    row = _sheet.createRow(rr.getRowNumber());
+                }
+                initRow(row, rr);
+            }
+            _pendingRows.clear();
+            _nextPendingRow = 0;
+        }
+
+        private void initRow(SXSSFRow row, RowRecord rr) {
+            if (rr.getBadFontHeight()) {
+                row.setHeight((short)(rr.getHeight() & 0x7FFF));
+            }
+            if (rr.getZeroHeight()) {
+                row.setZeroHeight(true);
+            }
+            if (rr.getFormatted()) {
+                CellStyle style = getStyle(rr.getXFIndex());
+                if (style != null) {
+                    row.setRowStyle(style);
+                }
+            }
+        }
+
+        private void processColumnInfo(ColumnInfoRecord cir) {
+            int lastColumn = Math.min(cir.getLastColumn(), SpreadsheetVersion.EXCEL97.getLastColumnIndex());
+            for (int col = cir.getFirstColumn(); col <= lastColumn; col++) {
+                _sheet.setColumnWidth(col, Math.min(cir.getColumnWidth(), MAX_COLUMN_WIDTH));
+                if (cir.getHidden()) {
+                    _sheet.setColumnHidden(col, true);
+                }
+                // 15 is the default cell style
+                if (cir.getXFIndex() != 15) {
+                    CellStyle style = getStyle(cir.getXFIndex());
+                    if (style != null) {
+                        _sheet.setDefaultColumnStyle(col, style);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Sets the text, cut to the maximum length of .xlsx cells
+         */
+        private void setText(SXSSFCell cell, String text) {
+            int maxLength = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+            if (text.length() > maxLength) {
+                logger.log(POILogger.WARN, "Text of cell " + cell.getAddress() + " is cut to " + maxLength + " characters");
+                text = text.substring(0, maxLength);
+            }
+            cell.setCellValue(text);
+        }
+
+        private void processFormula(FormulaRecord fr) {
+            SXSSFCell cell = createCell(fr);
+            setFormula(cell, fr);
+            _lastFormula = fr;
+            _lastFormulaCell = cell;
+        }
+
+        /**
+         * Sets the formula of the cell, if it can be rendered, and its cached result.  The cells
+         * of shared formulas refer to the SHRFMLA record, which follows the first cell of the range.
+         */
+        private void setFormula(SXSSFCell cell, FormulaRecord fr) {
+            Ptg[] ptgs = fr.getParsedExpression();
+            if (ptgs.length > 0 && ptgs[0] instanceof ExpPtg) {
+                ExpPtg exp = (ExpPtg)ptgs[0];
+                SharedFormulaRecord sfr = _sharedFormulas.get(getKey(exp.getRow(), exp.getColumn()));
+                ptgs = sfr == null ? null : sfr.getFormulaTokens(fr);
+            }
+            // the formula has to be set first, so the value is kept as cached result
+            String formula = ptgs == null ? null : renderFormula(ptgs);
+            if (formula != null) {
+                cell.setCellFormula(formula);
+            }
+
+            CellType resultType = fr.getCachedResultTypeEnum();
+            switch (resultType) {
+                case NUMERIC:
+                    cell.setCellValue(fr.getValue());
+                    break;
+                case BOOLEAN:
+                    cell.setCellValue(fr.getCachedBooleanValue());
+                    break;
+                default:
+                    break;
+            }
+            // text results follow in a STRING record, errors can't be cached for formula cells
+            if (formula != null && resultType != CellType.NUMERIC) {
+                _needsRecalculation = true;
+            }
+        }
+
+        private String renderFormula(Ptg[] ptgs) {
+            try {
+                return FormulaRenderer.toFormulaString(getRenderingWorkbook(), ptgs);
+            } catch (RuntimeException e) {
+                logger.log(POILogger.WARN, "Formula can't be rendered, only the cached result is kept", e);
+                return null;
+            }
+        }
+
+        /**
+         * @return a stub workbook with the sheet, link table and name records, to render formulas
+         */
+        private FormulaRenderingWorkbook getRenderingWorkbook() {
+            if (_renderingWorkbook == null) {
+                List<Record> records = new ArrayList<Record>();
+                records.addAll(_boundSheetRecords);
+                records.addAll(_linkRecords);
+                records.add(EOFRecord.instance);
+                HSSFWorkbook stub = HSSFWorkbook.create(InternalWorkbook.createWorkbook(records));
+                for (BoundSheetRecord bsr : _boundSheetRecords) {
+                    stub.createSheet(bsr.getSheetname());
+                }
+                _renderingWorkbook = HSSFEvaluationWorkbook.create(stub);
+            }
+            return _renderingWorkbook;
+        }
+
+        private SXSSFRow getRow(int rowIndex) {
+            createPendingRows(rowIndex);
+            SXSSFRow row = _sheet.getRow(rowIndex);
+            if (row == null) {
+                row = _sheet.createRow(rowIndex);
+            }
+            return row;
+        }
+
+        private SXSSFCell createCell(CellValueRecordInterface cvr) {
+            return createCell(cvr.getRow(), cvr.getColumn(), cvr.getXFIndex());
+        }
+
+        private SXSSFCell createCell(int rowIndex, int colIndex, int xfIndex) {
+            SXSSFCell cell = getRow(rowIndex).createCell(colIndex);
+            CellStyle style = getStyle(xfIndex);
+            if (style != null) {
+                cell.setCellStyle(style);
+            }
+            return cell;
+        }
+
+        /**
+         * @return the cell style for the XF record or <code>null</code>, if there is no such record
+         */
+        private CellStyle getStyle(int xfIndex) {
+            if (xfIndex < 0 || xfIndex >= _styles.length) {
+                return null;
+            }
+            CellStyle style = _styles[xfIndex];
+            if (style == null) {
+                style = createStyle(_xfRecords.get(xfIndex));
+                _styles[xfIndex] = style;
+            }
+            return style;
+        }
+
+        private CellStyle createStyle(ExtendedFormatRecord xf) {
+            XSSFCellStyle style = (XSSFCellStyle)_wb.createCellStyle();
+
+            String format = _formatListener.getFormatString(xf.getFormatIndex());
+            if (format != null) {
+                style.setDataFormat(_dataFormat.getFormat(format));
+            }
+            XSSFFont font = getFont(xf.getFontIndex());
+            if (font != null) {
+                style.setFont(font);
+            }
+
+            style.setAlignment(HorizontalAlignment.forInt(xf.getAlignment()));
+            style.setVerticalAlignment(VerticalAlignment.forInt(xf.getVerticalAlignment()));
+            style.setWrapText(xf.getWrapText());
+            style.setIndention(xf.getIndent());
+            // both formats use 0-90 for upward, 91-180 for downward and 255 for vertical text
+            style.setRotation(xf.getRotation());
+            style.setShrinkToFit(xf.getShrinkToFit());
+            style.setLocked(xf.isLocked());
+            style.setHidden(xf.isHidden());
+
+            style.setBorderLeft(BorderStyle.valueOf(xf.getBorderLeft()));
+            style.setBorderRight(BorderStyle.valueOf(xf.getBorderRight()));
+            style.setBorderTop(BorderStyle.valueOf(xf.getBorderTop()));
+            style.setBorderBottom(BorderStyle.valueOf(xf.getBorderBottom()));
+            if (xf.getBorderLeft() != 0) {
+                style.setLeftBorderColor(getColor(xf.getLeftBorderPaletteIdx()));
+            }
+            if (xf.getBorderRight() != 0) {
+                style.setRightBorderColor(getColor(xf.getRightBorderPaletteIdx()));
+            }
+            if (xf.getBorderTop() != 0) {
+                style.setTopBorderColor(getColor(xf.getTopBorderPaletteIdx()));
+            }
+            if (xf.getBorderBottom() != 0) {
+                style.setBottomBorderColor(getColor(xf.getBottomBorderPaletteIdx()));
+            }
+
+            FillPatternType fill = FillPatternType.forInt(xf.getAdtlFillPattern());
+            if (fill != FillPatternType.NO_FILL) {
+                style.setFillPattern(fill);
+                style.setFillForegroundColor(getColor(xf.getFillForeground()));
+                style.setFillBackgroundColor(getColor(xf.getFillBackground()));
+            }
+            return style;
+        }
+
+        /**
+         * @return the font for the .xls font index or <code>null</code>, if there is no such font
+         */
+        private XSSFFont getFont(int fontIndex) {
+            // there is no font 4 in .xls files, the following ones are shifted by one
+            int recordIndex = fontIndex > MISSING_FONT_INDEX ? fontIndex - 1 : fontIndex;
+            if (fontIndex == MISSING_FONT_INDEX || recordIndex >= _fontRecords.size()) {
+                return null;
+            }
+            XSSFFont font = _fonts[recordIndex];
+            if (font == null) {
+                font = (XSSFFont)_wb.createFont();
+                initFont(font, _fontRecords.get(recordIndex));
+                _fonts[recordIndex] = font;
+            }
+            return font;
+        }
+
+        private void initFont(XSSFFont font, FontRecord fr) {
+            font.setFontName(fr.getFontName());
+            font.setFontHeight(fr.getFontHeight());
+            font.setBold(fr.getBoldWeight() >= 700);
+            font.setItalic(fr.isItalic());
+            font.setStrikeout(fr.isStruckout());
+            font.setUnderline(fr.getUnderline());
+            font.setTypeOffset(fr.getSuperSubScript());
+            font.setCharSet(fr.getCharset() & 0xFF);
+            if (fr.getFamily() != 0) {
+                font.setFamily(fr.getFamily());
+            }
+            if (fr.getColorPaletteIndex() != AUTOMATIC_COLOR_INDEX) {
+                font.setColor(getColor(fr.getColorPaletteIndex()));
+            }
+            // the .xlsx theme fonts don't apply anymore
+            font.setScheme(FontScheme.NONE);
+        }
+
+        /**
+         * @return the RGB value for customized palette entries, the palette index otherwise
+         */
+        private XSSFColor getColor(int paletteIndex) {
+            byte[] rgb = _palette == null ? null : _palette.getColor(paletteIndex);
+            if (rgb != null) {
+                return new XSSFColor(rgb);
+            }
+            XSSFColor color = new XSSFColor();
+            color.setIndexed(paletteIndex);
+            return color;
+        }
+
+        /**
+         * Creates the defined names, after all sheets have been created
+         */
+        void finish() {
+            for (NameRecord nr : _nameRecords) {
+                if (nr.isBuiltInName() || nr.isFunctionName() || nr.getNameDefinition().length == 0) {
+                    continue;
+                }
+                String refersTo = renderFormula(nr.getNameDefinition());
+                if (refersTo == null) {
+                    continue;
+                }
+                int sheetIndex = -1;
+                if (nr.getSheetNumber() > 0) {
+                    if (nr.getSheetNumber() > _boundSheetRecords.size()) {
+                        continue;
+                    }
+                    sheetIndex = _wb.getSheetIndex(_boundSheetRecords.get(nr.getSheetNumber() - 1).getSheetname());
+                    if (sheetIndex < 0) {
+                        continue;
+                    }
+                }
+                Name name = _wb.createName();
+                try {
+                    name.setNameName(nr.getNameText());
+                    if (sheetIndex >= 0) {
+                        name.setSheetIndex(sheetIndex);
+                    }
+                    name.setRefersToFormula(refersTo);
+                } catch (RuntimeException e) {
+                    logger.log(POILogger.WARN, "Defined name " + nr.getNameText() + " can't be converted", e);
+                    _wb.removeName(name);
+                }
+            }
+            if (_needsRecalculation) {
+                _wb.setForceFormulaRecalculation(true);
+            }
+        }
+
+        private static Integer getKey(int row, int column) {
+            // the ExpPtg row is read as signed short
+            return Integer.valueOf(((row & 0xFFFF) << 8) | (column & 0xFF));
+        }
+    }
+}
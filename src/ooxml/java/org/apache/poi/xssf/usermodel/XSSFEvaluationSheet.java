@@ -90,6 +90,26 @@ final class XSSFEvaluationSheet implements EvaluationSheet {
 
         return evalcell;
     }
+
+    /* (non-JavaDoc), inherit JavaDoc from EvaluationSheet
+     * @since POI 3.17 beta 1
+     */
+    @Override
+    public int getLastRowNum() {
+        return _xs.getPhysicalNumberOfRows() == 0 ? -1 : _xs.getLastRowNum();
+    }
+
+    /* (non-JavaDoc), inherit JavaDoc from EvaluationSheet
+     * @since POI 3.17 beta 1
+     */
+    @Override
+    public int getLastCellNum(int rowIndex) {
+        XSSFRow row = _xs.getRow(rowIndex);
+        if (row == null) {
+            return 0;
+        }
+        return Math.max(0, row.getLastCellNum());
+    }
     
     private static class CellKey {
         private final int _row;
@@ -0,0 +1,78 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestXSSFBParser {
+
+    @Test
+    public void testRecordTypeFilter() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        //BrtRowHdr, one byte id, filtered out
+        bos.write(new byte[]{0, 3, 1, 2, 3});
+        //BrtCellIsst, two byte length
+        bos.write(new byte[]{7, (byte)0xC8, 1});
+        bos.write(new byte[200]);
+        //BrtHLink, two byte id
+        bos.write(new byte[]{(byte)(0x80 | (494 & 0x7F)), 494 >> 7, 2, 9, 8});
+
+        RecordCollector collector = new RecordCollector(new ByteArrayInputStream(bos.toByteArray()),
+                XSSFBRecordType.BrtCellIsst, XSSFBRecordType.BrtHLink);
+        collector.parse();
+
+        assertEquals(2, collector.ids.size());
+        assertEquals(7, collector.ids.get(0).intValue());
+        assertEquals(200, collector.payloads.get(0).length);
+        assertEquals(494, collector.ids.get(1).intValue());
+        assertArrayEquals(new byte[]{9, 8}, collector.payloads.get(1));
+    }
+
+    @Test
+    public void testLookup() {
+        assertEquals(XSSFBRecordType.BrtRowHdr, XSSFBRecordType.lookup(0));
+        assertEquals(XSSFBRecordType.BrtAbsPath15, XSSFBRecordType.lookup(2071));
+        assertEquals(XSSFBRecordType.Unimplemented, XSSFBRecordType.lookup(2072));
+        assertEquals(XSSFBRecordType.Unimplemented, XSSFBRecordType.lookup(-1));
+    }
+
+    private static class RecordCollector extends XSSFBParser {
+        private final List<Integer> ids = new ArrayList<Integer>();
+        private final List<byte[]> payloads = new ArrayList<byte[]>();
+
+        RecordCollector(InputStream is, XSSFBRecordType... types) {
+            super(is, types);
+        }
+
+        @Override
+        public void handleRecord(int recordType, byte[] data) throws XSSFBParseException {
+            ids.add(recordType);
+            payloads.add(data);
+        }
+    }
+}
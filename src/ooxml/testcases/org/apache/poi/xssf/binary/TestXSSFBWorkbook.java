@@ -0,0 +1,230 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.binary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Calendar;
+
+import org.apache.poi.POIDataSamples;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Header;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Row.MissingCellPolicy;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.util.LocaleUtil;
+import org.apache.poi.xssf.streaming.SXSSFBWorkbook;
+import org.junit.Test;
+
+public class TestXSSFBWorkbook {
+
+    private static POIDataSamples _ssTests = POIDataSamples.getSpreadSheetInstance();
+
+    @Test
+    public void testSample() throws Exception {
+        Workbook wb = WorkbookFactory.create(_ssTests.getFile("sample.xlsb"));
+        try {
+            assertTrue(wb instanceof XSSFBWorkbook);
+            assertEquals(3, wb.getNumberOfSheets());
+            assertEquals("rich test", wb.getSheetName(1));
+
+            Sheet sheet = wb.getSheetAt(0);
+            assertEquals(0, sheet.getFirstRowNum());
+            assertEquals(9, sheet.getLastRowNum());
+            assertEquals("Lorem", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals(111, sheet.getRow(0).getCell(1).getNumericCellValue(), 0);
+            // formula result
+            assertEquals(CellType.NUMERIC, sheet.getRow(9).getCell(1).getCellTypeEnum());
+            assertEquals(4995, sheet.getRow(9).getCell(1).getNumericCellValue(), 0);
+
+            DataFormatter formatter = new DataFormatter();
+            StringBuilder sb = new StringBuilder();
+            for (Row row : wb.getSheet("rich test")) {
+                for (Cell cell : row) {
+                    sb.append(cell.getAddress()).append('=').append(formatter.formatCellValue(cell)).append(' ');
+                }
+            }
+            assertEquals("A1=The quick brown fox jumps over the lazy dog B3=hello, xssf D3=hello, xssf " +
+                    "B4=hello, xssf D4=hello, xssf B5=hello, xssf D5=hello, xssf B6=hello, xssf D6=hello, xssf ",
+                    sb.toString());
+
+            Row row = wb.getSheet("rich test").getRow(2);
+            assertEquals(1, row.getFirstCellNum());
+            assertEquals(4, row.getLastCellNum());
+            assertEquals(2, row.getPhysicalNumberOfCells());
+            assertNull(row.getCell(2));
+            assertEquals(CellType.BLANK, row.getCell(2, MissingCellPolicy.CREATE_NULL_AS_BLANK).getCellTypeEnum());
+        } finally {
+            wb.close();
+        }
+    }
+
+    @Test
+    public void testNumberFormats() throws Exception {
+        XSSFBWorkbook wb = new XSSFBWorkbook(OPCPackage.open(_ssTests.openResourceAsStream("testVarious.xlsb")));
+        try {
+            Sheet sheet = wb.getSheetAt(0);
+            DataFormatter formatter = new DataFormatter();
+            assertEquals("20%", formatter.formatCellValue(sheet.getRow(4).getCell(1)));
+            assertEquals("13.12", formatter.formatCellValue(sheet.getRow(5).getCell(1)));
+            assertEquals("1/4", formatter.formatCellValue(sheet.getRow(8).getCell(1)));
+            assertEquals(FormulaError.NAME.getCode(), sheet.getRow(13).getCell(1).getErrorCellValue());
+
+            Cell date = sheet.getRow(9).getCell(1);
+            assertTrue(DateUtil.isCellDateFormatted(date));
+            Calendar cal = LocaleUtil.getLocaleCalendar(2017, 2, 9);
+            assertEquals(cal.getTime(), date.getDateCellValue());
+        } finally {
+            wb.close();
+        }
+    }
+
+    @Test
+    public void testFontsAndPrintSettings() throws Exception {
+        XSSFBWorkbook wb = new XSSFBWorkbook(OPCPackage.open(_ssTests.openResourceAsStream("testVarious.xlsb")));
+        try {
+            assertEquals(5, wb.getNumberOfFonts());
+            Font font = wb.getFontAt(wb.getCellStyleAt(6).getFontIndex());
+            assertEquals(4, font.getIndex());
+            assertEquals("Calibri", font.getFontName());
+            assertEquals(11, font.getFontHeightInPoints());
+            assertEquals(Font.U_SINGLE, font.getUnderline());
+            assertFalse(font.getBold());
+            font = wb.getFontAt((short)3);
+            assertEquals("Tahoma", font.getFontName());
+            assertTrue(font.getBold());
+            assertEquals(font, wb.findFont(true, font.getColor(), font.getFontHeight(), "Tahoma",
+                    false, false, Font.SS_NONE, Font.U_NONE));
+
+            Sheet sheet = wb.getSheetAt(0);
+            Header header = sheet.getHeader();
+            assertEquals("OddLeftHeader", header.getLeft());
+            assertEquals("OddCenterHeader", header.getCenter());
+            assertEquals("OddRightHeader", header.getRight());
+            assertEquals("OddCenterFooter", sheet.getFooter().getCenter());
+            assertEquals(0.7, sheet.getMargin(Sheet.LeftMargin), 0);
+            assertEquals(0.75, sheet.getMargin(Sheet.TopMargin), 0);
+            assertEquals(0.3, sheet.getPrintSetup().getHeaderMargin(), 0);
+            assertEquals(0, sheet.getSheetConditionalFormatting().getNumConditionalFormattings());
+        } finally {
+            wb.close();
+        }
+    }
+
+    @Test
+    public void testReadOnly() throws Exception {
+        Workbook wb = WorkbookFactory.create(_ssTests.getFile("Simple.xlsb"));
+        try {
+            Cell cell = wb.getSheetAt(0).getRow(0).getCell(0);
+            try {
+                cell.setCellValue("changed");
+                fail("xlsb workbooks are read-only");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+            try {
+                wb.createSheet();
+                fail("xlsb workbooks are read-only");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+            try {
+                wb.getCreationHelper().createRichTextString("new");
+                fail("xlsb workbooks are read-only");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+            try {
+                wb.getSheetAt(0).getHeader().setCenter("new");
+                fail("xlsb workbooks are read-only");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+            try {
+                cell.getNumericCellValue();
+                fail("string cell");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        } finally {
+            wb.close();
+        }
+    }
+
+    @Test
+    public void testStreamingRoundTrip() throws Exception {
+        SXSSFBWorkbook out = new SXSSFBWorkbook(10);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try {
+            Sheet sheet = out.createSheet("data");
+            for (int i = 0; i < 100; i++) {
+                Row row = sheet.createRow(2 * i);
+                row.createCell(0).setCellValue("row" + i);
+                row.createCell(3).setCellValue(i * 1.5);
+            }
+            sheet.addMergedRegion(new CellRangeAddress(1, 1, 0, 3));
+            sheet.setColumnWidth(3, 30 * 256);
+            Row row = out.createSheet("other").createRow(0);
+            row.createCell(0).setCellValue(true);
+            row.createCell(1).setCellErrorValue(FormulaError.DIV0.getCode());
+            out.setActiveSheet(1);
+            out.write(bos);
+        } finally {
+            out.dispose();
+            out.close();
+        }
+
+        XSSFBWorkbook wb = (XSSFBWorkbook)WorkbookFactory.create(new ByteArrayInputStream(bos.toByteArray()));
+        try {
+            assertEquals(2, wb.getNumberOfSheets());
+            assertEquals(1, wb.getActiveSheetIndex());
+            assertFalse(wb.isDate1904());
+
+            XSSFBSheet sheet = wb.getSheet("data");
+            assertEquals(100, sheet.getPhysicalNumberOfRows());
+            assertEquals(198, sheet.getLastRowNum());
+            assertNull(sheet.getRow(1));
+            assertEquals("row42", sheet.getRow(84).getCell(0).getStringCellValue());
+            assertEquals(63, sheet.getRow(84).getCell(3).getNumericCellValue(), 0);
+            assertEquals(30 * 256, sheet.getColumnWidth(3));
+            assertEquals(1, sheet.getNumMergedRegions());
+            assertEquals("A2:D2", sheet.getMergedRegion(0).formatAsString());
+
+            Row row = wb.getSheetAt(1).getRow(0);
+            assertTrue(row.getCell(0).getBooleanCellValue());
+            assertEquals(FormulaError.DIV0.getCode(), row.getCell(1).getErrorCellValue());
+        } finally {
+            wb.close();
+        }
+    }
+}
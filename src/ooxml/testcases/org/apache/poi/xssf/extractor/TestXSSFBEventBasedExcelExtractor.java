@@ -23,6 +23,9 @@ import static org.apache.poi.POITestCase.assertEndsWith;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.apache.poi.xssf.XSSFTestDataSamples;
 import org.junit.Test;
 
@@ -110,4 +113,20 @@ public class TestXSSFBEventBasedExcelExtractor {
                 "This is an example spreadsheet created with Microsoft Excel 2007 Beta 2.");
     }
 
+    @Test
+    public void testConcurrentSheets() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (String sample : new String[]{"sample.xlsb", "testVarious.xlsb", "WithTextBox.xlsb"}) {
+                XSSFEventBasedExcelExtractor extractor = getExtractor(sample);
+                extractor.setIncludeCellComments(true);
+                String expected = extractor.getText();
+                extractor.setExecutor(executor);
+                assertEquals(sample, expected, extractor.getText());
+                extractor.close();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -25,6 +25,8 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -383,4 +385,24 @@ public class TestXSSFEventBasedExcelExtractor {
 		ex.close();
 
 	}
+
+	/**
+	 * Sheets parsed on an executor give the same text as the sequential extraction
+	 */
+	@Test
+	public void testConcurrentSheets() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			for (String sample : new String[]{ "sample.xlsx", "SampleSS.xlsx", "WithTextBox.xlsx", "headerFooterTest.xlsx" }) {
+				XSSFEventBasedExcelExtractor ex = getExtractor(sample);
+				ex.setIncludeCellComments(true);
+				String expected = ex.getText();
+				ex.setExecutor(executor);
+				assertEquals(sample, expected, ex.getText());
+				ex.close();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
 }
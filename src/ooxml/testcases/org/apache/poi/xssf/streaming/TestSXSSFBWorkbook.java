@@ -0,0 +1,154 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.streaming;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.binary.XSSFBSharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFBReader;
+import org.apache.poi.xssf.extractor.XSSFBEventBasedExcelExtractor;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SXSSFBWorkbook}, the written files are read back with {@link XSSFBReader}
+ */
+public final class TestSXSSFBWorkbook {
+
+    @Test
+    public void writeAndReadBack() throws Exception {
+        SXSSFBWorkbook wb = new SXSSFBWorkbook(2);
+        try {
+            CellStyle style = wb.createCellStyle();
+            style.setDataFormat(wb.createDataFormat().getFormat("0.000"));
+
+            Sheet sheet = wb.createSheet("Numbers");
+            for (int i = 0; i < 10; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("row" + (i % 3));
+                row.createCell(1).setCellValue(i);
+                row.createCell(2).setCellValue(i + 0.25);
+                row.createCell(3).setCellValue(-i * 1000000000.5);
+                row.createCell(4).setCellValue(Math.PI);
+                row.getCell(4).setCellStyle(style);
+            }
+            sheet.addMergedRegion(new CellRangeAddress(10, 10, 0, 1));
+            sheet.setColumnWidth(0, 20 * 256);
+
+            Sheet other = wb.createSheet("Other");
+            Row row = other.createRow(2);
+            row.createCell(1).setCellValue(true);
+            row.createCell(2).setCellErrorValue(FormulaError.DIV0.getCode());
+            row.createCell(3).setCellValue("inline");
+            wb.setActiveSheet(1);
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            wb.write(bos);
+
+            OPCPackage pkg = OPCPackage.open(new ByteArrayInputStream(bos.toByteArray()));
+            try {
+                XSSFBSharedStringsTable sst = new XSSFBSharedStringsTable(pkg);
+                assertEquals(11, sst.getCount());
+                assertEquals(4, sst.getUniqueCount());
+                assertEquals("row0", sst.getEntryAt(0));
+
+                XSSFBReader reader = new XSSFBReader(pkg);
+                XSSFBReader.SheetIterator it = (XSSFBReader.SheetIterator)reader.getSheetsData();
+                List<String> names = new ArrayList<String>();
+                while (it.hasNext()) {
+                    it.next().close();
+                    names.add(it.getSheetName());
+                }
+                assertEquals(2, names.size());
+                assertEquals("Numbers", names.get(0));
+                assertEquals("Other", names.get(1));
+
+                XSSFBEventBasedExcelExtractor ex = new XSSFBEventBasedExcelExtractor(pkg);
+                String text = ex.getText();
+                assertTrue(text, text.startsWith("Numbers\nrow0\t0\t0.25\t0\t3.142\nrow1\t1\t1.25\t-1000000001\t3.142\n"));
+                assertTrue(text, text.contains("row0\t9\t9.25\t-9000000005\t3.142\n"));
+                assertTrue(text, text.endsWith("Other\nTRUE\tERROR\tinline\n"));
+            } finally {
+                pkg.revert();
+            }
+        } finally {
+            assertTrue(wb.dispose());
+            wb.close();
+        }
+    }
+
+    @Test
+    public void inlineStringsAndCompressedTempFiles() throws Exception {
+        SXSSFBWorkbook wb = new SXSSFBWorkbook(1, true, false);
+        try {
+            Sheet sheet = wb.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("first");
+            sheet.createRow(1).createCell(5).setCellValue("second");
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            wb.write(bos);
+
+            OPCPackage pkg = OPCPackage.open(new ByteArrayInputStream(bos.toByteArray()));
+            try {
+                assertEquals(0, new XSSFBSharedStringsTable(pkg).getUniqueCount());
+                XSSFBEventBasedExcelExtractor ex = new XSSFBEventBasedExcelExtractor(pkg);
+                ex.setIncludeSheetNames(false);
+                assertEquals("first\nsecond\n", ex.getText());
+            } finally {
+                pkg.revert();
+            }
+        } finally {
+            assertTrue(wb.dispose());
+            wb.close();
+        }
+    }
+
+    @Test
+    public void rkNumbers() throws IOException {
+        double[] values = {0, 1, -1, 536870911, -536870912, 0.01, 12345.67, 0.5, -2.75};
+        for (double value : values) {
+            int rk = XSSFBSheetDataWriter.toRkNumber(value);
+            assertTrue("no RkNumber for " + value, rk != 0);
+            assertEquals(value, decodeRk(rk), 0);
+        }
+        assertEquals(0, XSSFBSheetDataWriter.toRkNumber(Math.PI));
+        assertEquals(0, XSSFBSheetDataWriter.toRkNumber(536870912.5));
+    }
+
+    private static double decodeRk(int rk) {
+        double d;
+        if ((rk & 0x02) != 0) {
+            d = rk >> 2;
+        } else {
+            d = Double.longBitsToDouble(((long)(rk & ~0x03)) << 32);
+        }
+        return (rk & 0x01) != 0 ? d / 100 : d;
+    }
+}
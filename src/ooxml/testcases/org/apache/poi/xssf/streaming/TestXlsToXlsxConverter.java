@@ -0,0 +1,214 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.streaming;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.poi.hssf.HSSFTestDataSamples;
+import org.apache.poi.hssf.usermodel.HSSFCellStyle;
+import org.apache.poi.hssf.usermodel.HSSFFont;
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+public final class TestXlsToXlsxConverter {
+
+    @Test
+    public void convertCreatedWorkbook() throws IOException {
+        HSSFWorkbook hwb = new HSSFWorkbook();
+        HSSFCellStyle style = hwb.createCellStyle();
+        HSSFFont font = hwb.createFont();
+        font.setFontName("Courier New");
+        font.setBold(true);
+        font.setFontHeightInPoints((short)14);
+        style.setFont(font);
+        style.setDataFormat(hwb.createDataFormat().getFormat("0.000"));
+        style.setAlignment(HorizontalAlignment.RIGHT);
+        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        style.setFillForegroundColor(IndexedColors.RED.getIndex());
+
+        HSSFSheet data = hwb.createSheet("Data");
+        data.setColumnWidth(1, 5000);
+        for (int r = 0; r < 300; r++) {
+            HSSFRow row = data.createRow(r);
+            Cell cell = row.createCell(0);
+            cell.setCellValue(r);
+            if (r % 10 == 0) {
+                cell.setCellStyle(style);
+            }
+            row.createCell(1).setCellValue("text " + (r % 7));
+            row.createCell(2).setCellFormula("A" + (r + 1) + "*2");
+        }
+        data.addMergedRegion(new CellRangeAddress(0, 1, 3, 4));
+        Name total = hwb.createName();
+        total.setNameName("Total");
+        total.setRefersToFormula("SUM(Data!$A$1:$A$300)");
+
+        HSSFSheet summary = hwb.createSheet("Summary");
+        summary.createRow(0).createCell(0).setCellFormula("Total");
+        summary.getRow(0).createCell(1).setCellFormula("Data!B2&\"!\"");
+        hwb.setSheetHidden(1, true);
+        hwb.getCreationHelper().createFormulaEvaluator().evaluateAll();
+
+        XSSFWorkbook xwb = convert(toStream(hwb), 32);
+        try {
+            assertEquals(2, xwb.getNumberOfSheets());
+            assertFalse(xwb.isSheetHidden(0));
+            assertTrue(xwb.isSheetHidden(1));
+
+            XSSFSheet xdata = xwb.getSheet("Data");
+            assertEquals(299, xdata.getLastRowNum());
+            assertEquals(5000, xdata.getColumnWidth(1));
+            assertEquals(1, xdata.getNumMergedRegions());
+            assertEquals("D1:E2", xdata.getMergedRegion(0).formatAsString());
+            for (int r = 0; r < 300; r++) {
+                Row row = xdata.getRow(r);
+                assertEquals(r, row.getCell(0).getNumericCellValue(), 0);
+                assertEquals("text " + (r % 7), row.getCell(1).getStringCellValue());
+                assertEquals("A" + (r + 1) + "*2", row.getCell(2).getCellFormula());
+                assertEquals(r * 2, row.getCell(2).getNumericCellValue(), 0);
+            }
+
+            XSSFCellStyle xstyle = xdata.getRow(10).getCell(0).getCellStyle();
+            assertEquals("0.000", xstyle.getDataFormatString());
+            assertEquals(HorizontalAlignment.RIGHT, xstyle.getAlignmentEnum());
+            assertEquals(FillPatternType.SOLID_FOREGROUND, xstyle.getFillPatternEnum());
+            XSSFFont xfont = xstyle.getFont();
+            assertEquals("Courier New", xfont.getFontName());
+            assertEquals(14, xfont.getFontHeightInPoints());
+            assertTrue(xfont.getBold());
+            assertEquals("10.000", new DataFormatter().formatCellValue(xdata.getRow(10).getCell(0)));
+            // the styles are shared
+            assertEquals(xstyle.getIndex(), xdata.getRow(20).getCell(0).getCellStyle().getIndex());
+
+            Name xtotal = xwb.getName("Total");
+            assertNotNull(xtotal);
+            assertEquals("SUM(Data!$A$1:$A$300)", xtotal.getRefersToFormula());
+            Sheet xsummary = xwb.getSheet("Summary");
+            assertEquals("Total", xsummary.getRow(0).getCell(0).getCellFormula());
+            assertEquals(299 * 300 / 2, xsummary.getRow(0).getCell(0).getNumericCellValue(), 0);
+            assertEquals("Data!B2&\"!\"", xsummary.getRow(0).getCell(1).getCellFormula());
+            // the text result isn't written, so the workbook has to be recalculated
+            assertEquals(0, xwb.getCTWorkbook().getCalcPr().getCalcId());
+        } finally {
+            xwb.close();
+            hwb.close();
+        }
+    }
+
+    @Test
+    public void convertSharedFormulas() throws IOException {
+        assertConverted("shared_formulas.xls");
+        assertConverted("SharedFormulaTest.xls");
+        assertConverted("SampleSS.xls");
+    }
+
+    @Test
+    public void convert1904Dates() throws IOException {
+        XSSFWorkbook xwb = convert(HSSFTestDataSamples.openSampleFileStream("1904DateWindowing.xls"), 100);
+        try {
+            assertTrue(xwb.isDate1904());
+        } finally {
+            xwb.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void windowSmallerThanRowBlock() {
+        new XlsToXlsxConverter(31);
+    }
+
+    /**
+     * Compares the values and formulas of all cells with the ones read by {@link HSSFWorkbook}
+     */
+    private static void assertConverted(String sampleName) throws IOException {
+        HSSFWorkbook hwb = HSSFTestDataSamples.openSampleWorkbook(sampleName);
+        XSSFWorkbook xwb = convert(HSSFTestDataSamples.openSampleFileStream(sampleName), 100);
+        try {
+            assertEquals(hwb.getNumberOfSheets(), xwb.getNumberOfSheets());
+            for (int s = 0; s < hwb.getNumberOfSheets(); s++) {
+                HSSFSheet hsheet = hwb.getSheetAt(s);
+                XSSFSheet xsheet = xwb.getSheetAt(s);
+                assertEquals(hsheet.getSheetName(), xsheet.getSheetName());
+                assertEquals(hsheet.getNumMergedRegions(), xsheet.getNumMergedRegions());
+                for (Row hrow : hsheet) {
+                    Row xrow = xsheet.getRow(hrow.getRowNum());
+                    for (Cell hcell : hrow) {
+                        String pos = sampleName + " " + hsheet.getSheetName() + "!" + hcell.getAddress();
+                        Cell xcell = xrow.getCell(hcell.getColumnIndex());
+                        assertNotNull(pos, xcell);
+                        assertEquals(pos, hcell.getCellTypeEnum(), xcell.getCellTypeEnum());
+                        CellType type = hcell.getCellTypeEnum();
+                        if (type == CellType.FORMULA) {
+                            assertEquals(pos, hcell.getCellFormula(), xcell.getCellFormula());
+                            type = hcell.getCachedFormulaResultTypeEnum();
+                        }
+                        if (type == CellType.NUMERIC) {
+                            assertEquals(pos, hcell.getNumericCellValue(), xcell.getNumericCellValue(), 0);
+                        } else if (type == CellType.STRING && hcell.getCellTypeEnum() != CellType.FORMULA) {
+                            assertEquals(pos, hcell.getStringCellValue(), xcell.getStringCellValue());
+                        }
+                    }
+                }
+            }
+        } finally {
+            xwb.close();
+            hwb.close();
+        }
+    }
+
+    private static XSSFWorkbook convert(InputStream xls, int windowSize) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try {
+            new XlsToXlsxConverter(windowSize).convert(xls, bos);
+        } finally {
+            xls.close();
+        }
+        return new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+    }
+
+    private static InputStream toStream(Workbook wb) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        wb.write(bos);
+        return new ByteArrayInputStream(bos.toByteArray());
+    }
+}
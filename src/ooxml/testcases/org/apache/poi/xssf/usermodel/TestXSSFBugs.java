@@ -80,6 +80,7 @@ import org.apache.poi.util.TempFile;
 import org.apache.poi.xssf.XLSBUnsupportedException;
 import org.apache.poi.xssf.XSSFITestDataProvider;
 import org.apache.poi.xssf.XSSFTestDataSamples;
+import org.apache.poi.xssf.binary.XSSFBWorkbook;
 import org.apache.poi.xssf.model.CalculationChain;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.extensions.XSSFCellFill;
@@ -1940,8 +1941,8 @@ public final class TestXSSFBugs extends BaseTestBugzillaIssues {
     }
 
     /**
-     * .xlsb files are not supported, but we should generate a helpful
-     *  error message if given one
+     * .xlsb files are not supported by XSSFWorkbook, but we should generate a helpful
+     *  error message if given one. WorkbookFactory opens them read-only.
      */
     @Test
     public void bug56800_xlsb() throws IOException, InvalidFormatException {
@@ -1956,24 +1957,17 @@ public final class TestXSSFBugs extends BaseTestBugzillaIssues {
             // Good, detected and warned
         }
 
-        // Workbook Factory gives helpful error on package
-        try {
-            WorkbookFactory.create(pkg).close();
-            fail(".xlsb files not supported");
-        } catch (XLSBUnsupportedException e) {
-            // Good, detected and warned
-        }
+        // Workbook Factory opens the package read-only
+        Workbook wb = WorkbookFactory.create(pkg);
+        assertTrue(wb instanceof XSSFBWorkbook);
+        wb.close();
 
-        // Workbook Factory gives helpful error on file
+        // Workbook Factory opens the file read-only
         File xlsbFile = HSSFTestDataSamples.getSampleFile("Simple.xlsb");
-        try {
-            WorkbookFactory.create(xlsbFile).close();
-            fail(".xlsb files not supported");
-        } catch (XLSBUnsupportedException e) {
-            // Good, detected and warned
-        }
-        
-        pkg.close();
+        wb = WorkbookFactory.create(xlsbFile);
+        assertTrue(wb instanceof XSSFBWorkbook);
+        assertEquals("Sheet1", wb.getSheetName(0));
+        wb.close();
     }
 
     private void checkValue(XSSFWorkbook excel, String expect) {
@@ -22,6 +22,7 @@ import org.apache.poi.hssf.eventusermodel.AllEventUserModelTests;
 import org.apache.poi.hssf.extractor.TestExcelExtractor;
 import org.apache.poi.hssf.model.AllModelTests;
 import org.apache.poi.hssf.record.AllRecordTests;
+import org.apache.poi.hssf.streaming.TestSHSSFWorkbook;
 import org.apache.poi.hssf.usermodel.AllUserModelTests;
 import org.apache.poi.hssf.util.AllHSSFUtilTests;
 import org.apache.poi.ss.formula.AllSSFormulaTests;
@@ -41,6 +42,7 @@ import org.junit.runners.Suite;
     AllHSSFUtilTests.class,
     TestExcelExtractor.class,
     TestEventRecordFactory.class,
+    TestSHSSFWorkbook.class,
     AllSSFormulaTests.class,
     AllSSUtilTests.class
 })
@@ -31,7 +31,10 @@ import org.apache.poi.hssf.record.DVRecord;
 import org.apache.poi.hssf.record.EOFRecord;
 import org.apache.poi.hssf.record.FeatHdrRecord;
 import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.RKRecord;
+import org.apache.poi.hssf.record.RawRecordInputStream;
 import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
 import org.apache.poi.hssf.record.SelectionRecord;
 import org.apache.poi.hssf.record.WindowTwoRecord;
 import org.apache.poi.hssf.record.crypto.Biff8EncryptionKey;
@@ -208,4 +211,105 @@ public final class TestHSSFEventFactory extends TestCase {
         assertTrue("Numeric record for A2 not found", hasA2);
         assertTrue("Numeric record for A3 not found", hasA3);
     }
-}	
+
+    public void testRawRecords() throws Exception {
+        HSSFRequest req = new HSSFRequest();
+        MockHSSFListener mockListen = new MockHSSFListener();
+        req.addListener(mockListen, BoundSheetRecord.sid);
+        req.addListener(mockListen, SSTRecord.sid);
+        req.addListener(mockListen, EOFRecord.sid);
+        POIFSFileSystem fs = new POIFSFileSystem(openSample("SimpleWithSkip.xls"));
+        HSSFEventFactory factory = new HSSFEventFactory();
+        factory.processWorkbookEvents(req, fs);
+        Record[] expected = mockListen.getRecords();
+
+        req = new HSSFRequest();
+        final List<Record> decoded = new ArrayList<Record>();
+        HSSFRawRecordListener rawListen = new HSSFRawRecordListener() {
+            @Override
+            public void processRawRecord(short sid, RawRecordInputStream record) {
+                assertEquals(sid, record.getSid());
+                if (sid == EOFRecord.sid) {
+                    // no need to decode it
+                    assertEquals(0, record.getDataSize());
+                    decoded.add(EOFRecord.instance);
+                } else {
+                    decoded.add(record.decode());
+                }
+            }
+        };
+        req.addRawListener(rawListen, BoundSheetRecord.sid);
+        req.addRawListener(rawListen, SSTRecord.sid);
+        req.addRawListener(rawListen, EOFRecord.sid);
+        factory.processWorkbookRawEvents(req, fs.getRoot());
+
+        assertEquals(expected.length, decoded.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].getClass(), decoded.get(i).getClass());
+            assertEquals(expected[i].toString(), decoded.get(i).toString());
+        }
+
+        // the raw data is the serialized record data
+        final List<byte[]> data = new ArrayList<byte[]>();
+        req = new HSSFRequest();
+        req.addRawListener(new HSSFRawRecordListener() {
+            @Override
+            public void processRawRecord(short sid, RawRecordInputStream record) {
+                byte[] buf = new byte[record.getDataSize()];
+                System.arraycopy(record.getData(), 0, buf, 0, buf.length);
+                data.add(buf);
+                // decoding works on the fetched data as well
+                assertEquals(BoundSheetRecord.class, record.decode().getClass());
+            }
+        }, BoundSheetRecord.sid);
+        factory.processWorkbookRawEvents(req, fs.getRoot());
+
+        int sheets = 0;
+        for (Record r : expected) {
+            if (r instanceof BoundSheetRecord) {
+                byte[] ser = r.serialize();
+                byte[] raw = data.get(sheets++);
+                assertEquals(ser.length - 4, raw.length);
+                for (int i = 0; i < raw.length; i++) {
+                    assertEquals(ser[i + 4], raw[i]);
+                }
+            }
+        }
+        assertEquals(sheets, data.size());
+        fs.close();
+    }
+
+    public void testRawRecordsWithPasswordProtectedWorkbooks() throws Exception {
+        Biff8EncryptionKey.setCurrentUserPassword("abc");
+        POIFSFileSystem fs = new POIFSFileSystem(openSample("xor-encryption-abc.xls"));
+
+        final double[] values = new double[3];
+        HSSFRawRecordListener rawListen = new HSSFRawRecordListener() {
+            @Override
+            public void processRawRecord(short sid, RawRecordInputStream record) {
+                Record r = record.decode();
+                if (r instanceof RKRecord) {
+                    RKRecord rk = (RKRecord)r;
+                    if (rk.getColumn() == 0 && rk.getRow() < 3) {
+                        values[rk.getRow()] = rk.getRKNumber();
+                    }
+                } else {
+                    NumberRecord nr = (NumberRecord)r;
+                    if (nr.getColumn() == 0 && nr.getRow() < 3) {
+                        values[nr.getRow()] = nr.getValue();
+                    }
+                }
+            }
+        };
+        HSSFRequest req = new HSSFRequest();
+        req.addRawListener(rawListen, NumberRecord.sid);
+        req.addRawListener(rawListen, RKRecord.sid);
+        new HSSFEventFactory().processWorkbookRawEvents(req, fs.getRoot());
+
+        // Has one sheet, with values 1,2,3 in column A rows 1-3
+        assertEquals(1, values[0], 0);
+        assertEquals(2, values[1], 0);
+        assertEquals(3, values[2], 0);
+        fs.close();
+    }
+}
@@ -79,6 +79,7 @@ import org.junit.runners.Suite;
     TestSSTDeserializer.class,
     TestSSTRecord.class,
     TestSSTRecordSizeCalculator.class,
+    TestSSTStringTable.class,
     TestSharedFormulaRecord.class,
     TestStringRecord.class,
     TestStyleRecord.class,
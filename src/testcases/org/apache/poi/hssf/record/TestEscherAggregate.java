@@ -85,6 +85,50 @@ public final class TestEscherAggregate extends TestCase {
 //        System.out.println( "aggregate = " + aggregate );
     }
 
+    /**
+     * The escher records are only decoded when they are accessed,
+     * until then the original records are written unchanged.
+     */
+    public void testLazyDecoding() {
+        DrawingRecord d1 = new DrawingRecord();
+        d1.setData( HexRead.readFromString(
+                "0F 00 02 F0 20 00 00 00 10 00 08 F0 08 00 00 00 " +
+                "02 00 00 00 01 04 00 00 0F 00 04 F0 08 00 00 00 " +
+                "00 00 11 F0 00 00 00 00" ) );
+        ObjRecord r1 = new ObjRecord();
+        NoteRecord n1 = new NoteRecord();
+        n1.setShapeId( 1025 );
+        n1.setAuthor( "author" );
+
+        List<RecordBase> records = new ArrayList<RecordBase>();
+        records.add( d1 );
+        records.add( r1 );
+        records.add( n1 );
+        records.add( EOFRecord.instance );
+
+        byte[] expected = new byte[d1.getRecordSize() + r1.getRecordSize() + n1.getRecordSize()];
+        int pos = d1.serialize( 0, expected );
+        pos += r1.serialize( pos, expected );
+        n1.serialize( pos, expected );
+
+        EscherAggregate aggregate = EscherAggregate.createAggregate(records, 0);
+        assertEquals( 2, records.size() );
+        assertSame( aggregate, records.get( 0 ) );
+        assertFalse( aggregate.isDecoded() );
+
+        assertEquals( expected.length, aggregate.getRecordSize() );
+        byte[] data = new byte[expected.length];
+        assertEquals( expected.length, aggregate.serialize( 0, data ) );
+        assertEquals( HexDump.toHex( expected ), HexDump.toHex( data ) );
+        assertFalse( aggregate.isDecoded() );
+
+        assertEquals( 1, aggregate.getShapeToObjMapping().size() );
+        assertTrue( aggregate.isDecoded() );
+        assertSame( r1, aggregate.getShapeToObjMapping().values().iterator().next() );
+        assertSame( n1, aggregate.getTailRecords().get( 1025 ) );
+        assertEquals( (short) 0xF002, aggregate.getEscherContainer().getRecordId() );
+    }
+
     public void testSerialize() {
 
         EscherContainerRecord container1 = new EscherContainerRecord();
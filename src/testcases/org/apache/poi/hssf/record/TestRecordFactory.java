@@ -237,4 +237,32 @@ public final class TestRecordFactory {
 		assertEquals(5, outRecs.size());
 		fs.close();
 	}
+
+	/**
+	 * The cell and row records are created without reflection, but must behave the same
+	 */
+	@Test
+	public void testDirectRecordCreators() {
+		assertEquals(NumberRecord.class, RecordFactory.getRecordClass(NumberRecord.sid));
+		assertEquals(LabelSSTRecord.class, RecordFactory.getRecordClass(LabelSSTRecord.sid));
+		assertEquals(RowRecord.class, RecordFactory.getRecordClass(RowRecord.sid));
+
+		NumberRecord nr = new NumberRecord();
+		nr.setRow(3);
+		nr.setColumn((short)4);
+		nr.setXFIndex((short)15);
+		nr.setValue(2.5);
+		byte[] data = nr.serialize();
+		Record rec = RecordFactory.createSingleRecord(TestcaseRecordInputStream.create(data));
+		assertTrue(rec instanceof NumberRecord);
+		assertArrayEquals(data, rec.serialize());
+
+		// truncated record data
+		try {
+			RecordFactory.createSingleRecord(TestcaseRecordInputStream.create(NumberRecord.sid, new byte[4]));
+			fail("expected RecordFormatException");
+		} catch (org.apache.poi.util.RecordFormatException e) {
+			// expected
+		}
+	}
 }
@@ -25,7 +25,6 @@ import java.io.InputStream;
 import org.apache.poi.hssf.HSSFTestDataSamples;
 import org.apache.poi.hssf.record.common.UnicodeString;
 import org.apache.poi.util.HexRead;
-import org.apache.poi.util.IntMapper;
 import org.junit.Test;
 
 /**
@@ -59,7 +58,7 @@ public final class TestSSTDeserializer {
         RecordInputStream in = TestcaseRecordInputStream.create(concat(header, continueBytes));
       
 
-        IntMapper<UnicodeString> strings = new IntMapper<UnicodeString>();
+        SSTStringTable strings = new SSTStringTable();
         SSTDeserializer deserializer = new SSTDeserializer( strings );
         deserializer.manufactureStrings(1, in );
 
@@ -72,7 +71,7 @@ public final class TestSSTDeserializer {
         byte[] continueBytes = readSampleHexData("evencontinuation.txt", "continue1", ContinueRecord.sid);
         RecordInputStream in = TestcaseRecordInputStream.create(concat(header, continueBytes));
 
-        IntMapper<UnicodeString> strings = new IntMapper<UnicodeString>();
+        SSTStringTable strings = new SSTStringTable();
         SSTDeserializer deserializer = new SSTDeserializer( strings );
         deserializer.manufactureStrings( 2, in);
 
@@ -91,7 +90,7 @@ public final class TestSSTDeserializer {
         
         RecordInputStream in = TestcaseRecordInputStream.create(concat(header, concat(continue1, continue2)));
 
-        IntMapper<UnicodeString> strings = new IntMapper<UnicodeString>();
+        SSTStringTable strings = new SSTStringTable();
         SSTDeserializer deserializer = new SSTDeserializer( strings );
         deserializer.manufactureStrings( 2, in);
 
@@ -105,7 +104,7 @@ public final class TestSSTDeserializer {
         byte[] continueBytes = readSampleHexData("extendedtextstrings.txt", "rich-continue1", ContinueRecord.sid);
         RecordInputStream in = TestcaseRecordInputStream.create(concat(header, continueBytes));
         
-        IntMapper<UnicodeString> strings = new IntMapper<UnicodeString>();
+        SSTStringTable strings = new SSTStringTable();
         SSTDeserializer deserializer = new SSTDeserializer( strings );
         deserializer.manufactureStrings( 1, in);
 
@@ -116,7 +115,7 @@ public final class TestSSTDeserializer {
         continueBytes = readSampleHexData("extendedtextstrings.txt", "norich-continue1", ContinueRecord.sid);
         in = TestcaseRecordInputStream.create(concat(header, continueBytes));
         
-        strings = new IntMapper<UnicodeString>();
+        strings = new SSTStringTable();
         deserializer = new SSTDeserializer( strings );
         deserializer.manufactureStrings( 1, in);
 
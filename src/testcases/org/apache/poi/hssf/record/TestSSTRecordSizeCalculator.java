@@ -21,7 +21,6 @@ import junit.framework.TestCase;
 
 import org.apache.poi.hssf.record.common.UnicodeString;
 import org.apache.poi.hssf.record.cont.ContinuableRecordOutput;
-import org.apache.poi.util.IntMapper;
 
 /**
  * Tests that records size calculates correctly.
@@ -33,7 +32,7 @@ public final class TestSSTRecordSizeCalculator extends TestCase {
 	private static final int COMPRESSED_PLAIN_STRING_OVERHEAD = 3;
 	private static final int OPTION_FIELD_SIZE = 1;
 	
-	private final IntMapper<UnicodeString> strings = new IntMapper<UnicodeString>();
+	private final SSTStringTable strings = new SSTStringTable();
 
 	private void confirmSize(int expectedSize) {
 		ContinuableRecordOutput cro = ContinuableRecordOutput.createForCountingOnly();
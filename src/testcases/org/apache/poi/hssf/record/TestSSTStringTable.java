@@ -0,0 +1,113 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.record;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Iterator;
+
+import org.apache.poi.hssf.record.common.UnicodeString;
+import org.apache.poi.hssf.record.cont.ContinuableRecordOutput;
+import org.apache.poi.util.LittleEndianByteArrayOutputStream;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SSTStringTable}
+ */
+public final class TestSSTStringTable {
+
+    @Test
+    public void testLookup() {
+        SSTStringTable table = new SSTStringTable();
+        for (int i = 0; i < 1000; i++) {
+            table.add(new UnicodeString("s" + i));
+        }
+        table.add(new UnicodeString("\u0424\u0435\u0434\u043e\u0440"));
+        UnicodeString rich = new UnicodeString("s5");
+        rich.addFormatRun(new UnicodeString.FormatRun((short)0, (short)1));
+        table.add(rich);
+
+        assertEquals(1002, table.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, table.getIndex(new UnicodeString("s" + i)));
+            assertEquals("s" + i, table.get(i).getString());
+        }
+        assertEquals(1000, table.getIndex(new UnicodeString("\u0424\u0435\u0434\u043e\u0440")));
+        assertEquals(-1, table.getIndex(new UnicodeString("s1000")));
+
+        // the formatting runs are part of the key
+        assertEquals(5, table.getIndex(new UnicodeString("s5")));
+        UnicodeString rich2 = new UnicodeString("s5");
+        rich2.addFormatRun(new UnicodeString.FormatRun((short)0, (short)1));
+        assertEquals(1001, table.getIndex(rich2));
+        assertSame(rich, table.get(1001));
+
+        // as are the option flags
+        UnicodeString uncompressed = new UnicodeString("s7");
+        uncompressed.setOptionFlags((byte)0x01);
+        assertEquals(-1, table.getIndex(uncompressed));
+        table.add(uncompressed);
+        assertEquals(1002, table.getIndex(uncompressed));
+        assertEquals(uncompressed, table.get(1002));
+        assertNotSame(uncompressed, table.get(1002));
+
+        // duplicates are found at their last position
+        table.add(new UnicodeString("s3"));
+        assertEquals(1003, table.getIndex(new UnicodeString("s3")));
+
+        Iterator<UnicodeString> iter = table.iterator();
+        for (int i = 0; i < table.size(); i++) {
+            assertEquals(table.get(i), iter.next());
+        }
+    }
+
+    @Test
+    public void testSerialize() {
+        UnicodeString[] strings = {
+            new UnicodeString("plain"),
+            new UnicodeString("\u0424\u0435\u0434\u043e\u0440"),
+            new UnicodeString(""),
+            new UnicodeString("rich")
+        };
+        strings[3].addFormatRun(new UnicodeString.FormatRun((short)1, (short)2));
+        SSTStringTable table = new SSTStringTable();
+        for (UnicodeString us : strings) {
+            table.add(us);
+        }
+        for (int i = 0; i < strings.length; i++) {
+            assertArrayEquals(serialize(strings[i]), serialize(table, i));
+        }
+    }
+
+    private static byte[] serialize(UnicodeString us) {
+        byte[] data = new byte[100];
+        ContinuableRecordOutput out = new ContinuableRecordOutput(new LittleEndianByteArrayOutputStream(data, 0), SSTRecord.sid);
+        us.serialize(out);
+        return data;
+    }
+
+    private static byte[] serialize(SSTStringTable table, int index) {
+        byte[] data = new byte[100];
+        ContinuableRecordOutput out = new ContinuableRecordOutput(new LittleEndianByteArrayOutputStream(data, 0), SSTRecord.sid);
+        table.serialize(index, out);
+        return data;
+    }
+}
@@ -22,12 +22,16 @@ import junit.framework.ComparisonFailure;
 import junit.framework.TestCase;
 
 import org.apache.poi.hssf.HSSFTestDataSamples;
+import org.apache.poi.hssf.record.aggregates.FormulaRecordAggregate;
+import org.apache.poi.hssf.record.aggregates.ValueRecordsAggregate;
 import org.apache.poi.ss.formula.ptg.Ptg;
 import org.apache.poi.ss.formula.ptg.RefPtg;
 import org.apache.poi.ss.formula.SharedFormula;
 import org.apache.poi.hssf.usermodel.*;
+import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.formula.FormulaParser;
 import org.apache.poi.ss.formula.FormulaRenderer;
 import org.apache.poi.ss.formula.FormulaType;
@@ -172,6 +176,44 @@ public final class TestSharedFormulaRecord extends TestCase {
         assertEquals(4, countSharedFormulas(sheet));
     }
 
+    /**
+     * All cells of a shared formula group are evaluated from the tokens of the shared formula
+     */
+    public void testEvaluateSharedFormulaTokens() {
+        HSSFWorkbook wb = HSSFTestDataSamples.openSampleWorkbook(SHARED_FORMULA_TEST_XLS);
+        HSSFSheet sheet = wb.getSheetAt(0);
+        ValueRecordsAggregate values = HSSFTestHelper.getSheetForTest(sheet).getRowsAggregate().getValueRecordsAggregate();
+        Ptg[] sharedTokens = ((FormulaRecordAggregate)values.getCell(32768, 1)).getSharedFormulaTokens();
+        assertNotNull(sharedTokens);
+        assertSame(sharedTokens, ((FormulaRecordAggregate)values.getCell(32768, 2)).getSharedFormulaTokens());
+
+        // compare with the results of the same formulas, after they are unshared
+        HSSFWorkbook wb2 = HSSFTestDataSamples.openSampleWorkbook(SHARED_FORMULA_TEST_XLS);
+        HSSFSheet sheet2 = wb2.getSheetAt(0);
+        int formulaCount = 0;
+        for (Row row : sheet2) {
+            for (Cell cell : row) {
+                if (cell.getCellTypeEnum() == CellType.FORMULA) {
+                    cell.setCellFormula(cell.getCellFormula());
+                }
+            }
+        }
+        assertEquals(0, countSharedFormulas(sheet2));
+
+        HSSFFormulaEvaluator fe = new HSSFFormulaEvaluator(wb);
+        HSSFFormulaEvaluator fe2 = new HSSFFormulaEvaluator(wb2);
+        for (Row row : sheet) {
+            for (Cell cell : row) {
+                if (cell.getCellTypeEnum() == CellType.FORMULA) {
+                    Cell cell2 = sheet2.getRow(row.getRowNum()).getCell(cell.getColumnIndex());
+                    assertEquals(fe2.evaluate(cell2).formatAsString(), fe.evaluate(cell).formatAsString());
+                    formulaCount++;
+                }
+            }
+        }
+        assertTrue(formulaCount > 8);
+    }
+
     public void testUnshareFormulaDueToChangeFormula() {
         HSSFWorkbook wb;
         HSSFSheet sheet;
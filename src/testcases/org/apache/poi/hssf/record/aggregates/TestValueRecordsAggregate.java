@@ -32,7 +32,9 @@ import org.apache.poi.hssf.model.RowBlocksReader;
 import org.apache.poi.hssf.record.BlankRecord;
 import org.apache.poi.hssf.record.CellValueRecordInterface;
 import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
 import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.NumberRecord;
 import org.apache.poi.hssf.record.Record;
 import org.apache.poi.hssf.record.SharedFormulaRecord;
 import org.apache.poi.hssf.record.WindowTwoRecord;
@@ -199,6 +201,69 @@ public final class TestValueRecordsAggregate {
 		assertArrayEquals(expectedArray, actualArray);
 	}
 
+	/**
+	 * Number, string and blank cells read in are packed, their records are created on access
+	 */
+	@Test
+	public void testPackedCells() {
+		NumberRecord nr = new NumberRecord();
+		nr.setRow(1);
+		nr.setColumn((short) 0);
+		nr.setXFIndex((short) 15);
+		nr.setValue(-0.25);
+		LabelSSTRecord lr = new LabelSSTRecord();
+		lr.setRow(1);
+		lr.setColumn((short) 1);
+		lr.setXFIndex((short) 16);
+		lr.setSSTIndex(70000);
+		List<Record> records = new ArrayList<Record>();
+		records.add(nr);
+		records.add(lr);
+		records.add(new WindowTwoRecord());
+		constructValueRecord(records);
+		valueRecord.addMultipleBlanks(new MulBlankRecord(1, 3, new short[] { 17, 18, 19 }));
+
+		assertEquals(5, valueRecord.getPhysicalNumberOfCells());
+		assertEquals(0, valueRecord.getFirstCellInRow(1));
+		assertEquals(5, valueRecord.getLastCellInRow(1));
+		assertEquals(1, valueRecord.getNextRowWithCells(0));
+		assertEquals(-1, valueRecord.getNextRowWithCells(2));
+		assertNull(valueRecord.getCell(1, 2));
+
+		byte[] expected = new byte[nr.getRecordSize() + lr.getRecordSize() + 10 + 2*3];
+		int pos = nr.serialize(0, expected);
+		pos += lr.serialize(pos, expected);
+		new MulBlankRecord(1, 3, new short[] { 17, 18, 19 }).serialize(pos, expected);
+		assertEquals(expected.length, valueRecord.getRowCellBlockSize(1, 1));
+		byte[] actual = new byte[expected.length];
+		SerializerVisitor sv = new SerializerVisitor(actual);
+		valueRecord.visitCellsForRow(1, sv);
+		assertEquals(expected.length, sv.getWriteIndex());
+		assertArrayEquals(expected, actual);
+
+		// the created records are kept, as they might be modified
+		NumberRecord nr2 = (NumberRecord) valueRecord.getCell(1, 0);
+		assertEquals(-0.25, nr2.getValue(), 0);
+		assertEquals(15, nr2.getXFIndex());
+		assertSame(nr2, valueRecord.getCell(1, 0));
+		assertEquals(70000, ((LabelSSTRecord) valueRecord.getCell(1, 1)).getSSTIndex());
+		BlankRecord br = (BlankRecord) valueRecord.getCell(1, 4);
+		assertEquals(18, br.getXFIndex());
+
+		// stored and packed blanks are still combined
+		sv = new SerializerVisitor(actual);
+		valueRecord.visitCellsForRow(1, sv);
+		assertArrayEquals(expected, actual);
+
+		valueRecord.removeCell(br);
+		assertEquals(4, valueRecord.getPhysicalNumberOfCells());
+		assertEquals(4, getValueRecords().size());
+		assertEquals(nr.getRecordSize() + lr.getRecordSize() + 10 + 10, valueRecord.getRowCellBlockSize(1, 1));
+		valueRecord.removeAllCellsValuesForRow(1);
+		assertEquals(0, valueRecord.getPhysicalNumberOfCells());
+		assertFalse(valueRecord.rowHasCells(1));
+	}
+
 	private static BlankRecord newBlankRecord() {
 		return newBlankRecord( 2, 2 );
 	}
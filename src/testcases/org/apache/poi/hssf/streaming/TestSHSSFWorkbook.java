@@ -0,0 +1,158 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.streaming;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.apache.poi.hssf.record.IndexRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordFactory;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.Test;
+
+public final class TestSHSSFWorkbook {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        SHSSFWorkbook wb = new SHSSFWorkbook(10);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try {
+            for (int s = 0; s < 2; s++) {
+                SHSSFSheet sheet = wb.createSheet("sheet" + s);
+                for (int i = 0; i < 1000; i++) {
+                    Row row = sheet.createRow(i);
+                    row.createCell(0).setCellValue(i);
+                    row.createCell(1).setCellValue("s" + s + "-" + (i % 50));
+                    row.createCell(5).setCellFormula("A" + (i + 1) + "*2");
+                }
+                // whole blocks only, the rest of the window stays in memory
+                assertTrue(sheet.getPhysicalNumberOfRows() >= 10);
+                assertTrue(sheet.getPhysicalNumberOfRows() < 10 + 32);
+                assertEquals(1000 - sheet.getPhysicalNumberOfRows() - 1, sheet.getLastFlushedRowNum());
+                assertNull(sheet.getRow(0));
+                assertNotNull(sheet.getRow(999));
+            }
+            wb.write(bos);
+        } finally {
+            assertTrue(wb.dispose());
+            wb.close();
+        }
+
+        HSSFWorkbook wb2 = new HSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+        try {
+            assertEquals(2, wb2.getNumberOfSheets());
+            for (int s = 0; s < 2; s++) {
+                HSSFSheet sheet = wb2.getSheetAt(s);
+                assertEquals(1000, sheet.getPhysicalNumberOfRows());
+                assertEquals(0, sheet.getFirstRowNum());
+                assertEquals(999, sheet.getLastRowNum());
+                for (int i = 0; i < 1000; i++) {
+                    Row row = sheet.getRow(i);
+                    assertEquals(i, row.getCell(0).getNumericCellValue(), 0);
+                    assertEquals("s" + s + "-" + (i % 50), row.getCell(1).getStringCellValue());
+                    assertEquals("A" + (i + 1) + "*2", row.getCell(5).getCellFormula());
+                }
+            }
+        } finally {
+            wb2.close();
+        }
+
+        // the INDEX record points to all DBCELL records of the sheet
+        NPOIFSFileSystem fs = new NPOIFSFileSystem(new ByteArrayInputStream(bos.toByteArray()));
+        try {
+            int dbCells = 0;
+            for (Record r : RecordFactory.createRecords(fs.createDocumentInputStream("Workbook"))) {
+                if (r instanceof IndexRecord) {
+                    IndexRecord index = (IndexRecord)r;
+                    dbCells += index.getNumDbcells();
+                    assertEquals(999 + 1, index.getLastRowAdd1());
+                }
+            }
+            assertEquals(2 * ((1000 + 31) / 32), dbCells);
+        } finally {
+            fs.close();
+        }
+    }
+
+    @Test
+    public void testFlushedRows() throws Exception {
+        SHSSFWorkbook wb = new SHSSFWorkbook(-1);
+        try {
+            SHSSFSheet sheet = wb.createSheet();
+            for (int i = 0; i < 100; i++) {
+                sheet.createRow(i * 2).createCell(0).setCellValue(i);
+            }
+            assertEquals(-1, sheet.getLastFlushedRowNum());
+
+            sheet.flushRows(40);
+            assertEquals(62, sheet.getLastFlushedRowNum());
+            assertEquals(68, sheet.getPhysicalNumberOfRows());
+            sheet.flushRows();
+            assertEquals(190, sheet.getLastFlushedRowNum());
+            assertEquals(4, sheet.getPhysicalNumberOfRows());
+
+            try {
+                sheet.createRow(190);
+                fail("row was flushed already");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            try {
+                sheet.shiftRows(192, 198, 1);
+                fail("rows were flushed already");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            try {
+                wb.cloneSheet(0);
+                fail("rows were flushed already");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            sheet.createRow(191).createCell(0).setCellValue("after");
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            wb.write(bos);
+            HSSFWorkbook wb2 = new HSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+            try {
+                Sheet sheet2 = wb2.getSheetAt(0);
+                assertEquals(101, sheet2.getPhysicalNumberOfRows());
+                assertEquals(0, sheet2.getFirstRowNum());
+                assertEquals(198, sheet2.getLastRowNum());
+                assertEquals(63, sheet2.getRow(126).getCell(0).getNumericCellValue(), 0);
+                assertEquals("after", sheet2.getRow(191).getCell(0).getStringCellValue());
+            } finally {
+                wb2.close();
+            }
+        } finally {
+            assertTrue(wb.dispose());
+            wb.close();
+        }
+    }
+}
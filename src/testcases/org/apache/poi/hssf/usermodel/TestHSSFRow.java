@@ -20,6 +20,7 @@ package org.apache.poi.hssf.usermodel;
 import java.io.IOException;
 
 import org.apache.poi.hssf.HSSFITestDataProvider;
+import org.apache.poi.hssf.HSSFTestDataSamples;
 import org.apache.poi.hssf.record.BlankRecord;
 import org.apache.poi.hssf.record.RowRecord;
 import org.apache.poi.ss.SpreadsheetVersion;
@@ -79,6 +80,36 @@ public final class TestHSSFRow extends BaseTestRow {
         workbook.close();
     }
 
+    @Test
+    public void columnRangeOfReadRowsIsKept() throws IOException {
+        HSSFWorkbook workbook = new HSSFWorkbook();
+        HSSFSheet sheet = workbook.createSheet("Sheet1");
+        for (int r = 0; r < 3; r++) {
+            HSSFRow row = sheet.createRow(r);
+            row.createCell(1).setCellValue(r);
+            row.createCell(2).setCellValue("x");
+            // wider than the cells, as written by some tools
+            row.getRowRecord().setLastCol(10);
+        }
+
+        HSSFWorkbook wb2 = HSSFTestDataSamples.writeOutAndReadBack(workbook);
+        workbook.close();
+        HSSFSheet sheet2 = wb2.getSheetAt(0);
+        assertEquals(1, sheet2.getRow(1).getCell(1).getNumericCellValue(), 0);
+        sheet2.getRow(2).createCell(12);
+
+        HSSFWorkbook wb3 = HSSFTestDataSamples.writeOutAndReadBack(wb2);
+        wb2.close();
+        // untouched and only read rows keep the range from the file
+        assertEquals(10, wb3.getSheetAt(0).getSheet().getRow(0).getLastCol());
+        assertEquals(10, wb3.getSheetAt(0).getSheet().getRow(1).getLastCol());
+        assertEquals(13, wb3.getSheetAt(0).getSheet().getRow(2).getLastCol());
+        // the cell range is reported
+        assertEquals(1, wb3.getSheetAt(0).getRow(0).getFirstCellNum());
+        assertEquals(3, wb3.getSheetAt(0).getRow(0).getLastCellNum());
+        wb3.close();
+    }
+
     @Test
     public void testMoveCell() throws IOException {
         HSSFWorkbook workbook = new HSSFWorkbook();
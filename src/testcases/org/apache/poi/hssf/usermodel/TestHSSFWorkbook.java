@@ -18,6 +18,7 @@
 package org.apache.poi.hssf.usermodel;
 
 import static org.apache.poi.POITestCase.assertContains;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -36,6 +37,10 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.AssertionFailedError;
 
@@ -53,6 +58,7 @@ import org.apache.poi.hssf.record.NameRecord;
 import org.apache.poi.hssf.record.Record;
 import org.apache.poi.hssf.record.RecordBase;
 import org.apache.poi.hssf.record.WindowOneRecord;
+import org.apache.poi.hssf.record.crypto.Biff8EncryptionKey;
 import org.apache.poi.poifs.filesystem.DirectoryEntry;
 import org.apache.poi.poifs.filesystem.DirectoryNode;
 import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
@@ -1317,6 +1323,96 @@ public final class TestHSSFWorkbook extends BaseTestWorkbook {
         wb.close();
     }
     
+    @Test
+    public void testWriteStreamsWorkbookRecords() throws Exception {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        for (int s = 0; s < 3; s++) {
+            HSSFSheet sheet = wb.createSheet("Sheet" + s);
+            for (int r = 0; r < 2000; r++) {
+                HSSFRow row = sheet.createRow(r);
+                row.createCell(0).setCellValue(r * 0.5);
+                // enough strings for a continued SST record
+                row.createCell(1).setCellValue("string " + s + "-" + r);
+            }
+        }
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        wb.write(bos);
+        byte[] expected = wb.getBytes();
+        wb.close();
+
+        NPOIFSFileSystem fs = new NPOIFSFileSystem(new ByteArrayInputStream(bos.toByteArray()));
+        InputStream is = fs.createDocumentInputStream("Workbook");
+        byte[] actual = IOUtils.toByteArray(is);
+        is.close();
+        assertArrayEquals(expected, actual);
+
+        wb = new HSSFWorkbook(fs);
+        assertEquals(3, wb.getNumberOfSheets());
+        assertEquals("string 2-1999", wb.getSheetAt(2).getRow(1999).getCell(1).getStringCellValue());
+        wb.close();
+        fs.close();
+    }
+
+    @Test
+    public void testWriteStreamsEncryptedWorkbookRecords() throws Exception {
+        Biff8EncryptionKey.setCurrentUserPassword("abc");
+        try {
+            HSSFWorkbook wb = HSSFTestDataSamples.openSampleWorkbook("xor-encryption-abc.xls");
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            wb.write(bos);
+            byte[] expected = wb.getBytes();
+            wb.close();
+
+            NPOIFSFileSystem fs = new NPOIFSFileSystem(new ByteArrayInputStream(bos.toByteArray()));
+            InputStream is = fs.createDocumentInputStream("Workbook");
+            byte[] actual = IOUtils.toByteArray(is);
+            is.close();
+            assertArrayEquals(expected, actual);
+
+            wb = new HSSFWorkbook(fs);
+            assertEquals(1, wb.getSheetAt(0).getRow(0).getCell(0).getNumericCellValue(), 0);
+            wb.close();
+            fs.close();
+        } finally {
+            Biff8EncryptionKey.setCurrentUserPassword(null);
+        }
+    }
+
+    @Test
+    public void testReadSheetsConcurrently() throws Exception {
+        final ExecutorService pool = Executors.newFixedThreadPool(3);
+        final AtomicInteger tasks = new AtomicInteger();
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.incrementAndGet();
+                pool.execute(command);
+            }
+        };
+        try {
+            String[] files = { "SampleSS.xls", "WithThreeCharts.xls", "TwoSheetsOneHidden.xls", "SimpleMacro.xls", "xor-encryption-abc.xls" };
+            int[] expectedTasks = { 3, 3, 2, 3, 0 };
+            for (int i = 0; i < files.length; i++) {
+                tasks.set(0);
+                Biff8EncryptionKey.setCurrentUserPassword(expectedTasks[i] == 0 ? "abc" : null);
+                NPOIFSFileSystem fs = new NPOIFSFileSystem(HSSFTestDataSamples.openSampleFileStream(files[i]));
+                HSSFWorkbook expected = new HSSFWorkbook(fs.getRoot(), true);
+                HSSFWorkbook actual = new HSSFWorkbook(fs.getRoot(), true, executor);
+                // encrypted workbooks are read sequentially
+                assertEquals(files[i], expectedTasks[i], tasks.get());
+                assertEquals(files[i], expected.getNumberOfSheets(), actual.getNumberOfSheets());
+                assertArrayEquals(files[i], expected.getBytes(), actual.getBytes());
+                actual.close();
+                expected.close();
+                fs.close();
+            }
+        } finally {
+            Biff8EncryptionKey.setCurrentUserPassword(null);
+            pool.shutdown();
+        }
+    }
+
     @Ignore
     @Test
     @Override
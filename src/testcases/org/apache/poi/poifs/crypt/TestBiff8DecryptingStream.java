@@ -243,6 +243,47 @@ public final class TestBiff8DecryptingStream {
 		st.assertNoErrors();
 	}
 
+	/**
+	 * Tests that the data of a record, which is decrypted in one go when the record size
+	 * is read, gives the same values as reading the fields one by one from the stream
+	 */
+    @Test
+	public void readsBufferedRecord() {
+		StreamTester st1 = createStreamTester(0x50, "BA AD F0 0D 00", 0x96C66829);
+		StreamTester st2 = createStreamTester(0x50, "BA AD F0 0D 00", 0x96C66829);
+		st1.rollForward(0x0004, 0x03C0);
+		st2.rollForward(0x0004, 0x03C0);
+
+		// the record spans a key changing boundary
+		Biff8DecryptingStream bds1 = st1.getBDS();
+		assertEquals(0x1110, bds1.readRecordSID());
+		assertEquals(0x1312, bds1.readDataSize());
+		assertEquals(0x03C4, bds1.getPosition());
+
+		Biff8DecryptingStream bds2 = st2.getBDS();
+		byte[] header = new byte[4];
+		bds2.readPlain(header, 0, header.length);
+		assertEquals(0x03C4, bds2.getPosition());
+
+		byte[] plain1 = new byte[4];
+		bds1.readPlain(plain1, 0, plain1.length);
+		byte[] plain2 = new byte[4];
+		bds2.readPlain(plain2, 0, plain2.length);
+		assertEquals(HexDump.toHex(plain2), HexDump.toHex(plain1));
+
+		assertEquals(bds2.readLong(), bds1.readLong());
+		assertEquals(bds2.readInt(), bds1.readInt());
+		assertEquals(bds2.readShort(), bds1.readShort());
+		assertEquals(bds2.readByte(), bds1.readByte());
+		byte[] data1 = new byte[80];
+		bds1.readFully(data1);
+		byte[] data2 = new byte[80];
+		bds2.readFully(data2);
+		assertEquals(HexDump.toHex(data2), HexDump.toHex(data1));
+		assertEquals(bds2.getPosition(), bds1.getPosition());
+		assertEquals(0x0427, bds1.getPosition());
+	}
+
 	private static StreamTester createStreamTester(int mockStreamStartVal, String keyDigestHex, int expectedFirstInt) {
 		return new StreamTester(new MockStream(mockStreamStartVal), keyDigestHex, expectedFirstInt);
 	}
@@ -17,7 +17,9 @@
 
 package org.apache.poi.ss.formula;
 
+import org.apache.poi.ss.formula.eval.forked.TestForkedEvaluationTemplate;
 import org.apache.poi.ss.formula.eval.forked.TestForkedEvaluator;
+import org.apache.poi.ss.formula.eval.forked.TestScenarioEvaluator;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
@@ -29,7 +31,16 @@ import org.junit.runners.Suite;
     TestCellCacheEntry.class,
     TestEvaluationCache.class,
     TestWorkbookEvaluator.class,
-    TestForkedEvaluator.class
+    TestForkedEvaluator.class,
+    TestForkedEvaluationTemplate.class,
+    TestScenarioEvaluator.class,
+    TestFormulaCellGroups.class,
+    TestDependencyGraph.class,
+    TestCompiledFormula.class,
+    TestExactLookupIndex.class,
+    TestColumnarValues.class,
+    TestSparseAreaEval.class,
+    TestFormulaParseCache.class
 })
 public class AllSSFormulaTests {
 }
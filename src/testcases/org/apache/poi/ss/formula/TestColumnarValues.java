@@ -0,0 +1,155 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+
+import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.formula.eval.BlankEval;
+import org.apache.poi.ss.formula.eval.BoolEval;
+import org.apache.poi.ss.formula.eval.ErrorEval;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.StringEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.Test;
+
+/**
+ * Tests the criteria functions with the columnar copies of large areas
+ */
+public final class TestColumnarValues {
+
+    private static final int ROWS = 200;
+
+    /** the small slices are evaluated cell by cell */
+    private static final int SLICE = 10;
+
+    private static final String[] CRITERIA = {
+        "5", "\"5\"", "\">5\"", "\"<>5\"", "\"=5\"", "\"<=3\"", "\"abc\"", "\"A*\"", "\"<>abc\"",
+        "\"\"", "\"=\"", "\"<>\"", "TRUE", "\"FALSE\"", "\"<>TRUE\"", "\"#DIV/0!\"", "\">=b\"",
+    };
+
+    @Test
+    public void values() {
+        ValueEval[] values = {
+            new NumberEval(1.5), new StringEval("a"), BlankEval.instance,
+            BoolEval.TRUE, ErrorEval.DIV_ZERO, BoolEval.FALSE,
+        };
+        ColumnarValues cv = new ColumnarValues(3, values);
+        assertEquals(3, cv.getWidth());
+        assertEquals(2, cv.getHeight());
+        assertEquals(6, cv.getSize());
+        assertEquals(ColumnarValues.TYPE_NUMBER, cv.getType(0));
+        assertEquals(1.5, cv.getNumber(0), 0);
+        assertEquals(ColumnarValues.TYPE_STRING, cv.getType(1));
+        assertEquals("a", cv.getString(1));
+        assertEquals(ColumnarValues.TYPE_BLANK, cv.getType(2));
+        assertNull(cv.getString(2));
+        assertEquals(ColumnarValues.TYPE_BOOLEAN, cv.getType(3));
+        assertEquals(true, cv.getBoolean(3));
+        assertEquals(ColumnarValues.TYPE_ERROR, cv.getType(4));
+        assertEquals(ErrorEval.DIV_ZERO.getErrorCode(), cv.getErrorCode(4));
+        assertEquals(false, cv.getBoolean(5));
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i].toString(), cv.getValue(i).toString());
+        }
+    }
+
+    @Test
+    public void criteriaLikeCellByCell() throws IOException {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        try {
+            Sheet sheet = createData(wb);
+            HSSFFormulaEvaluator fe = wb.getCreationHelper().createFormulaEvaluator();
+            Row row = sheet.createRow(ROWS + 1);
+            for (String criteria : CRITERIA) {
+                assertCriteria(fe, row, criteria);
+            }
+
+            // the cached values are updated
+            Cell cell = sheet.getRow(17).getCell(0);
+            cell.setCellValue(5);
+            fe.notifyUpdateCell(cell);
+            cell = sheet.getRow(24).getCell(2);
+            cell.setCellValue("x");
+            fe.notifyUpdateCell(cell);
+            for (String criteria : CRITERIA) {
+                assertCriteria(fe, row, criteria);
+            }
+        } finally {
+            wb.close();
+        }
+    }
+
+    private static Sheet createData(HSSFWorkbook wb) {
+        Sheet sheet = wb.createSheet("Sheet1");
+        for (int r = 0; r < ROWS; r++) {
+            Row row = sheet.createRow(r);
+            Cell a = row.createCell(0);
+            switch (r % 12) {
+                case 0: a.setCellValue(r % 7); break;
+                case 1: a.setCellValue("abc"); break;
+                case 2: a.setCellValue("ABC"); break;
+                case 3: a.setCellValue("5"); break;
+                case 4: a.setCellValue(true); break;
+                case 5: a.setCellFormula("1/0"); break;
+                case 6: a.setCellFormula("\"\""); break;
+                case 7: a.setCellValue("Axe"); break;
+                case 8: a.setCellValue(false); break;
+                case 9: row.removeCell(a); break;
+                case 10: a.setCellValue(5); break;
+                default: a.setCellFormula("B" + (r + 1) + "/10"); break;
+            }
+            row.createCell(1).setCellValue(r);
+            row.createCell(2).setCellValue(r % 3 == 0 ? "y" : "x" + r);
+        }
+        return sheet;
+    }
+
+    private static void assertCriteria(HSSFFormulaEvaluator fe, Row row, String criteria) {
+        String[] formulas = {
+            "SUMIF(A%1$d:A%2$d," + criteria + ",B%1$d:B%2$d)",
+            "COUNTIF(A%1$d:A%2$d," + criteria + ")",
+            "SUMIFS(B%1$d:B%2$d,A%1$d:A%2$d," + criteria + ",C%1$d:C%2$d,\"x*\")",
+            "COUNTIFS(A%1$d:A%2$d," + criteria + ",C%1$d:C%2$d,\"<>y\")",
+        };
+        for (int i = 0; i < formulas.length; i++) {
+            Cell whole = row.createCell(i * 2);
+            whole.setCellFormula(String.format(formulas[i], 1, ROWS));
+            StringBuilder slices = new StringBuilder();
+            for (int r = 1; r <= ROWS; r += SLICE) {
+                if (r > 1) {
+                    slices.append('+');
+                }
+                slices.append(String.format(formulas[i], r, r + SLICE - 1));
+            }
+            Cell sliced = row.createCell(i * 2 + 1);
+            sliced.setCellFormula(slices.toString());
+            fe.notifyUpdateCell(whole);
+            fe.notifyUpdateCell(sliced);
+            assertEquals(whole.getCellFormula(), fe.evaluate(sliced).getNumberValue(),
+                    fe.evaluate(whole).getNumberValue(), 0);
+        }
+    }
+}
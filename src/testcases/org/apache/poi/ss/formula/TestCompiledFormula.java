@@ -0,0 +1,174 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.apache.poi.hssf.model.HSSFFormulaParser;
+import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.ptg.AttrPtg;
+import org.apache.poi.ss.formula.ptg.FuncVarPtg;
+import org.apache.poi.ss.formula.ptg.IntPtg;
+import org.apache.poi.ss.formula.ptg.MultiplyPtg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.ptg.RefPtg;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.util.LittleEndianByteArrayInputStream;
+import org.apache.poi.util.LittleEndianByteArrayOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that {@link CompiledFormula} evaluates like the interpreter of {@link WorkbookEvaluator}
+ */
+public final class TestCompiledFormula {
+    private HSSFWorkbook _wb;
+    private HSSFFormulaEvaluator _evaluator;
+
+    @Before
+    public void setUp() {
+        _wb = new HSSFWorkbook();
+        HSSFRow row = _wb.createSheet("Sheet1").createRow(0);
+        row.createCell(0).setCellValue(1);
+        row.createCell(1).setCellValue(2);
+        row.createCell(2).setCellValue("x");
+        row.createCell(3).setCellValue(true);
+        row.createCell(4).setCellErrorValue(FormulaError.DIV0.getCode());
+        Name total = _wb.createName();
+        total.setNameName("Total");
+        total.setRefersToFormula("SUM(Sheet1!$A$1:$B$1)");
+        _evaluator = _wb.getCreationHelper().createFormulaEvaluator();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        _wb.close();
+    }
+
+    @Test
+    public void compiledLikeInterpreted() {
+        String[] formulas = {
+            "IF(A1>0,B1,C1)", "IF(A1<0,B1)", "IF(A1<0,B1,)", "IF(E1,1,2)", "IF(C1,1,2)",
+            "IF(A1,IF(B1>1,\"b\",\"c\"),0)&\"!\"", "IF(A1,,)", "IF(A1<0,,B1)",
+            "1+2*3", "\"a\"&\"b\"&C1", "-A1%", "1/0", "(1+2)^2",
+            "SUM(A1:B1)*2", "AVERAGE(A1:B1,5)", "COUNTIF(A1:D1,\">0\")", "ISERROR(E1)", "NA()",
+            "INDIRECT(\"B1\")", "Total*2", "ROW()+COLUMN()", "Sheet1!A1+Sheet1!B1",
+        };
+        for (String formula : formulas) {
+            assertCompiledLikeInterpreted(formula, HSSFFormulaParser.parse(formula, _wb));
+        }
+    }
+
+    @Test
+    public void optimizedChoose() {
+        assertCompiledLikeInterpreted("CHOOSE(A1*2,10,20,30)", createChoose("A1", 2));
+        assertCompiledLikeInterpreted("CHOOSE(A1*3,10,20,30)", createChoose("A1", 3));
+        assertCompiledLikeInterpreted("CHOOSE(A1*5,10,20,30)", createChoose("A1", 5));
+        assertCompiledLikeInterpreted("CHOOSE(A1*0,10,20,30)", createChoose("A1", 0));
+        assertCompiledLikeInterpreted("CHOOSE(C1*1,10,20,30)", createChoose("C1", 1));
+    }
+
+    @Test
+    public void invalidTokensAreInterpreted() {
+        Ptg[] ptgs = { new IntPtg(1), new IntPtg(2) };
+        CompiledFormula compiled = CompiledFormula.compile(getWorkbookEvaluator(), ptgs, createContext());
+        assertFalse(compiled.isCompiled());
+        try {
+            compiled.evaluate(createContext());
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("evaluation stack not empty", e.getMessage());
+        }
+    }
+
+    @Test
+    public void changedFormulas() {
+        Cell cell = _wb.getSheetAt(0).getRow(0).createCell(5);
+        cell.setCellFormula("A1+B1");
+        assertEquals(3, _evaluator.evaluate(cell).getNumberValue(), 0);
+        cell.setCellFormula("A1*10");
+        _evaluator.notifySetFormula(cell);
+        assertEquals(10, _evaluator.evaluate(cell).getNumberValue(), 0);
+        // the compiled formula is kept for changed inputs
+        _wb.getSheetAt(0).getRow(0).getCell(0).setCellValue(4);
+        _evaluator.notifyUpdateCell(_wb.getSheetAt(0).getRow(0).getCell(0));
+        assertEquals(40, _evaluator.evaluate(cell).getNumberValue(), 0);
+    }
+
+    /**
+     * @return the tokens of <tt>CHOOSE(ref*factor,10,20,30)</tt> with <tt>tAttrChoose</tt>, like Excel writes them
+     */
+    private static Ptg[] createChoose(String ref, int factor) {
+        int nChoices = 3;
+        int tableSize = nChoices * 2 + 2;
+        // each choice is an IntPtg (3 bytes) and a tAttrSkip (4 bytes)
+        int choiceSize = 7;
+        byte[] data = new byte[3 + tableSize];
+        LittleEndianByteArrayOutputStream out = new LittleEndianByteArrayOutputStream(data, 0);
+        out.writeByte(0x04);
+        out.writeShort(nChoices);
+        for (int k = 0; k < nChoices; k++) {
+            out.writeShort(tableSize + k * choiceSize);
+        }
+        out.writeShort(tableSize + nChoices * choiceSize);
+
+        Ptg[] ptgs = new Ptg[4 + nChoices * 2 + 1];
+        int i = 0;
+        ptgs[i++] = new RefPtg(ref);
+        ptgs[i++] = new IntPtg(factor);
+        ptgs[i++] = MultiplyPtg.instance;
+        ptgs[i++] = new AttrPtg(new LittleEndianByteArrayInputStream(data));
+        for (int k = 0; k < nChoices; k++) {
+            ptgs[i++] = new IntPtg((k + 1) * 10);
+            // to the end of the CHOOSE function
+            ptgs[i++] = AttrPtg.createSkip((nChoices - 1 - k) * choiceSize + 3);
+        }
+        ptgs[i++] = FuncVarPtg.create("CHOOSE", nChoices + 1);
+        return ptgs;
+    }
+
+    private void assertCompiledLikeInterpreted(String formula, Ptg[] ptgs) {
+        CompiledFormula compiled = CompiledFormula.compile(getWorkbookEvaluator(), ptgs, createContext());
+        assertTrue(formula, compiled.isCompiled());
+        ValueEval expected = getWorkbookEvaluator().evaluateFormula(createContext(), ptgs);
+        ValueEval actual = compiled.evaluate(createContext());
+        assertEquals(formula, expected.getClass(), actual.getClass());
+        assertEquals(formula, expected.toString(), actual.toString());
+    }
+
+    private WorkbookEvaluator getWorkbookEvaluator() {
+        return _evaluator._getWorkbookEvaluator();
+    }
+
+    private OperationEvaluationContext createContext() {
+        WorkbookEvaluator evaluator = getWorkbookEvaluator();
+        return new OperationEvaluationContext(evaluator, evaluator.getWorkbook(), 0, 2, 3,
+                new EvaluationTracker(new EvaluationCache(null)));
+    }
+}
@@ -0,0 +1,195 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.Test;
+
+/**
+ * Tests the dependents found by {@link DependencyGraph}
+ */
+public final class TestDependencyGraph {
+
+    @Test
+    public void dependentsInTopologicalOrder() throws IOException {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        try {
+            HSSFSheet sheet = wb.createSheet("Data");
+            Sheet other = wb.createSheet("Other");
+            Name total = wb.createName();
+            total.setNameName("Total");
+            total.setRefersToFormula("SUM(Data!$A$1:$A$3)");
+            Row row = sheet.createRow(0);
+            row.createCell(0).setCellValue(1);
+            row.createCell(1).setCellValue(2);
+            // C1 is listed before its precedent D1
+            row.createCell(2).setCellFormula("D1+1");
+            row.createCell(3).setCellFormula("A1*2");
+            row.createCell(4).setCellFormula("SUM(A1:A10)");
+            row.createCell(5).setCellFormula("B1*3");
+            other.createRow(0).createCell(0).setCellFormula("Data!C1");
+            other.getRow(0).createCell(1).setCellFormula("Total");
+
+            HSSFFormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+            evaluator.evaluateAll();
+
+            Cell a1 = row.getCell(0);
+            List<Cell> dependents = evaluator.getDependents(Collections.singleton(a1));
+            assertEquals(5, dependents.size());
+            List<String> names = toNames(dependents);
+            assertTrue(names.containsAll(Arrays.asList("Data!C1", "Data!D1", "Data!E1", "Other!A1", "Other!B1")));
+            // each cell after its precedents
+            assertTrue(names.indexOf("Data!D1") < names.indexOf("Data!C1"));
+            assertTrue(names.indexOf("Data!C1") < names.indexOf("Other!A1"));
+            assertEquals("Data!F1", toString(evaluator.getDependents(Collections.singleton(row.getCell(1)))));
+            assertEquals("Data!E1", toString(evaluator.getDependents(Collections.singleton(sheet.createRow(9).createCell(0)))));
+            assertEquals("", toString(evaluator.getDependents(Collections.singleton(sheet.getRow(9).createCell(1)))));
+
+            a1.setCellValue(10);
+            List<Cell> recalculated = evaluator.recalculateDependents(Collections.singleton(a1));
+            assertEquals(5, recalculated.size());
+            assertEquals(21, row.getCell(2).getNumericCellValue(), 0);
+            assertEquals(21, other.getRow(0).getCell(0).getNumericCellValue(), 0);
+            assertEquals(10, other.getRow(0).getCell(1).getNumericCellValue(), 0);
+            assertEquals(6, row.getCell(5).getNumericCellValue(), 0);
+        } finally {
+            wb.close();
+        }
+    }
+
+    @Test
+    public void changedFormulas() throws IOException {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        try {
+            Sheet sheet = wb.createSheet("Data");
+            Row row = sheet.createRow(0);
+            row.createCell(0).setCellValue(1);
+            row.createCell(1).setCellValue(2);
+            Cell c1 = row.createCell(2);
+            c1.setCellFormula("A1+1");
+            row.createCell(3).setCellFormula("C1*2");
+
+            HSSFFormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+            assertEquals("Data!C1 Data!D1", toString(evaluator.getDependents(Collections.singleton(row.getCell(0)))));
+
+            c1.setCellFormula("B1+1");
+            assertEquals("Data!C1 Data!D1", toString(evaluator.recalculateDependents(Collections.singleton(c1))));
+            assertEquals(6, row.getCell(3).getNumericCellValue(), 0);
+            assertEquals("", toString(evaluator.getDependents(Collections.singleton(row.getCell(0)))));
+            assertEquals("Data!C1 Data!D1", toString(evaluator.getDependents(Collections.singleton(row.getCell(1)))));
+
+            row.removeCell(c1);
+            evaluator.notifyDeleteCell(c1);
+            assertEquals("", toString(evaluator.getDependents(Collections.singleton(row.getCell(1)))));
+        } finally {
+            wb.close();
+        }
+    }
+
+    @Test
+    public void dynamicReferences() throws IOException {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        try {
+            Sheet sheet = wb.createSheet("Data");
+            Row row = sheet.createRow(0);
+            row.createCell(0).setCellValue(1);
+            row.createCell(1).setCellFormula("INDIRECT(\"A1\")");
+            row.createCell(2).setCellFormula("B1+1");
+            row.createCell(3).setCellValue(5);
+
+            HSSFFormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+            evaluator.evaluateAll();
+            row.getCell(0).setCellValue(7);
+            assertEquals("Data!B1 Data!C1", toString(evaluator.recalculateDependents(Collections.singleton(row.getCell(0)))));
+            assertEquals(8, row.getCell(2).getNumericCellValue(), 0);
+            assertEquals("Data!B1 Data!C1", toString(evaluator.getDependents(Collections.singleton(row.getCell(3)))));
+        } finally {
+            wb.close();
+        }
+    }
+
+    @Test
+    public void addInVolatileFunctions() throws IOException {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        try {
+            Sheet sheet = wb.createSheet("Data");
+            Row row = sheet.createRow(0);
+            row.createCell(0).setCellValue(1);
+            // an Analysis ToolPak function, called through an external name
+            row.createCell(1).setCellFormula("RANDBETWEEN(1,6)");
+            row.createCell(2).setCellFormula("B1*2");
+            row.createCell(3).setCellFormula("EOMONTH(40000,1)");
+
+            HSSFFormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+            assertEquals("Data!B1 Data!C1", toString(evaluator.getDependents(Collections.singleton(row.getCell(0)))));
+        } finally {
+            wb.close();
+        }
+    }
+
+    @Test
+    public void circularReferences() throws IOException {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        try {
+            Row row = wb.createSheet("Data").createRow(0);
+            row.createCell(0).setCellValue(1);
+            row.createCell(1).setCellFormula("A1+C1");
+            row.createCell(2).setCellFormula("B1");
+
+            HSSFFormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+            List<Cell> dependents = evaluator.getDependents(Collections.singleton(row.getCell(0)));
+            assertEquals(2, dependents.size());
+        } finally {
+            wb.close();
+        }
+    }
+
+    private static List<String> toNames(List<Cell> cells) {
+        List<String> names = new ArrayList<String>();
+        for (Cell cell : cells) {
+            names.add(cell.getSheet().getSheetName() + "!" + cell.getAddress());
+        }
+        return names;
+    }
+
+    private static String toString(List<Cell> cells) {
+        StringBuilder sb = new StringBuilder();
+        for (String name : toNames(cells)) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(name);
+        }
+        return sb.toString();
+    }
+}
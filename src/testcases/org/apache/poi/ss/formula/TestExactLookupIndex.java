@@ -0,0 +1,165 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.formula.eval.BlankEval;
+import org.apache.poi.ss.formula.eval.BoolEval;
+import org.apache.poi.ss.formula.eval.ErrorEval;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.StringEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.Test;
+
+/**
+ * Tests the hash indexes used by the exact lookups of VLOOKUP, HLOOKUP and MATCH
+ */
+public final class TestExactLookupIndex {
+
+    @Test
+    public void indexOf() {
+        ValueEval[] values = {
+            new StringEval("abc"), new NumberEval(2), BlankEval.instance, BoolEval.TRUE,
+            new StringEval("ABC"), new NumberEval(0), new StringEval("Stra\u00dfe"), ErrorEval.NA,
+            new StringEval("2"), new NumberEval(-0.0),
+        };
+        ExactLookupIndex index = new ExactLookupIndex(new ColumnarValues(1, values));
+        // first match, case-insensitive
+        assertEquals(0, index.indexOf(new StringEval("aBc")));
+        assertEquals(6, index.indexOf(new StringEval("STRA\u00dfE")));
+        // types are not converted
+        assertEquals(1, index.indexOf(new NumberEval(2)));
+        assertEquals(8, index.indexOf(new StringEval("2")));
+        assertEquals(3, index.indexOf(BoolEval.TRUE));
+        assertEquals(-1, index.indexOf(BoolEval.FALSE));
+        assertEquals(-1, index.indexOf(new NumberEval(1)));
+        // blank looks up zero, but blank cells are never matched
+        assertEquals(5, index.indexOf(BlankEval.instance));
+        assertEquals(9, index.indexOf(new NumberEval(-0.0)));
+        assertEquals(-1, index.indexOf(ErrorEval.NA));
+    }
+
+    @Test
+    public void lookupsLikeScans() throws IOException {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        try {
+            Sheet table = wb.createSheet("Table");
+            for (int r = 0; r < 100; r++) {
+                Row row = table.createRow(r);
+                if (r % 10 == 5) {
+                    // duplicates of the previous keys
+                    row.createCell(0).setCellValue("key" + (r - 1));
+                } else if (r % 10 == 7) {
+                    row.createCell(0).setCellValue(r);
+                } else if (r % 10 != 9) {
+                    row.createCell(0).setCellValue("Key" + r);
+                }
+                row.createCell(1).setCellValue(r * 10);
+            }
+            Sheet sheet = wb.createSheet("Lookups");
+            Row row = sheet.createRow(0);
+            row.createCell(0).setCellFormula("VLOOKUP(\"KEY24\",Table!A1:B100,2,FALSE)");
+            row.createCell(1).setCellFormula("VLOOKUP(57,Table!A1:B100,2,FALSE)");
+            row.createCell(2).setCellFormula("VLOOKUP(\"57\",Table!A1:B100,2,FALSE)");
+            row.createCell(3).setCellFormula("VLOOKUP(\"key3*\",Table!A1:B100,2,FALSE)");
+            row.createCell(4).setCellFormula("MATCH(\"key64\",Table!A1:A100,0)");
+            row.createCell(5).setCellFormula("MATCH(\"Key9?\",Table!A:A,0)");
+            row.createCell(6).setCellFormula("ISNA(VLOOKUP(\"key9\",Table!A1:B100,2,FALSE))");
+            row.createCell(7).setCellFormula("HLOOKUP(\"K20\",A3:T4,2,FALSE)");
+            Row keys = sheet.createRow(2);
+            Row values = sheet.createRow(3);
+            for (int c = 0; c < 20; c++) {
+                keys.createCell(c).setCellValue("k" + c * 10);
+                values.createCell(c).setCellValue(c);
+            }
+
+            HSSFFormulaEvaluator fe = wb.getCreationHelper().createFormulaEvaluator();
+            assertEquals(240, fe.evaluate(row.getCell(0)).getNumberValue(), 0);
+            assertEquals(570, fe.evaluate(row.getCell(1)).getNumberValue(), 0);
+            assertEquals(ErrorEval.NA.getErrorCode(), fe.evaluate(row.getCell(2)).getErrorValue());
+            assertEquals(30, fe.evaluate(row.getCell(3)).getNumberValue(), 0);
+            assertEquals(65, fe.evaluate(row.getCell(4)).getNumberValue(), 0);
+            assertEquals(91, fe.evaluate(row.getCell(5)).getNumberValue(), 0);
+            assertEquals(true, fe.evaluate(row.getCell(6)).getBooleanValue());
+            assertEquals(2, fe.evaluate(row.getCell(7)).getNumberValue(), 0);
+        } finally {
+            wb.close();
+        }
+    }
+
+    @Test
+    public void changedCells() throws IOException {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        try {
+            Sheet sheet = wb.createSheet("Sheet1");
+            for (int r = 0; r < 50; r++) {
+                Row row = sheet.createRow(r);
+                if (r != 30) {
+                    row.createCell(0).setCellValue(r);
+                }
+                row.createCell(1).setCellFormula("A" + (r + 1) + "*2");
+            }
+            Row row = sheet.getRow(0);
+            Cell lookup20 = row.createCell(3);
+            lookup20.setCellFormula("VLOOKUP(20,A1:B50,2,FALSE)");
+            Cell lookup40 = row.createCell(4);
+            lookup40.setCellFormula("MATCH(40,B1:B50,0)");
+            Cell lookup99 = row.createCell(5);
+            lookup99.setCellFormula("ISNA(MATCH(99,A1:A50,0))");
+
+            HSSFFormulaEvaluator fe = wb.getCreationHelper().createFormulaEvaluator();
+            assertEquals(40, fe.evaluate(lookup20).getNumberValue(), 0);
+            assertEquals(21, fe.evaluate(lookup40).getNumberValue(), 0);
+            assertEquals(true, fe.evaluate(lookup99).getBooleanValue());
+
+            // an earlier match
+            Cell cell = sheet.getRow(3).getCell(0);
+            cell.setCellValue(20);
+            fe.notifyUpdateCell(cell);
+            assertEquals(40, fe.evaluate(lookup20).getNumberValue(), 0);
+            // via the formulas of column B
+            assertEquals(4, fe.evaluate(lookup40).getNumberValue(), 0);
+
+            // a blank cell gets a value
+            cell = sheet.getRow(30).createCell(0);
+            cell.setCellValue(99);
+            fe.notifyUpdateCell(cell);
+            assertEquals(false, fe.evaluate(lookup99).getBooleanValue());
+
+            // the match is removed
+            cell = sheet.getRow(20).getCell(0);
+            cell.setCellValue(-1);
+            fe.notifyUpdateCell(cell);
+            assertEquals(40, fe.evaluate(lookup20).getNumberValue(), 0);
+            cell = sheet.getRow(3).getCell(0);
+            cell.setCellValue(3);
+            fe.notifyUpdateCell(cell);
+            assertEquals(ErrorEval.NA.getErrorCode(), fe.evaluate(lookup20).getErrorValue());
+        } finally {
+            wb.close();
+        }
+    }
+}
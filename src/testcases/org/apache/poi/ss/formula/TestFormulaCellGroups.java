@@ -0,0 +1,187 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.poi.hssf.HSSFTestDataSamples;
+import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.formula.eval.NotImplementedException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.Test;
+
+/**
+ * Tests the concurrent evaluation of all formula cells
+ */
+public final class TestFormulaCellGroups {
+
+    @Test
+    public void groupsOfReferencingSheets() throws IOException {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        try {
+            for (String name : new String[] { "A", "B", "C", "D", "E", "F", "G" }) {
+                wb.createSheet(name).createRow(0);
+            }
+            Name total = wb.createName();
+            total.setNameName("Total");
+            total.setRefersToFormula("SUM(D!A1:A2)");
+            wb.getSheet("A").getRow(0).createCell(0).setCellFormula("B!A1*2");
+            wb.getSheet("B").getRow(0).createCell(0).setCellFormula("1+1");
+            wb.getSheet("C").getRow(0).createCell(0).setCellFormula("Total");
+            wb.getSheet("D").getRow(0).createCell(0).setCellFormula("5");
+            wb.getSheet("E").getRow(0).createCell(0).setCellValue(1);
+            wb.getSheet("F").getRow(0).createCell(0).setCellFormula("SUM(D:E!A1)");
+            wb.getSheet("G").getRow(0).createCell(0).setCellFormula("A1+1");
+
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                FormulaCellGroups groups = new FormulaCellGroups(wb);
+                groups.findGroups(executor);
+                List<List<Cell>> cells = groups.getGroups();
+                // A+B, C+D+F (E has no formulas), G
+                assertEquals(3, cells.size());
+                assertEquals(3, cells.get(0).size());
+                assertEquals(2, cells.get(1).size());
+                assertEquals(1, cells.get(2).size());
+                assertEquals("C", cells.get(0).get(0).getSheet().getSheetName());
+                assertEquals("A", cells.get(1).get(0).getSheet().getSheetName());
+                assertEquals("G", cells.get(2).get(0).getSheet().getSheetName());
+            } finally {
+                executor.shutdown();
+            }
+        } finally {
+            wb.close();
+        }
+    }
+
+    @Test
+    public void runtimeReferencesGroupAllSheets() throws IOException {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        try {
+            for (String name : new String[] { "A", "B", "C" }) {
+                wb.createSheet(name).createRow(0).createCell(0).setCellFormula("1+1");
+            }
+            Name other = wb.createName();
+            other.setNameName("Other");
+            other.setRefersToFormula("INDIRECT(\"B!A1\")");
+            wb.getSheet("C").getRow(0).createCell(1).setCellFormula("Other*2");
+
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                FormulaCellGroups groups = new FormulaCellGroups(wb);
+                groups.findGroups(executor);
+                // the referenced sheet is only known at evaluation time
+                assertEquals(1, groups.getGroups().size());
+
+                BaseFormulaEvaluator.evaluateAllFormulaCells(wb, executor);
+                assertEquals(4, wb.getSheet("C").getRow(0).getCell(1).getNumericCellValue(), 0);
+            } finally {
+                executor.shutdown();
+            }
+        } finally {
+            wb.close();
+        }
+    }
+
+    @Test
+    public void sameResultsAsSerialEvaluation() throws IOException {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        for (int s = 0; s < 6; s++) {
+            Sheet sheet = wb.createSheet("S" + s);
+            for (int r = 0; r < 200; r++) {
+                Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue(r + s);
+                row.createCell(1).setCellFormula(r == 0 ? "A1" : "A" + (r + 1) + "*2+B" + r);
+                row.createCell(2).setCellFormula("TEXT(B" + (r + 1) + ",\"#,##0.00\")");
+                row.createCell(3).setCellFormula("FACTDOUBLE(MOD(A" + (r + 1) + ",20))");
+                if (s % 2 == 1) {
+                    // every second sheet refers to the one before
+                    row.createCell(4).setCellFormula("S" + (s - 1) + "!B" + (r + 1) + "+B" + (r + 1));
+                }
+            }
+        }
+        Workbook serial = HSSFTestDataSamples.writeOutAndReadBack(wb);
+        try {
+            HSSFFormulaEvaluator.evaluateAllFormulaCells(serial);
+
+            ExecutorService executor = Executors.newFixedThreadPool(3);
+            try {
+                BaseFormulaEvaluator.evaluateAllFormulaCells(wb, executor);
+            } finally {
+                executor.shutdown();
+            }
+
+            for (int s = 0; s < 6; s++) {
+                for (Row row : wb.getSheetAt(s)) {
+                    for (Cell cell : row) {
+                        if (cell.getCellTypeEnum() != CellType.FORMULA) {
+                            continue;
+                        }
+                        Cell expected = serial.getSheetAt(s).getRow(row.getRowNum()).getCell(cell.getColumnIndex());
+                        assertEquals(expected.getCachedFormulaResultTypeEnum(), cell.getCachedFormulaResultTypeEnum());
+                        if (cell.getCachedFormulaResultTypeEnum() == CellType.STRING) {
+                            assertEquals(expected.getStringCellValue(), cell.getStringCellValue());
+                        } else {
+                            assertEquals(expected.getNumericCellValue(), cell.getNumericCellValue(), 0);
+                        }
+                    }
+                }
+            }
+            assertTrue(wb.getSheetAt(5).getRow(199).getCell(4).getNumericCellValue() > 0);
+        } finally {
+            serial.close();
+            wb.close();
+        }
+    }
+
+    @Test
+    public void failuresArePassedOn() throws IOException {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        try {
+            wb.createSheet("A").createRow(0).createCell(0).setCellFormula("1+1");
+            // not implemented
+            wb.createSheet("B").createRow(0).createCell(0).setCellFormula("CELL(\"width\",A1)");
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                BaseFormulaEvaluator.evaluateAllFormulaCells(wb, executor);
+                fail("expected NotImplementedException");
+            } catch (NotImplementedException e) {
+                // expected
+            } finally {
+                executor.shutdown();
+            }
+            // the other group was evaluated anyway
+            assertEquals(2, wb.getSheetAt(0).getRow(0).getCell(0).getNumericCellValue(), 0);
+        } finally {
+            wb.close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.apache.poi.hssf.usermodel.HSSFEvaluationWorkbook;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.ptg.RefPtg;
+import org.apache.poi.ss.usermodel.Name;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests, that the cached formula tokens are the same as the parsed ones
+ */
+public final class TestFormulaParseCache {
+
+    /** the cells, in which the copies of each formula are parsed */
+    private static final int[][] CELLS = { { 1, 0 }, { 2, 0 }, { 2, 1 } };
+
+    /** the copies of formulas in the cells B1, B2 and C2 */
+    private static final String[][] COPIES = {
+        { "B2*C2", "B3*C3", "C3*D3" },
+        { "$B$2*C2", "$B$2*C3", "$B$2*D3" },
+        { "B$2+$C2", "B$2+$C3", "C$2+$C3" },
+        { "SUM(A1:B3)", "SUM(A2:B4)", "SUM(B2:C4)" },
+        { "SUM($A$1:B3)/COUNT(A$1:$B3)", "SUM($A$1:B4)/COUNT(A$1:$B4)", "SUM($A$1:C4)/COUNT(B$1:$B4)" },
+        { "IF(A1>0,\"A1\",B1&\"x\"\"y\")", "IF(A2>0,\"A1\",B2&\"x\"\"y\")", "IF(B2>0,\"A1\",C2&\"x\"\"y\")" },
+        { "LOG10(A2)+ATAN2(A1,B1)", "LOG10(A3)+ATAN2(A2,B2)", "LOG10(B3)+ATAN2(B2,C2)" },
+        { "1.5E3+.5-A1%", "1.5E3+.5-A2%", "1.5E3+.5-B2%" },
+        { "IFERROR(A1,#N/A)+#DIV/0!", "IFERROR(A2,#N/A)+#DIV/0!", "IFERROR(B2,#N/A)+#DIV/0!" },
+        { "A1:B2 B1:C3", "A2:B3 B2:C4", "B2:C3 C2:D4" },
+        { "SUM(A:A)+A1", "SUM(A:A)+A2", "SUM(B:B)+B2" },
+        { "SUM(1:2)", "SUM(2:3)", "SUM(2:3)" },
+        { "Sheet2!A1+B1", "Sheet2!A2+B2", "Sheet2!B2+C2" },
+        { "Total*2+A1", "Total*2+A2", "Total*2+B2" },
+        { "TRUE", "TRUE", "TRUE" },
+        { "$IV1+A1", "$IV2+A2", "$IV2+B2" },
+        { "sum(b2, c2)", "sum(b3, c3)", "sum(c3, d3)" },
+        { "CHOOSE(2,A1,B1,C1)", "CHOOSE(2,A2,B2,C2)", "CHOOSE(2,B2,C2,D2)" },
+        { "SUM({1,2;3,4})", "SUM({1,2;3,4})", "SUM({1,2;3,4})" },
+        { "MAX(A1:IU65535)", "MAX(A2:IU65536)", "MAX(B2:IV65536)" },
+    };
+
+    private HSSFWorkbook _wb;
+    private HSSFEvaluationWorkbook _fpwb;
+
+    @Before
+    public void setUp() {
+        _wb = new HSSFWorkbook();
+        _wb.createSheet("Sheet1");
+        _wb.createSheet("Sheet2");
+        Name name = _wb.createName();
+        name.setNameName("Total");
+        name.setRefersToFormula("Sheet1!$A$1");
+        _fpwb = HSSFEvaluationWorkbook.create(_wb);
+        FormulaParseCache.clear();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        _wb.close();
+    }
+
+    @Test
+    public void sameTokensAsParsed() {
+        for (String[] copies : COPIES) {
+            for (int i = 0; i < CELLS.length; i++) {
+                int[] cell = CELLS[i];
+                Ptg[] expected = FormulaParser.parse(copies[i], _fpwb, FormulaType.CELL, 0, cell[0]);
+                Ptg[] actual = FormulaParser.parse(copies[i], _fpwb, FormulaType.CELL, 0, cell[0], cell[1]);
+                assertSameTokens(copies[i], expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void copiesAreParsedOnce() {
+        FormulaParser.parse("B2*C2", _fpwb, FormulaType.CELL, 0, 1, 0);
+        FormulaParser.parse("B3*C3", _fpwb, FormulaType.CELL, 0, 2, 0);
+        FormulaParser.parse("C3*D3", _fpwb, FormulaType.CELL, 0, 2, 1);
+        assertEquals(1, FormulaParseCache.size());
+        // not the same relative references
+        FormulaParser.parse("B2*C2", _fpwb, FormulaType.CELL, 0, 2, 0);
+        assertEquals(2, FormulaParseCache.size());
+        // not cached
+        FormulaParser.parse("Sheet2!A1", _fpwb, FormulaType.CELL, 0, 2, 0);
+        FormulaParser.parse("Total", _fpwb, FormulaType.CELL, 0, 2, 0);
+        assertEquals(2, FormulaParseCache.size());
+    }
+
+    @Test
+    public void invalidReferences() {
+        // B1 moved one row up is out of the sheet
+        FormulaParser.parse("B2", _fpwb, FormulaType.CELL, 0, 1, 1);
+        try {
+            FormulaParser.parse("B0", _fpwb, FormulaType.CELL, 0, 0, 1);
+            fail("expected FormulaParseException");
+        } catch (FormulaParseException e) {
+            // expected
+        }
+        // IW1 would be a name in a HSSF workbook, which doesn't exist
+        try {
+            FormulaParser.parse("IW1+A1", _fpwb, FormulaType.CELL, 0, 0, 1);
+            fail("expected FormulaParseException");
+        } catch (FormulaParseException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void tokensAreCopied() {
+        Ptg[] ptgs1 = FormulaParser.parse("A1+1", _fpwb, FormulaType.CELL, 0, 2, 2);
+        ((RefPtg)ptgs1[0]).setRow(50);
+        Ptg[] ptgs2 = FormulaParser.parse("A1+1", _fpwb, FormulaType.CELL, 0, 2, 2);
+        assertNotSame(ptgs1[0], ptgs2[0]);
+        assertEquals(0, ((RefPtg)ptgs2[0]).getRow());
+    }
+
+    private static void assertSameTokens(String formula, Ptg[] expected, Ptg[] actual) {
+        assertEquals(formula, expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(formula, expected[i].getClass(), actual[i].getClass());
+            assertEquals(formula, expected[i].toString(), actual[i].toString());
+            assertEquals(formula, expected[i].getPtgClass(), actual[i].getPtgClass());
+        }
+    }
+}
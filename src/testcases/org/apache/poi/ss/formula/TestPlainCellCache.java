@@ -62,4 +62,27 @@ public class TestPlainCellCache extends TestCase {
 
         }
     }
+
+    public void testRemoveKeepsOtherEntries() {
+        PlainCellCache cache = new PlainCellCache();
+        int n = 5000;
+        PlainValueCellCacheEntry[] entries = new PlainValueCellCacheEntry[n];
+        for (int i = 0; i < n; i++) {
+            entries[i] = new PlainValueCellCacheEntry(new NumberEval(i));
+            cache.put(Loc.toKey(0, i % 3, i / 3, i % 7), entries[i]);
+        }
+        for (int i = 0; i < n; i += 2) {
+            cache.remove(Loc.toKey(0, i % 3, i / 3, i % 7));
+        }
+        for (int i = 0; i < n; i++) {
+            PlainValueCellCacheEntry expected = i % 2 == 0 ? null : entries[i];
+            assertSame(expected, cache.get(Loc.toKey(0, i % 3, i / 3, i % 7)));
+        }
+        try {
+            Loc.toKey(0, 0, 0x100000, 0);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
 }
@@ -0,0 +1,102 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.Test;
+
+/**
+ * Tests the aggregate functions with whole column and whole row references, which only
+ * read the populated part of the sheet
+ */
+public final class TestSparseAreaEval {
+
+    private static final String[] FORMULAS = {
+        "SUM(Data!A:A)",
+        "COUNT(Data!A:A)",
+        "COUNTA(Data!A:A)",
+        "COUNTBLANK(Data!A:A)",
+        "COUNTIF(Data!A:A,\"\")",
+        "COUNTIF(Data!A:A,\">5\")",
+        "SUMIF(Data!A:A,\">5\",Data!B:B)",
+        "COUNTIFS(Data!A:A,\"\",Data!B:B,\"\")",
+        "SUMIFS(Data!B:B,Data!A:A,\">0\")",
+        "COUNTA(Data!1:1)",
+        "COUNTBLANK(Data!1:1)",
+        "SUM(Data!1:1)",
+        "MAX(Data!A:B)",
+    };
+
+    @Test
+    public void wholeColumnsAndRows() throws IOException {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        try {
+            Sheet data = wb.createSheet("Data");
+            for (int r = 0; r < 10; r++) {
+                Row row = data.createRow(r);
+                if (r != 4) {
+                    row.createCell(0).setCellValue(r + 1);
+                }
+                row.createCell(1).setCellValue((r + 1) * 10);
+            }
+            data.createRow(11).createCell(0).setCellValue("text");
+            Row first = data.getRow(0);
+            first.createCell(2).setCellValue("x");
+            first.createCell(4).setCellValue(5);
+            Row calc = wb.createSheet("Calc").createRow(0);
+            for (int i = 0; i < FORMULAS.length; i++) {
+                calc.createCell(i).setCellFormula(FORMULAS[i]);
+            }
+
+            HSSFFormulaEvaluator fe = wb.getCreationHelper().createFormulaEvaluator();
+            assertValues(fe, calc, 50, 9, 10, 65526, 65526, 5, 400, 65525, 500, 4, 252, 16, 100);
+
+            // below the last row
+            Cell cell = data.createRow(59999).createCell(0);
+            cell.setCellValue(1000);
+            fe.notifyUpdateCell(cell);
+            assertValues(fe, calc, 1050, 10, 11, 65525, 65525, 6, 400, 65524, 500, 4, 252, 16, 1000);
+
+            // right of the last cell
+            cell = first.createCell(7);
+            cell.setCellValue(7);
+            fe.notifyUpdateCell(cell);
+            // a blank cell within the populated part
+            cell = first.createCell(3);
+            cell.setCellValue(2);
+            fe.notifyUpdateCell(cell);
+            assertValues(fe, calc, 1050, 10, 11, 65525, 65525, 6, 400, 65524, 500, 6, 250, 25, 1000);
+        } finally {
+            wb.close();
+        }
+    }
+
+    private static void assertValues(HSSFFormulaEvaluator fe, Row calc, double... expected) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(FORMULAS[i], expected[i], fe.evaluate(calc.getCell(i)).getNumberValue(), 0);
+        }
+    }
+}
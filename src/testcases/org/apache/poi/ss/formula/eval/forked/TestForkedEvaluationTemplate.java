@@ -0,0 +1,183 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula.eval.forked;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.formula.OperationEvaluationContext;
+import org.apache.poi.ss.formula.eval.EvaluationException;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.OperandResolver;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.functions.FreeRefFunction;
+import org.apache.poi.ss.formula.udf.DefaultUDFFinder;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class TestForkedEvaluationTemplate {
+
+    /** the number of evaluations of the COUNTED function */
+    private final AtomicInteger _evaluations = new AtomicInteger();
+
+    private Workbook _wb;
+    private ForkedEvaluationTemplate _template;
+
+    @Before
+    public void setUp() {
+        _wb = createWorkbook();
+        _template = ForkedEvaluationTemplate.create(_wb, Arrays.asList(
+                new CellReference("Inputs!A1"), new CellReference("Inputs!B1"),
+                new CellReference("Inputs!C1")), null);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        _wb.close();
+    }
+
+    /**
+     * a pricing workbook: quantity, price and the missing discount are the inputs
+     */
+    private Workbook createWorkbook() {
+        Workbook wb = new HSSFWorkbook();
+        wb.addToolPack(new DefaultUDFFinder(new String[] { "COUNTED" },
+                new FreeRefFunction[] { new FreeRefFunction() {
+            @Override
+            public ValueEval evaluate(ValueEval[] args, OperationEvaluationContext ec) {
+                _evaluations.incrementAndGet();
+                try {
+                    return OperandResolver.getSingleValue(args[0], ec.getRowIndex(), ec.getColumnIndex());
+                } catch (EvaluationException e) {
+                    return e.getErrorEval();
+                }
+            }
+        } }));
+        Sheet inputs = wb.createSheet("Inputs");
+        Row row = inputs.createRow(0);
+        row.createCell(0).setCellValue(2);
+        row.createCell(1).setCellValue(3);
+
+        Sheet rates = wb.createSheet("Rates");
+        for (int r = 0; r < 100; r++) {
+            rates.createRow(r).createCell(0).setCellValue(r + 1);
+        }
+        rates.getRow(0).createCell(1).setCellFormula("COUNTED(SUM(A1:A100))");
+
+        Sheet calc = wb.createSheet("Calc");
+        calc.createRow(0).createCell(0).setCellFormula("Inputs!A1*Inputs!B1+Rates!B1");
+        calc.createRow(1).createCell(0).setCellFormula("A1*(1-Inputs!C1)");
+        calc.createRow(2).createCell(0).setCellFormula("SUM(Inputs!A:A)");
+        calc.createRow(3).createCell(0).setCellFormula("Rates!B1*2");
+        calc.createRow(4).createCell(0).setCellFormula("SUBTOTAL(9,Rates!A1:A10)");
+        Name name = wb.createName();
+        name.setNameName("Total");
+        name.setRefersToFormula("Calc!$A$1");
+        calc.createRow(5).createCell(0).setCellFormula("Total+1");
+        return wb;
+    }
+
+    private static double evaluate(ForkedEvaluator fe, int rowIndex) {
+        return ((NumberEval) fe.evaluate("Calc", rowIndex, 0)).getNumberValue();
+    }
+
+    @Test
+    public void evaluate() {
+        assertEquals(1, _evaluations.get());
+
+        ForkedEvaluator fe1 = _template.createEvaluator();
+        ForkedEvaluator fe2 = _template.createEvaluator();
+        fe1.updateCell("Inputs", 0, 0, new NumberEval(4));
+        fe1.updateCell("Inputs", 0, 2, new NumberEval(0.5));
+
+        assertEquals(5062, evaluate(fe1, 0), 0);
+        assertEquals(2531, evaluate(fe1, 1), 0);
+        assertEquals(4, evaluate(fe1, 2), 0);
+        assertEquals(10100, evaluate(fe1, 3), 0);
+        assertEquals(55, evaluate(fe1, 4), 0);
+        assertEquals(5063, evaluate(fe1, 5), 0);
+
+        // the values of the workbook
+        assertEquals(5056, evaluate(fe2, 0), 0);
+        assertEquals(5056, evaluate(fe2, 1), 0);
+        assertEquals(2, evaluate(fe2, 2), 0);
+        assertEquals(5057, evaluate(fe2, 5), 0);
+
+        // the dependent formulas are evaluated again
+        fe1.updateCell("Inputs", 0, 0, new NumberEval(1));
+        assertEquals(5053, evaluate(fe1, 0), 0);
+        assertEquals(2526.5, evaluate(fe1, 1), 0);
+        assertEquals(1, evaluate(fe1, 2), 0);
+        assertEquals(5054, evaluate(fe1, 5), 0);
+
+        // the formula, which doesn't depend on the inputs, was only evaluated by the template
+        assertEquals(1, _evaluations.get());
+    }
+
+    @Test
+    public void concurrentEvaluators() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (int t = 0; t < 8; t++) {
+                final int quantity = t;
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int i = 0; i < 50; i++) {
+                            ForkedEvaluator fe = _template.createEvaluator();
+                            fe.updateCell("Inputs", 0, 0, new NumberEval(quantity));
+                            fe.updateCell("Inputs", 0, 1, new NumberEval(i));
+                            fe.updateCell("Inputs", 0, 2, new NumberEval(0.5));
+                            assertEquals((quantity * i + 5050) * 0.5, evaluate(fe, 1), 0);
+                            assertEquals(quantity * i + 5051, evaluate(fe, 5), 0);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, _evaluations.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void inputWithoutSheet() {
+        ForkedEvaluationTemplate.create(_wb, Arrays.asList(new CellReference("A1")), null);
+    }
+}
@@ -0,0 +1,123 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula.eval.forked;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class TestScenarioEvaluator {
+
+    private Workbook _wb;
+    private ScenarioEvaluator _evaluator;
+
+    @Before
+    public void setUp() {
+        _wb = new HSSFWorkbook();
+        Sheet inputs = _wb.createSheet("Inputs");
+        Row row = inputs.createRow(0);
+        row.createCell(0).setCellValue(1);
+        row.createCell(1).setCellValue(1);
+
+        Sheet model = _wb.createSheet("Model");
+        for (int r = 0; r < 50; r++) {
+            model.createRow(r).createCell(0).setCellFormula("ROW()*2");
+        }
+        row = model.getRow(0);
+        row.createCell(1).setCellFormula("SUM(A1:A50)");
+        row.createCell(2).setCellFormula("B1*Inputs!A1+Inputs!B1");
+        row.createCell(3).setCellFormula("Inputs!A1>Inputs!B1");
+        row.createCell(4).setCellFormula("1/(Inputs!A1-1)");
+        row.createCell(5).setCellFormula("IF(Inputs!B1>0,\"positive\",-1)");
+
+        _evaluator = ScenarioEvaluator.create(_wb,
+                Arrays.asList(new CellReference("Inputs!A1"), new CellReference("Inputs!B1")),
+                Arrays.asList(new CellReference("Model!C1"), new CellReference("Model!D1"),
+                        new CellReference("Model!E1"), new CellReference("Model!F1"),
+                        new CellReference("Model!G1"), new CellReference("Model!B1")),
+                null);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        _wb.close();
+    }
+
+    private static double[] expected(double a, double b) {
+        return new double[] {
+            2550 * a + b,
+            a > b ? 1 : 0,
+            a == 1 ? Double.NaN : 1 / (a - 1),
+            b > 0 ? Double.NaN : -1,
+            0,
+            2550,
+        };
+    }
+
+    private static double[][] createScenarios(int n) {
+        double[][] scenarios = new double[n][];
+        for (int s = 0; s < n; s++) {
+            // the second input only changes every few scenarios
+            scenarios[s] = new double[] { s % 7, (s / 5) - 3 };
+        }
+        return scenarios;
+    }
+
+    @Test
+    public void evaluate() {
+        double[][] scenarios = createScenarios(40);
+        double[][] results = _evaluator.evaluate(scenarios);
+        assertEquals(scenarios.length, results.length);
+        for (int s = 0; s < scenarios.length; s++) {
+            assertArrayEquals(expected(scenarios[s][0], scenarios[s][1]), results[s], 0);
+        }
+    }
+
+    @Test
+    public void evaluateConcurrently() {
+        double[][] scenarios = createScenarios(1000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            double[][] results = _evaluator.evaluate(scenarios, executor, 4);
+            assertEquals(scenarios.length, results.length);
+            for (int s = 0; s < scenarios.length; s++) {
+                assertArrayEquals(expected(scenarios[s][0], scenarios[s][1]), results[s], 0);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongNumberOfInputs() {
+        _evaluator.evaluate(new double[][] { { 1, 2 }, { 1 } });
+    }
+}